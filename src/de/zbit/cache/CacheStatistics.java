@@ -0,0 +1,577 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage statistics of an {@link InfoManagement} cache. Counters are
+ * striped over multiple cache lines, so that recording a hit costs only
+ * one uncontended atomic increment, even if many threads read the cache.
+ * Latencies and batch sizes are recorded in histograms with power-of-two
+ * buckets. Thus, percentiles are accurate within a factor of two.
+ *
+ * <p>Use {@link #snapshot()} to get a consistent copy of all values, or
+ * {@link InfoManagement#registerMBean()} to publish the statistics via JMX.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class CacheStatistics implements CacheStatisticsMBean {
+
+  /**
+   * A counter, that is spread over multiple cells to avoid contention.
+   */
+  private static final class StripedCounter {
+    /**
+     * Number of longs per cell. Puts every cell on its own cache line.
+     */
+    private final static int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    StripedCounter(int stripes) {
+      cells = new AtomicLongArray(stripes*PADDING);
+      mask = stripes-1;
+    }
+
+    void add(long x) {
+      long id = Thread.currentThread().getId();
+      cells.addAndGet(((int) (id ^ (id>>>16)) & mask) * PADDING, x);
+    }
+
+    void increment() {
+      add(1);
+    }
+
+    long sum() {
+      long sum = 0;
+      for (int i=0; i<cells.length(); i+=PADDING) {
+        sum += cells.get(i);
+      }
+      return sum;
+    }
+
+    void reset() {
+      for (int i=0; i<cells.length(); i+=PADDING) {
+        cells.set(i, 0);
+      }
+    }
+  }
+
+  /**
+   * A histogram with power-of-two buckets. Bucket {@code i} counts
+   * all values {@code v} with {@code 2^(i-1) <= v < 2^i}.
+   */
+  private static final class Histogram {
+    private final static int BUCKETS = 48;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final StripedCounter sum;
+
+    Histogram(int stripes) {
+      sum = new StripedCounter(stripes);
+    }
+
+    void record(long value) {
+      value = Math.max(0, value);
+      int bucket = Math.min(BUCKETS-1, 64-Long.numberOfLeadingZeros(value));
+      buckets.incrementAndGet(bucket);
+      sum.add(value);
+    }
+
+    long[] copyBuckets() {
+      long[] copy = new long[BUCKETS];
+      for (int i=0; i<copy.length; i++) {
+        copy[i] = buckets.get(i);
+      }
+      return copy;
+    }
+
+    void reset() {
+      for (int i=0; i<BUCKETS; i++) {
+        buckets.set(i, 0);
+      }
+      sum.reset();
+    }
+  }
+
+  /**
+   * An immutable copy of all statistics at a certain time.
+   * All latencies are given in milliseconds.
+   */
+  public static class Snapshot implements Serializable {
+    private static final long serialVersionUID = -2086514232451717375L;
+
+    private final long time = System.currentTimeMillis();
+    private final String cacheName;
+    private final int size;
+    private final int capacity;
+    private final long hits;
+    private final long misses;
+    private final long negativeHits;
+    private final long storeHits;
+    private final long evictions;
+    private final long fetches;
+    private final long batchFetches;
+    private final long batchedIDs;
+    private final long fetchErrors;
+    private final long fetchLatencySum;
+    private final long batchLatencySum;
+    private final long[] fetchLatencies;
+    private final long[] batchLatencies;
+    private final long[] batchSizes;
+
+    private Snapshot(CacheStatistics s) {
+      cacheName = s.getCacheName();
+      size = s.getSize();
+      capacity = s.getCapacity();
+      hits = s.hits.sum();
+      misses = s.misses.sum();
+      negativeHits = s.negativeHits.sum();
+      storeHits = s.storeHits.sum();
+      evictions = s.evictions.sum();
+      fetches = s.fetches.sum();
+      batchFetches = s.batchFetches.sum();
+      batchedIDs = s.batchSizes.sum.sum();
+      fetchErrors = s.fetchErrors.sum();
+      fetchLatencySum = s.fetchLatencies.sum.sum();
+      batchLatencySum = s.batchLatencies.sum.sum();
+      fetchLatencies = s.fetchLatencies.copyBuckets();
+      batchLatencies = s.batchLatencies.copyBuckets();
+      batchSizes = s.batchSizes.copyBuckets();
+    }
+
+    /**
+     * @return the time, this snapshot has been taken.
+     */
+    public long getTime() {
+      return time;
+    }
+
+    public String getCacheName() {
+      return cacheName;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getNegativeHits() {
+      return negativeHits;
+    }
+
+    public long getStoreHits() {
+      return storeHits;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    /**
+     * @return number of all requests (hits, misses and negative hits).
+     */
+    public long getRequests() {
+      return hits + misses + negativeHits;
+    }
+
+    /**
+     * @return hits divided by all requests, or 0 if there were no requests.
+     */
+    public double getHitRatio() {
+      long requests = getRequests();
+      return requests==0 ? 0d : (double) hits / requests;
+    }
+
+    public long getFetches() {
+      return fetches;
+    }
+
+    public long getBatchFetches() {
+      return batchFetches;
+    }
+
+    public long getBatchedIDs() {
+      return batchedIDs;
+    }
+
+    public long getFetchErrors() {
+      return fetchErrors;
+    }
+
+    public double getMeanFetchLatency() {
+      return mean(fetchLatencySum, fetchLatencies) / 1000d;
+    }
+
+    public double getMeanBatchLatency() {
+      return mean(batchLatencySum, batchLatencies) / 1000d;
+    }
+
+    public double getMeanBatchSize() {
+      return mean(batchedIDs, batchSizes);
+    }
+
+    /**
+     * @param p percentile between 0 and 1 (e.g., 0.95).
+     * @return upper bound for the given percentile of single-id fetch
+     * latencies (accurate within a factor of two).
+     */
+    public double getFetchLatencyPercentile(double p) {
+      return percentile(fetchLatencies, p) / 1000d;
+    }
+
+    /**
+     * @param p percentile between 0 and 1 (e.g., 0.95).
+     * @return upper bound for the given percentile of batch fetch
+     * latencies (accurate within a factor of two).
+     */
+    public double getBatchLatencyPercentile(double p) {
+      return percentile(batchLatencies, p) / 1000d;
+    }
+
+    /**
+     * @param p percentile between 0 and 1 (e.g., 0.95).
+     * @return upper bound for the given percentile of batch sizes
+     * (accurate within a factor of two).
+     */
+    public double getBatchSizePercentile(double p) {
+      return percentile(batchSizes, p);
+    }
+
+    private static double mean(long sum, long[] buckets) {
+      long count = 0;
+      for (long c : buckets) {
+        count += c;
+      }
+      return count==0 ? 0d : (double) sum / count;
+    }
+
+    private static double percentile(long[] buckets, double p) {
+      long count = 0;
+      for (long c : buckets) {
+        count += c;
+      }
+      if (count==0) {
+        return 0d;
+      }
+      long rank = (long) Math.ceil(Math.max(0d, Math.min(1d, p)) * count);
+      long seen = 0;
+      for (int i=0; i<buckets.length; i++) {
+        seen += buckets[i];
+        if (seen>=Math.max(1, rank)) {
+          return i==0 ? 0d : (double) ((1L<<i)-1);
+        }
+      }
+      return Double.MAX_VALUE;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return String.format("%s[size=%d/%d, hits=%d, misses=%d, negativeHits=%d, storeHits=%d, evictions=%d, " +
+          "hitRatio=%.3f, fetches=%d (mean %.1f ms, p95 %.1f ms), batchFetches=%d (mean size %.1f, mean %.1f ms, p95 %.1f ms), fetchErrors=%d]",
+          cacheName, size, capacity, hits, misses, negativeHits, storeHits, evictions,
+          getHitRatio(), fetches, getMeanFetchLatency(), getFetchLatencyPercentile(0.95),
+          batchFetches, getMeanBatchSize(), getMeanBatchLatency(), getBatchLatencyPercentile(0.95), fetchErrors);
+    }
+  }
+
+  /**
+   * The observed cache.
+   */
+  private final InfoManagement<?, ?> cache;
+
+  private final StripedCounter hits;
+  private final StripedCounter misses;
+  private final StripedCounter negativeHits;
+  private final StripedCounter storeHits;
+  private final StripedCounter evictions;
+  private final StripedCounter fetches;
+  private final StripedCounter batchFetches;
+  private final StripedCounter fetchErrors;
+  /**
+   * Latencies in microseconds.
+   */
+  private final Histogram fetchLatencies;
+  /**
+   * Latencies in microseconds.
+   */
+  private final Histogram batchLatencies;
+  private final Histogram batchSizes;
+
+  /**
+   * @param cache the observed cache.
+   */
+  CacheStatistics(InfoManagement<?, ?> cache) {
+    this.cache = cache;
+    int stripes = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors())*2);
+    hits = new StripedCounter(stripes);
+    misses = new StripedCounter(stripes);
+    negativeHits = new StripedCounter(stripes);
+    storeHits = new StripedCounter(stripes);
+    evictions = new StripedCounter(stripes);
+    fetches = new StripedCounter(stripes);
+    batchFetches = new StripedCounter(stripes);
+    fetchErrors = new StripedCounter(stripes);
+    fetchLatencies = new Histogram(stripes);
+    batchLatencies = new Histogram(stripes);
+    batchSizes = new Histogram(stripes);
+  }
+
+  void recordHit() {
+    hits.increment();
+  }
+
+  void recordMiss() {
+    misses.increment();
+  }
+
+  void recordNegativeHit() {
+    negativeHits.increment();
+  }
+
+  void recordStoreHit() {
+    storeHits.increment();
+  }
+
+  void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * @param startNanos {@link System#nanoTime()} before the fetch.
+   * @param failed true if the fetch failed with a timeout or any
+   * unexpected exception.
+   */
+  void recordFetch(long startNanos, boolean failed) {
+    fetches.increment();
+    fetchLatencies.record((System.nanoTime()-startNanos)/1000);
+    if (failed) {
+      fetchErrors.increment();
+    }
+  }
+
+  /**
+   * @param startNanos {@link System#nanoTime()} before the fetch.
+   * @param size number of ids in the batch.
+   * @param failed true if the fetch failed with a timeout or any
+   * unexpected exception.
+   */
+  void recordBatchFetch(long startNanos, int size, boolean failed) {
+    batchFetches.increment();
+    batchLatencies.record((System.nanoTime()-startNanos)/1000);
+    batchSizes.record(size);
+    if (failed) {
+      fetchErrors.increment();
+    }
+  }
+
+  /**
+   * @return an immutable copy of the current statistics.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getCacheName()
+   */
+  @Override
+  public String getCacheName() {
+    return cache.getClass().getName();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getSize()
+   */
+  @Override
+  public int getSize() {
+    return cache.getNumberOfCachedInfos();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getCapacity()
+   */
+  @Override
+  public int getCapacity() {
+    return cache.getCacheSize();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getHits()
+   */
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getMisses()
+   */
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getNegativeHits()
+   */
+  @Override
+  public long getNegativeHits() {
+    return negativeHits.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getStoreHits()
+   */
+  @Override
+  public long getStoreHits() {
+    return storeHits.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getEvictions()
+   */
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getHitRatio()
+   */
+  @Override
+  public double getHitRatio() {
+    return snapshot().getHitRatio();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getFetches()
+   */
+  @Override
+  public long getFetches() {
+    return fetches.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getBatchFetches()
+   */
+  @Override
+  public long getBatchFetches() {
+    return batchFetches.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getBatchedIDs()
+   */
+  @Override
+  public long getBatchedIDs() {
+    return batchSizes.sum.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getFetchErrors()
+   */
+  @Override
+  public long getFetchErrors() {
+    return fetchErrors.sum();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getMeanFetchLatency()
+   */
+  @Override
+  public double getMeanFetchLatency() {
+    return snapshot().getMeanFetchLatency();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getFetchLatency95thPercentile()
+   */
+  @Override
+  public double getFetchLatency95thPercentile() {
+    return snapshot().getFetchLatencyPercentile(0.95);
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getMeanBatchLatency()
+   */
+  @Override
+  public double getMeanBatchLatency() {
+    return snapshot().getMeanBatchLatency();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getBatchLatency95thPercentile()
+   */
+  @Override
+  public double getBatchLatency95thPercentile() {
+    return snapshot().getBatchLatencyPercentile(0.95);
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#getMeanBatchSize()
+   */
+  @Override
+  public double getMeanBatchSize() {
+    return snapshot().getMeanBatchSize();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.cache.CacheStatisticsMBean#reset()
+   */
+  @Override
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    negativeHits.reset();
+    storeHits.reset();
+    evictions.reset();
+    fetches.reset();
+    batchFetches.reset();
+    fetchErrors.reset();
+    fetchLatencies.reset();
+    batchLatencies.reset();
+    batchSizes.reset();
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return snapshot().toString();
+  }
+
+}
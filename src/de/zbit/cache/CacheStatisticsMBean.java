@@ -0,0 +1,126 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.cache;
+
+/**
+ * Management interface of {@link CacheStatistics}. All latencies are
+ * given in milliseconds.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @see InfoManagement#registerMBean()
+ */
+public interface CacheStatisticsMBean {
+
+  /**
+   * @return name of the cache implementation.
+   */
+  public String getCacheName();
+
+  /**
+   * @return number of cached informations in memory.
+   */
+  public int getSize();
+
+  /**
+   * @return maximum number of cached informations in memory.
+   */
+  public int getCapacity();
+
+  /**
+   * @return number of requests, answered from memory.
+   */
+  public long getHits();
+
+  /**
+   * @return number of requests, that were not in memory (including
+   * expired informations).
+   */
+  public long getMisses();
+
+  /**
+   * @return number of requests for known unretrievable ids.
+   */
+  public long getNegativeHits();
+
+  /**
+   * @return number of informations, loaded from the persistent store.
+   */
+  public long getStoreHits();
+
+  /**
+   * @return number of informations, evicted from memory.
+   */
+  public long getEvictions();
+
+  /**
+   * @return hits divided by all requests (including negative hits).
+   */
+  public double getHitRatio();
+
+  /**
+   * @return number of single-id fetch attempts.
+   */
+  public long getFetches();
+
+  /**
+   * @return number of batch fetch attempts.
+   */
+  public long getBatchFetches();
+
+  /**
+   * @return total number of ids, requested with batch fetches.
+   */
+  public long getBatchedIDs();
+
+  /**
+   * @return number of fetch attempts (single and batch) that failed
+   * with a timeout or an unexpected exception.
+   */
+  public long getFetchErrors();
+
+  /**
+   * @return mean latency of single-id fetches.
+   */
+  public double getMeanFetchLatency();
+
+  /**
+   * @return approximate 95th percentile of single-id fetch latencies.
+   */
+  public double getFetchLatency95thPercentile();
+
+  /**
+   * @return mean latency of batch fetches.
+   */
+  public double getMeanBatchLatency();
+
+  /**
+   * @return approximate 95th percentile of batch fetch latencies.
+   */
+  public double getBatchLatency95thPercentile();
+
+  /**
+   * @return mean number of ids per batch fetch.
+   */
+  public double getMeanBatchSize();
+
+  /**
+   * Sets all counters to zero.
+   */
+  public void reset();
+
+}
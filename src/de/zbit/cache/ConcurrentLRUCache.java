@@ -0,0 +1,507 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe, size bounded cache with constant time eviction.
+ *
+ * <p>The key space is split into a power-of-two number of segments, each
+ * guarded by its own lock, so that threads working on different keys rarely
+ * block each other. Every segment is a segmented LRU (SLRU): new entries
+ * are put on a <i>probationary</i> list and promoted to a <i>protected</i>
+ * list as soon as they are requested a second time. When a segment is full,
+ * the least recently used probationary entry is removed first. Thus, entries
+ * that have been used only once (e.g., while precaching) cannot displace
+ * frequently used entries. All operations, including eviction, run in O(1).
+ *
+ * <p>In contrast to most {@link Map} implementations, {@link #get(Object)}
+ * modifies the recency order. Use {@link #peek(Object)} to read an entry
+ * without affecting the eviction order. {@code null} keys are permitted,
+ * {@code null} values are not.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ConcurrentLRUCache<K, V> {
+
+  /**
+   * Maximum number of segments (i.e., locks).
+   */
+  private final static int MAX_SEGMENTS = 16;
+
+  /**
+   * Minimum number of entries per segment. Small caches use fewer
+   * segments, because the per-segment capacity is a hard limit and
+   * the LRU order is only maintained within one segment.
+   */
+  private final static int MIN_SEGMENT_SIZE = 32;
+
+  /**
+   * Fraction of a segment that is reserved for protected entries.
+   */
+  private final static double PROTECTED_RATIO = 0.8;
+
+  /**
+   * One element of the doubly linked recency lists.
+   */
+  private static class Node<K, V> {
+    final K key;
+    V value;
+    Node<K, V> prev, next;
+    boolean isProtected = false;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * A doubly linked list of {@link Node}s with a sentinel. The head
+   * is the most recently used element, the tail the least recently used.
+   */
+  private static class NodeList<K, V> {
+    final Node<K, V> sentinel = new Node<K, V>(null, null);
+    int size = 0;
+
+    NodeList() {
+      sentinel.prev = sentinel;
+      sentinel.next = sentinel;
+    }
+
+    void addFirst(Node<K, V> n) {
+      n.next = sentinel.next;
+      n.prev = sentinel;
+      sentinel.next.prev = n;
+      sentinel.next = n;
+      size++;
+    }
+
+    void unlink(Node<K, V> n) {
+      n.prev.next = n.next;
+      n.next.prev = n.prev;
+      n.prev = null;
+      n.next = null;
+      size--;
+    }
+
+    Node<K, V> last() {
+      return sentinel.prev==sentinel ? null : sentinel.prev;
+    }
+
+    void clear() {
+      sentinel.prev = sentinel;
+      sentinel.next = sentinel;
+      size = 0;
+    }
+  }
+
+  /**
+   * One lock stripe of the cache.
+   */
+  private static class Segment<K, V> extends ReentrantLock {
+    private static final long serialVersionUID = 3215744170937232787L;
+
+    final Map<K, Node<K, V>> map;
+    final NodeList<K, V> probation = new NodeList<K, V>();
+    final NodeList<K, V> protectedList = new NodeList<K, V>();
+
+    /**
+     * Maximum number of elements in this segment.
+     */
+    int capacity;
+
+    /**
+     * Current number of elements. Written only under the lock.
+     */
+    volatile int count = 0;
+
+    Segment(int capacity) {
+      this.capacity = capacity;
+      map = new HashMap<K, Node<K, V>>(Math.min(capacity, 1<<16)+1);
+    }
+
+    int maxProtected() {
+      return Math.max(1, (int) (capacity * PROTECTED_RATIO));
+    }
+
+    /**
+     * Marks the node as recently used and promotes
+     * probationary nodes. Must hold the lock.
+     */
+    void touch(Node<K, V> n) {
+      if (n.isProtected) {
+        protectedList.unlink(n);
+        protectedList.addFirst(n);
+      } else {
+        probation.unlink(n);
+        n.isProtected = true;
+        protectedList.addFirst(n);
+        // Demote the least recently used protected entry.
+        if (protectedList.size > maxProtected()) {
+          Node<K, V> demoted = protectedList.last();
+          protectedList.unlink(demoted);
+          demoted.isProtected = false;
+          probation.addFirst(demoted);
+        }
+      }
+    }
+
+    /**
+     * Removes the node from its recency list and the map.
+     * Must hold the lock.
+     */
+    void removeNode(Node<K, V> n) {
+      if (n.isProtected) {
+        protectedList.unlink(n);
+      } else {
+        probation.unlink(n);
+      }
+      map.remove(n.key);
+      count = map.size();
+    }
+
+    /**
+     * @return the entry that should be evicted next or {@code null}
+     * if the segment is empty. Must hold the lock.
+     */
+    Node<K, V> victim() {
+      Node<K, V> n = probation.last();
+      if (n==null) {
+        n = protectedList.last();
+      }
+      return n;
+    }
+
+    /**
+     * Removes entries until at most {@link #capacity} elements are stored.
+     * Must hold the lock.
+     * @param evicted list to append evicted nodes to
+     */
+    void evictOverflow(List<Node<K, V>> evicted) {
+      while (count > capacity) {
+        Node<K, V> n = victim();
+        if (n==null) {
+          break;
+        }
+        removeNode(n);
+        evicted.add(n);
+      }
+    }
+  }
+
+  /**
+   * The lock stripes.
+   */
+  private final Segment<K, V>[] segments;
+
+  /**
+   * Mask to select a segment from a hash.
+   */
+  private final int segmentMask;
+
+  /**
+   * Total maximum number of entries.
+   */
+  private volatile int capacity;
+
+  /**
+   * Creates a new cache that holds at most {@code capacity} elements.
+   * @param capacity the maximum number of entries
+   */
+  public ConcurrentLRUCache(int capacity) {
+    capacity = Math.max(1, capacity);
+    int nSegments = 1;
+    while (nSegments < MAX_SEGMENTS && (nSegments<<1)*MIN_SEGMENT_SIZE <= capacity) {
+      nSegments <<= 1;
+    }
+    @SuppressWarnings("unchecked")
+    Segment<K, V>[] segments = (Segment<K, V>[]) new Segment<?, ?>[nSegments];
+    this.segments = segments;
+    segmentMask = nSegments - 1;
+    this.capacity = capacity;
+    for (int i=0; i<segments.length; i++) {
+      segments[i] = new Segment<K, V>(segmentCapacity(capacity, i));
+    }
+  }
+
+  /**
+   * Distributes the total capacity evenly across all segments.
+   * @param total
+   * @param index
+   * @return capacity of the segment at the given index
+   */
+  private int segmentCapacity(int total, int index) {
+    int base = total / segments.length;
+    return base + (index < (total % segments.length) ? 1 : 0);
+  }
+
+  /**
+   * @param key
+   * @return the segment that is responsible for the given key.
+   */
+  private Segment<K, V> segmentFor(Object key) {
+    if (segments.length==1) {
+      return segments[0];
+    }
+    int h = key==null ? 0 : key.hashCode();
+    // Spread bits, so that the low bits used for the mask are well distributed.
+    h ^= (h >>> 20) ^ (h >>> 12);
+    h ^= (h >>> 7) ^ (h >>> 4);
+    return segments[h & segmentMask];
+  }
+
+  /**
+   * Returns the cached value and marks it as recently used.
+   * @param key
+   * @return the value or {@code null} if it is not cached.
+   */
+  public V get(Object key) {
+    Segment<K, V> s = segmentFor(key);
+    s.lock();
+    try {
+      Node<K, V> n = s.map.get(key);
+      if (n==null) {
+        return null;
+      }
+      s.touch(n);
+      return n.value;
+    } finally {
+      s.unlock();
+    }
+  }
+
+  /**
+   * Returns the cached value without changing the eviction order.
+   * @param key
+   * @return the value or {@code null} if it is not cached.
+   */
+  public V peek(Object key) {
+    Segment<K, V> s = segmentFor(key);
+    s.lock();
+    try {
+      Node<K, V> n = s.map.get(key);
+      return n==null ? null : n.value;
+    } finally {
+      s.unlock();
+    }
+  }
+
+  /**
+   * @param key
+   * @return true if the key is cached. Does not change the eviction order.
+   */
+  public boolean containsKey(Object key) {
+    return peek(key)!=null;
+  }
+
+  /**
+   * Adds or replaces an entry. If the cache is full, the least valuable
+   * entry is evicted.
+   * @param key
+   * @param value must not be {@code null}.
+   * @return the previous value, or {@code null}.
+   */
+  public V put(K key, V value) {
+    if (value==null) {
+      throw new NullPointerException("Null values are not permitted.");
+    }
+    Segment<K, V> s = segmentFor(key);
+    List<Node<K, V>> evicted = null;
+    V old = null;
+    s.lock();
+    try {
+      Node<K, V> n = s.map.get(key);
+      if (n!=null) {
+        old = n.value;
+        n.value = value;
+        s.touch(n);
+      } else {
+        n = new Node<K, V>(key, value);
+        s.map.put(key, n);
+        s.probation.addFirst(n);
+        s.count = s.map.size();
+        if (s.count > s.capacity) {
+          evicted = new ArrayList<Node<K, V>>(1);
+          s.evictOverflow(evicted);
+        }
+      }
+    } finally {
+      s.unlock();
+    }
+    if (evicted!=null) {
+      for (Node<K, V> e : evicted) {
+        onEviction(e.key, e.value);
+      }
+    }
+    return old;
+  }
+
+  /**
+   * Removes an entry.
+   * @param key
+   * @return the removed value or {@code null} if the key was not cached.
+   */
+  public V remove(Object key) {
+    Segment<K, V> s = segmentFor(key);
+    s.lock();
+    try {
+      Node<K, V> n = s.map.get(key);
+      if (n==null) {
+        return null;
+      }
+      s.removeNode(n);
+      return n.value;
+    } finally {
+      s.unlock();
+    }
+  }
+
+  /**
+   * Evicts up to {@code elements} entries, taking the least valuable entry
+   * of each segment in a round-robin fashion.
+   * @param elements number of entries to remove
+   * @return the number of actually removed entries
+   */
+  public int evict(int elements) {
+    int removed = 0;
+    boolean any = true;
+    while (removed<elements && any) {
+      any = false;
+      for (int i=0; i<segments.length && removed<elements; i++) {
+        Segment<K, V> s = segments[i];
+        Node<K, V> n;
+        s.lock();
+        try {
+          n = s.victim();
+          if (n!=null) {
+            s.removeNode(n);
+          }
+        } finally {
+          s.unlock();
+        }
+        if (n!=null) {
+          onEviction(n.key, n.value);
+          removed++;
+          any = true;
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    for (Segment<K, V> s : segments) {
+      s.lock();
+      try {
+        s.map.clear();
+        s.probation.clear();
+        s.protectedList.clear();
+        s.count = 0;
+      } finally {
+        s.unlock();
+      }
+    }
+  }
+
+  /**
+   * @return the current number of entries. Might be slightly outdated
+   * if other threads modify the cache concurrently.
+   */
+  public int size() {
+    int sum = 0;
+    for (Segment<K, V> s : segments) {
+      sum += s.count;
+    }
+    return sum;
+  }
+
+  /**
+   * @return the maximum number of entries.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Changes the maximum number of entries. If the new capacity is smaller
+   * than the current size, the least valuable entries are evicted immediately.
+   * @param capacity
+   */
+  public void setCapacity(int capacity) {
+    capacity = Math.max(1, capacity);
+    this.capacity = capacity;
+    for (int i=0; i<segments.length; i++) {
+      Segment<K, V> s = segments[i];
+      List<Node<K, V>> evicted = new ArrayList<Node<K, V>>();
+      s.lock();
+      try {
+        s.capacity = Math.max(1, segmentCapacity(capacity, i));
+        s.evictOverflow(evicted);
+      } finally {
+        s.unlock();
+      }
+      for (Node<K, V> e : evicted) {
+        onEviction(e.key, e.value);
+      }
+    }
+  }
+
+  /**
+   * Creates a snapshot of all cached entries. The eviction
+   * order is not preserved.
+   * @return a new, modifiable map.
+   */
+  public Map<K, V> toMap() {
+    Map<K, V> ret = new HashMap<K, V>(size()+1);
+    for (Segment<K, V> s : segments) {
+      s.lock();
+      try {
+        for (Node<K, V> n : s.map.values()) {
+          ret.put(n.key, n.value);
+        }
+      } finally {
+        s.unlock();
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Called after an entry has been evicted because of the size limit
+   * (not for explicit {@link #remove(Object)} or {@link #clear()} calls).
+   * No lock is held while this method is invoked.
+   * The default implementation does nothing.
+   * @param key
+   * @param value
+   */
+  protected void onEviction(K key, V value) {
+    // Intended to be overwritten.
+  }
+
+}
@@ -21,24 +21,50 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import de.zbit.exception.UnsuccessfulRetrieveException;
 import de.zbit.io.SerializableTools;
-import de.zbit.util.SortedArrayList;
+import de.zbit.util.RateLimiter;
 import de.zbit.util.progressbar.AbstractProgressBar;
 
 /**
@@ -48,6 +74,13 @@ import de.zbit.util.progressbar.AbstractProgressBar;
  * 
  * A better name for this class is maybe "Cache".
  * 
+ * <p>All methods are thread-safe. The cached elements are held in a
+ * {@link ConcurrentLRUCache}, i.e., the least valuable element is evicted in
+ * constant time as soon as the cache is full.
+ * 
+ * <p>Hits, misses and fetch latencies are recorded in the {@link CacheStatistics}
+ * of every instance (see {@link #getStatistics()} and {@link #registerMBean()}).
+ * 
  * @author Clemens Wrzodek
  * @version $Rev$
  * @since 1.0
@@ -62,14 +95,79 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    */
   public static final transient Logger log = Logger.getLogger(InfoManagement.class.getName());
   
+  /**
+   * The result of a fetch that is currently in progress. Other threads
+   * that request the same id wait for this result.
+   * @param <T> the information type
+   */
+  private static class PendingFetch<T> {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile T result = null;
+    
+    /**
+     * Publishes the result and releases all waiting threads.
+     * @param result might be null, if the fetch was not successful.
+     */
+    void complete(T result) {
+      this.result = result;
+      done.countDown();
+    }
+    
+    /**
+     * Waits until {@link #complete(Object)} has been called.
+     * @return the fetched information (might be null).
+     */
+    T await() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      return result;
+    }
+  }
+  
+  /**
+   * The serialized form of this class. The cache content is written as
+   * plain {@link HashMap} and {@link HashSet}, to stay compatible with caches
+   * that have been serialized by previous versions of this class.
+   */
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("rememberedInfos", Map.class),
+    new ObjectStreamField("unsuccessfulQueries", Set.class),
+    new ObjectStreamField("maxListSize", Integer.TYPE),
+    new ObjectStreamField("version", Integer.TYPE)
+  };
+  
   /**
    * Actual cache content
    */
-  private Map<IDtype, ObjectAndTimestamp<INFOtype>> rememberedInfos;
+  private transient ConcurrentLRUCache<IDtype, ObjectAndTimestamp<INFOtype>> rememberedInfos;
+  /**
+   * Additional cache to remember unsuccessful queries, together
+   * with the time of the failure.
+   */
+  private transient Map<IDtype, Long> unsuccessfulQueries; // Remember those separately
+  
+  /**
+   * Ids that are currently being fetched. Used to let concurrent requests
+   * for the same id wait for the first request, instead of querying the
+   * id multiple times.
+   */
+  private transient ConcurrentMap<IDtype, PendingFetch<INFOtype>> pendingFetches;
+  
   /**
-   * Additional cache to remember unsuccessful queries
+   * Optional second tier on the hard disk. Holds all elements, including
+   * those that have been evicted from {@link #rememberedInfos}.
    */
-  private Set<IDtype> unsuccessfulQueries; // Remember those separately
+  private transient PersistentCacheStore<IDtype, INFOtype> persistentStore = null;
   
   /**
    * Cache size limit
@@ -80,7 +178,66 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * If true, the cache has changed since last reading/writing
    * and should be saved to disk upon exit.
    */
-  private transient boolean cacheChangedSinceLastLoading=false;
+  private transient volatile boolean cacheChangedSinceLastLoading=false;
+  
+  /**
+   * Time in milliseconds after which cached informations expire.
+   * 0 means, informations never expire.
+   */
+  private transient volatile long timeToLive;
+  
+  /**
+   * Time in milliseconds after which unsuccessful queries are retried.
+   * 0 means, unsuccessful queries are never retried.
+   */
+  private transient volatile long negativeTimeToLive;
+  
+  /**
+   * Fraction of the {@link #timeToLive} after which accessed entries
+   * are refreshed in the background. 0 disables refresh-ahead.
+   */
+  private transient volatile double refreshAheadFactor;
+  
+  /**
+   * Background threads to refresh entries that are about to expire.
+   * Shared by all caches.
+   */
+  private static ThreadPoolExecutor refreshExecutor = null;
+  
+  /**
+   * Threads for {@link #getInformationsAsync(Comparable[])}. Shared by all
+   * caches. The number of concurrent fetches is limited per cache by the
+   * {@link #fetchPermits}.
+   */
+  private static ExecutorService asyncExecutor = null;
+  
+  /**
+   * Limits the number of batches that are fetched simultaneously by
+   * {@link #getInformationsAsync(Comparable[])}.
+   */
+  private transient volatile Semaphore fetchPermits;
+  
+  /**
+   * Maximum number of simultaneously fetched batches.
+   */
+  private transient volatile int maxConcurrentFetches;
+  
+  /**
+   * Limits the number of batches per second that are fetched by
+   * {@link #getInformationsAsync(Comparable[])}, or {@code null}.
+   */
+  private transient volatile RateLimiter fetchRateLimiter;
+  
+  /**
+   * Usage statistics of this cache.
+   */
+  private transient CacheStatistics statistics;
+  
+  /**
+   * The name, under which the {@link #statistics} are registered
+   * at the platform MBean server, or {@code null}.
+   */
+  private transient ObjectName mbeanName = null;
   
   /**
    * Version number of this java class.
@@ -108,8 +265,70 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
       log.warning("Initialized a InfoManagement cache with size of " + maxCacheSize);
     }
     this.maxListSize = maxCacheSize;
-    rememberedInfos = new HashMap<IDtype, ObjectAndTimestamp<INFOtype>>(Math.max(this.maxListSize+1, 1));
-    unsuccessfulQueries = new HashSet<IDtype>((10*this.maxListSize)+1); // so many, since usually this does not take much memory.
+    initializeCache(null, null);
+  }
+  
+  /**
+   * Creates the internal data structures and fills them with the given
+   * elements.
+   * @param infos previously cached infos (might be {@code null}).
+   * @param failedIDs previously unsuccessful queries (might be {@code null}).
+   */
+  private void initializeCache(Map<IDtype, ObjectAndTimestamp<INFOtype>> infos, Set<IDtype> failedIDs) {
+    statistics = new CacheStatistics(this);
+    rememberedInfos = new ConcurrentLRUCache<IDtype, ObjectAndTimestamp<INFOtype>>(maxListSize) {
+      /* (non-Javadoc)
+       * @see de.zbit.cache.ConcurrentLRUCache#onEviction(java.lang.Object, java.lang.Object)
+       */
+      @Override
+      protected void onEviction(IDtype key, ObjectAndTimestamp<INFOtype> value) {
+        statistics.recordEviction();
+      }
+    };
+    pendingFetches = new ConcurrentHashMap<IDtype, PendingFetch<INFOtype>>();
+    // Null-tolerant (ids MAY be null) and cheap, since usually this does not take much memory.
+    unsuccessfulQueries = Collections.synchronizedMap(new HashMap<IDtype, Long>(
+        Math.max(16, failedIDs!=null ? failedIDs.size()*2 : 0)));
+    timeToLive = 0;
+    negativeTimeToLive = 0;
+    refreshAheadFactor = 0.8;
+    setMaxConcurrentFetches(4);
+    fetchRateLimiter = null;
+    
+    if (infos!=null) {
+      // Restore the usage order, so that the least recently used items are evicted first.
+      List<Entry<IDtype, ObjectAndTimestamp<INFOtype>>> entries =
+          new ArrayList<Entry<IDtype, ObjectAndTimestamp<INFOtype>>>(infos.entrySet());
+      Collections.sort(entries, new Comparator<Entry<IDtype, ObjectAndTimestamp<INFOtype>>>() {
+        @Override
+        public int compare(Entry<IDtype, ObjectAndTimestamp<INFOtype>> o1,
+          Entry<IDtype, ObjectAndTimestamp<INFOtype>> o2) {
+          long t1 = o1.getValue()==null ? 0 : o1.getValue().getLastUsage();
+          long t2 = o2.getValue()==null ? 0 : o2.getValue().getLastUsage();
+          return t1<t2 ? -1 : (t1==t2 ? 0 : 1);
+        }
+      });
+      for (Entry<IDtype, ObjectAndTimestamp<INFOtype>> e : entries) {
+        if (e.getValue()!=null) {
+          rememberedInfos.put(e.getKey(), e.getValue());
+        }
+      }
+    }
+    if (failedIDs!=null) {
+      addUnsuccessfulQueries(failedIDs);
+    }
+  }
+  
+  /**
+   * Remembers the given ids as unsuccessful queries. Since the time of
+   * the failure is unknown, the current time is used.
+   * @param failedIDs
+   */
+  private void addUnsuccessfulQueries(Collection<IDtype> failedIDs) {
+    Long now = System.currentTimeMillis();
+    for (IDtype id : failedIDs) {
+      unsuccessfulQueries.put(id, now);
+    }
   }
   
   /**
@@ -148,6 +367,7 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    */
   public void setCacheSize(int cacheSize) {
     this.maxListSize = cacheSize;
+    rememberedInfos.setCapacity(cacheSize);
   }
   
   /**
@@ -155,11 +375,14 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    */
   public void clearCache() {
     cacheChangedSinceLastLoading |= (unsuccessfulQueries.size()>0 || rememberedInfos.size()>0);
-    synchronized (rememberedInfos) {
-      rememberedInfos.clear();
-    }
-    synchronized (unsuccessfulQueries) {
-      unsuccessfulQueries.clear();
+    rememberedInfos.clear();
+    unsuccessfulQueries.clear();
+    if (persistentStore!=null) {
+      try {
+        persistentStore.clear();
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Could not clear the persistent cache store.", e);
+      }
     }
   }
   
@@ -168,8 +391,13 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    */
   public void clearFailCache() {
     cacheChangedSinceLastLoading |= (unsuccessfulQueries.size()>0);
-    synchronized (unsuccessfulQueries) {
-      unsuccessfulQueries.clear();
+    unsuccessfulQueries.clear();
+    if (persistentStore!=null) {
+      try {
+        persistentStore.clearUnretrievable();
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Could not clear the persistent cache store.", e);
+      }
     }
   }
   
@@ -180,11 +408,415 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * This does NOT reflect time stamp changes of the cached informations. Just
    * adding and removing items is reflected by this flag.
    * 
+   * <p>If a {@link PersistentCacheStore} is attached, all changes are written
+   * immediately and this method always returns false.
+   * 
    * @return class has been changed since last readObject() (serializable loading),
    * writeObject() (serializable saving) or since initializing.
    */
   public boolean isCacheChangedSinceLastLoading() {
-    return cacheChangedSinceLastLoading;
+    return cacheChangedSinceLastLoading && persistentStore==null;
+  }
+  
+  /**
+   * Attaches a persistent store as second tier to this cache. Afterwards, all
+   * new and removed elements are written incrementally to the store, and
+   * elements that are not in memory are loaded from the store on first access,
+   * before they are fetched again.
+   * 
+   * <p>If the given store is empty, the current content of this cache is
+   * copied to the store. Use this to migrate caches that have been saved by
+   * {@link #saveToFilesystem(String, InfoManagement)}, i.e., load the old
+   * cache with {@link #loadFromFilesystem(String)} and attach a new store.
+   * 
+   * @param store the store to use (or {@code null} to detach the current store).
+   * @throws IOException if copying the current content fails.
+   */
+  public synchronized void setPersistentStore(PersistentCacheStore<IDtype, INFOtype> store) throws IOException {
+    if (store!=null) {
+      if (store.size()==0 && store.getUnretrievableKeys().isEmpty()) {
+        copyTo(store);
+      } else {
+        // Keep the original failure times, to expire them correctly
+        unsuccessfulQueries.putAll(store.getUnretrievableTimes());
+      }
+    }
+    persistentStore = store;
+  }
+  
+  /**
+   * Opens (or creates) the {@link PersistentCacheStore} in the given file and
+   * attaches it to this cache.
+   * @param storeFile
+   * @throws IOException
+   * @see #setPersistentStore(PersistentCacheStore)
+   */
+  public void usePersistentStore(File storeFile) throws IOException {
+    setPersistentStore(new PersistentCacheStore<IDtype, INFOtype>(storeFile));
+  }
+  
+  /**
+   * @return the attached persistent store or {@code null}.
+   */
+  public PersistentCacheStore<IDtype, INFOtype> getPersistentStore() {
+    return persistentStore;
+  }
+  
+  /**
+   * @return the usage statistics of this cache.
+   */
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+  
+  /**
+   * Publishes the {@link #getStatistics()} of this cache at the platform
+   * MBean server (e.g., to monitor them with JConsole). The MBean is
+   * named {@code de.zbit.cache:type=InfoManagement,name=<class>,id=<n>}.
+   * Since the MBean server holds a reference to this cache, call
+   * {@link #unregisterMBean()} when the cache is not used anymore.
+   * @return the name of the MBean, or {@code null} if the registration failed.
+   */
+  public synchronized ObjectName registerMBean() {
+    if (mbeanName==null) {
+      try {
+        ObjectName name = new ObjectName(String.format("de.zbit.cache:type=InfoManagement,name=%s,id=%s",
+          ObjectName.quote(getClass().getName()), Integer.toHexString(System.identityHashCode(this))));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, name);
+        mbeanName = name;
+      } catch (JMException e) {
+        log.log(Level.WARNING, "Could not register the cache statistics MBean.", e);
+      }
+    }
+    return mbeanName;
+  }
+  
+  /**
+   * Removes the MBean, that has been registered with {@link #registerMBean()}.
+   */
+  public synchronized void unregisterMBean() {
+    if (mbeanName!=null) {
+      try {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(mbeanName)) {
+          server.unregisterMBean(mbeanName);
+        }
+      } catch (JMException e) {
+        log.log(Level.WARNING, "Could not unregister the cache statistics MBean.", e);
+      }
+      mbeanName = null;
+    }
+  }
+  
+  /**
+   * Writes all cached informations and unsuccessful queries to the given store.
+   * @param store
+   * @throws IOException
+   */
+  void copyTo(PersistentCacheStore<IDtype, INFOtype> store) throws IOException {
+    for (Entry<IDtype, ObjectAndTimestamp<INFOtype>> e : rememberedInfos.toMap().entrySet()) {
+      store.put(e.getKey(), e.getValue().getInformation(false), e.getValue().getCreationTime());
+    }
+    Map<IDtype, Long> failedIDs;
+    synchronized (unsuccessfulQueries) {
+      failedIDs = new HashMap<IDtype, Long>(unsuccessfulQueries);
+    }
+    for (Entry<IDtype, Long> e : failedIDs.entrySet()) {
+      store.markUnretrievable(e.getKey(), e.getValue());
+    }
+  }
+  
+  /**
+   * Looks the given id up in the {@link #persistentStore} and adds it to the
+   * in-memory cache, if it is found.
+   * @param id
+   * @return the stored entry (that might be expired) or {@code null}.
+   */
+  private ObjectAndTimestamp<INFOtype> loadPersistedEntry(IDtype id) {
+    PersistentCacheStore<IDtype, INFOtype> store = persistentStore;
+    if (store==null || !store.containsKey(id)) {
+      return null;
+    }
+    try {
+      ObjectAndTimestamp<INFOtype> o = store.getEntry(id);
+      if (o!=null) {
+        statistics.recordStoreHit();
+        rememberedInfos.put(id, o);
+      }
+      return o;
+    } catch (IOException e) {
+      log.log(Level.WARNING, "Could not read from the persistent cache store.", e);
+      return null;
+    }
+  }
+  
+  /**
+   * Looks the given id up in memory and in the {@link #persistentStore}.
+   * @param id
+   * @return the entry (that might be expired) or {@code null}.
+   */
+  private ObjectAndTimestamp<INFOtype> lookup(IDtype id) {
+    ObjectAndTimestamp<INFOtype> o = rememberedInfos.get(id);
+    if (o==null) {
+      // Maybe evicted from memory, but still available on disk.
+      o = loadPersistedEntry(id);
+    }
+    return o;
+  }
+  
+  /**
+   * Decides what to do with an expired entry that could not be fetched again.
+   * @param id
+   * @param o the expired entry
+   * @return the expired information, if fetching failed temporarily, or
+   * {@code null} if the id is unretrievable now.
+   */
+  private INFOtype keepExpiredInformation(IDtype id, ObjectAndTimestamp<INFOtype> o) {
+    if (isUnretrievable(id)) {
+      rememberedInfos.remove(id);
+      return null;
+    }
+    return o.getInformation();
+  }
+  
+  /**
+   * Sets the time after which cached informations expire. Expired
+   * informations are fetched again upon the next request. If fetching
+   * fails temporarily (e.g., a timeout), the expired information is
+   * returned instead.
+   * @param duration 0 (the default) means, informations never expire.
+   * @param unit
+   */
+  public void setTimeToLive(long duration, TimeUnit unit) {
+    timeToLive = unit.toMillis(Math.max(0, duration));
+  }
+  
+  /**
+   * @return time in milliseconds after which cached informations
+   * expire, or 0 if they never expire.
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+  
+  /**
+   * Sets the time after which unsuccessful queries are retried. This
+   * should be used if ids can not be retrieved because of transient errors
+   * of the source (e.g., a database outage).
+   * @param duration 0 (the default) means, unsuccessful queries are never
+   * retried (unless {@link #clearFailCache()} is called).
+   * @param unit
+   */
+  public void setNegativeTimeToLive(long duration, TimeUnit unit) {
+    negativeTimeToLive = unit.toMillis(Math.max(0, duration));
+  }
+  
+  /**
+   * @return time in milliseconds after which unsuccessful queries
+   * are retried, or 0 if they are never retried.
+   */
+  public long getNegativeTimeToLive() {
+    return negativeTimeToLive;
+  }
+  
+  /**
+   * Entries that are requested after this fraction of the {@link #getTimeToLive()}
+   * are refreshed asynchronously in the background. Thus, frequently used
+   * entries are renewed before they expire, without blocking any read.
+   * @param factor between 0 and 1 (default: 0.8). 0 disables refresh-ahead.
+   */
+  public void setRefreshAheadFactor(double factor) {
+    if (factor<0 || factor>1) {
+      throw new IllegalArgumentException("Refresh-ahead factor must be between 0 and 1.");
+    }
+    refreshAheadFactor = factor;
+  }
+  
+  /**
+   * @return the fraction of the {@link #getTimeToLive()} after which
+   * entries are refreshed in the background.
+   * @see #setRefreshAheadFactor(double)
+   */
+  public double getRefreshAheadFactor() {
+    return refreshAheadFactor;
+  }
+  
+  /**
+   * @param o
+   * @return true if the given entry is older than the {@link #timeToLive}.
+   */
+  private boolean isExpired(ObjectAndTimestamp<INFOtype> o) {
+    long ttl = timeToLive;
+    return ttl>0 && o.getAge()>ttl;
+  }
+  
+  /**
+   * Checks if the given id is a known unsuccessful query. Removes
+   * the id from the {@link #unsuccessfulQueries}, if it is expired.
+   * @param id
+   * @return true if the id should not be queried again.
+   */
+  private boolean isUnretrievable(IDtype id) {
+    Long failedAt = unsuccessfulQueries.get(id);
+    if (failedAt==null) {
+      return false;
+    }
+    long ttl = negativeTimeToLive;
+    if (ttl>0 && System.currentTimeMillis()-failedAt>ttl) {
+      unsuccessfulQueries.remove(id);
+      if (persistentStore!=null) {
+        try {
+          persistentStore.remove(id);
+        } catch (IOException e) {
+          log.log(Level.WARNING, "Could not write to the persistent cache store.", e);
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+  
+  /**
+   * Schedules an asynchronous refresh of the given id, if the entry is
+   * close to expiry and the id is not already being fetched.
+   * @param id
+   * @param o the current entry of the id.
+   */
+  private void refreshIfRequired(final IDtype id, ObjectAndTimestamp<INFOtype> o) {
+    long ttl = timeToLive;
+    double factor = refreshAheadFactor;
+    if (id==null || ttl<=0 || factor<=0 || o.getAge()<=ttl*factor) {
+      return;
+    }
+    final PendingFetch<INFOtype> pending = new PendingFetch<INFOtype>();
+    if (pendingFetches.putIfAbsent(id, pending)!=null) {
+      return; // Already being fetched.
+    }
+    Runnable refresh = new Runnable() {
+      /* (non-Javadoc)
+       * @see java.lang.Runnable#run()
+       */
+      @Override
+      public void run() {
+        INFOtype info = null;
+        try {
+          info = fetchInformationWrapper(id);
+          if (info!=null) {
+            addInformation(id, info);
+          } else if (isUnretrievable(id)) {
+            // The id does not exist anymore.
+            rememberedInfos.remove(id);
+          } else {
+            // Temporary error. Keep the old information.
+            ObjectAndTimestamp<INFOtype> old = rememberedInfos.peek(id);
+            info = old==null ? null : old.getInformation(false);
+          }
+        } finally {
+          pending.complete(info);
+          pendingFetches.remove(id, pending);
+        }
+      }
+    };
+    try {
+      getRefreshExecutor().execute(refresh);
+    } catch (RejectedExecutionException e) {
+      // Too many pending refreshes. Try again on the next request.
+      pending.complete(o.getInformation(false));
+      pendingFetches.remove(id, pending);
+    }
+  }
+  
+  /**
+   * @return the shared executor for background refreshes.
+   */
+  private static synchronized ThreadPoolExecutor getRefreshExecutor() {
+    if (refreshExecutor==null) {
+      refreshExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(1000), createThreadFactory("InfoManagement-refresh-"));
+      refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+    return refreshExecutor;
+  }
+  
+  /**
+   * @return the shared executor for asynchronous fetches.
+   */
+  private static synchronized ExecutorService getAsyncExecutor() {
+    if (asyncExecutor==null) {
+      asyncExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+        new SynchronousQueue<Runnable>(), createThreadFactory("InfoManagement-fetch-"));
+    }
+    return asyncExecutor;
+  }
+  
+  /**
+   * @param prefix thread name prefix
+   * @return a factory for numbered daemon threads.
+   */
+  private static ThreadFactory createThreadFactory(final String prefix) {
+    return new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+      /* (non-Javadoc)
+       * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+       */
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, prefix + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    };
+  }
+  
+  /**
+   * Sets the maximum number of batches that are fetched simultaneously
+   * by {@link #getInformationsAsync(Comparable[])}. Changes only affect
+   * batches that are started afterwards.
+   * @param maxConcurrentFetches at least 1 (default: 4).
+   */
+  public void setMaxConcurrentFetches(int maxConcurrentFetches) {
+    if (maxConcurrentFetches<1) {
+      throw new IllegalArgumentException("At least one concurrent fetch is required.");
+    }
+    this.maxConcurrentFetches = maxConcurrentFetches;
+    fetchPermits = new Semaphore(maxConcurrentFetches);
+  }
+  
+  /**
+   * @return the maximum number of simultaneously fetched batches.
+   * @see #setMaxConcurrentFetches(int)
+   */
+  public int getMaxConcurrentFetches() {
+    return maxConcurrentFetches;
+  }
+  
+  /**
+   * Limits the number of batches per second, that are started by
+   * {@link #getInformationsAsync(Comparable[])}. Use this to comply
+   * with the usage policy of web services.
+   * @param batchesPerSecond 0 (the default) means unlimited.
+   */
+  public void setMaxFetchRate(double batchesPerSecond) {
+    fetchRateLimiter = batchesPerSecond>0 ? new RateLimiter(batchesPerSecond) : null;
+  }
+  
+  /**
+   * @return maximum number of batches per second, or 0 if unlimited.
+   * @see #setMaxFetchRate(double)
+   */
+  public double getMaxFetchRate() {
+    RateLimiter limiter = fetchRateLimiter;
+    return limiter==null ? 0d : limiter.getRate();
+  }
+  
+  /**
+   * Number of ids per batch in {@link #getInformationsAsync(Comparable[])}.
+   * Override this, if the source has a limit for the number of ids per query.
+   * @return number of ids, passed to one {@link #fetchMultipleInformations(Comparable[])}
+   * call (default: 100).
+   */
+  protected int getAsyncBatchSize() {
+    return 100;
   }
   
   /**
@@ -203,14 +835,16 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * @param infoObject
    */
   private void addInformation(IDtype id, ObjectAndTimestamp<INFOtype> info) {
-    // Ensure constant max list capacity. Remove least frequently used item.
-    if (isCacheFull()) {
-      freeCache(Math.max(10, (int)((maxListSize)*0.1)));
-    }
-    synchronized (rememberedInfos) {
-      rememberedInfos.put(id, info);
-    }
+    // Ensures constant max list capacity. Removes the least valuable item.
+    rememberedInfos.put(id, info);
     cacheChangedSinceLastLoading=true;
+    if (persistentStore!=null) {
+      try {
+        persistentStore.put(id, info.getInformation(false));
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Could not write to the persistent cache store.", e);
+      }
+    }
   }
   
   /**
@@ -225,44 +859,13 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * Tries to remove the least used object first and to preserve
    * objects, that are recently added/used.
    * 
-   * <p>You should try to remove a bunch of elements at once,
-   * because removing elements might take some time O(n).
-   * 
    * @param elements number of elements to remove.
    */
-  private void freeCache(int elements) {
-    // Sort the list by lastUsage and delete lowest time-stamps.
-    List<IDtype> keysToDelete = new ArrayList<IDtype>(elements+1);
-    SortedArrayList<Long> minDate = new SortedArrayList<Long>(elements+1);
-    long maxMinDate = Long.MAX_VALUE;
-    
-    int removedElements =0;
-    synchronized (rememberedInfos) {
-      Iterator<Entry<IDtype, ObjectAndTimestamp<INFOtype>>> it = rememberedInfos.entrySet().iterator();
-      while (it.hasNext()) {
-        Entry<IDtype, ObjectAndTimestamp<INFOtype>> entry = it.next();
-        long usageDate = entry.getValue().getLastUsage();
-        
-        if(usageDate<maxMinDate || keysToDelete.size() < elements) {
-          minDate.add(usageDate);
-          keysToDelete.add(minDate.getIndexOfLastAddedItem(), entry.getKey());
-          maxMinDate = minDate.get(minDate.size()-1);
-          // XXX: It would be good to have a break condition (i.e. good enough)
-          // here, to speedup the whole process.
-          //if (minMaxDate<1) break;
-        }
-      }
-      
-      // If some honks set list size to 0 or -1, itemToDelete is -1.
-      if (keysToDelete.size()>=0) {
-        for (int i=0; i<Math.min(elements, keysToDelete.size()); i++) {
-          if (rememberedInfos.remove(keysToDelete.get(i))!=null) {
-            removedElements++;
-          }
-        }
-      }
+  protected void freeCache(int elements) {
+    int removedElements = rememberedInfos.evict(elements);
+    if (removedElements>0) {
+      cacheChangedSinceLastLoading=true;
     }
-    
     log.fine(String.format("Removed %s elements from %s-Cache.", removedElements, getClass().getName()));
   }
   
@@ -272,14 +875,18 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * @return true, if the element has been found and removed. False instead.
    */
   public boolean removeInformation(IDtype id) {
-    boolean found = false;
-    synchronized (rememberedInfos) {
-      found = rememberedInfos.remove(id)!=null;
-    }
+    boolean found = rememberedInfos.remove(id)!=null;
     
     if (!found) {
-      synchronized (unsuccessfulQueries) {
-        found = unsuccessfulQueries.remove(id);
+      found = unsuccessfulQueries.remove(id)!=null;
+    }
+    
+    if (persistentStore!=null) {
+      try {
+        found |= persistentStore.containsKey(id);
+        persistentStore.remove(id);
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Could not write to the persistent cache store.", e);
       }
     }
     
@@ -314,15 +921,18 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * @return INFOtype if info could be retrieved successfully, null instead.
    */
   private INFOtype fetchInformationWrapper(IDtype id) {
-    if (unsuccessfulQueries.contains(id))
+    if (isUnretrievable(id))
     {
       return null; // Don't have to try it again.
     }
     INFOtype ret=null;
     int retried=0;
     while (ret==null) {
+      long start = System.nanoTime();
+      boolean failed = true;
       try {
         ret = fetchInformation(id);
+        failed = false;
         if (ret==null) {
           throw new UnsuccessfulRetrieveException();
         }
@@ -335,6 +945,7 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
           break;
         }
       } catch (UnsuccessfulRetrieveException e) {
+        failed = false;
         markAsUnretrievable(id, e);
         break;
       } catch (Throwable t) {
@@ -345,6 +956,8 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
         t.printStackTrace();
         ret=null;
         break;
+      } finally {
+        statistics.recordFetch(start, failed);
       }
     }
     
@@ -358,10 +971,25 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
   private void markAsUnretrievable(IDtype id, UnsuccessfulRetrieveException e) {
     log.log(Level.FINE, "Unsuccessful retrieval, marking " +
         (id ==null?"null": id.toString()) + " as unretrievable", e);
-    synchronized (unsuccessfulQueries) {
-      unsuccessfulQueries.add(id);
-    }
+    unsuccessfulQueries.put(id, System.currentTimeMillis());
     cacheChangedSinceLastLoading=true;
+    persistUnretrievable(id);
+  }
+  
+  /**
+   * Writes the unretrievable id and the time of the failure to the
+   * {@link #persistentStore}, if any.
+   * @param id
+   */
+  private void persistUnretrievable(IDtype id) {
+    if (persistentStore!=null) {
+      Long failedAt = unsuccessfulQueries.get(id);
+      try {
+        persistentStore.markUnretrievable(id, failedAt!=null ? failedAt : System.currentTimeMillis());
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Could not write to the persistent cache store.", e);
+      }
+    }
   }
   
   
@@ -408,8 +1036,11 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
     
     int retried=0;
     while (ret==null) {
+      long start = System.nanoTime();
+      boolean failed = true;
       try {
         ret = fetchMultipleInformations(ids, progress);
+        failed = false;
         
         // Cache the unsuccessfulQueries
         if (ret==null) {
@@ -430,16 +1061,18 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
           break;
         }
       } catch (UnsuccessfulRetrieveException e) {
+        failed = false;
         String example = null;
         if (ids!=null && ids.length>0) {
           example = (ids[0]==null?"null":ids[0].toString());
         }
         log.log(Level.FINE, "Unsuccessful retrieval, marking ALL IDs as unretrievable"+
             (example!=null?" (e.g., '" +example+"')": ""), e);
-        synchronized (unsuccessfulQueries) {
-          unsuccessfulQueries.addAll(Arrays.asList(ids));
-        }
+        addUnsuccessfulQueries(Arrays.asList(ids));
         cacheChangedSinceLastLoading=true;
+        for (IDtype id : ids) {
+          persistUnretrievable(id);
+        }
         break;
       } catch (Throwable t) {
         // do NOT retry and do NOT save anything... simply return the null
@@ -449,6 +1082,8 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
         t.printStackTrace();
         ret=null;
         break;
+      } finally {
+        statistics.recordBatchFetch(start, ids.length, failed);
       }
     }
     
@@ -458,21 +1093,54 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
   /**
    * Retrieve a single information. This will use the cached information, if available. Else,
    * it will call the fetchInformation method and cache the answer.
+   * 
+   * <p>If another thread is already fetching the same id, this method does not
+   * query the id again, but waits for the result of the other thread.
    * @param id - id to query.
    * @return INFOtype - the answer.
+   * @see #setTimeToLive(long, TimeUnit)
    */
   public INFOtype getInformation(IDtype id) {
     ObjectAndTimestamp<INFOtype> o = rememberedInfos.get(id);
-    if (o!=null) {
+    if (o!=null && !isExpired(o)) {
+      statistics.recordHit();
+      refreshIfRequired(id, o);
       return o.getInformation();
-    } else {
-      // Retrieve object and store it.
-      INFOtype info = fetchInformationWrapper(id);
-      if (info!=null) {
-        addInformation(id, info);
+    } else if (o==null && isUnretrievable(id)) {
+      statistics.recordNegativeHit();
+      return null; // Don't have to try it again.
+    }
+    statistics.recordMiss();
+    if (id==null) {
+      return fetchInformationWrapper(id);
+    }
+    
+    PendingFetch<INFOtype> pending = new PendingFetch<INFOtype>();
+    PendingFetch<INFOtype> other = pendingFetches.putIfAbsent(id, pending);
+    if (other!=null) {
+      return other.await();
+    }
+    
+    INFOtype info = null;
+    try {
+      // Another thread might have finished this id since our first lookup.
+      o = lookup(id);
+      if (o!=null && !isExpired(o)) {
+        info = o.getInformation();
+      } else {
+        // Retrieve object and store it.
+        info = fetchInformationWrapper(id);
+        if (info!=null) {
+          addInformation(id, info);
+        } else if (o!=null) {
+          info = keepExpiredInformation(id, o);
+        }
       }
-      return info;
+    } finally {
+      pending.complete(info);
+      pendingFetches.remove(id, pending);
     }
+    return info;
   }
   
   
@@ -495,98 +1163,308 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * @param progress optional aditional progress bar (might be null)
    * @return INFOtype array of same size, with same ordering as ids.
    */
-  @SuppressWarnings("unchecked")
   public INFOtype[] getInformations(IDtype[] ids, AbstractProgressBar progress) {
+    return getInformations(ids, progress, false);
+  }
+  
+  /**
+   * Asynchronous variant of {@link #getInformations(Comparable[])}. Ids that are not
+   * cached are split into batches of {@link #getAsyncBatchSize()} ids, which
+   * are fetched simultaneously (see {@link #setMaxConcurrentFetches(int)} and
+   * {@link #setMaxFetchRate(double)}). Every batch is added to the cache as
+   * soon as it arrives, i.e., {@link #getInformation(Comparable)} can use
+   * the results before all batches are finished.
+   * @param ids ids to query.
+   * @return a future for an array of same size, with same ordering as ids.
+   */
+  public Future<INFOtype[]> getInformationsAsync(final IDtype[] ids) {
+    FutureTask<INFOtype[]> task = new FutureTask<INFOtype[]>(new Callable<INFOtype[]>() {
+      /* (non-Javadoc)
+       * @see java.util.concurrent.Callable#call()
+       */
+      @Override
+      public INFOtype[] call() throws Exception {
+        return getInformations(ids, null, true);
+      }
+    });
+    getAsyncExecutor().execute(task);
+    return task;
+  }
+  
+  /**
+   * Retrieve multiple informations.
+   * @param ids ids to query.
+   * @param progress optional aditional progress bar (might be null)
+   * @param pipelined if true, uncached ids are fetched in simultaneous batches.
+   * @return INFOtype array of same size, with same ordering as ids.
+   * @see #getInformations(Comparable[], AbstractProgressBar)
+   * @see #getInformationsAsync(Comparable[])
+   */
+  @SuppressWarnings("unchecked")
+  private INFOtype[] getInformations(IDtype[] ids, AbstractProgressBar progress, boolean pipelined) {
     if (ids==null) {
       return null;
     }
-    List<IDtype> unknownIDs = new ArrayList<IDtype>();
+    Map<IDtype, Integer> unknownIDs = new LinkedHashMap<IDtype, Integer>();
+    // Remember the cached elements, other threads might evict them meanwhile.
+    Object[] cachedInfos = new Object[ids.length];
     
     // Look if at least one of the ids is in the cache
     INFOtype anyCachedInfo=null;
-    for (IDtype id: ids) {
+    for (int i=0; i<ids.length; i++) {
+      IDtype id = ids[i];
       if (id==null) {
         continue;
       }
       ObjectAndTimestamp<INFOtype> o = rememberedInfos.get(id);
-      if (o==null && !unsuccessfulQueries.contains(id)) { // Same if-order as below!
-        unknownIDs.add(id);
+      if (o!=null && isExpired(o)) {
+        o = null;
+      } else if (o!=null) {
+        statistics.recordHit();
+        refreshIfRequired(id, o);
+      }
+      cachedInfos[i] = o;
+      if (o==null && isUnretrievable(id)) {
+        statistics.recordNegativeHit();
+      } else if (o==null) {
+        statistics.recordMiss();
+        if (!unknownIDs.containsKey(id)) {
+          unknownIDs.put(id, unknownIDs.size());
+        }
       } else {
-        if (anyCachedInfo==null) {
+        if (anyCachedInfo==null && o!=null) {
           anyCachedInfo=o.getInformation(false);
         }
       }
     }
     
-    if (anyCachedInfo!=null) {
-      // Some elements are already in our cache.
-      
-      // Retain all elements that have to be fetched
-      IDtype[] filtIDs = (IDtype[]) createNewArray(ids,unknownIDs.size());
-      for (int i=0; i<unknownIDs.size(); i++) {
-        Array.set(filtIDs, i, unknownIDs.get(i));
+    // Fetch new items
+    INFOtype[] newItems=null;
+    if (unknownIDs.size()>0) {
+      if (pipelined) {
+        newItems = fetchUnknownIDsPipelined(ids, unknownIDs.keySet());
+      } else {
+        newItems = fetchUnknownIDs(ids, unknownIDs.keySet(), progress);
       }
-      
-      INFOtype[] newItems=null;
-      if (unknownIDs.size()>0) {
-        
-        // Fetch new items
-        newItems = fetchMultipleInformationWrapper(filtIDs, progress);
-        
-        // Free enough cache for them
-        if (isCacheFull()) {
-          freeCache(Math.max(Math.max(10, unknownIDs.size()), (int)((maxListSize)*0.1)));
+    }
+    if (newItems==null && anyCachedInfo==null) {
+      // Nothing is cached and nothing could be retrieved.
+      return null;
+    }
+    
+    // Big Problem: Java does not permit creating an generic array
+    //INFOtype[] infos = new INFOtype[ids.length]; // Not permitted... workaround:
+    INFOtype[] infos = (INFOtype[]) createNewArray(newItems!=null ? newItems : anyCachedInfo, ids.length);
+    for (int i=0; i<ids.length; i++) {
+      ObjectAndTimestamp<INFOtype> o = (ObjectAndTimestamp<INFOtype>) cachedInfos[i];
+      if (o!=null) {
+        infos[i] = o.getInformation();
+      } else if (ids[i]!=null && newItems!=null) {
+        // Newly fetched infos. Null, if it is in the unsuccessfulQueries.
+        Integer index = unknownIDs.get(ids[i]);
+        if (index!=null) {
+          infos[i] = newItems[index];
+        }
+      }
+    }
+    
+    return infos;
+  }
+  
+  /**
+   * Fetches the given ids (that are neither cached, nor known to be unretrievable)
+   * and adds the results to the cache. If another thread is already fetching any
+   * of these ids, they are not queried again. Instead, this method waits for the
+   * results of the other thread.
+   * 
+   * @param template any array of {@code IDtype}. Used to create new arrays.
+   * @param unknownIDs distinct, non-null ids to fetch.
+   * @param progress optional progress bar (might be null)
+   * @return infos with the same ordering as {@code unknownIDs} (contains null for
+   * unsuccessful queries) or {@code null}, if none of the ids could be retrieved.
+   */
+  @SuppressWarnings("unchecked")
+  private INFOtype[] fetchUnknownIDs(IDtype[] template, Collection<IDtype> unknownIDs, AbstractProgressBar progress) {
+    List<IDtype> ids = new ArrayList<IDtype>(unknownIDs);
+    Object[] results = new Object[ids.size()];
+    Object[] expired = new Object[ids.size()];
+    
+    // Register all ids that nobody else is fetching as pending.
+    List<Integer> ownIndices = new ArrayList<Integer>(ids.size());
+    List<PendingFetch<INFOtype>> ownPending = new ArrayList<PendingFetch<INFOtype>>(ids.size());
+    Map<Integer, PendingFetch<INFOtype>> foreignPending = new HashMap<Integer, PendingFetch<INFOtype>>();
+    for (int i=0; i<ids.size(); i++) {
+      PendingFetch<INFOtype> pending = new PendingFetch<INFOtype>();
+      PendingFetch<INFOtype> other = pendingFetches.putIfAbsent(ids.get(i), pending);
+      if (other==null) {
+        ownIndices.add(i);
+        ownPending.add(pending);
+      } else {
+        foreignPending.put(i, other);
+      }
+    }
+    
+    INFOtype[] fetched = null;
+    try {
+      // Another thread might have finished some ids since our first lookup.
+      List<Integer> toFetch = new ArrayList<Integer>(ownIndices.size());
+      for (Integer i : ownIndices) {
+        ObjectAndTimestamp<INFOtype> o = lookup(ids.get(i));
+        if (o!=null && !isExpired(o)) {
+          results[i] = o.getInformation();
+        } else {
+          expired[i] = o;
+          if (!isUnretrievable(ids.get(i))) {
+            toFetch.add(i);
+          }
         }
       }
       
-      // Big Problem: Java does not permit creating an generic array
-      //INFOtype[] infos = new INFOtype[ids.length]; // Not permitted... workaround:
-      //INFOtype[] infosTemp = (INFOtype[]) Array.newInstance(ret.getClass(), ids.length);
-      //INFOtype[] infosTemp = Arrays.copyOf(ret, ids.length); // Create a new Reference to an existing array, WITH NEW SIZE
-      //INFOtype[] infos = infosTemp.clone(); // After creating new reference with correct size, create new array.
-      INFOtype[] infos = (INFOtype[]) createNewArray(anyCachedInfo,ids.length);
-      
-      // Iterate in parallel through ids, infos and filteredIDs
-      int infos_i=0;
-      for (int i=0; i<ids.length; i++) {
-        ObjectAndTimestamp<INFOtype> o = rememberedInfos.get(ids[i]);
-        if (o!=null) { // Same if-order as above!
-          infos[i] = o.getInformation();
-        } else if (unknownIDs.size()>0 && ids[i].equals(filtIDs[infos_i])) {
-          // Newly fetched infos (filteredIDs==0 if all in cache).
-          if (newItems!=null && newItems.length<infos_i) {
-            // should never happen. (=null => unsuccessfulQueries)
-            log.warning("Something went badly wrong. Your fetchMultipleInformations method must return an array of exactly the same size as the input id array!");
-            infos[i] = null;
-          } else if (newItems!=null) {
-            infos[i] = newItems[infos_i];
-            if (newItems[infos_i]!=null) {
-              addInformation(ids[i], newItems[infos_i]);
+      if (toFetch.size()>0) {
+        IDtype[] filtIDs = (IDtype[]) createNewArray(template, toFetch.size());
+        for (int i=0; i<filtIDs.length; i++) {
+          Array.set(filtIDs, i, ids.get(toFetch.get(i)));
+        }
+        
+        // Query unknown ids
+        fetched = fetchMultipleInformationWrapper(filtIDs, progress);
+        if (fetched!=null && fetched.length!=filtIDs.length) {
+          // should never happen. (=null => unsuccessfulQueries)
+          log.warning("Something went badly wrong. Your fetchMultipleInformations method must return an array of exactly the same size as the input id array!");
+        } else if (fetched!=null) {
+          // Add retrieved infos
+          for (int i=0; i<fetched.length; i++) {
+            if (fetched[i]!=null) {
+              addInformation(filtIDs[i], fetched[i]);
+              results[toFetch.get(i)] = fetched[i];
+            }
+          }
+        } else {
+          // Infos might have been added before the fetch failed (e.g., from a local snapshot)
+          for (Integer i : toFetch) {
+            ObjectAndTimestamp<INFOtype> o = lookup(ids.get(i));
+            if (o!=null && !isExpired(o)) {
+              results[i] = o.getInformation();
             }
-          }else{
-            infos[i] = null;
           }
-          infos_i++;
-        } else if (unsuccessfulQueries.contains(ids[i])) {
-          // Must be below "Newly fetched infos" because it is modified in fetchMultipleInformationWrapper.
-          infos[i] = null;
         }
       }
       
-      return infos;
-    } else {
-      // No id is cached.
-      INFOtype[] infos = fetchMultipleInformationWrapper(ids, progress);
-      if (infos==null) {
-        return null;
-      }
-      for (int i=0; i<infos.length; i++) {
-        if (infos[i]!=null && ids[i]!=null) {
-          addInformation(ids[i], infos[i]);
+      // Keep expired infos, if they could not be fetched again.
+      for (Integer i : ownIndices) {
+        if (results[i]==null && expired[i]!=null) {
+          results[i] = keepExpiredInformation(ids.get(i), (ObjectAndTimestamp<INFOtype>) expired[i]);
         }
       }
-      return infos;
+    } finally {
+      for (int i=0; i<ownIndices.size(); i++) {
+        IDtype id = ids.get(ownIndices.get(i));
+        PendingFetch<INFOtype> pending = ownPending.get(i);
+        pending.complete((INFOtype) results[ownIndices.get(i)]);
+        pendingFetches.remove(id, pending);
+      }
+    }
+    
+    // Wait for the ids, fetched by other threads.
+    for (Entry<Integer, PendingFetch<INFOtype>> e : foreignPending.entrySet()) {
+      results[e.getKey()] = e.getValue().await();
+    }
+    
+    // Create a typed array for the results
+    Object sample = fetched;
+    for (int i=0; i<results.length && sample==null; i++) {
+      sample = results[i];
     }
+    if (sample==null) {
+      return null;
+    }
+    INFOtype[] infos = (INFOtype[]) createNewArray(sample, results.length);
+    System.arraycopy(results, 0, infos, 0, results.length);
+    return infos;
+  }
+  
+  /**
+   * Splits the given ids into batches and calls {@link #fetchUnknownIDs(Comparable[], Collection, AbstractProgressBar)}
+   * for multiple batches simultaneously.
+   * 
+   * @param template any array of {@code IDtype}. Used to create new arrays.
+   * @param unknownIDs distinct, non-null ids to fetch.
+   * @return infos with the same ordering as {@code unknownIDs} (contains null for
+   * unsuccessful queries) or {@code null}, if none of the ids could be retrieved.
+   */
+  @SuppressWarnings("unchecked")
+  private INFOtype[] fetchUnknownIDsPipelined(final IDtype[] template, Collection<IDtype> unknownIDs) {
+    List<IDtype> ids = new ArrayList<IDtype>(unknownIDs);
+    int batchSize = Math.max(1, getAsyncBatchSize());
+    final Semaphore permits = fetchPermits;
+    RateLimiter limiter = fetchRateLimiter;
+    
+    // Start batches, as soon as a permit is available.
+    List<Future<INFOtype[]>> batches = new ArrayList<Future<INFOtype[]>>();
+    try {
+      for (int start=0; start<ids.size(); start+=batchSize) {
+        final List<IDtype> batch = ids.subList(start, Math.min(ids.size(), start+batchSize));
+        permits.acquire();
+        try {
+          if (limiter!=null) {
+            limiter.acquire();
+          }
+          batches.add(getAsyncExecutor().submit(new Callable<INFOtype[]>() {
+            /* (non-Javadoc)
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public INFOtype[] call() throws Exception {
+              try {
+                return fetchUnknownIDs(template, batch, null);
+              } finally {
+                permits.release();
+              }
+            }
+          }));
+        } catch (InterruptedException e) {
+          permits.release();
+          throw e;
+        }
+      }
+    } catch (InterruptedException e) {
+      // Do not start any further batches, but wait for the running ones.
+      log.fine("Interrupted while fetching multiple informations.");
+      Thread.currentThread().interrupt();
+    }
+    
+    // Collect results
+    Object[] results = new Object[ids.size()];
+    Object sample = null;
+    boolean interrupted = false;
+    for (int i=0; i<batches.size(); i++) {
+      INFOtype[] batch = null;
+      while (true) {
+        try {
+          batch = batches.get(i).get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          log.log(Level.WARNING, "Catched an unknown exception while fetching multiple informations", e.getCause());
+          break;
+        }
+      }
+      if (batch!=null) {
+        System.arraycopy(batch, 0, results, i*batchSize, batch.length);
+        sample = batch;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    
+    if (sample==null) {
+      return null;
+    }
+    INFOtype[] infos = (INFOtype[]) createNewArray(sample, results.length);
+    System.arraycopy(results, 0, infos, 0, results.length);
+    return infos;
   }
   
   /**
@@ -607,27 +1485,25 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * a single query. Than you can precache them here, which results in on fetchMulti
    * query, and later on retrieve them with getInformation().
    * This will significantly increase performance, since you queried all with one query.
+   * 
+   * <p>Ids that are currently fetched by other threads (e.g., by overlapping
+   * precache calls) are not queried again. This method returns as soon as all
+   * given ids are cached or known to be unretrievable.
    * @param ids
    * @param progress optional additional progress bar for this operation.
    */
-  @SuppressWarnings("unchecked")
   public void precacheIDs(IDtype[] ids, AbstractProgressBar progress) {
     if (ids==null || ids.length<1) {
       return;
     }
-    List<IDtype> unknownIDs = new ArrayList<IDtype>();
-    
-    // Look if at least one of the ids is in the cache
-    boolean containsAtLeastOneID=false;
+    Set<IDtype> unknownIDs = new LinkedHashSet<IDtype>();
     for (IDtype id: ids) {
       if (id==null) {
         continue;
       }
-      ObjectAndTimestamp<INFOtype> o = rememberedInfos.get(id);
-      if (o==null && !unsuccessfulQueries.contains(id)) { // Same if-order as below!
+      ObjectAndTimestamp<INFOtype> o = rememberedInfos.peek(id);
+      if ((o==null || isExpired(o)) && !isUnretrievable(id)) {
         unknownIDs.add(id);
-      } else {
-        containsAtLeastOneID = true;
       }
     }
     if (unknownIDs.size()<1)
@@ -635,44 +1511,7 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
       return; // All ids are known.
     }
     
-    INFOtype[] infos;
-    IDtype[] filtIDs = ids;
-    if (containsAtLeastOneID) {
-      // Some elements are already in our cache.
-      
-      // Big Problem: Java does not permit creating an generic array
-      // IDtype[] filtIDs = new IDtype[filteredIDs.size()]; // Not permitted... workaround:
-      //IDtype[] filtIDs = (IDtype[]) Array.newInstance(ids.getClass(), filteredIDs.size()); // <= funzt auch nicht.
-      // Funzt nur in Java 1.6 (naechste zwei zeilen):
-      //IDtype[] temp = Arrays.copyOf(ids, filteredIDs.size()); // Create a new Reference to an existing array, WITH NEW SIZE
-      //IDtype[] filtIDs = temp.clone(); // After creating new reference with correct size, create new array.
-      filtIDs = (IDtype[]) createNewArray(ids,unknownIDs.size());
-      
-      for (int i=0; i<filtIDs.length; i++) {
-        Array.set(filtIDs, i, unknownIDs.get(i));
-      }
-    } // Else, all ids are unknown.
-    if (filtIDs.length<1) {
-      return;
-    }
-    
-    // Query unknown ids
-    infos = fetchMultipleInformationWrapper(filtIDs, progress);
-    if (infos==null) {
-      return;
-    }
-    
-    // Free enough cache for them
-    if (isCacheFull()) {
-      freeCache(Math.max(Math.max(10, infos.length), (int)((maxListSize)*0.1)));
-    }
-    
-    // Add retrieved infos
-    for (int i=0; i<infos.length; i++) {
-      if (infos[i]!=null && filtIDs[i]!=null) {
-        addInformation(filtIDs[i], infos[i]);
-      }
-    }
+    fetchUnknownIDs(ids, unknownIDs, progress);
   }
   
   /**
@@ -710,11 +1549,23 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
   
   /**
    * Save the given instance of the cache (InfoManagement) as serialized object.
+   * If a {@link PersistentCacheStore} is attached to the cache, the store is
+   * flushed instead and no serialized object is written.
    * @param filepath
    * @param m object to store.
    * @return true if and only if the file has been successfully saved.
    */
   public static boolean saveToFilesystem(String filepath, InfoManagement<?, ?> m) {
+    if (m.persistentStore!=null) {
+      // All changes have already been written incrementally.
+      try {
+        m.persistentStore.flush();
+        return true;
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Could not flush the persistent cache store.", e);
+        return false;
+      }
+    }
     boolean ret = SerializableTools.saveGZippedObject(filepath, m);
     if (ret) {
       // reset cache changed flag
@@ -796,13 +1647,19 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * @throws IOException
    */
   private void writeObject(ObjectOutputStream out) throws IOException {
-    synchronized (rememberedInfos) {
-      synchronized (unsuccessfulQueries) {
-        cleanupUnserializableObject();
-        
-        out.defaultWriteObject();
-      }
+    cleanupUnserializableObject();
+    
+    Set<IDtype> failedIDs;
+    synchronized (unsuccessfulQueries) {
+      failedIDs = new HashSet<IDtype>(unsuccessfulQueries.keySet());
     }
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("rememberedInfos", rememberedInfos.toMap());
+    fields.put("unsuccessfulQueries", failedIDs);
+    fields.put("maxListSize", maxListSize);
+    fields.put("version", version);
+    out.writeFields();
+    
     cacheChangedSinceLastLoading=false;
   }
   
@@ -814,12 +1671,20 @@ public abstract class InfoManagement<IDtype extends Comparable<?> & Serializable
    * @throws IOException
    * @throws ClassNotFoundException
    */
+  @SuppressWarnings("unchecked")
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    Map<IDtype, ObjectAndTimestamp<INFOtype>> infos;
+    Set<IDtype> failedIDs;
     try {
-      in.defaultReadObject();
+      ObjectInputStream.GetField fields = in.readFields();
+      maxListSize = fields.get("maxListSize", 100000);
+      version = fields.get("version", 0);
+      infos = (Map<IDtype, ObjectAndTimestamp<INFOtype>>) fields.get("rememberedInfos", null);
+      failedIDs = (Set<IDtype>) fields.get("unsuccessfulQueries", null);
     } catch (Exception exc) {
       throw new IOException("Could not read cache from disk.", exc);
     }
+    initializeCache(infos, failedIDs);
     
     restoreUnserializableObject();
     cacheChangedSinceLastLoading=false;
@@ -16,11 +16,14 @@
  */
 package de.zbit.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
  * Stores an object together with a timestamp. Updates the timestamp
- * whenever this information is accessed.
+ * whenever this information is accessed. Additionally, the time when
+ * the information has been created is stored, to allow for expiration.
  * @author Clemens Wrzodek
  * @version $Rev$
  * @param <INFOtype>
@@ -39,6 +42,12 @@ public class ObjectAndTimestamp<INFOtype> implements Comparable, Serializable {
    */
   private long lastUsage;
   
+  /**
+   * Datestamp, when this information has been created or set.
+   * See {@link System#currentTimeMillis()}.
+   */
+  private long creationTime;
+  
   
   /**
    * Construct a new element.
@@ -50,6 +59,18 @@ public class ObjectAndTimestamp<INFOtype> implements Comparable, Serializable {
     setInformation(information);
   }
   
+  /**
+   * Construct a new element, that has been created at the given time
+   * (e.g., when restoring it from the hard disk).
+   * 
+   * @param information Content
+   * @param creationTime see {@link System#currentTimeMillis()}.
+   */
+  public ObjectAndTimestamp(INFOtype information, long creationTime) {
+    this(information);
+    this.creationTime = creationTime;
+  }
+  
   /**
    * Returns the information content of this object.
    * 
@@ -92,12 +113,29 @@ public class ObjectAndTimestamp<INFOtype> implements Comparable, Serializable {
   }
   
   /**
-   * Sets the information and resets the timestamp.
+   * @return date stamp, when this information has been created
+   * or set the last time.
+   */
+  public long getCreationTime() {
+    return creationTime;
+  }
+  
+  /**
+   * @return time in milliseconds since this information has been
+   * created or set.
+   */
+  public long getAge() {
+    return System.currentTimeMillis() - creationTime;
+  }
+  
+  /**
+   * Sets the information and resets the timestamps.
    * @param information
    */
   public void setInformation(INFOtype information) {
     this.information = information;
     resetTimestamp();
+    creationTime = lastUsage;
   }
   
   /*
@@ -180,5 +218,19 @@ public class ObjectAndTimestamp<INFOtype> implements Comparable, Serializable {
   @Override
   public String toString() {
     return String.format("[@Object '%s' timestamp '%s']", information.toString(), lastUsage);
-  }  
+  }
+  
+  /**
+   * Objects that have been serialized by previous versions of this
+   * class have no creation time. Use the last usage instead.
+   * @param in
+   * @throws IOException
+   * @throws ClassNotFoundException
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    if (creationTime==0) {
+      creationTime = lastUsage;
+    }
+  }
 }
@@ -0,0 +1,705 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A persistent key-value store for {@link InfoManagement} caches.
+ *
+ * <p>All modifications are appended to a single log file, so writing is
+ * incremental and never requires to rewrite the whole cache. Only the keys
+ * and the file offsets of the values are held in memory. Values are read
+ * and deserialized on first access, using random-access reads. Thus, opening
+ * even huge caches is fast and requires little heap.
+ *
+ * <p>The log consists of a header, followed by records of the form
+ * {@code [type][key length][key][timestamp][value length][value]},
+ * where key and value are serialized java objects. Unretrievable marks
+ * consist of {@code [type][key length][key][timestamp]}. The value is deflated.
+ * Records that have been overwritten or removed stay in the file until
+ * {@link #compact()} is called.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class PersistentCacheStore<K extends Serializable, V extends Serializable> implements Closeable {
+  public static final transient Logger log = Logger.getLogger(PersistentCacheStore.class.getName());
+
+  /**
+   * File identifier, "SBCS".
+   */
+  private final static int MAGIC = 0x53424353;
+
+  /**
+   * Version of the file format.
+   */
+  private final static int FORMAT_VERSION = 1;
+
+  /**
+   * Size of the file header (magic number and version) in bytes.
+   */
+  private final static int HEADER_SIZE = 8;
+
+  /*
+   * Record types
+   */
+  private final static byte PUT = 1;
+  private final static byte UNRETRIEVABLE = 2;
+  private final static byte REMOVE = 3;
+  private final static byte CLEAR_UNRETRIEVABLE = 4;
+  /**
+   * Unretrievable mark with the time of the failure. Replaces
+   * {@link #UNRETRIEVABLE}, which is still read from older files.
+   */
+  private final static byte UNRETRIEVABLE_SINCE = 5;
+
+  /**
+   * The log file.
+   */
+  private final File file;
+
+  /**
+   * Channel to the log file. Used for positional reads and appending writes.
+   */
+  private FileChannel channel;
+
+  /**
+   * The underlying file.
+   */
+  private RandomAccessFile raf;
+
+  /**
+   * Positional reads of values hold the read lock, replacing or truncating
+   * the file ({@link #compact()}, {@link #clear()} and {@link #close()})
+   * holds the write lock. Appending writes only need to synchronize on
+   * this instance.
+   */
+  private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+
+  /**
+   * Maps every key to the file offset of its value length field.
+   */
+  private final Map<K, Long> index = new ConcurrentHashMap<K, Long>();
+
+  /**
+   * Keys that are known to be unretrievable and the time of the failure.
+   */
+  private final Map<K, Long> unretrievable = Collections.synchronizedMap(new HashMap<K, Long>());
+
+  /**
+   * Current end of the log, i.e., the offset for the next record.
+   */
+  private long end;
+
+  /**
+   * Number of bytes used by records that are still valid.
+   */
+  private long liveBytes;
+
+  /**
+   * Opens (or creates) the store in the given file.
+   * @param file
+   * @throws IOException if the file is not a valid store or can not be read.
+   */
+  public PersistentCacheStore(File file) throws IOException {
+    this.file = file;
+    open();
+  }
+
+  /**
+   * Opens the file, validates the header and rebuilds the index.
+   * @throws IOException
+   */
+  private void open() throws IOException {
+    raf = new RandomAccessFile(file, "rw");
+    channel = raf.getChannel();
+    if (raf.length()==0) {
+      raf.writeInt(MAGIC);
+      raf.writeInt(FORMAT_VERSION);
+      end = HEADER_SIZE;
+    } else {
+      int magic = raf.readInt();
+      int version = raf.readInt();
+      if (magic!=MAGIC || version!=FORMAT_VERSION) {
+        close();
+        throw new IOException(String.format("'%s' is not a valid cache store.", file.getPath()));
+      }
+      end = rebuildIndex();
+      if (end<raf.length()) {
+        // Incomplete record (e.g., process was killed while writing).
+        log.warning(String.format("Truncating incomplete record at the end of '%s'.", file.getPath()));
+        channel.truncate(end);
+      }
+    }
+  }
+
+  /**
+   * Scans all records and rebuilds the in-memory index. Values are skipped.
+   * @return offset after the last complete record.
+   * @throws IOException
+   */
+  @SuppressWarnings("unchecked")
+  private long rebuildIndex() throws IOException {
+    index.clear();
+    unretrievable.clear();
+    liveBytes = 0;
+    Map<K, Long> recordSizes = new HashMap<K, Long>();
+    long length = file.length();
+    // Records without a failure time have been written before this time
+    long lastModified = file.lastModified();
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1<<16));
+    long pos = HEADER_SIZE;
+    try {
+      skipFully(in, HEADER_SIZE);
+      while (true) {
+        // Read the complete record, before applying it.
+        byte type = in.readByte();
+        if (type==CLEAR_UNRETRIEVABLE) {
+          unretrievable.clear();
+          pos++;
+          continue;
+        }
+        byte[] keyBytes = new byte[in.readInt()];
+        in.readFully(keyBytes);
+        long size = 5 + keyBytes.length;
+        long timestamp = lastModified;
+        if (type==PUT) {
+          in.readLong(); // timestamp
+          int valueLength = in.readInt();
+          skipFully(in, valueLength);
+          size += 12 + valueLength;
+        } else if (type==UNRETRIEVABLE_SINCE) {
+          timestamp = in.readLong();
+          size += 8;
+        } else if (type!=UNRETRIEVABLE && type!=REMOVE) {
+          throw new IOException("Unknown record type " + type);
+        }
+        if (pos+size>length) {
+          // Skipping does not detect the end of the file.
+          break;
+        }
+        K key = (K) deserialize(keyBytes, false);
+
+        Long oldSize = recordSizes.remove(key);
+        if (oldSize!=null) {
+          liveBytes -= oldSize;
+        }
+        index.remove(key);
+        unretrievable.remove(key);
+        if (type==PUT) {
+          index.put(key, pos + 5 + keyBytes.length);
+          recordSizes.put(key, size);
+          liveBytes += size;
+        } else if (type==UNRETRIEVABLE || type==UNRETRIEVABLE_SINCE) {
+          unretrievable.put(key, timestamp);
+        }
+        pos += size;
+      }
+    } catch (EOFException e) {
+      // End of file or incomplete last record. Everything up
+      // to the last complete record is valid.
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Could not read cache store.", e);
+    } finally {
+      in.close();
+    }
+    return pos;
+  }
+
+  /**
+   * @param key
+   * @return true if a value for the given key is stored.
+   */
+  public boolean containsKey(K key) {
+    return key!=null && index.containsKey(key);
+  }
+
+  /**
+   * Reads and deserializes the value for the given key.
+   * @param key
+   * @return the value or {@code null} if no value is stored for the key.
+   * @throws IOException
+   */
+  public V get(K key) throws IOException {
+    ObjectAndTimestamp<V> entry = getEntry(key);
+    return entry==null ? null : entry.getInformation(false);
+  }
+
+  /**
+   * Reads and deserializes the value for the given key, together with the
+   * time it has been written to this store.
+   * @param key
+   * @return the value or {@code null} if no value is stored for the key.
+   * @throws IOException
+   */
+  @SuppressWarnings("unchecked")
+  ObjectAndTimestamp<V> getEntry(K key) throws IOException {
+    if (key==null) {
+      return null;
+    }
+    long timestamp;
+    ByteBuffer value;
+    channelLock.readLock().lock();
+    try {
+      Long position = index.get(key);
+      if (position==null) {
+        return null;
+      }
+      ByteBuffer head = ByteBuffer.allocate(12);
+      readFully(head, position);
+      head.flip();
+      timestamp = head.getLong();
+      value = ByteBuffer.allocate(head.getInt());
+      readFully(value, position+12);
+    } finally {
+      channelLock.readLock().unlock();
+    }
+    try {
+      return new ObjectAndTimestamp<V>((V) deserialize(value.array(), true), timestamp);
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Could not read cached value for " + key, e);
+    }
+  }
+
+  /**
+   * @param key
+   * @return true if the key has been marked as unretrievable.
+   * @see #markUnretrievable(Serializable)
+   */
+  public boolean isUnretrievable(K key) {
+    return key!=null && unretrievable.containsKey(key);
+  }
+
+  /**
+   * Stores a value. Replaces previous values for the same key.
+   * @param key
+   * @param value
+   * @throws IOException
+   */
+  public void put(K key, V value) throws IOException {
+    put(key, value, System.currentTimeMillis());
+  }
+
+  /**
+   * Stores a value. Replaces previous values for the same key.
+   * @param key
+   * @param value
+   * @param timestamp creation time of the value.
+   * @throws IOException
+   */
+  void put(K key, V value, long timestamp) throws IOException {
+    if (key==null || value==null) {
+      return;
+    }
+    byte[] keyBytes = serialize(key, false);
+    byte[] valueBytes = serialize(value, true);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(keyBytes.length + valueBytes.length + 32);
+    DataOutputStream out = new DataOutputStream(buffer);
+    out.writeByte(PUT);
+    out.writeInt(keyBytes.length);
+    out.write(keyBytes);
+    out.writeLong(timestamp);
+    out.writeInt(valueBytes.length);
+    out.write(valueBytes);
+    out.close();
+
+    synchronized (this) {
+      long start = append(buffer.toByteArray());
+      Long old = index.put(key, start + 5 + keyBytes.length);
+      if (old!=null) {
+        liveBytes -= recordSize(old, keyBytes.length);
+      }
+      unretrievable.remove(key);
+      liveBytes += buffer.size();
+    }
+  }
+
+  /**
+   * Remembers that the given key could not be retrieved.
+   * @param key
+   * @throws IOException
+   */
+  public void markUnretrievable(K key) throws IOException {
+    markUnretrievable(key, System.currentTimeMillis());
+  }
+
+  /**
+   * Remembers that the given key could not be retrieved.
+   * @param key
+   * @param timestamp time of the failure.
+   * @throws IOException
+   */
+  void markUnretrievable(K key, long timestamp) throws IOException {
+    if (key==null || unretrievable.containsKey(key)) {
+      return;
+    }
+    writeKeyRecord(UNRETRIEVABLE_SINCE, key, timestamp);
+  }
+
+  /**
+   * Removes the value and the unretrievable mark of the given key.
+   * @param key
+   * @throws IOException
+   */
+  public void remove(K key) throws IOException {
+    if (key==null || (!index.containsKey(key) && !unretrievable.containsKey(key))) {
+      return;
+    }
+    writeKeyRecord(REMOVE, key, null);
+  }
+
+  /**
+   * Removes all unretrievable marks.
+   * @throws IOException
+   */
+  public synchronized void clearUnretrievable() throws IOException {
+    if (unretrievable.size()>0) {
+      append(new byte[] {CLEAR_UNRETRIEVABLE});
+      unretrievable.clear();
+    }
+  }
+
+  /**
+   * Removes everything from this store.
+   * @throws IOException
+   */
+  public synchronized void clear() throws IOException {
+    channelLock.writeLock().lock();
+    try {
+      channel.truncate(HEADER_SIZE);
+      end = HEADER_SIZE;
+      liveBytes = 0;
+      index.clear();
+      unretrievable.clear();
+    } finally {
+      channelLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of stored values.
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * @return an unmodifiable view of all keys that have a value.
+   */
+  public Set<K> keySet() {
+    return Collections.unmodifiableSet(index.keySet());
+  }
+
+  /**
+   * @return a copy of all keys that are marked as unretrievable.
+   */
+  public Set<K> getUnretrievableKeys() {
+    synchronized (unretrievable) {
+      return new HashSet<K>(unretrievable.keySet());
+    }
+  }
+
+  /**
+   * @return a copy of all keys that are marked as unretrievable, together
+   * with the time of the failure.
+   */
+  Map<K, Long> getUnretrievableTimes() {
+    synchronized (unretrievable) {
+      return new HashMap<K, Long>(unretrievable);
+    }
+  }
+
+  /**
+   * @return the fraction of the log file that is occupied by overwritten
+   * or removed records.
+   */
+  public synchronized double getGarbageRatio() {
+    long total = end - HEADER_SIZE;
+    return total<=0 ? 0d : Math.max(0d, 1d - (((double) liveBytes)/total));
+  }
+
+  /**
+   * Rewrites the log, such that it only contains valid records. The values are
+   * copied without deserializing them.
+   * @throws IOException
+   */
+  public synchronized void compact() throws IOException {
+    File tmp = new File(file.getPath() + ".tmp");
+    RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+    try {
+      out.setLength(0);
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      for (K key : index.keySet()) {
+        long position = index.get(key);
+        byte[] keyBytes = serialize(key, false);
+        ByteBuffer head = ByteBuffer.allocate(12);
+        readFully(head, position);
+        head.flip();
+        long timestamp = head.getLong();
+        ByteBuffer value = ByteBuffer.allocate(head.getInt());
+        readFully(value, position+12);
+
+        out.writeByte(PUT);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeLong(timestamp);
+        out.writeInt(value.capacity());
+        out.write(value.array());
+      }
+      for (Map.Entry<K, Long> e : getUnretrievableTimes().entrySet()) {
+        byte[] keyBytes = serialize(e.getKey(), false);
+        out.writeByte(UNRETRIEVABLE_SINCE);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeLong(e.getValue());
+      }
+    } finally {
+      out.close();
+    }
+
+    // Readers may continue until here, as positions are still valid
+    channelLock.writeLock().lock();
+    try {
+      close();
+      if (!file.delete() || !tmp.renameTo(file)) {
+        throw new IOException(String.format("Could not replace '%s' with the compacted store.", file.getPath()));
+      }
+      open();
+    } finally {
+      channelLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Forces all written records to the disk.
+   * @throws IOException
+   */
+  public synchronized void flush() throws IOException {
+    if (channel.isOpen()) {
+      channel.force(false);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    channelLock.writeLock().lock();
+    try {
+      if (raf!=null) {
+        raf.close();
+      }
+    } finally {
+      channelLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the log file of this store.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Writes a record that consists only of a type, a key and an optional
+   * timestamp and removes the key from the index. The key is marked as
+   * unretrievable for {@link #UNRETRIEVABLE_SINCE} records.
+   */
+  private void writeKeyRecord(byte type, K key, Long timestamp) throws IOException {
+    byte[] keyBytes = serialize(key, false);
+    ByteBuffer record = ByteBuffer.allocate(5 + keyBytes.length + (timestamp!=null ? 8 : 0));
+    record.put(type);
+    record.putInt(keyBytes.length);
+    record.put(keyBytes);
+    if (timestamp!=null) {
+      record.putLong(timestamp);
+    }
+    synchronized (this) {
+      append(record.array());
+      Long old = index.remove(key);
+      if (old!=null) {
+        liveBytes -= recordSize(old, keyBytes.length);
+      }
+      if (type==UNRETRIEVABLE_SINCE) {
+        unretrievable.put(key, timestamp);
+      } else {
+        unretrievable.remove(key);
+      }
+    }
+  }
+
+  /**
+   * @param valuePosition position of a value in the index.
+   * @param keyLength length of the serialized key.
+   * @return the size of the complete record, that contains the value.
+   * @throws IOException
+   */
+  private long recordSize(long valuePosition, int keyLength) throws IOException {
+    ByteBuffer head = ByteBuffer.allocate(12);
+    readFully(head, valuePosition);
+    head.flip();
+    head.getLong(); // timestamp
+    return 5 + keyLength + 12 + head.getInt();
+  }
+
+  /**
+   * Appends the given bytes to the log. Must be called while holding the lock.
+   * @param record
+   * @return the offset of the record.
+   * @throws IOException
+   */
+  private long append(byte[] record) throws IOException {
+    long start = end;
+    ByteBuffer buf = ByteBuffer.wrap(record);
+    long pos = start;
+    while (buf.hasRemaining()) {
+      pos += channel.write(buf, pos);
+    }
+    end = pos;
+    return start;
+  }
+
+  /**
+   * Reads from the given position until the buffer is full.
+   */
+  private void readFully(ByteBuffer buf, long position) throws IOException {
+    while (buf.hasRemaining()) {
+      int read = channel.read(buf, position);
+      if (read<0) {
+        throw new EOFException("Unexpected end of cache store " + file.getPath());
+      }
+      position += read;
+    }
+  }
+
+  /**
+   * Skips exactly the given number of bytes.
+   */
+  private static void skipFully(DataInputStream in, long n) throws IOException {
+    while (n>0) {
+      long skipped = in.skip(n);
+      if (skipped<=0) {
+        // Skip might return 0 before the end of file is reached.
+        in.readByte();
+        skipped = 1;
+      }
+      n -= skipped;
+    }
+  }
+
+  /**
+   * @param o
+   * @param compress deflate the serialized object.
+   * @return the serialized object.
+   * @throws IOException
+   */
+  private static byte[] serialize(Object o, boolean compress) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    ObjectOutputStream out;
+    if (compress) {
+      out = new ObjectOutputStream(new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)));
+    } else {
+      out = new ObjectOutputStream(bytes);
+    }
+    out.writeObject(o);
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param bytes
+   * @param compressed
+   * @return the deserialized object
+   * @throws IOException
+   * @throws ClassNotFoundException
+   */
+  private static Object deserialize(byte[] bytes, boolean compressed) throws IOException, ClassNotFoundException {
+    ObjectInputStream in;
+    if (compressed) {
+      in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+    } else {
+      in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+    }
+    try {
+      return in.readObject();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Copies the content of the given cache (e.g., one that has been loaded with
+   * {@link InfoManagement#loadFromFilesystem(String)}) into a new store.
+   * @param cache the cache to migrate
+   * @param storeFile target file. Existing content will be removed.
+   * @return the new store
+   * @throws IOException
+   */
+  public static <K extends Comparable<?> & Serializable, V extends Serializable> PersistentCacheStore<K, V> migrate(
+    InfoManagement<K, V> cache, File storeFile) throws IOException {
+    PersistentCacheStore<K, V> store = new PersistentCacheStore<K, V>(storeFile);
+    try {
+      store.clear();
+      cache.copyTo(store);
+      store.flush();
+    } catch (IOException e) {
+      try {
+        store.close();
+      } catch (IOException e2) {
+        log.log(Level.FINE, e2.getLocalizedMessage(), e2);
+      }
+      throw e;
+    }
+    return store;
+  }
+
+}
@@ -0,0 +1,475 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.collection;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map from primitive {@code int} keys to primitive {@code int}
+ * values. Keys and values are stored in two arrays (open addressing with
+ * linear probing), i.e., no object is created per mapping. Compared to a
+ * {@link java.util.HashMap} of {@link Integer}s, this requires about a
+ * quarter of the memory.
+ *
+ * <p>Use the primitive methods ({@link #getInt(int, int)},
+ * {@link #putInt(int, int)}, {@link #containsInt(int)} and
+ * {@link #removeInt(int)}) to avoid boxing. All {@link Map} methods are
+ * supported as well, but {@code null} keys or values are not permitted
+ * and iterators do not support {@link Iterator#remove()}. This class is
+ * not thread-safe.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class IntIntHashMap extends AbstractMap<Integer, Integer> implements Serializable {
+  private static final long serialVersionUID = 4279813287318612513L;
+
+  /**
+   * Maximum fraction of used slots, before the arrays are enlarged.
+   */
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /**
+   * Keys of all mappings. 0 marks a free slot (the key 0 is stored in
+   * {@link #zeroValue}).
+   */
+  private int[] keys;
+
+  /**
+   * Values, at the same index as their {@link #keys}.
+   */
+  private int[] values;
+
+  private boolean containsZeroKey = false;
+
+  private int zeroValue;
+
+  /**
+   * Number of mappings (including the key 0).
+   */
+  private int size = 0;
+
+  /**
+   * {@link #keys}.length - 1
+   */
+  private int mask;
+
+  /**
+   * Number of mappings at which the arrays are enlarged.
+   */
+  private int threshold;
+
+  /**
+   * Number of structural modifications (for fail-fast iterators).
+   */
+  private transient int modCount = 0;
+
+  private transient Set<Map.Entry<Integer, Integer>> entrySet = null;
+
+  public IntIntHashMap() {
+    this(16);
+  }
+
+  /**
+   * @param expectedSize number of mappings that can be stored without
+   * enlarging the map.
+   */
+  public IntIntHashMap(int expectedSize) {
+    super();
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * @param expectedSize
+   * @return the smallest power of two, that can store the given number
+   * of mappings.
+   */
+  static int capacityFor(int expectedSize) {
+    long required = (long) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR);
+    if (required>(1<<30)) {
+      throw new IllegalArgumentException("Too many mappings: " + expectedSize);
+    }
+    return Integer.highestOneBit((int) required - 1) << 1;
+  }
+
+  /**
+   * Spreads the bits of a key (multiplication with the golden ratio).
+   * @param key
+   * @return
+   */
+  static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * @param capacity a power of two
+   */
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+    threshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  /**
+   * @param key
+   * @return the slot of the given (non-zero) key or -1.
+   */
+  private int find(int key) {
+    int pos = mix(key) & mask;
+    int k;
+    while ((k=keys[pos])!=0) {
+      if (k==key) {
+        return pos;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * @param key
+   * @param defaultValue
+   * @return the value for {@code key} or {@code defaultValue} if the map
+   * does not contain {@code key}.
+   */
+  public int getInt(int key, int defaultValue) {
+    if (key==0) {
+      return containsZeroKey ? zeroValue : defaultValue;
+    }
+    int pos = find(key);
+    return pos<0 ? defaultValue : values[pos];
+  }
+
+  /**
+   * @param key
+   * @return true if this map contains the given key.
+   */
+  public boolean containsInt(int key) {
+    return key==0 ? containsZeroKey : find(key)>=0;
+  }
+
+  /**
+   * Associates the value with the key.
+   * @param key
+   * @param value
+   * @return true if {@code key} is a new key, false if an existing
+   * value has been replaced.
+   */
+  public boolean putInt(int key, int value) {
+    if (key==0) {
+      zeroValue = value;
+      if (containsZeroKey) {
+        return false;
+      }
+      containsZeroKey = true;
+      size++;
+      modCount++;
+      return true;
+    }
+    int pos = mix(key) & mask;
+    int k;
+    while ((k=keys[pos])!=0) {
+      if (k==key) {
+        values[pos] = value;
+        return false;
+      }
+      pos = (pos + 1) & mask;
+    }
+    keys[pos] = key;
+    values[pos] = value;
+    modCount++;
+    if (++size>=threshold) {
+      rehash(keys.length * 2);
+    }
+    return true;
+  }
+
+  /**
+   * Removes the mapping for the given key.
+   * @param key
+   * @return true if the map contained the key.
+   */
+  public boolean removeInt(int key) {
+    if (key==0) {
+      if (!containsZeroKey) {
+        return false;
+      }
+      containsZeroKey = false;
+      size--;
+      modCount++;
+      return true;
+    }
+    int pos = find(key);
+    if (pos<0) {
+      return false;
+    }
+    shiftKeys(pos);
+    size--;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Closes the gap at the given slot by moving subsequent entries of the
+   * same probe sequence backwards.
+   * @param pos
+   */
+  private void shiftKeys(int pos) {
+    while (true) {
+      int last = pos;
+      pos = (pos + 1) & mask;
+      int k;
+      while (true) {
+        if ((k=keys[pos])==0) {
+          keys[last] = 0;
+          return;
+        }
+        int slot = mix(k) & mask;
+        if (last<=pos ? (last>=slot || slot>pos) : (last>=slot && slot>pos)) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = k;
+      values[last] = values[pos];
+    }
+  }
+
+  /**
+   * @param capacity
+   */
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i=0; i<oldKeys.length; i++) {
+      int k = oldKeys[i];
+      if (k!=0) {
+        int pos = mix(k) & mask;
+        while (keys[pos]!=0) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = k;
+        values[pos] = oldValues[i];
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#size()
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#clear()
+   */
+  @Override
+  public void clear() {
+    if (size>0) {
+      java.util.Arrays.fill(keys, 0);
+      containsZeroKey = false;
+      size = 0;
+      modCount++;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#get(java.lang.Object)
+   */
+  @Override
+  public Integer get(Object key) {
+    if (!(key instanceof Integer)) {
+      return null;
+    }
+    int k = ((Integer) key).intValue();
+    if (k==0) {
+      return containsZeroKey ? Integer.valueOf(zeroValue) : null;
+    }
+    int pos = find(k);
+    return pos<0 ? null : Integer.valueOf(values[pos]);
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return (key instanceof Integer) && containsInt(((Integer) key).intValue());
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public Integer put(Integer key, Integer value) {
+    int k = key.intValue();
+    int v = value.intValue();
+    Integer old = get(key);
+    putInt(k, v);
+    return old;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#remove(java.lang.Object)
+   */
+  @Override
+  public Integer remove(Object key) {
+    Integer old = get(key);
+    if (old!=null) {
+      removeInt(((Integer) key).intValue());
+    }
+    return old;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#entrySet()
+   */
+  @Override
+  public Set<Map.Entry<Integer, Integer>> entrySet() {
+    if (entrySet==null) {
+      entrySet = new AbstractSet<Map.Entry<Integer, Integer>>() {
+        @Override
+        public Iterator<Map.Entry<Integer, Integer>> iterator() {
+          return new EntryIterator();
+        }
+        @Override
+        public int size() {
+          return size;
+        }
+        @Override
+        public boolean contains(Object o) {
+          if (!(o instanceof Map.Entry)) {
+            return false;
+          }
+          Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+          Integer value = get(e.getKey());
+          return value!=null && value.equals(e.getValue());
+        }
+        @Override
+        public void clear() {
+          IntIntHashMap.this.clear();
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  /**
+   * A mapping, backed by the arrays of this map.
+   */
+  private class MapEntry implements Map.Entry<Integer, Integer> {
+    /**
+     * Slot in the arrays or -1 for the key 0.
+     */
+    private final int pos;
+    MapEntry(int pos) {
+      this.pos = pos;
+    }
+    @Override
+    public Integer getKey() {
+      return pos<0 ? 0 : keys[pos];
+    }
+    @Override
+    public Integer getValue() {
+      return pos<0 ? zeroValue : values[pos];
+    }
+    @Override
+    public Integer setValue(Integer value) {
+      Integer old = getValue();
+      if (pos<0) {
+        zeroValue = value.intValue();
+      } else {
+        values[pos] = value.intValue();
+      }
+      return old;
+    }
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+    }
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ getValue().hashCode();
+    }
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /**
+   * Iterates over all slots and finally the key 0.
+   */
+  private class EntryIterator implements Iterator<Map.Entry<Integer, Integer>> {
+    private final int expectedModCount = modCount;
+    private int pos = -1;
+    private boolean zeroReturned = !containsZeroKey;
+
+    EntryIterator() {
+      advance();
+    }
+
+    private void advance() {
+      do {
+        pos++;
+      } while (pos<keys.length && keys[pos]==0);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return pos<keys.length || !zeroReturned;
+    }
+
+    @Override
+    public Map.Entry<Integer, Integer> next() {
+      if (modCount!=expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (pos<keys.length) {
+        MapEntry e = new MapEntry(pos);
+        advance();
+        return e;
+      } else if (!zeroReturned) {
+        zeroReturned = true;
+        return new MapEntry(-1);
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
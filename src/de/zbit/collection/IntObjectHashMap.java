@@ -0,0 +1,405 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.collection;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map from primitive {@code int} keys to objects. Keys and values
+ * are stored in two arrays (open addressing with linear probing), i.e.,
+ * neither {@link Integer} keys nor entry objects are created per mapping.
+ *
+ * <p>Use the primitive methods ({@link #getInt(int)},
+ * {@link #putInt(int, Object)}, {@link #containsInt(int)} and
+ * {@link #removeInt(int)}) to avoid boxing. All {@link Map} methods are
+ * supported as well, but {@code null} keys or values are not permitted
+ * and iterators do not support {@link Iterator#remove()}. This class is
+ * not thread-safe.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @see IntIntHashMap
+ * @param <V> type of the values.
+ */
+public class IntObjectHashMap<V> extends AbstractMap<Integer, V> implements Serializable {
+  private static final long serialVersionUID = -2207347934839651707L;
+
+  /**
+   * Maximum fraction of used slots, before the arrays are enlarged.
+   */
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /**
+   * Keys of all mappings.
+   */
+  private int[] keys;
+
+  /**
+   * Values, at the same index as their {@link #keys}. {@code null} marks
+   * a free slot.
+   */
+  private Object[] values;
+
+  /**
+   * Number of mappings.
+   */
+  private int size = 0;
+
+  /**
+   * {@link #keys}.length - 1
+   */
+  private int mask;
+
+  /**
+   * Number of mappings at which the arrays are enlarged.
+   */
+  private int threshold;
+
+  /**
+   * Number of structural modifications (for fail-fast iterators).
+   */
+  private transient int modCount = 0;
+
+  private transient Set<Map.Entry<Integer, V>> entrySet = null;
+
+  public IntObjectHashMap() {
+    this(16);
+  }
+
+  /**
+   * @param expectedSize number of mappings that can be stored without
+   * enlarging the map.
+   */
+  public IntObjectHashMap(int expectedSize) {
+    super();
+    allocate(IntIntHashMap.capacityFor(expectedSize));
+  }
+
+  /**
+   * @param capacity a power of two
+   */
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    threshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  /**
+   * @param key
+   * @return the slot of the given key or -1.
+   */
+  private int find(int key) {
+    int pos = IntIntHashMap.mix(key) & mask;
+    while (values[pos]!=null) {
+      if (keys[pos]==key) {
+        return pos;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * @param key
+   * @return the value for {@code key} or {@code null} if the map does
+   * not contain {@code key}.
+   */
+  @SuppressWarnings("unchecked")
+  public V getInt(int key) {
+    int pos = find(key);
+    return pos<0 ? null : (V) values[pos];
+  }
+
+  /**
+   * @param key
+   * @return true if this map contains the given key.
+   */
+  public boolean containsInt(int key) {
+    return find(key)>=0;
+  }
+
+  /**
+   * Associates the value with the key.
+   * @param key
+   * @param value must not be {@code null}.
+   * @return the previous value or {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public V putInt(int key, V value) {
+    if (value==null) {
+      throw new NullPointerException("Null values are not supported.");
+    }
+    int pos = IntIntHashMap.mix(key) & mask;
+    while (values[pos]!=null) {
+      if (keys[pos]==key) {
+        V old = (V) values[pos];
+        values[pos] = value;
+        return old;
+      }
+      pos = (pos + 1) & mask;
+    }
+    keys[pos] = key;
+    values[pos] = value;
+    modCount++;
+    if (++size>=threshold) {
+      rehash(keys.length * 2);
+    }
+    return null;
+  }
+
+  /**
+   * Removes the mapping for the given key.
+   * @param key
+   * @return the removed value or {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public V removeInt(int key) {
+    int pos = find(key);
+    if (pos<0) {
+      return null;
+    }
+    V old = (V) values[pos];
+    shiftKeys(pos);
+    size--;
+    modCount++;
+    return old;
+  }
+
+  /**
+   * Closes the gap at the given slot by moving subsequent entries of the
+   * same probe sequence backwards.
+   * @param pos
+   */
+  private void shiftKeys(int pos) {
+    while (true) {
+      int last = pos;
+      pos = (pos + 1) & mask;
+      while (true) {
+        if (values[pos]==null) {
+          values[last] = null;
+          return;
+        }
+        int slot = IntIntHashMap.mix(keys[pos]) & mask;
+        if (last<=pos ? (last>=slot || slot>pos) : (last>=slot && slot>pos)) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = keys[pos];
+      values[last] = values[pos];
+    }
+  }
+
+  /**
+   * @param capacity
+   */
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i=0; i<oldKeys.length; i++) {
+      if (oldValues[i]!=null) {
+        int pos = IntIntHashMap.mix(oldKeys[i]) & mask;
+        while (values[pos]!=null) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = oldKeys[i];
+        values[pos] = oldValues[i];
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#size()
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#clear()
+   */
+  @Override
+  public void clear() {
+    if (size>0) {
+      Arrays.fill(values, null);
+      size = 0;
+      modCount++;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#get(java.lang.Object)
+   */
+  @Override
+  public V get(Object key) {
+    return (key instanceof Integer) ? getInt(((Integer) key).intValue()) : null;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#containsKey(java.lang.Object)
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return (key instanceof Integer) && containsInt(((Integer) key).intValue());
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public V put(Integer key, V value) {
+    return putInt(key.intValue(), value);
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#remove(java.lang.Object)
+   */
+  @Override
+  public V remove(Object key) {
+    return (key instanceof Integer) ? removeInt(((Integer) key).intValue()) : null;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.AbstractMap#entrySet()
+   */
+  @Override
+  public Set<Map.Entry<Integer, V>> entrySet() {
+    if (entrySet==null) {
+      entrySet = new AbstractSet<Map.Entry<Integer, V>>() {
+        @Override
+        public Iterator<Map.Entry<Integer, V>> iterator() {
+          return new EntryIterator();
+        }
+        @Override
+        public int size() {
+          return size;
+        }
+        @Override
+        public boolean contains(Object o) {
+          if (!(o instanceof Map.Entry)) {
+            return false;
+          }
+          Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+          V value = get(e.getKey());
+          return value!=null && value.equals(e.getValue());
+        }
+        @Override
+        public void clear() {
+          IntObjectHashMap.this.clear();
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  /**
+   * A mapping, backed by the arrays of this map.
+   */
+  private class MapEntry implements Map.Entry<Integer, V> {
+    private final int pos;
+    MapEntry(int pos) {
+      this.pos = pos;
+    }
+    @Override
+    public Integer getKey() {
+      return keys[pos];
+    }
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getValue() {
+      return (V) values[pos];
+    }
+    @Override
+    public V setValue(V value) {
+      if (value==null) {
+        throw new NullPointerException("Null values are not supported.");
+      }
+      V old = getValue();
+      values[pos] = value;
+      return old;
+    }
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+    }
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ getValue().hashCode();
+    }
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /**
+   * Iterates over all used slots.
+   */
+  private class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+    private final int expectedModCount = modCount;
+    private int pos = -1;
+
+    EntryIterator() {
+      advance();
+    }
+
+    private void advance() {
+      do {
+        pos++;
+      } while (pos<values.length && values[pos]==null);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return pos<values.length;
+    }
+
+    @Override
+    public Map.Entry<Integer, V> next() {
+      if (modCount!=expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (pos>=values.length) {
+        throw new NoSuchElementException();
+      }
+      MapEntry e = new MapEntry(pos);
+      advance();
+      return e;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
@@ -22,7 +22,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.logging.Logger;
@@ -126,31 +125,23 @@ public class FileDownload {
     }
     
     try {
-      URL url = new URL(address);
-      int status = 0;
-      if (address.toLowerCase().startsWith("http:")) {
-        status = ((HttpURLConnection) url.openConnection()).getResponseCode();
-      } else { //if (address.toLowerCase().startsWith("ftp:"))
-        url.openConnection(); //status = ((URLConnection) url.openConnection()).getResponseCode();
-      }
-      
-      if (status>=400) {
+      // One request only (the status is checked on the same connection).
+      // Files are stored as sent, thus no compression is negotiated.
+      conn = HttpTransport.openConnection(address, false);
+      if (conn==null) {
         //log.warning("Failed: HTTP error (code " + status + ").");
         System.err.println("Failed: HTTP error (code " + status + ").");
         // This should not logged to warning. Errors include not-existing KEGG IDs and such.
         
         return; //404 und sowas ... >400 nur error codes. Normal:200 =>OK
       }
-      FileDownload.status = status;
       
-      conn = url.openConnection();
-      
-      in = conn.getInputStream();
+      in = HttpTransport.getRawResponse(conn);
       byte[] buffer = new byte[1024];
       int numRead;
       long numWritten = 0;
       
-      final int reportEveryXKB = 50; // Set progressbar every X kb. = StepSize
+      final int reportEveryXKB = 50; // Set progressbar every X buffers. = StepSize
       //guiOperations.SetProgressBarMAXThreadlike(Math.max(conn.getContentLength(), in.available()), ProgressBar);
       if (verbose && progress!=null) progress.setNumberOfTotalCalls((long)((double)Math.max(conn.getContentLength(), in.available())/(double)(buffer.length*reportEveryXKB)));
       
@@ -275,7 +266,6 @@ public class FileDownload {
    * @return
    */
   public static boolean isHTMLcontent(String address) {
-    URLConnection conn = null;
     InputStream  in = null;
     
     int retry = 0;
@@ -283,21 +273,11 @@ public class FileDownload {
     while (true) {
       if (ret) break;
       try {
-        URL url = new URL(address);
-        int status = 0;
-        if (address.toLowerCase().startsWith("http:"))
-          status = ((HttpURLConnection) url.openConnection()).getResponseCode();
-        else //if (address.toLowerCase().startsWith("ftp:"))
-          url.openConnection(); //status = ((URLConnection) url.openConnection()).getResponseCode();
-        
-        if (status>=400) {
+        in = HttpTransport.openStream(address);
+        if (in==null) {
           System.out.println("Failed: HTTP error (code " + status + ").");          
           break; //404 und sowas ... >400 nur error codes. Normal:200 =>OK
         }
-        FileDownload.status = status;
-        conn = url.openConnection();
-        
-        in = conn.getInputStream();
         
         byte[] buffer = new byte[1024];
         int reads = 0;
@@ -319,7 +299,6 @@ public class FileDownload {
       } finally {
         try {
           if (in != null) in.close();
-          if (conn != null) conn = null;
         } catch (IOException ioe) {}
         if (retry >=2 || ret) break;
       }
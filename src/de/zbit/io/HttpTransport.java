@@ -0,0 +1,295 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Performs HTTP requests with exactly one round trip per call and
+ * reuses connections.
+ *
+ * <p>The keep-alive cache of {@link HttpURLConnection} only reuses a
+ * connection if the response has been read completely and the stream
+ * has been closed. Therefore, the streams returned by this class skip
+ * the remaining response when they are closed and error responses are
+ * always consumed. Responses are requested with gzip content encoding
+ * and decompressed transparently.
+ *
+ * <p>Other protocols (e.g., ftp or file) are opened without any of these
+ * optimizations.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class HttpTransport {
+  public static final transient Logger log = Logger.getLogger(HttpTransport.class.getName());
+
+  /**
+   * Timeout in milliseconds for establishing a connection.
+   */
+  public static int connectTimeout = 30000;
+
+  /**
+   * Timeout in milliseconds for reading from a connection.
+   */
+  public static int readTimeout = 120000;
+
+  /**
+   * Size of the buffers used for reading responses.
+   */
+  public static final int BUFFER_SIZE = 64*1024;
+
+  /**
+   * Remaining responses up to this size are read when a stream is closed
+   * early, so that the connection can be reused. Larger responses are
+   * discarded together with their connection.
+   */
+  private static final long MAX_DRAIN = 256*1024;
+
+  static {
+    // Use the system proxy.
+    System.setProperty("java.net.useSystemProxies", "true");
+    // Keep more idle connections per host than the default of 5,
+    // because caches fetch in multiple threads.
+    if (System.getProperty("http.maxConnections")==null) {
+      System.setProperty("http.maxConnections", "16");
+    }
+  }
+
+  /**
+   * A response stream, that returns its connection to the keep-alive
+   * cache when it is closed.
+   */
+  private static class ResponseInputStream extends FilterInputStream {
+    /**
+     * The raw (still compressed) stream of the connection.
+     */
+    private final InputStream raw;
+    private boolean closed = false;
+
+    ResponseInputStream(InputStream decoded, InputStream raw) {
+      super(decoded);
+      this.raw = raw;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.FilterInputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        drain(raw);
+      } finally {
+        // Closes the decoder (e.g., its Inflater) and the raw stream
+        super.close();
+      }
+    }
+  }
+
+  /**
+   * Performs a GET request.
+   * @param address
+   * @return the (decompressed) response body, or {@code null} if the
+   * server answered with an HTTP error code (see {@link FileDownload#status}).
+   * The stream must be closed by the caller.
+   * @throws IOException
+   */
+  public static InputStream openStream(String address) throws IOException {
+    URLConnection conn = openConnection(address);
+    return conn==null ? null : getResponse(conn);
+  }
+
+  /**
+   * Performs a GET request and returns a reader for the response. The
+   * charset is taken from the content type of the response or defaults
+   * to the platform charset.
+   * @param address
+   * @return the response body, or {@code null} if the server answered
+   * with an HTTP error code. The reader must be closed by the caller.
+   * @throws IOException
+   */
+  public static Reader openReader(String address) throws IOException {
+    URLConnection conn = openConnection(address);
+    if (conn==null) {
+      return null;
+    }
+    return new InputStreamReader(getResponse(conn), getCharset(conn.getContentType()));
+  }
+
+  /**
+   * Performs a GET request and returns the response as string.
+   * @param address
+   * @return the response body, or {@code null} if the server answered
+   * with an HTTP error code.
+   * @throws IOException
+   */
+  public static String getString(String address) throws IOException {
+    Reader in = openReader(address);
+    if (in==null) {
+      return null;
+    }
+    try {
+      StringBuilder sb = new StringBuilder();
+      char[] buffer = new char[BUFFER_SIZE/2];
+      int read;
+      while ((read=in.read(buffer))>=0) {
+        sb.append(buffer, 0, read);
+      }
+      return sb.toString();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Opens a connection and sends the request with a compressed response
+   * being accepted.
+   * @param address
+   * @return the connection, or {@code null} if the server answered
+   * with an HTTP error code. In this case, the connection has already
+   * been released.
+   * @throws IOException
+   * @see #openConnection(String, boolean)
+   */
+  static URLConnection openConnection(String address) throws IOException {
+    return openConnection(address, true);
+  }
+
+  /**
+   * Opens a connection and sends the request.
+   * @param address
+   * @param acceptGzip if {@code false}, no compressed response is
+   * requested, e.g., for file downloads that must be byte-exact.
+   * @return the connection, or {@code null} if the server answered
+   * with an HTTP error code. In this case, the connection has already
+   * been released.
+   * @throws IOException
+   */
+  static URLConnection openConnection(String address, boolean acceptGzip) throws IOException {
+    URLConnection conn = new URL(address).openConnection();
+    conn.setConnectTimeout(connectTimeout);
+    conn.setReadTimeout(readTimeout);
+    if (conn instanceof HttpURLConnection) {
+      HttpURLConnection http = (HttpURLConnection) conn;
+      if (acceptGzip) {
+        http.setRequestProperty("Accept-Encoding", "gzip");
+      }
+      int status = http.getResponseCode();
+      FileDownload.status = status;
+      if (status>=400) {
+        // Consume the error response, to keep the connection alive.
+        InputStream err = http.getErrorStream();
+        if (err!=null) {
+          try {
+            drain(err);
+          } finally {
+            err.close();
+          }
+        }
+        log.fine("HTTP error (code " + status + ") for " + address);
+        return null;
+      }
+    }
+    return conn;
+  }
+
+  /**
+   * @param conn an open connection.
+   * @return the decompressed response body.
+   * @throws IOException
+   */
+  static InputStream getResponse(URLConnection conn) throws IOException {
+    InputStream raw = conn.getInputStream();
+    InputStream decoded = raw;
+    String encoding = conn.getContentEncoding();
+    if (encoding!=null) {
+      if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+        decoded = new GZIPInputStream(raw, BUFFER_SIZE);
+      } else if (encoding.equalsIgnoreCase("deflate")) {
+        decoded = new InflaterInputStream(raw);
+      }
+    }
+    return new ResponseInputStream(decoded, raw);
+  }
+
+  /**
+   * @param conn an open connection.
+   * @return the response body exactly as it has been sent, i.e., without
+   * decoding any content encoding.
+   * @throws IOException
+   */
+  static InputStream getRawResponse(URLConnection conn) throws IOException {
+    InputStream raw = conn.getInputStream();
+    return new ResponseInputStream(raw, raw);
+  }
+
+  /**
+   * Extracts the charset from an HTTP content type.
+   * @param contentType e.g., "text/plain; charset=utf-8"
+   * @return the charset or the default charset of the platform.
+   */
+  static Charset getCharset(String contentType) {
+    if (contentType!=null) {
+      for (String param : contentType.split(";")) {
+        param = param.trim();
+        if (param.toLowerCase().startsWith("charset=")) {
+          String name = param.substring(8).trim().replace("\"", "");
+          try {
+            return Charset.forName(name);
+          } catch (Exception e) {
+            log.log(Level.FINE, "Unknown charset " + name, e);
+          }
+        }
+      }
+    }
+    return Charset.defaultCharset();
+  }
+
+  /**
+   * Skips small remaining responses.
+   * @param in
+   */
+  private static void drain(InputStream in) {
+    try {
+      byte[] buffer = new byte[8192];
+      long total = 0;
+      int read;
+      while (total<MAX_DRAIN && (read=in.read(buffer))>=0) {
+        total += read;
+      }
+    } catch (IOException e) {
+      // The connection will not be reused.
+    }
+  }
+
+}
@@ -127,6 +127,12 @@ public class CSVReader implements Cloneable, Closeable, Serializable {
    */
   private boolean skipEmptyLines = true;
   
+  /**
+   * If not null, only data lines accepted by this filter are split into
+   * columns and returned by {@link #getNextLine()}.
+   */
+  private transient LineFilter lineFilter = null;
+  
   /**
    * If this value is set to anything else than null, it is used in
    * cooperation with {@link OpenFile#openFile(String, Class)}.
@@ -562,6 +568,26 @@ public class CSVReader implements Cloneable, Closeable, Serializable {
     this.skipEmptyLines = skipEmptyLines;
   }
   
+  /**
+   * @see #lineFilter
+   * @return the lineFilter
+   */
+  public LineFilter getLineFilter() {
+    return lineFilter;
+  }
+  
+  /**
+   * Set a filter that is evaluated on every raw data line, before this
+   * line is split into columns. Only accepted lines are returned by
+   * {@link #getNextLine()}. Headers, comments and the automatic detection
+   * of the file format are not affected by this filter.
+   * @see #lineFilter
+   * @param lineFilter the lineFilter to set, or null to accept all lines.
+   */
+  public void setLineFilter(LineFilter lineFilter) {
+    this.lineFilter = lineFilter;
+  }
+  
   /**
    * Set whether you want to remove the char " or ' when it occurs at the start and end of a cell.
    * @param b - if false will return e.g. ["hallo a"]; if true e.g.  [hallo a]. Default: true.
@@ -1467,6 +1493,25 @@ public class CSVReader implements Cloneable, Closeable, Serializable {
    * @throws IOException
    */
   public String[] getNextLine() throws IOException {
+    String line = getNextRawLine();
+    if (line==null) {
+      return null;
+    }
+    return parseLine(line);
+  }
+  
+  /**
+   * Returns the next data line in the currently opened file, without
+   * splitting it into columns, or null if the end of the file has been
+   * reached. Empty lines (if {@link #isSkipEmptyLines()}) and lines that
+   * are rejected by the {@link #getLineFilter()} are skipped. Use
+   * {@link #parseLine(String)} to split the returned line.
+   * 
+   * @return the next unparsed line in the currently opened file.
+   * @throws IOException
+   * @see #getNextLine()
+   */
+  public String getNextRawLine() throws IOException {
     if (currentOpenFile==null) {
       open(); //throw new Exception("No file is currently opened.");
       if (currentOpenFile==null)
@@ -1482,7 +1527,7 @@ public class CSVReader implements Cloneable, Closeable, Serializable {
     //  return null;
     //}
     
-    // Read next line, draw progress, split into columns
+    // Read next line, draw progress
     String line=null;
     while((line = currentOpenFile.readLine())!=null) {
       if (displayProgress && progress!=null) {
@@ -1494,6 +1539,10 @@ public class CSVReader implements Cloneable, Closeable, Serializable {
       if (line.length()==0 && skipEmptyLines) {
         line=null;
         continue;
+      } else if (lineFilter!=null && !lineFilter.accept(line, separatorChar)) {
+        // Skip without splitting the line
+        line=null;
+        continue;
       } else {
         break; // the usual case
       }
@@ -1502,7 +1551,19 @@ public class CSVReader implements Cloneable, Closeable, Serializable {
       close();
       return null;
     }
-    
+    return line;
+  }
+  
+  /**
+   * Splits a line, as returned by {@link #getNextRawLine()}, into columns,
+   * exactly as {@link #getNextLine()} does. After the file has been opened,
+   * this method does not modify this reader and might thus be called from
+   * multiple threads.
+   * 
+   * @param line
+   * @return the trimmed cells of the given line.
+   */
+  public String[] parseLine(String line) {
     // Split
     String [] data = getSplits(line);
     
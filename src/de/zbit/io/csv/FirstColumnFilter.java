@@ -0,0 +1,93 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.io.csv;
+
+/**
+ * A {@link LineFilter} that accepts only lines whose first column equals
+ * one of the given values. The comparison is performed directly on the
+ * unsplit line. Surrounding whitespace and string indicators (" or ')
+ * are ignored, just as when reading the cell with {@link CSVReader}.
+ *
+ * <p>Example: only read human entries from NCBI's gene2refseq file:
+ * <pre>
+ * r.setLineFilter(new FirstColumnFilter("9606"));
+ * </pre>
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class FirstColumnFilter implements LineFilter {
+
+  /**
+   * Accepted values of the first column.
+   */
+  private final String[] values;
+
+  /**
+   * @param values accepted values of the first column.
+   */
+  public FirstColumnFilter(String... values) {
+    super();
+    this.values = values;
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.io.csv.LineFilter#accept(java.lang.String, char)
+   */
+  @Override
+  public boolean accept(String line, char separator) {
+    if (separator=='\u0000') {
+      return true; // Unknown separator
+    }
+
+    // Skip leading whitespace (might accept lines with an empty first column) and string indicators
+    int start = 0;
+    while (start<line.length() && line.charAt(start)<=' ') {
+      start++;
+    }
+    char quote = '\u0000';
+    if (start<line.length() && (line.charAt(start)=='"' || line.charAt(start)=='\'')) {
+      quote = line.charAt(start++);
+    }
+
+    for (String value : values) {
+      if (line.startsWith(value, start)) {
+        int end = start + value.length();
+        if (quote!='\u0000' && end<line.length() && line.charAt(end)==quote) {
+          end++;
+        }
+        while (end<line.length() && line.charAt(end)<=' ' && !isSeparator(line.charAt(end), separator)) {
+          end++;
+        }
+        if (end==line.length() || isSeparator(line.charAt(end), separator)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param c
+   * @param separator
+   * @return true if {@code c} separates columns.
+   */
+  private static boolean isSeparator(char c, char separator) {
+    return (separator=='\u0001') ? Character.isWhitespace(c) : (c==separator);
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.io.csv;
+
+/**
+ * A filter that is evaluated by {@link CSVReader#getNextLine()} on every
+ * raw data line, before this line is split into columns. Rejected lines
+ * are skipped without splitting, trimming and removing string indicators
+ * of their cells, which is the major cost of reading huge files from
+ * which only a small subset of lines is required.
+ *
+ * <p>Filters operate on unparsed lines and should thus only reject lines
+ * that are definitely not required. Accepting a line that is rejected
+ * later on (e.g., after parsing it) is always safe.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @see FirstColumnFilter
+ */
+public interface LineFilter {
+
+  /**
+   * @param line the raw line, as read from the file (trimmed if
+   * {@link CSVReader#setTrimLinesAfterReading(boolean)} is set).
+   * @param separator the column separator char of the file.
+   * '\u0001' equals the Regex whitespace (\\s).
+   * @return false if this line should be skipped.
+   */
+  public boolean accept(String line, char separator);
+
+}
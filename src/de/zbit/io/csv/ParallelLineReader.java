@@ -0,0 +1,175 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.io.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits the lines of a {@link CSVReader} into columns on multiple
+ * threads. The raw lines are read by the calling thread and collected
+ * in chunks of {@link #CHUNK_SIZE} lines. Each chunk is split by
+ * {@link CSVReader#parseLine(String)} on a {@link ForkJoinPool}, while
+ * the caller processes the already parsed chunks. {@link #getNextLine()}
+ * returns all lines in the same order as {@link CSVReader#getNextLine()}.
+ * Example:
+ * <pre>
+ * ParallelLineReader p = new ParallelLineReader(r, threads);
+ * String[] line;
+ * while ((line = p.getNextLine())!=null) {
+ *   ...
+ * }
+ * p.close();
+ * </pre>
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class ParallelLineReader implements Closeable {
+
+  /**
+   * Number of lines that are parsed by a single task.
+   */
+  public static final int CHUNK_SIZE = 4096;
+
+  /**
+   * The underlying reader.
+   */
+  private final CSVReader reader;
+
+  /**
+   * Parses the chunks.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Maximum number of chunks that are read in advance.
+   */
+  private final int maxPendingChunks;
+
+  /**
+   * Submitted chunks, in the order of the file.
+   */
+  private final LinkedList<ForkJoinTask<String[][]>> pending = new LinkedList<ForkJoinTask<String[][]>>();
+
+  /**
+   * The current chunk and the index of the next line in this chunk.
+   */
+  private String[][] chunk = null;
+  private int index = 0;
+
+  /**
+   * True if the end of the file has been reached.
+   */
+  private boolean endOfFile = false;
+
+  /**
+   * Splits lines of a single chunk.
+   */
+  private static class ParseTask extends RecursiveTask<String[][]> {
+    private static final long serialVersionUID = 1L;
+    private final CSVReader reader;
+    private final String[] lines;
+    private final int size;
+    ParseTask(CSVReader reader, String[] lines, int size) {
+      super();
+      this.reader = reader;
+      this.lines = lines;
+      this.size = size;
+    }
+    @Override
+    protected String[][] compute() {
+      String[][] parsed = new String[size][];
+      for (int i=0; i<size; i++) {
+        parsed[i] = reader.parseLine(lines[i]);
+      }
+      return parsed;
+    }
+  }
+
+  /**
+   * @param reader a reader, positioned at the first line to read (e.g.,
+   * directly after {@link CSVReader#open()}).
+   * @param threads number of parsing threads.
+   */
+  public ParallelLineReader(CSVReader reader, int threads) {
+    super();
+    this.reader = reader;
+    this.pool = new ForkJoinPool(Math.max(1, threads));
+    this.maxPendingChunks = 2 * Math.max(1, threads);
+  }
+
+  /**
+   * @return the next line in the file, split into columns, or null if the
+   * end of the file has been reached.
+   * @throws IOException
+   * @see CSVReader#getNextLine()
+   */
+  public String[] getNextLine() throws IOException {
+    while (chunk==null || index>=chunk.length) {
+      fillPending();
+      if (pending.isEmpty()) {
+        return null;
+      }
+      chunk = pending.removeFirst().join();
+      index = 0;
+    }
+    String[] line = chunk[index];
+    chunk[index++] = null; // Do not keep parsed lines longer than necessary
+    return line;
+  }
+
+  /**
+   * Reads and submits new chunks, until {@link #maxPendingChunks} are
+   * pending or the end of the file has been reached.
+   * @throws IOException
+   */
+  private void fillPending() throws IOException {
+    while (!endOfFile && pending.size()<maxPendingChunks) {
+      String[] lines = new String[CHUNK_SIZE];
+      int size = 0;
+      String line;
+      while (size<CHUNK_SIZE && (line = reader.getNextRawLine())!=null) {
+        lines[size++] = line;
+      }
+      if (size<CHUNK_SIZE) {
+        endOfFile = true;
+      }
+      if (size>0) {
+        pending.add(pool.submit(new ParseTask(reader, lines, size)));
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    pool.shutdownNow();
+    pending.clear();
+    chunk = null;
+    if (!endOfFile) {
+      reader.close();
+    }
+  }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.zbit.kegg.api.KeggInfos;
+import de.zbit.kegg.api.cache.KeggInfoManagement;
+import de.zbit.util.progressbar.AbstractProgressBar;
+
+/**
+ * Fetches KEGG informations into a {@link KeggInfoManagement} in
+ * concurrent batches, while new identifiers are still being discovered.
+ *
+ * <p>Every fetched information is passed to
+ * {@link #onInformation(String, KeggInfos)}, where subclasses can
+ * {@link #add(String)} dependent identifiers (e.g., the reactants of a
+ * reaction). These are fetched with the next free batch, without waiting
+ * for the remaining batches. Whenever less than
+ * {@link KeggInfoManagement#getMaxConcurrentFetches()} batches are
+ * running, the queued identifiers are submitted immediately, even if
+ * they do not fill a batch.
+ *
+ * <p>{@link #add(String)} and {@link #onInformation(String, KeggInfos)}
+ * are only called from the thread that calls {@link #run()}, so
+ * subclasses do not need any synchronization.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class KeggPrefetchPlanner {
+  public static final transient Logger log = Logger.getLogger(KeggPrefetchPlanner.class.getName());
+
+  /**
+   * Maximum number of identifiers per batch. KEGG only returns 10
+   * entries per request.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 10;
+
+  /**
+   * Fetched identifiers and their informations.
+   */
+  private static class Batch {
+    final String[] ids;
+    final KeggInfos[] infos;
+    Batch(String[] ids, KeggInfos[] infos) {
+      this.ids = ids;
+      this.infos = infos;
+    }
+  }
+
+  private final KeggInfoManagement manager;
+
+  private final AbstractProgressBar progress;
+
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  /**
+   * All identifiers ever added.
+   */
+  private final Set<String> queued = new HashSet<String>();
+
+  /**
+   * Identifiers, that have not been submitted yet.
+   */
+  private final LinkedList<String> pending = new LinkedList<String>();
+
+  /**
+   * Number of submitted batches.
+   */
+  private int batches = 0;
+
+  /**
+   * @param manager
+   * @param progress might be null
+   */
+  public KeggPrefetchPlanner(KeggInfoManagement manager, AbstractProgressBar progress) {
+    super();
+    this.manager = manager;
+    this.progress = progress;
+  }
+
+  /**
+   * @param batchSize maximum number of identifiers per batch.
+   */
+  public void setBatchSize(int batchSize) {
+    if (batchSize<1) {
+      throw new IllegalArgumentException("Batch size must be positive.");
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return maximum number of identifiers per batch.
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Queues an identifier for fetching. Identifiers that have already
+   * been added are ignored.
+   * @param id
+   */
+  public void add(String id) {
+    if (id!=null && id.length()>0 && queued.add(id)) {
+      pending.add(id);
+      if (progress!=null) {
+        progress.setNumberOfTotalCalls(queued.size());
+      }
+    }
+  }
+
+  /**
+   * @param ids
+   * @see #add(String)
+   */
+  public void addAll(Collection<String> ids) {
+    for (String id : ids) {
+      add(id);
+    }
+  }
+
+  /**
+   * Called for every successfully fetched information. Subclasses may
+   * {@link #add(String)} further identifiers.
+   * @param id
+   * @param info
+   */
+  protected void onInformation(String id, KeggInfos info) {
+    // Nothing to do by default
+  }
+
+  /**
+   * @return number of submitted batches so far.
+   */
+  public int getNumberOfBatches() {
+    return batches;
+  }
+
+  /**
+   * Fetches all queued identifiers and all identifiers that are added
+   * meanwhile. Returns, when everything has been fetched.
+   * @throws InterruptedException
+   */
+  public void run() throws InterruptedException {
+    final int threads = Math.max(1, manager.getMaxConcurrentFetches());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger number = new AtomicInteger(1);
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "KeggPrefetchPlanner-" + number.getAndIncrement());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    CompletionService<Batch> completion = new ExecutorCompletionService<Batch>(executor);
+    // Identifiers of all running batches, also known if a batch fails
+    Map<Future<Batch>, String[]> running = new HashMap<Future<Batch>, String[]>();
+    try {
+      while (true) {
+        // Use all free slots
+        while (running.size()<threads && !pending.isEmpty()) {
+          final String[] ids = new String[Math.min(batchSize, pending.size())];
+          for (int i=0; i<ids.length; i++) {
+            ids[i] = pending.removeFirst();
+          }
+          Future<Batch> future = completion.submit(new Callable<Batch>() {
+            @Override
+            public Batch call() throws Exception {
+              return new Batch(ids, manager.getInformationsAsync(ids).get());
+            }
+          });
+          running.put(future, ids);
+          batches++;
+        }
+        if (running.isEmpty()) {
+          break;
+        }
+
+        // Process the next finished batch
+        Future<Batch> future = completion.take();
+        String[] ids = running.remove(future);
+        Batch batch;
+        try {
+          batch = future.get();
+        } catch (ExecutionException e) {
+          log.log(Level.WARNING, "Could not prefetch KEGG informations.", e.getCause());
+          batch = null;
+        }
+        if (batch!=null) {
+          for (int i=0; i<batch.ids.length; i++) {
+            if (batch.infos!=null && batch.infos[i]!=null) {
+              onInformation(batch.ids[i], batch.infos[i]);
+            }
+          }
+        }
+        if (progress!=null) {
+          for (int i=0; i<ids.length; i++) {
+            progress.DisplayBar();
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    if (progress!=null) {
+      progress.finished();
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
@@ -293,6 +294,11 @@ public class KeggTools {
   /**
    * Builds the cache for all reactions and entries in the pathway. This is much
    * faster than fetching each entry one by one.
+   * 
+   * <p>All informations are fetched in concurrent batches (see
+   * {@link KeggPrefetchPlanner}). If {@code autocompleteReactions} is set,
+   * reactants and enzymes of every reaction are queued as soon as the
+   * reaction arrives, i.e., while the remaining entries are still fetched.
    * @param p The source pathway
    * @param manager The cache
    * @param autocompleteReactions Set to true, if you plan to call
@@ -302,7 +308,7 @@ public class KeggTools {
   public static void preFetchInformation(Pathway p, KeggInfoManagement manager, boolean autocompleteReactions,
     AbstractProgressBar progress) {
     // PreFetch infos. Enormous performance improvement!
-    Collection<String> preFetchIDs = new HashSet<String>();
+    Collection<String> preFetchIDs = new LinkedHashSet<String>();
     preFetchIDs.add("gn:" + p.getOrg());
     preFetchIDs.add(p.getName());
     for (Entry entry : p.getEntries()) {
@@ -312,47 +318,35 @@ public class KeggTools {
         preFetchIDs.add(ko_id);
       }
     }
+    final Set<String> reactionIDs = new HashSet<String>();
     for (Reaction r : p.getReactions()) {
       for (String ko_id : r.getName().split(" ")) {
         preFetchIDs.add(ko_id);
+        reactionIDs.add(ko_id);
       }
     }
-    manager.precacheIDs(preFetchIDs.toArray(new String[preFetchIDs.size()]), progress);
-    
     
+    KeggPrefetchPlanner planner;
     if (autocompleteReactions) {
       // Also prefetch all Enzymes, and reactants of every reaction, even if
       // it's not in the KGML document.
-      preFetchIDs.clear();
-      for (Reaction r : p.getReactions()) {
-        for (String ko_id : r.getName().split(" ")) {
-          KeggInfos infos = KeggInfos.get(ko_id, manager);
-
-          if (infos.getEquation()!=null) {
-            String[] reactants = infos.getEquation().replace("<=>", " + ").trim().split(Pattern.quote(" + "));
-            for (String reactant : reactants) {
-              reactant = removeReactantPrefixAndSuffix(reactant.trim());
-              
-              if (!reactant.contains(":")) {
-                reactant = KeggInfos.appendPrefix(reactant);
-              }
-              
-              //if (!preFetchIDs.contains(reactant)) 
-              preFetchIDs.add(reactant);
-            }
-          }
-          if (infos.getEnzymes()!=null) {
-            String[] enzymes = infos.getEnzymes().trim().replaceAll("\\s+", " ").split(" ");
-            for (String string : enzymes) {
-              String toAdd = "EC:"+string;
-              //if (!preFetchIDs.contains(toAdd))
-              preFetchIDs.add(toAdd);
-            }
+      planner = new KeggPrefetchPlanner(manager, progress) {
+        @Override
+        protected void onInformation(String id, KeggInfos infos) {
+          if (reactionIDs.contains(id)) {
+            addAll(getReactantsAndEnzymes(infos));
           }
-          
         }
-      }
-      manager.precacheIDs(preFetchIDs.toArray(new String[preFetchIDs.size()]), progress);
+      };
+    } else {
+      planner = new KeggPrefetchPlanner(manager, progress);
+    }
+    planner.addAll(preFetchIDs);
+    try {
+      planner.run();
+    } catch (InterruptedException e) {
+      log.log(Level.WARNING, "Prefetching KEGG informations has been interrupted.", e);
+      Thread.currentThread().interrupt();
     }
     
     // Add Synonyms to list. This step is MANDATORY AND VERY IMPORTANT
@@ -376,6 +370,33 @@ public class KeggTools {
     // -------------------------
   }
   
+  /**
+   * @param infos informations of a reaction
+   * @return the identifiers of all reactants (e.g., "cpd:C00031") and
+   * enzymes (e.g., "EC:2.7.1.1") of the given reaction.
+   */
+  private static Collection<String> getReactantsAndEnzymes(KeggInfos infos) {
+    Collection<String> ids = new LinkedHashSet<String>();
+    if (infos.getEquation()!=null) {
+      String[] reactants = infos.getEquation().replace("<=>", " + ").trim().split(Pattern.quote(" + "));
+      for (String reactant : reactants) {
+        reactant = removeReactantPrefixAndSuffix(reactant.trim());
+        
+        if (!reactant.contains(":")) {
+          reactant = KeggInfos.appendPrefix(reactant);
+        }
+        ids.add(reactant);
+      }
+    }
+    if (infos.getEnzymes()!=null) {
+      String[] enzymes = infos.getEnzymes().trim().replaceAll("\\s+", " ").split(" ");
+      for (String string : enzymes) {
+        ids.add("EC:"+string);
+      }
+    }
+    return ids;
+  }
+  
   /**
    * Retrieves the Kegg Enzyme IDs for the given entry.
    * You should precache this in the manager!
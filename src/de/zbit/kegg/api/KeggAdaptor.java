@@ -16,9 +16,7 @@
  */
 package de.zbit.kegg.api;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.rmi.RemoteException;
@@ -28,6 +26,7 @@ import java.util.concurrent.TimeoutException;
 
 import keggapi.Definition;
 import de.zbit.io.FileDownload;
+import de.zbit.io.HttpTransport;
 import de.zbit.kegg.api.cache.KeggFunctionManagement;
 import de.zbit.kegg.api.cache.KeggInfoManagement;
 import de.zbit.util.StringUtil;
@@ -75,6 +74,27 @@ public class KeggAdaptor {
    */
   protected final static String KEGG_API_REST_PREFIX = "http://rest.kegg.jp/";
   
+  /**
+   * The URL prefix of the KEGG REST API, used by this instance.
+   */
+  private final String restPrefix;
+  
+  /**
+   * Creates an adaptor for the official KEGG REST API.
+   */
+  public KeggAdaptor() {
+    this(KEGG_API_REST_PREFIX);
+  }
+  
+  /**
+   * Creates an adaptor for a KEGG REST API at the given location
+   * (e.g., a mirror or a local test server).
+   * @param restPrefix URL prefix, e.g., "http://rest.kegg.jp/".
+   */
+  public KeggAdaptor(String restPrefix) {
+    this.restPrefix = restPrefix.endsWith("/") ? restPrefix : restPrefix + '/';
+  }
+  
 
   /**
    * @param args
@@ -305,7 +325,7 @@ public class KeggAdaptor {
    */
   public String get(String operation, String... arguments ) throws IOException {
     // Assemble the KEGG API URL
-    StringBuffer address = new StringBuffer(KEGG_API_REST_PREFIX);
+    StringBuffer address = new StringBuffer(restPrefix);
     address.append(operation);
     if (arguments!=null) {
       for (String argument : arguments) {
@@ -314,13 +334,14 @@ public class KeggAdaptor {
       }
     }
     
-    // Get the requested information
-    ByteArrayOutputStream bs = new ByteArrayOutputStream();
-    BufferedOutputStream out = new BufferedOutputStream(bs);
-    FileDownload.download(address.toString(), out, false);
-    
-    // Return the result
-    return bs.toString();
+    // Get the requested information (one request on a pooled connection)
+    String result = HttpTransport.getString(address.toString());
+    if (result==null) {
+      // HTTP error, e.g., unknown ids
+      System.err.println("Failed: HTTP error (code " + FileDownload.status + ").");
+      return "";
+    }
+    return result;
   }
 
 
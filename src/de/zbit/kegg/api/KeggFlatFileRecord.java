@@ -0,0 +1,289 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api;
+
+/**
+ * A single KEGG flat-file record (e.g., the result of a "get" operation
+ * for one identifier), tokenized in one pass.
+ *
+ * <p>{@link KeggAdaptor#extractInfo(String, String, String)} upper-cases
+ * and scans the complete record for every requested field. This class
+ * splits the record once into lines and sub-entries (e.g., "UniProt:" in
+ * a DBLINKS block) and remembers their positions. All subsequent lookups
+ * only iterate over these positions and do not create any temporary
+ * strings.
+ *
+ * <p>{@link #extractInfo(String, String)} returns the same results as
+ * {@link KeggAdaptor#extractInfo(String, String, String)} with the only
+ * difference, that occurrences which are not a sub-entry (e.g., "GO:"
+ * within a word) are skipped, instead of stopping the search.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class KeggFlatFileRecord {
+
+  /**
+   * The complete record.
+   */
+  private final String text;
+
+  /**
+   * Number of lines in {@link #text}.
+   */
+  private int lines = 0;
+
+  /**
+   * Start (inclusive) and end (exclusive, without the line break) of
+   * every line.
+   */
+  private int[] lineStart, lineEnd;
+
+  /**
+   * Number of sub-entries in {@link #text}.
+   */
+  private int tokens = 0;
+
+  /**
+   * Start, end and line of every sub-entry. A sub-entry is a word at the
+   * beginning of a line (after an optional indentation) or a word that
+   * follows at least two whitespace characters.
+   */
+  private int[] tokenStart, tokenEnd, tokenLine;
+
+  /**
+   * @param record a complete KEGG flat-file record.
+   */
+  public KeggFlatFileRecord(String record) {
+    super();
+    this.text = record;
+    int capacity = Math.max(16, record.length() / 40);
+    lineStart = new int[capacity];
+    lineEnd = new int[capacity];
+    tokenStart = new int[capacity];
+    tokenEnd = new int[capacity];
+    tokenLine = new int[capacity];
+    tokenize();
+  }
+
+  /**
+   * Splits {@link #text} into lines and locates all sub-entries.
+   */
+  private void tokenize() {
+    int length = text.length();
+    int start = 0;
+    while (start < length) {
+      int end = text.indexOf('\n', start);
+      if (end < 0) {
+        end = length;
+      }
+      addLine(start, end);
+
+      int i = start;
+      while (i < end) {
+        int ws = i;
+        while (i < end && Character.isWhitespace(text.charAt(i))) i++;
+        if (i >= end) {
+          break;
+        }
+        int tStart = i;
+        while (i < end && !Character.isWhitespace(text.charAt(i))) i++;
+        if (ws == start || tStart - ws >= 2) {
+          addToken(tStart, i);
+        }
+      }
+      start = end + 1;
+    }
+  }
+
+  /**
+   * @param start
+   * @param end
+   */
+  private void addLine(int start, int end) {
+    if (lines == lineStart.length) {
+      lineStart = copyOf(lineStart, lines * 2);
+      lineEnd = copyOf(lineEnd, lines * 2);
+    }
+    lineStart[lines] = start;
+    lineEnd[lines] = end;
+    lines++;
+  }
+
+  /**
+   * @param start
+   * @param end
+   */
+  private void addToken(int start, int end) {
+    if (tokens == tokenStart.length) {
+      tokenStart = copyOf(tokenStart, tokens * 2);
+      tokenEnd = copyOf(tokenEnd, tokens * 2);
+      tokenLine = copyOf(tokenLine, tokens * 2);
+    }
+    tokenStart[tokens] = start;
+    tokenEnd[tokens] = end;
+    tokenLine[tokens] = lines - 1;
+    tokens++;
+  }
+
+  /**
+   * @param array
+   * @param length
+   * @return a copy of {@code array} with the given length.
+   */
+  private static int[] copyOf(int[] array, int length) {
+    int[] ret = new int[length];
+    System.arraycopy(array, 0, ret, 0, Math.min(array.length, length));
+    return ret;
+  }
+
+  /**
+   * @return the complete record.
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * @return number of lines in this record.
+   */
+  public int getLineCount() {
+    return lines;
+  }
+
+  /**
+   * Extracts an information from this record (case insensitive). See
+   * {@link KeggAdaptor#extractInfo(String, String, String)} for details.
+   *
+   * @param startsWith the keyword (e.g., "NAME") or sub-entry (e.g.,
+   * "UniProt:"). A leading line break only matches keywords that are
+   * followed by a whitespace.
+   * @param endsWith either {@code null} to get the complete block
+   * (including all continuation lines) or "\n" to get the remainder of
+   * the line.
+   * @return the information, an empty string or {@code null} if the
+   * record does not contain {@code startsWith}.
+   */
+  public String extractInfo(String startsWith, String endsWith) {
+    if (endsWith != null && endsWith.length() > 0 && !endsWith.equals("\n")) {
+      // Not supported by the tokenizer
+      return KeggAdaptor.extractInfo(text, startsWith, endsWith);
+    }
+    boolean lineBreak = startsWith.startsWith("\n");
+    String key = lineBreak ? startsWith.substring(1) : startsWith;
+
+    // Prefer hits at the beginning of a line
+    int line = findLineStart(key);
+    int keyEnd;
+    if (line >= 0) {
+      keyEnd = lineStart[line] + key.length();
+      if (lineBreak && keyEnd < text.length() && !Character.isWhitespace(text.charAt(keyEnd))) {
+        return null;
+      }
+    } else if (lineBreak) {
+      return null;
+    } else {
+      // Blocks must start at the beginning of a line
+      boolean blocks = (endsWith == null || endsWith.length() < 1);
+      int token = findToken(key.trim(), blocks);
+      if (token < 0) {
+        return null;
+      }
+      line = tokenLine[token];
+      keyEnd = tokenEnd[token];
+    }
+    if (keyEnd >= text.length()) {
+      return "";
+    }
+
+    int end = lineEnd[line];
+    if (endsWith == null || endsWith.length() < 1) {
+      // Complete block
+      StringBuilder ret = new StringBuilder();
+      int st = text.indexOf(' ', keyEnd);
+      if (st < 0) {
+        st = keyEnd;
+      }
+      if (st <= end) {
+        ret.append(text.substring(st, end).trim());
+      }
+      for (int i = line + 1; i < lines; i++) {
+        if (lineStart[i] < lineEnd[i] && text.charAt(lineStart[i]) == ' ') {
+          ret.append('\n');
+          ret.append(text.substring(lineStart[i], lineEnd[i]).trim());
+        } else {
+          break;
+        }
+      }
+      return ret.toString();
+    } else {
+      // Remainder of the line (which must be terminated)
+      if (end >= text.length()) {
+        return "";
+      }
+      return text.substring(keyEnd, end).trim();
+    }
+  }
+
+  /**
+   * @param key
+   * @return the index of the first line (except the first line of the
+   * record) that starts with {@code key} or -1.
+   */
+  private int findLineStart(String key) {
+    int keyLength = key.length();
+    for (int i = 1; i < lines; i++) {
+      if (lineEnd[i] - lineStart[i] >= keyLength &&
+          text.regionMatches(true, lineStart[i], key, 0, keyLength)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param token
+   * @param lineStartOnly if true, only sub-entries at the beginning of a
+   * line are considered.
+   * @return the index of the first sub-entry that equals {@code token}
+   * or -1.
+   */
+  private int findToken(String token, boolean lineStartOnly) {
+    int tokenLength = token.length();
+    if (tokenLength < 1) {
+      return -1;
+    }
+    for (int i = 0; i < tokens; i++) {
+      if (tokenEnd[i] - tokenStart[i] == tokenLength &&
+          text.regionMatches(true, tokenStart[i], token, 0, tokenLength) &&
+          (!lineStartOnly || isFirstToken(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param token
+   * @return true if only whitespace precedes the given sub-entry in its
+   * line.
+   */
+  private boolean isFirstToken(int token) {
+    return token == 0 || tokenLine[token - 1] != tokenLine[token];
+  }
+
+}
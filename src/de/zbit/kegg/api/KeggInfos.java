@@ -876,10 +876,11 @@ public class KeggInfos implements Serializable {
       informationFromKeggAdaptor = null;
       return;
     }
-    String uInfos = infos.toUpperCase();
+    // Tokenize once, instead of scanning the complete string for every field.
+    KeggFlatFileRecord record = new KeggFlatFileRecord(infos);
     
     // General
-    names = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "NAME", null);
+    names = record.extractInfo("NAME", null);
     if (names != null && names.length() > 0) {
       int pos = names.lastIndexOf(";");
       if (pos > 0 && pos < (names.length() - 1)) {
@@ -888,32 +889,32 @@ public class KeggInfos implements Serializable {
         name = names;
       }
     }
-    definition = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "DEFINITION", null);
-    description = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "DESCRIPTION", null);
-    orthology = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "ORTHOLOGY", null);
+    definition = record.extractInfo("DEFINITION", null);
+    description = record.extractInfo("DESCRIPTION", null);
+    orthology = record.extractInfo("ORTHOLOGY", null);
     
     // Mainly Pathway specific (eg. "path:map00603")
-    go_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, " GO:", "\n"); // DBLINKS GO:
+    go_id = record.extractInfo(" GO:", "\n"); // DBLINKS GO:
     // 0006096
     // 0006094
     
     // Mainly Organism specific (eg. "gn:hsa")
-    taxonomy = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "TAXONOMY", "\n"); // e.g.
+    taxonomy = record.extractInfo("TAXONOMY", "\n"); // e.g.
     // "TAXONOMY    TAX:9606"
     // =>
     // "TAX:9606".
     
     // Mainly Gene specific (eg. "hsa:12313")
-    ensembl_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "ENSEMBL:", "\n");
-    uniprot_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "UNIPROT:", "\n");
-    hgnc_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "HGNC:", "\n");
-    omim_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "OMIM:", "\n");
-    entrez_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "NCBI-GENEID:", "\n");
+    ensembl_id = record.extractInfo("ENSEMBL:", "\n");
+    uniprot_id = record.extractInfo("UNIPROT:", "\n");
+    hgnc_id = record.extractInfo("HGNC:", "\n");
+    omim_id = record.extractInfo("OMIM:", "\n");
+    entrez_id = record.extractInfo("NCBI-GENEID:", "\n");
     
     // For KO orthologous, parse entrez ids of all organisms from "GENES"
     if (entrez_id==null || entrez_id.length()<1) {
       try {
-        String temp = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "\nGENES ", null);
+        String temp = record.extractInfo("\nGENES ", null);
         if (temp!=null && temp.length()>0) {
           StringBuffer eId = new StringBuffer();
           for (int num: Utils.getNumbersFromString(temp, ": ", null)) {
@@ -931,7 +932,7 @@ public class KeggInfos implements Serializable {
     
     // For pathways, parse genes occurring in this pathway
     try {
-      String temp = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "\nGENE ", null);
+      String temp = record.extractInfo("\nGENE ", null);
       if (temp!=null && temp.length()>0) {
         gene_entry = temp.split("\n");
         for (int i=0; i<gene_entry.length; i++) {
@@ -955,8 +956,8 @@ public class KeggInfos implements Serializable {
     
     
     //urn:miriam:kegg.reaction (R00100) RN:R05966
-    reaction_id = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, " RN:", "\n");
-    String more_reaction = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "ALL_REAC", null);
+    reaction_id = record.extractInfo(" RN:", "\n");
+    String more_reaction = record.extractInfo("ALL_REAC", null);
     if (more_reaction!=null) {
       Pattern pat = Pattern.compile(DatabaseIdentifiers.getRegularExpressionForIdentifier(IdentifierDatabases.KEGG_Reaction, true));
       Matcher m = pat.matcher(more_reaction);
@@ -978,28 +979,28 @@ public class KeggInfos implements Serializable {
     
     // in small molecules (compound eg. "cpd:C00031")
     // KNApSAcK, NIKKAJI, (CAS) missing
-    formula = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "FORMULA", null); // FORMULA C6H12O6
-    mass = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "MASS", null); // MASS 180.0634
+    formula = record.extractInfo("FORMULA", null); // FORMULA C6H12O6
+    mass = record.extractInfo("MASS", null); // MASS 180.0634
     if (mass==null) {
-      mass = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "EXACT_MASS", null); // MASS 180.0634
+      mass = record.extractInfo("EXACT_MASS", null); // MASS 180.0634
     }
-    molWeight = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "MOL_WEIGHT", null); // MASS 180.0634
+    molWeight = record.extractInfo("MOL_WEIGHT", null); // MASS 180.0634
     
-    pubchem = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "PUBCHEM:", "\n");
-    PDBeChem = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "PDB-CCD:", "\n");
-    chebi = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "CHEBI:", "\n");
-    three_dmet = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "3DMET:", "\n");
-    cas = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, " CAS:", "\n");
+    pubchem = record.extractInfo("PUBCHEM:", "\n");
+    PDBeChem = record.extractInfo("PDB-CCD:", "\n");
+    chebi = record.extractInfo("CHEBI:", "\n");
+    three_dmet = record.extractInfo("3DMET:", "\n");
+    cas = record.extractInfo(" CAS:", "\n");
     
-    GlycomeDB = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "GLYCOMEDB:", "\n");
-    LipidBank = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "LIPIDBANK:", "\n");
+    GlycomeDB = record.extractInfo("GLYCOMEDB:", "\n");
+    LipidBank = record.extractInfo("LIPIDBANK:", "\n");
     
     // Mainly drg (eg. "dr:D00694")
     // missing: NIKKAJI, LigandBox (CAS)
-    drugbank = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "DRUGBANK:", "\n");
+    drugbank = record.extractInfo("DRUGBANK:", "\n");
     
     // Synonym identifiers
-    String remark = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "REMARK", null);
+    String remark = record.extractInfo("REMARK", null);
     if (remark!=null && remark.length()>1) {
       final String synStart = "Same as:";
       if (remark.startsWith(synStart)) {
@@ -1008,26 +1009,27 @@ public class KeggInfos implements Serializable {
     }
     
     // in reactions:
-    equation = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "EQUATION", "\n");
-    String pathwaysTemp = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "PATHWAY", null);
+    equation = record.extractInfo("EQUATION", "\n");
+    String pathwaysTemp = record.extractInfo("PATHWAY", null);
     if ((pathwaysTemp != null) && (pathwaysTemp.trim().length() != 0)) {
       pathwaysTemp = pathwaysTemp.replace("PATH:", "");
       String[] splitt = pathwaysTemp.split("\n");
-      pathways = "";
-      pathwayDescs = "";
+      StringBuilder pathwaysBuf = new StringBuilder();
+      StringBuilder descsBuf = new StringBuilder();
       for (String s : splitt) {
-        if (s.startsWith(" ") && (pathwayDescs.length() != 0)) {
+        if (s.startsWith(" ") && (descsBuf.length() != 0)) {
           /*
            * Continuation of last line.
            */
-          pathwayDescs += " " + s;
+          descsBuf.append(' ').append(s);
           continue;
         }
         s = s.trim();
-        pathways += "," + s.substring(0, s.indexOf(" "));
-        pathwayDescs += ","
-            + s.substring(s.indexOf(" ")).trim().replace(",", "");
+        pathwaysBuf.append(',').append(s.substring(0, s.indexOf(" ")));
+        descsBuf.append(',').append(s.substring(s.indexOf(" ")).trim().replace(",", ""));
       }
+      pathways = pathwaysBuf.toString();
+      pathwayDescs = descsBuf.toString();
     }
     if ((pathways != null) && pathways.startsWith(",")) {
       pathways = pathways.substring(1);
@@ -1035,7 +1037,7 @@ public class KeggInfos implements Serializable {
     if ((pathwayDescs != null) && pathwayDescs.startsWith(",")) {
       pathwayDescs = pathwayDescs.substring(1);
     }
-    enzymes = KeggAdaptor.extractInfoCaseSensitive(infos, uInfos, "ENZYME", "\n");
+    enzymes = record.extractInfo("ENZYME", "\n");
     
     // Free Memory instead of storing empty Strings.
     if (taxonomy != null && taxonomy.trim().length() == 0) {
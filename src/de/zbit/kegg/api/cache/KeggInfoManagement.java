@@ -16,9 +16,14 @@
  */
 package de.zbit.kegg.api.cache;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,10 +54,16 @@ public class KeggInfoManagement extends InfoManagement<String, KeggInfos> implem
    * The adapter to communicate with the KEGG API
    */
   private transient KeggAdaptor adap=null;
+  /**
+   * Optional local snapshot of KEGG, that is queried before the KEGG API.
+   */
+  private transient KeggSnapshotStore snapshot=null;
   
   
   /**
    * If this flag ist set to true, this class does NOT retrieve any Information, but uses stored information.
+   * If a {@link KeggSnapshotStore} is set, all informations are taken from this snapshot and
+   * identifiers that are not contained in the snapshot are considered unretrievable.
    */
   public static boolean offlineMode = false;
   
@@ -93,6 +104,14 @@ public class KeggInfoManagement extends InfoManagement<String, KeggInfos> implem
    */
   @Override
   protected KeggInfos fetchInformation(String id) throws TimeoutException, UnsuccessfulRetrieveException {
+    if (snapshot!=null) {
+      String ret = getFromSnapshot(id);
+      if (ret!=null) {
+        return new KeggInfos(id, removeUnnecessaryInfos(ret));
+      } else if (offlineMode) {
+        throw new UnsuccessfulRetrieveException(); // The snapshot is all we have.
+      }
+    }
     if (offlineMode)
     {
       throw new TimeoutException(); // do not cache as "Unsuccessful" and retry next time.
@@ -144,6 +163,19 @@ public class KeggInfoManagement extends InfoManagement<String, KeggInfos> implem
     return ret.trim();
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.cache.InfoManagement#getAsyncBatchSize()
+   */
+  @Override
+  protected int getAsyncBatchSize() {
+    if (offlineMode && snapshot!=null) {
+      // No requests at all
+      return 100;
+    }
+    // One KEGG request per batch (see fetchMultipleInformations()).
+    return 10;
+  }
+  
   /*
    * (non-Javadoc)
    * @see de.zbit.util.InfoManagement#fetchMultipleInformations(IDtype[])
@@ -164,6 +196,103 @@ public class KeggInfoManagement extends InfoManagement<String, KeggInfos> implem
    */
   @Override
   protected KeggInfos[] fetchMultipleInformations(String[] ids,
+    AbstractProgressBar progress) throws TimeoutException, UnsuccessfulRetrieveException {
+    if (snapshot!=null) {
+      return fetchMultipleInformationsFromSnapshot(ids, progress);
+    }
+    return fetchMultipleInformationsFromKegg(ids, progress);
+  }
+  
+  /**
+   * Takes all informations from the {@link #snapshot} and queries only
+   * the missing ones from KEGG (unless in {@link #offlineMode}). If this
+   * query is unsuccessful, only the missing ids are {@code null}. On a
+   * timeout, the snapshot hits are added to the cache before the
+   * exception is passed on, thus the missing ids are not marked as
+   * unretrievable.
+   * @param ids
+   * @param progress
+   * @return
+   * @throws TimeoutException
+   */
+  private KeggInfos[] fetchMultipleInformationsFromSnapshot(String[] ids,
+    AbstractProgressBar progress) throws TimeoutException {
+    KeggInfos[] realRet = new KeggInfos[ids.length];
+    List<Integer> missing = new ArrayList<Integer>();
+    if (progress!=null) {
+      progress.setNumberOfTotalCalls(ids.length);
+    }
+    for (int i=0; i<ids.length; i++) {
+      String ret = getFromSnapshot(ids[i]);
+      if (ret!=null) {
+        realRet[i] = new KeggInfos(ids[i], removeUnnecessaryInfos(ret));
+      } else {
+        missing.add(i);
+      }
+      if (progress!=null) {
+        synchronized (progress) {
+          progress.DisplayBar();
+        }
+      }
+    }
+    
+    if (!missing.isEmpty() && !offlineMode) {
+      String[] missingIDs = new String[missing.size()];
+      for (int i=0; i<missingIDs.length; i++) {
+        missingIDs[i] = ids[missing.get(i)];
+      }
+      try {
+        KeggInfos[] fetched = fetchMultipleInformationsFromKegg(missingIDs, null);
+        for (int i=0; i<missingIDs.length; i++) {
+          realRet[missing.get(i)] = fetched[i];
+        }
+      } catch (TimeoutException e) {
+        // Keep the snapshot hits, but retry the missing ids later
+        for (int i=0; i<ids.length; i++) {
+          if (realRet[i]!=null) {
+            addInformation(ids[i], realRet[i]);
+          }
+        }
+        throw e;
+      } catch (UnsuccessfulRetrieveException e) {
+        // Do NOT pipe it through! else, the snapshot hits are marked as unretrievable
+        log.log(Level.FINE, "Could not fetch " + missingIDs.length + " ids, that are missing in the KEGG snapshot.", e);
+      }
+    }
+    if (progress!=null) {
+      progress.finished();
+    }
+    
+    return realRet;
+  }
+  
+  /**
+   * @param id
+   * @return the record for the given id from the {@link #snapshot} or
+   * {@code null}.
+   */
+  private String getFromSnapshot(String id) {
+    KeggSnapshotStore store = snapshot;
+    if (store==null || id==null) {
+      return null;
+    }
+    try {
+      return store.get(id);
+    } catch (IOException e) {
+      log.log(Level.WARNING, "Could not read from the KEGG snapshot.", e);
+      return null;
+    }
+  }
+  
+  /**
+   * Queries the KEGG API for all given ids.
+   * @param ids
+   * @param progress
+   * @return
+   * @throws TimeoutException
+   * @throws UnsuccessfulRetrieveException
+   */
+  private KeggInfos[] fetchMultipleInformationsFromKegg(String[] ids,
     AbstractProgressBar progress) throws TimeoutException, UnsuccessfulRetrieveException {
     final int atATime = 10; // Since 2013-01-01, KEGG limited the amount of ids that can be retrieved simultaneously to 10!
     
@@ -507,6 +636,34 @@ CLASS       Metabolism; [...]
     this.adap = adap;
   }
   
+  /**
+   * Sets a local snapshot of KEGG, that is queried before the KEGG API.
+   * In {@link #offlineMode}, only the snapshot is queried.
+   * @param snapshot the snapshot or {@code null} to use only the KEGG API.
+   * @see KeggSnapshotImporter
+   */
+  public void setSnapshotStore(KeggSnapshotStore snapshot) {
+    this.snapshot = snapshot;
+  }
+  
+  /**
+   * Opens the given {@link KeggSnapshotStore} and queries it before the
+   * KEGG API.
+   * @param snapshotFile
+   * @throws IOException
+   * @see #setSnapshotStore(KeggSnapshotStore)
+   */
+  public void useSnapshotStore(File snapshotFile) throws IOException {
+    setSnapshotStore(new KeggSnapshotStore(snapshotFile));
+  }
+  
+  /**
+   * @return the local snapshot of KEGG or {@code null}.
+   */
+  public KeggSnapshotStore getSnapshotStore() {
+    return snapshot;
+  }
+  
   /**
    * @return has the content of this class changed, since initilization/ Loading?
    */
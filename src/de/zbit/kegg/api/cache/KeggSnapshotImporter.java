@@ -0,0 +1,410 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Creates a {@link KeggSnapshotStore} from local KEGG flat-file dumps
+ * (e.g., the "compound", "reaction", "enzyme", "pathway" or genes files
+ * of the KEGG FTP site). Dumps may be gzipped and contain any number of
+ * records, separated by "///".
+ *
+ * <p>The identifier of every record is derived from its ENTRY line and
+ * the type given there (e.g., "cpd:C00031" or "path:hsa00010"). Gene
+ * records are stored with the organism code from their ORGANISM line
+ * (e.g., "hsa:3098"). Records of databases with unique entry names (all
+ * except genes and pathways) can also be queried without the database
+ * prefix. If a dump mixes unknown record types, the prefix can be given
+ * explicitly (see {@link #importFile(File, String)}).
+ *
+ * <p>Records are written to the snapshot immediately. Only the
+ * identifiers are kept in memory, until the index is written by
+ * {@link #close()}. If an identifier occurs multiple times, the last
+ * imported record is used.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class KeggSnapshotImporter implements Closeable {
+  public static final transient Logger log = Logger.getLogger(KeggSnapshotImporter.class.getName());
+
+  /**
+   * Database prefixes for the types given in ENTRY lines.
+   */
+  private final static Map<String, String> TYPE_PREFIXES = new HashMap<String, String>();
+  static {
+    TYPE_PREFIXES.put("compound", "cpd");
+    TYPE_PREFIXES.put("reaction", "rn");
+    TYPE_PREFIXES.put("enzyme", "ec");
+    TYPE_PREFIXES.put("glycan", "gl");
+    TYPE_PREFIXES.put("drug", "dr");
+    TYPE_PREFIXES.put("pathway", "path");
+    TYPE_PREFIXES.put("ko", "ko");
+    TYPE_PREFIXES.put("module", "md");
+    TYPE_PREFIXES.put("rclass", "rc");
+    TYPE_PREFIXES.put("genome", "gn");
+  }
+
+  /**
+   * Matches the T-numbers of organisms in ENTRY lines of gene records.
+   */
+  private final static Pattern T_NUMBER = Pattern.compile("T\\d+");
+
+  /**
+   * An identifier and the position of its record.
+   */
+  private static class Entry {
+    final byte[] key;
+    final long offset;
+    final int length;
+    Entry(byte[] key, long offset, int length) {
+      this.key = key;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * The target file.
+   */
+  private final File file;
+
+  private DataOutputStream out;
+
+  /**
+   * Current position in {@link #file}.
+   */
+  private long position;
+
+  /**
+   * All identifiers, in the order of import.
+   */
+  private final List<Entry> entries = new ArrayList<Entry>();
+
+  /**
+   * Number of imported records.
+   */
+  private int records = 0;
+
+  /**
+   * Creates a new (or overwrites an existing) snapshot file.
+   * @param file
+   * @throws IOException
+   */
+  public KeggSnapshotImporter(File file) throws IOException {
+    super();
+    this.file = file;
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1<<16));
+    out.writeInt(KeggSnapshotStore.MAGIC);
+    out.writeInt(KeggSnapshotStore.FORMAT_VERSION);
+    out.writeLong(0); // Index offset, written by close()
+    out.writeInt(0); // Number of identifiers
+    position = KeggSnapshotStore.HEADER_SIZE;
+  }
+
+  /**
+   * Imports all records from the given dump and derives their
+   * identifiers from the ENTRY lines.
+   * @param dump a plain or gzipped flat-file.
+   * @return number of imported records.
+   * @throws IOException
+   */
+  public int importFile(File dump) throws IOException {
+    return importFile(dump, null);
+  }
+
+  /**
+   * Imports all records from the given dump.
+   * @param dump a plain or gzipped flat-file.
+   * @param prefix the database prefix of all records (e.g., "hsa") or
+   * {@code null} to derive it from every record.
+   * @return number of imported records.
+   * @throws IOException
+   */
+  public int importFile(File dump, String prefix) throws IOException {
+    InputStream in = new BufferedInputStream(new FileInputStream(dump), 1<<16);
+    try {
+      if (dump.getName().toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
+        in = new GZIPInputStream(in, 1<<16);
+      }
+      return importRecords(new InputStreamReader(in, KeggSnapshotStore.UTF8), prefix);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Imports all records from the given reader. The reader is not closed.
+   * @param reader
+   * @param prefix the database prefix of all records or {@code null} to
+   * derive it from every record.
+   * @return number of imported records.
+   * @throws IOException
+   */
+  public int importRecords(Reader reader, String prefix) throws IOException {
+    BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1<<16);
+    int imported = 0;
+    StringBuilder record = new StringBuilder();
+    String line;
+    while ((line=in.readLine())!=null) {
+      if (line.startsWith("///")) {
+        if (addRecord(record.toString().trim(), prefix)) {
+          imported++;
+        }
+        record.setLength(0);
+      } else {
+        record.append(line);
+        record.append('\n');
+      }
+    }
+    // Last record might not be terminated
+    if (addRecord(record.toString().trim(), prefix)) {
+      imported++;
+    }
+    return imported;
+  }
+
+  /**
+   * Adds a single record.
+   * @param record a trimmed flat-file record (without "///").
+   * @param prefix the database prefix or {@code null}.
+   * @return true if the record has been added.
+   * @throws IOException
+   */
+  public boolean addRecord(String record, String prefix) throws IOException {
+    if (record.length()==0) {
+      return false;
+    }
+    Set<String> keys = getIdentifiers(record, prefix);
+    if (keys.isEmpty()) {
+      log.warning(String.format("Skipping record with unknown identifier:\n%s",
+        record.substring(0, Math.min(150, record.length()))));
+      return false;
+    }
+    byte[] data = record.getBytes(KeggSnapshotStore.UTF8);
+    out.write(data);
+    for (String key : keys) {
+      entries.add(new Entry(KeggSnapshotStore.normalize(key).getBytes(KeggSnapshotStore.UTF8), position, data.length));
+    }
+    position += data.length;
+    records++;
+    return true;
+  }
+
+  /**
+   * @param record
+   * @param prefix the database prefix or {@code null}.
+   * @return all identifiers of the given record (the first one is the
+   * regular one, all others are aliases).
+   */
+  static Set<String> getIdentifiers(String record, String prefix) {
+    Set<String> keys = new LinkedHashSet<String>();
+    String entryLine = getLine(record, "ENTRY");
+    if (entryLine==null) {
+      return keys;
+    }
+    String[] tokens = entryLine.trim().split("\\s+");
+    if (tokens.length<1 || tokens[0].length()<1) {
+      return keys;
+    }
+    String entry = tokens[0];
+    String type = tokens[tokens.length-1];
+    if (entry.equalsIgnoreCase("EC") && tokens.length>1) {
+      // e.g., "ENTRY       EC 2.7.1.1                  Enzyme"
+      entry = tokens[1];
+    }
+
+    if (prefix!=null) {
+      keys.add(prefix + ':' + entry);
+    } else if (T_NUMBER.matcher(type).matches() && tokens.length>1) {
+      // Gene record, e.g., "ENTRY       3098              CDS       T01001"
+      String organism = getLine(record, "ORGANISM");
+      if (organism!=null && organism.trim().length()>0) {
+        keys.add(organism.trim().split("\\s+")[0] + ':' + entry);
+      }
+    } else {
+      String typePrefix = TYPE_PREFIXES.get(type.toLowerCase(Locale.ENGLISH));
+      if (typePrefix!=null) {
+        keys.add(typePrefix + ':' + entry);
+        if (typePrefix.equals("gn")) {
+          // e.g., "NAME        hsa, HUMAN, 9606"
+          String name = getLine(record, "NAME");
+          if (name!=null && name.trim().length()>0) {
+            keys.add("gn:" + name.trim().split("[\\s,]+")[0]);
+          }
+        } else if (!typePrefix.equals("path")) {
+          keys.add(entry);
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * @param record
+   * @param keyword
+   * @return the first line of the given block (without the keyword) or
+   * {@code null}.
+   */
+  private static String getLine(String record, String keyword) {
+    int pos = 0;
+    if (!record.startsWith(keyword)) {
+      pos = record.indexOf('\n' + keyword);
+      if (pos<0) {
+        return null;
+      }
+      pos++;
+    }
+    int start = pos + keyword.length();
+    if (start<record.length() && !Character.isWhitespace(record.charAt(start))) {
+      return null;
+    }
+    int end = record.indexOf('\n', start);
+    return record.substring(start, end<0 ? record.length() : end);
+  }
+
+  /**
+   * @return number of imported records.
+   */
+  public int getNumberOfRecords() {
+    return records;
+  }
+
+  /**
+   * Writes the index and closes the snapshot.
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    if (out==null) {
+      return;
+    }
+    try {
+      List<Entry> sorted = getUniqueSortedEntries();
+      long indexOffset = position;
+      int keyOffset = 0;
+      for (Entry e : sorted) {
+        out.writeInt(keyOffset);
+        out.writeInt(e.key.length);
+        out.writeLong(e.offset);
+        out.writeInt(e.length);
+        keyOffset += e.key.length;
+      }
+      for (Entry e : sorted) {
+        out.write(e.key);
+      }
+      out.close();
+      out = null;
+
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        raf.seek(8);
+        raf.writeLong(indexOffset);
+        raf.writeInt(sorted.size());
+      } finally {
+        raf.close();
+      }
+      log.info(String.format("Imported %s KEGG records with %s identifiers into '%s'.",
+        records, sorted.size(), file.getPath()));
+    } finally {
+      if (out!=null) {
+        out.close();
+        out = null;
+      }
+    }
+  }
+
+  /**
+   * @return all entries, sorted by key. Of multiple entries with the same
+   * key, only the last imported one is kept.
+   */
+  private List<Entry> getUniqueSortedEntries() {
+    List<Entry> sorted = new ArrayList<Entry>(entries);
+    // Stable sort, i.e., equal keys remain in the order of import.
+    Collections.sort(sorted, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry o1, Entry o2) {
+        int length = Math.min(o1.key.length, o2.key.length);
+        for (int i=0; i<length; i++) {
+          int a = o1.key[i] & 0xFF;
+          int b = o2.key[i] & 0xFF;
+          if (a!=b) {
+            return a - b;
+          }
+        }
+        return o1.key.length - o2.key.length;
+      }
+    });
+    List<Entry> unique = new ArrayList<Entry>(sorted.size());
+    for (int i=0; i<sorted.size(); i++) {
+      Entry e = sorted.get(i);
+      if (i+1<sorted.size() && Arrays.equals(e.key, sorted.get(i+1).key)) {
+        continue;
+      }
+      unique.add(e);
+    }
+    return unique;
+  }
+
+  /**
+   * Creates a snapshot from the command line.
+   * @param args the snapshot file, followed by any number of dumps.
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length<2) {
+      System.out.println("Usage: KeggSnapshotImporter <snapshot file> <KEGG flat-file> [<KEGG flat-file> ...]");
+      return;
+    }
+    KeggSnapshotImporter importer = new KeggSnapshotImporter(new File(args[0]));
+    try {
+      for (int i=1; i<args.length; i++) {
+        int n = importer.importFile(new File(args[i]));
+        System.out.println(String.format("%s: %s records", args[i], n));
+      }
+    } finally {
+      importer.close();
+    }
+  }
+
+}
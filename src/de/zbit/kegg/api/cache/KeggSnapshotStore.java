@@ -0,0 +1,256 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * A read-only, indexed snapshot of KEGG flat-file records, created with
+ * the {@link KeggSnapshotImporter} from local KEGG dumps. A
+ * {@link KeggInfoManagement} can answer all queries from such a snapshot
+ * (see {@link KeggInfoManagement#setSnapshotStore(KeggSnapshotStore)}),
+ * e.g., on machines without internet access.
+ *
+ * <p>The file consists of a header, the records (UTF-8 encoded, as
+ * returned by the KEGG API) and a sorted index of all identifiers. The
+ * index is memory-mapped and searched binary, records are read with
+ * random-access reads. Thus, opening a snapshot requires neither time
+ * nor heap, regardless of its size. This class is thread-safe.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class KeggSnapshotStore implements Closeable {
+
+  /**
+   * File identifier, "SBKS".
+   */
+  final static int MAGIC = 0x53424B53;
+
+  /**
+   * Version of the file format.
+   */
+  final static int FORMAT_VERSION = 1;
+
+  /**
+   * Size of the file header (magic number, version, index offset and
+   * number of identifiers) in bytes.
+   */
+  final static int HEADER_SIZE = 20;
+
+  /**
+   * Size of one index entry (key offset, key length, record offset and
+   * record length) in bytes.
+   */
+  final static int ENTRY_SIZE = 20;
+
+  final static Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * Long database names, that are accepted in identifiers, and their
+   * abbreviations.
+   */
+  private final static String[][] DATABASE_NAMES = {
+    {"compound:", "cpd:"}, {"reaction:", "rn:"}, {"enzyme:", "ec:"},
+    {"glycan:", "gl:"}, {"drug:", "dr:"}, {"pathway:", "path:"},
+    {"orthology:", "ko:"}, {"module:", "md:"}, {"genome:", "gn:"},
+    {"rclass:", "rc:"}
+  };
+
+  /**
+   * The snapshot file.
+   */
+  private final File file;
+
+  private final RandomAccessFile raf;
+
+  /**
+   * Channel to the snapshot file. Used for positional reads.
+   */
+  private final FileChannel channel;
+
+  /**
+   * The memory-mapped index.
+   */
+  private final MappedByteBuffer index;
+
+  /**
+   * Number of identifiers in the index.
+   */
+  private final int size;
+
+  /**
+   * Position of the key data in {@link #index}.
+   */
+  private final int keysStart;
+
+  /**
+   * Opens the given snapshot.
+   * @param file
+   * @throws IOException if the file is not a valid snapshot or can not
+   * be read.
+   */
+  public KeggSnapshotStore(File file) throws IOException {
+    super();
+    this.file = file;
+    raf = new RandomAccessFile(file, "r");
+    channel = raf.getChannel();
+    try {
+      if (raf.length()<HEADER_SIZE || raf.readInt()!=MAGIC || raf.readInt()!=FORMAT_VERSION) {
+        throw new IOException(String.format("'%s' is not a valid KEGG snapshot.", file.getPath()));
+      }
+      long indexOffset = raf.readLong();
+      size = raf.readInt();
+      long indexLength = raf.length() - indexOffset;
+      if (indexOffset<HEADER_SIZE || indexLength<(long) size*ENTRY_SIZE || indexLength>Integer.MAX_VALUE) {
+        throw new IOException(String.format("The index of '%s' is corrupt.", file.getPath()));
+      }
+      index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexLength);
+      keysStart = size*ENTRY_SIZE;
+    } catch (IOException e) {
+      raf.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param id a KEGG identifier (e.g., "cpd:C00031" or "hsa:3098").
+   * @return the flat-file record or {@code null} if the snapshot does not
+   * contain {@code id}.
+   * @throws IOException
+   */
+  public String get(String id) throws IOException {
+    int entry = find(id);
+    if (entry<0) {
+      return null;
+    }
+    long offset = index.getLong(entry + 8);
+    int length = index.getInt(entry + 16);
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position())<0) {
+        throw new IOException(String.format("Unexpected end of '%s'.", file.getPath()));
+      }
+    }
+    return new String(buffer.array(), 0, length, UTF8);
+  }
+
+  /**
+   * @param id
+   * @return true if this snapshot contains the given identifier.
+   */
+  public boolean contains(String id) {
+    return find(id)>=0;
+  }
+
+  /**
+   * Binary search in the index.
+   * @param id
+   * @return the position of the index entry or -1.
+   */
+  private int find(String id) {
+    if (id==null) {
+      return -1;
+    }
+    byte[] key = normalize(id).getBytes(UTF8);
+    int low = 0;
+    int high = size - 1;
+    while (low<=high) {
+      int mid = (low + high) >>> 1;
+      int entry = mid*ENTRY_SIZE;
+      int cmp = compare(index.getInt(entry), index.getInt(entry + 4), key);
+      if (cmp<0) {
+        low = mid + 1;
+      } else if (cmp>0) {
+        high = mid - 1;
+      } else {
+        return entry;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compares a key in the index with the given key (unsigned, bytewise).
+   * @param keyOffset
+   * @param keyLength
+   * @param key
+   * @return
+   */
+  private int compare(int keyOffset, int keyLength, byte[] key) {
+    int start = keysStart + keyOffset;
+    int length = Math.min(keyLength, key.length);
+    for (int i=0; i<length; i++) {
+      int a = index.get(start + i) & 0xFF;
+      int b = key[i] & 0xFF;
+      if (a!=b) {
+        return a - b;
+      }
+    }
+    return keyLength - key.length;
+  }
+
+  /**
+   * @return number of identifiers in this snapshot (including aliases).
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the snapshot file.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    raf.close();
+  }
+
+  /**
+   * Brings an identifier into the form that is used in the index, i.e.,
+   * lower case, without whitespace and with abbreviated database names.
+   * @param id
+   * @return
+   */
+  static String normalize(String id) {
+    String ret = id.trim().toLowerCase(Locale.ENGLISH);
+    if (ret.indexOf(' ')>=0) {
+      ret = ret.replace(" ", "");
+    }
+    for (String[] name : DATABASE_NAMES) {
+      if (ret.startsWith(name[0])) {
+        return name[1] + ret.substring(name[0].length());
+      }
+    }
+    return ret;
+  }
+
+}
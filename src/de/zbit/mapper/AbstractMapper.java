@@ -16,21 +16,34 @@
  */
 package de.zbit.mapper;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import de.zbit.collection.IntIntHashMap;
+import de.zbit.collection.IntObjectHashMap;
 import de.zbit.io.FileDownload;
 import de.zbit.io.FileTools;
 import de.zbit.io.csv.CSVReader;
+import de.zbit.io.csv.LineFilter;
+import de.zbit.io.csv.ParallelLineReader;
 import de.zbit.util.ArrayUtils;
 import de.zbit.util.Timer;
-import de.zbit.util.prefs.Option;
 import de.zbit.util.progressbar.AbstractProgressBar;
 
 /**
@@ -49,6 +62,14 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
   private Class<TargetType> targetType;
   private Class<SourceType> sourceType;
   
+  /**
+   * Converters for the {@link #sourceType} and {@link #targetType}.
+   * @see #getSourceConverter()
+   * @see #getTargetConverter()
+   */
+  private transient TypeConverter<SourceType> sourceConverter;
+  private transient TypeConverter<TargetType> targetConverter;
+  
   /**
    * A progress Bar that is used while downloading a File.
    * If null, no progress will be displayed.
@@ -72,11 +93,27 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
    */
   private String tempLocalFile = null;
   
+  /**
+   * @see #setUseSnapshots(boolean)
+   */
+  private static boolean useSnapshots = true;
+  
+  /**
+   * @see #setParsingThreads(int)
+   */
+  private static int parsingThreads = 1;
+  
   /**
    * Contains a mapping from RefSeq to GeneID.
-   * XXX: Hier eventuell eine initial Capacity oder load factor angeben, falls BottleNeck.
+   * @see #createMapping()
+   */
+  private Map<SourceType, TargetType> mapping;
+  
+  /**
+   * Filter of the keys of the {@link #mapping}, only if
+   * {@link #useKeyFilter()}.
    */
-  private Map<SourceType, TargetType> mapping = new HashMap<SourceType, TargetType>();
+  private transient BloomFilter keyFilter;
   
 
   /**
@@ -98,6 +135,28 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
     this.progress = progress;
     this.sourceType=sourceType;
     this.targetType=targetType;
+    this.mapping = createMapping();
+  }
+  
+  /**
+   * Creates the (empty) map that holds the mapping. Integer keys are
+   * stored in primitive maps, which require much less memory than a
+   * {@link HashMap} and avoid boxing, i.e., an {@link IntIntHashMap}
+   * if both types are {@link Integer}s and an {@link IntObjectHashMap}
+   * if only the source type is {@link Integer}. These maps do not
+   * support {@code null} values and their iterators do not support
+   * removal. Override this method to use another map.
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  protected Map<SourceType, TargetType> createMapping() {
+    if (Integer.class.equals(sourceType)) {
+      if (Integer.class.equals(targetType)) {
+        return (Map<SourceType, TargetType>) (Map<?, ?>) new IntIntHashMap();
+      }
+      return (Map<SourceType, TargetType>) (Map<?, ?>) new IntObjectHashMap<TargetType>();
+    }
+    return new HashMap<SourceType, TargetType>();
   }
   
   
@@ -236,7 +295,6 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
    * @return true if and only if everything was without critical errors.
    * @throws IOException
    */
-  @SuppressWarnings({ "unchecked", "rawtypes" })
   public boolean readMappingData() throws IOException {
     isInizialized=true;
     
@@ -246,99 +304,435 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
     }
     
     boolean useEncryptedFile = getEncryptedLocalFile()!=null;
-    String storedLocalFile = useEncryptedFile?getEncryptedLocalFile():getLocalFile();
-        
-    // Parse all files.
+    
+    // Try to use a compiled snapshot instead of parsing all files
     Timer t = new Timer();
-    String[] localFiles = ArrayUtils.merge(getLocalFiles(), storedLocalFile, tempLocalFile);
-    for (String localFile: localFiles) {
-      if (!FileTools.checkInputResource(localFile, this.getClass())) {
-        log.config("Skipping " + getMappingName() + " mapping file " + (localFile==null?"null":localFile));
-        continue;
-      }
+    List<String> existingFiles = getExistingLocalFiles();
+    MappingSnapshot snapshot = useEncryptedFile ? null : getSnapshot(existingFiles);
+    if (snapshot!=null && readSnapshot(snapshot)) {
+      log.config("Read " + getMappingName() + " mapping snapshot in " + t.getNiceAndReset()+". Read " + getMapping().size() + " mappings.");
+      createKeyFilter(snapshot);
+      return true;
+    }
+    
+    // Parse all files.
+    for (String localFile: existingFiles) {
       log.config("Reading " + getMappingName() + " mapping file " + localFile);
-      CSVReader r = new CSVReader(localFile);
-      r.setUseParentPackageForOpeningFiles(this.getClass());
-      r.setDisplayProgress(progress!=null);
-      r.setProgressBar(progress);
+      CSVReader r = createReader(localFile);
       r.setIsEncrypted(useEncryptedFile);
+      r.setLineFilter(getLineFilter());
       configureReader(r);
-      int[] multiSourceColumn = getMultiSourceColumn(r);
-      if (multiSourceColumn==null || multiSourceColumn.length<1)
-        multiSourceColumn = new int[]{getSourceColumn(r)};
-      int targetColumn = getTargetColumn(r);
-      
-      // Get maximal col number
-      int maxColumn = targetColumn;
-      for (int sourceColumn: multiSourceColumn)
-        if (sourceColumn!=Integer.MAX_VALUE)
-          maxColumn = Math.max(maxColumn, sourceColumn);
-      
-      if (targetColumn<0 || ArrayUtils.indexOf(multiSourceColumn, -1)>=0) {
-        log.severe("Could not get columns for '" + localFile + "' mapping file.");
+      Columns columns = getColumns(r, localFile);
+      if (columns==null) {
         return false;
       }
       
       // Read Source <=> Target mapping.
       String[] line;
       r.open();
-      while ((line = r.getNextLine())!=null) {
-        if (line.length<=maxColumn) {
-          log.severe("Incomplete entry in mapping file '" + localFile + "'. Please try to delete this file and execute this application again.");
-          continue;
-        }
-        if (skipLine(line)) continue;
-        
-        
-        // Get target ID
-        if (line[targetColumn].length()==0) {
-          log.finest("Empty target in " + getMappingName() + " mapping file.");
-          continue;
-        }
-        
-        TargetType target;
-        if (Collection.class.isAssignableFrom(targetType)) {
-          // Mapping from x to a collection.
-           target = (TargetType) new HashSet(); // Do not store the same target multiple times
-           // Remark: This works also for non-Strings, since the type of the collection is
-           // erased on runtime. Thus, postProcessTargetID() should re-convert to desired
-           // real target type.
-          ((Collection)target).add(preProcessTargetID(line[targetColumn]));
+      ParallelLineReader p = null;
+      try {
+        if (parsingThreads>1) {
+          p = new ParallelLineReader(r, parsingThreads);
+          while ((line = p.getNextLine())!=null) {
+            readLine(line, columns);
+          }
         } else {
-          target = Option.parseOrCast(targetType, preProcessTargetID(line[targetColumn]));
-        }
-        if (target==null) {
-          log.warning("Invalid target content in " + getMappingName() + " mapping file: " + ((line.length>targetColumn)?line[targetColumn]:"line too short."));
-          continue;
+          while ((line = r.getNextLine())!=null) {
+            readLine(line, columns);
+          }
         }
-        
-        // Optional method that allow customization.
-        target = postProcessTargetID(target);
-        
-        // Add mapping for all source columns
-        int lastSourceColumn=0;
-        for (int sourceColumn: multiSourceColumn) {
-          if (sourceColumn<line.length) {
-            addToMapping(line[sourceColumn], target);
-          } else if (sourceColumn==Integer.MAX_VALUE) {
-            // This is interpreted as "Add all cells from the last one to
-            // the end of the file as source columns".
-            // Don't forget to configureReader() when using this method.
-            // CSVReader fails to autodetect properties of tables with
-            // variable number of columns!
-            for (int col=lastSourceColumn+1;col<line.length; col++) {
-              addToMapping(line[col], target);
-            }
+      } finally {
+        try {
+          if (p!=null) {
+            p.close();
           }
-          lastSourceColumn = sourceColumn;
+        } finally {
+          r.close();
         }
-        
-        
       }
     }
     
     log.config("Parsed " + getMappingName() + " mapping file in " + t.getNiceAndReset()+". Read " + ((getMapping()!=null)?getMapping().size():"0") + " mappings.");
-    return (getMapping()!=null && getMapping().size()>0);
+    boolean success = (getMapping()!=null && getMapping().size()>0);
+    if (success && snapshot!=null) {
+      writeSnapshot(snapshot);
+    }
+    if (success) {
+      createKeyFilter(snapshot);
+    }
+    return success;
+  }
+
+  /**
+   * Columns of a mapping file.
+   * @see AbstractMapper#getColumns(CSVReader, String)
+   */
+  protected static class Columns {
+    /**
+     * The mapping file (for log messages).
+     */
+    public final String file;
+    /**
+     * All source columns, {@link Integer#MAX_VALUE} stands for all
+     * cells behind the previous source column.
+     */
+    public final int[] sourceColumns;
+    public final int targetColumn;
+    /**
+     * Maximum column number (except {@link Integer#MAX_VALUE}).
+     */
+    public final int maxColumn;
+    
+    Columns(String file, int[] sourceColumns, int targetColumn) {
+      super();
+      this.file = file;
+      this.sourceColumns = sourceColumns;
+      this.targetColumn = targetColumn;
+      int max = targetColumn;
+      for (int sourceColumn: sourceColumns) {
+        if (sourceColumn!=Integer.MAX_VALUE) {
+          max = Math.max(max, sourceColumn);
+        }
+      }
+      this.maxColumn = max;
+    }
+  }
+  
+  /**
+   * @return all existing mapping files, that are read by
+   * {@link #readMappingData()}.
+   */
+  List<String> getExistingLocalFiles() {
+    String storedLocalFile = getEncryptedLocalFile()!=null?getEncryptedLocalFile():getLocalFile();
+    String[] localFiles = ArrayUtils.merge(getLocalFiles(), storedLocalFile, tempLocalFile);
+    List<String> existingFiles = new ArrayList<String>(localFiles.length);
+    for (String localFile: localFiles) {
+      if (!FileTools.checkInputResource(localFile, this.getClass())) {
+        log.config("Skipping " + getMappingName() + " mapping file " + (localFile==null?"null":localFile));
+        continue;
+      }
+      existingFiles.add(localFile);
+    }
+    return existingFiles;
+  }
+  
+  /**
+   * Creates a reader for the given mapping file. The reader is not
+   * yet configured by {@link #configureReader(CSVReader)}.
+   * @param localFile
+   * @return
+   */
+  protected CSVReader createReader(String localFile) {
+    CSVReader r = new CSVReader(localFile);
+    r.setUseParentPackageForOpeningFiles(this.getClass());
+    r.setDisplayProgress(progress!=null);
+    r.setProgressBar(progress);
+    return r;
+  }
+  
+  /**
+   * @param r a configured reader
+   * @param localFile
+   * @return the source and target columns or null, if they could
+   * not be determined.
+   */
+  protected Columns getColumns(CSVReader r, String localFile) {
+    int[] multiSourceColumn = getMultiSourceColumn(r);
+    if (multiSourceColumn==null || multiSourceColumn.length<1)
+      multiSourceColumn = new int[]{getSourceColumn(r)};
+    int targetColumn = getTargetColumn(r);
+    
+    if (targetColumn<0 || ArrayUtils.indexOf(multiSourceColumn, -1)>=0) {
+      log.severe("Could not get columns for '" + localFile + "' mapping file.");
+      return null;
+    }
+    return new Columns(localFile, multiSourceColumn, targetColumn);
+  }
+  
+  /**
+   * Adds the mapping of one line of the mapping file.
+   * @param line
+   * @param columns
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  protected void readLine(String[] line, Columns columns) {
+    if (line.length<=columns.maxColumn) {
+      log.severe("Incomplete entry in mapping file '" + columns.file + "'. Please try to delete this file and execute this application again.");
+      return;
+    }
+    if (skipLine(line)) return;
+    
+    
+    // Get target ID
+    int targetColumn = columns.targetColumn;
+    if (line[targetColumn].length()==0) {
+      log.finest("Empty target in " + getMappingName() + " mapping file.");
+      return;
+    }
+    
+    TargetType target;
+    if (Collection.class.isAssignableFrom(targetType)) {
+      // Mapping from x to a collection.
+       target = (TargetType) new HashSet(); // Do not store the same target multiple times
+       // Remark: This works also for non-Strings, since the type of the collection is
+       // erased on runtime. Thus, postProcessTargetID() should re-convert to desired
+       // real target type.
+      ((Collection)target).add(preProcessTargetID(line[targetColumn]));
+    } else {
+      target = getTargetConverter().convert(preProcessTargetID(line[targetColumn]));
+    }
+    if (target==null) {
+      log.warning("Invalid target content in " + getMappingName() + " mapping file: " + ((line.length>targetColumn)?line[targetColumn]:"line too short."));
+      return;
+    }
+    
+    // Optional method that allow customization.
+    target = postProcessTargetID(target);
+    
+    addToSourceColumns(line, columns, target);
+  }
+  
+  /**
+   * Adds a mapping from all source columns of the given line to the
+   * target.
+   * @param line
+   * @param columns
+   * @param target
+   */
+  protected void addToSourceColumns(String[] line, Columns columns, TargetType target) {
+    int lastSourceColumn=0;
+    for (int sourceColumn: columns.sourceColumns) {
+      if (sourceColumn<line.length) {
+        addToMapping(line[sourceColumn], target);
+      } else if (sourceColumn==Integer.MAX_VALUE) {
+        // This is interpreted as "Add all cells from the last one to
+        // the end of the file as source columns".
+        // Don't forget to configureReader() when using this method.
+        // CSVReader fails to autodetect properties of tables with
+        // variable number of columns!
+        for (int col=lastSourceColumn+1;col<line.length; col++) {
+          addToMapping(line[col], target);
+        }
+      }
+      lastSourceColumn = sourceColumn;
+    }
+  }
+
+  /**
+   * @param useSnapshots if false, mapping files are always parsed and no
+   * snapshots are written (default: true).
+   * @see #getSnapshotIdentifier()
+   */
+  public static void setUseSnapshots(boolean useSnapshots) {
+    AbstractMapper.useSnapshots = useSnapshots;
+  }
+
+  /**
+   * @return true if compiled snapshots of the mapping are used.
+   * @see #setUseSnapshots(boolean)
+   */
+  public static boolean isUsingSnapshots() {
+    return useSnapshots;
+  }
+
+  /**
+   * If more than one thread is given, lines of mapping files are split
+   * into columns on multiple threads (see {@link ParallelLineReader}).
+   * All lines are still passed to {@link #readLine(String[], Columns)}
+   * in the order of the mapping file, on the reading thread. Thus, the
+   * mapping is always the same as with a single thread.
+   * @param threads number of threads to split lines of mapping files
+   * (default: 1).
+   */
+  public static void setParsingThreads(int threads) {
+    AbstractMapper.parsingThreads = Math.max(1, threads);
+  }
+
+  /**
+   * @return number of threads to split lines of mapping files.
+   * @see #setParsingThreads(int)
+   */
+  public static int getParsingThreads() {
+    return parsingThreads;
+  }
+
+  /**
+   * After a mapping file has been parsed in {@link #readMappingData()},
+   * a compiled binary snapshot of the mapping is stored next to the
+   * mapping file. Later, the snapshot is read instead of the mapping
+   * file, until the size or modification date of the mapping file
+   * changes.
+   * 
+   * <p>Mappers that filter or convert the content of the mapping
+   * file depending on their configuration (e.g., a taxon in
+   * {@link #skipLine(String[])}) must return a different identifier
+   * for each configuration. Mappers that depend on other data (e.g.,
+   * another mapper) should return {@code null} to disable snapshots.
+   * @return a short identifier of the current configuration (default:
+   * empty string) or {@code null} to disable snapshots.
+   */
+  protected String getSnapshotIdentifier() {
+    return "";
+  }
+
+  /**
+   * Allows to store additional state (e.g., counts that have been
+   * gathered while parsing the mapping file) in the snapshot.
+   * @param out
+   * @throws IOException
+   * @see #readSnapshotState(DataInput)
+   */
+  protected void writeSnapshotState(DataOutput out) throws IOException {
+    // Intentionally left blank.
+  }
+
+  /**
+   * Restores the state, written by {@link #writeSnapshotState(DataOutput)}.
+   * @param in
+   * @throws IOException
+   */
+  protected void readSnapshotState(DataInput in) throws IOException {
+    // Intentionally left blank.
+  }
+
+  /**
+   * Huge mappers, that are mostly queried with identifiers that are not
+   * contained in the mapping (e.g., SNPs without genes), may return true.
+   * A {@link BloomFilter} of all keys is then created after reading the
+   * mapping and stored next to the snapshot. {@link #map(Object)} rejects
+   * most unknown identifiers by this filter, without looking them up in
+   * the mapping. If the mapper has not yet been initialized, such
+   * identifiers are even rejected without reading the mapping, as long
+   * as the stored filter is up to date.
+   * @return true if a filter of the keys should be used (default: false).
+   */
+  protected boolean useKeyFilter() {
+    return false;
+  }
+
+  /**
+   * Creates the {@link #keyFilter} for the current {@link #mapping},
+   * if {@link #useKeyFilter()}.
+   * @param snapshot the snapshot of the mapping or {@code null}.
+   */
+  private void createKeyFilter(MappingSnapshot snapshot) {
+    keyFilter = null;
+    if (!useKeyFilter() || !isReady()) {
+      return;
+    }
+    Timer t = new Timer();
+    BloomFilter filter = (snapshot==null) ? null : readKeyFilter(snapshot);
+    if (filter==null) {
+      filter = new BloomFilter(getMapping().keySet());
+      if (snapshot!=null) {
+        try {
+          snapshot.writeFilter(filter);
+        } catch (IOException e) {
+          log.log(Level.CONFIG, "Could not write key filter " + snapshot.getFilterFile(), e);
+        }
+      }
+    }
+    keyFilter = filter;
+    log.config("Created " + getMappingName() + " key filter of " + (filter.getSizeInBytes()/1024) + " KB in " + t.getNiceAndReset() + ".");
+  }
+
+  /**
+   * @return the stored filter of the keys of the mapping, if it is up
+   * to date. Else, {@code null}. The mapping files are not downloaded.
+   */
+  private BloomFilter loadKeyFilter() {
+    if (!useKeyFilter() || getEncryptedLocalFile()!=null) {
+      return null;
+    }
+    MappingSnapshot snapshot = getSnapshot(getExistingLocalFiles());
+    return (snapshot==null) ? null : readKeyFilter(snapshot);
+  }
+
+  /**
+   * @param snapshot
+   * @return the filter of the given snapshot or {@code null}.
+   */
+  private BloomFilter readKeyFilter(MappingSnapshot snapshot) {
+    try {
+      return snapshot.readFilter();
+    } catch (Exception e) {
+      log.log(Level.WARNING, "Could not read key filter " + snapshot.getFilterFile(), e);
+      return null;
+    }
+  }
+
+  /**
+   * @param sourceFiles all mapping files that would be parsed.
+   * @return the snapshot of the given files or null if snapshots can
+   * not be used for the given files.
+   */
+  MappingSnapshot getSnapshot(List<String> sourceFiles) {
+    String id = getSnapshotIdentifier();
+    if (!useSnapshots || id==null) {
+      return null;
+    }
+    // Resources (e.g., inside of jars) do not need a snapshot
+    File[] sources = MappingSnapshot.getLocalFiles(sourceFiles);
+    if (sources==null) {
+      return null;
+    }
+    String name = getClass().getSimpleName();
+    if (name.length()==0) {
+      name = getClass().getName();
+    }
+    if (id.length()>0) {
+      name += '.' + id.replaceAll("[^\\w\\-]", "_");
+    }
+    File file = new File(sources[0].getPath() + '.' + name + ".snapshot");
+    return new MappingSnapshot(file, getClass().getName() + ':' + id, sources);
+  }
+
+  /**
+   * Reads the given snapshot into the {@link #mapping}.
+   * @param snapshot
+   * @return true if the snapshot is up to date and has been read.
+   */
+  @SuppressWarnings("unchecked")
+  boolean readSnapshot(MappingSnapshot snapshot) {
+    if (!snapshot.getFile().exists()) {
+      return false;
+    }
+    try {
+      Map<SourceType, TargetType> map = createMapping();
+      byte[] state = snapshot.read(map);
+      if (state==null) {
+        log.config("Mapping snapshot " + snapshot.getFile() + " is outdated.");
+        return false;
+      }
+      if (map.size()<1) {
+        return false;
+      }
+      readSnapshotState(new DataInputStream(new ByteArrayInputStream(state)));
+      mapping = map;
+      return true;
+    } catch (Exception e) {
+      log.log(Level.WARNING, "Could not read mapping snapshot " + snapshot.getFile(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Writes the {@link #mapping} to the given snapshot.
+   * @param snapshot
+   */
+  void writeSnapshot(MappingSnapshot snapshot) {
+    try {
+      ByteArrayOutputStream state = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(state);
+      writeSnapshotState(out);
+      out.close();
+      snapshot.write(getMapping(), state.toByteArray());
+      log.config("Wrote mapping snapshot " + snapshot.getFile());
+    } catch (Exception e) {
+      // e.g., write protected folder
+      log.log(Level.CONFIG, "Could not write mapping snapshot " + snapshot.getFile(), e);
+    }
   }
 
   /**
@@ -352,14 +746,14 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
     // Get source ID
     SourceType source = null;
     try {
-      source = Option.parseOrCast(sourceType, preProcessSourceID(sourceCell));
+      source = getSourceConverter().convert(preProcessSourceID(sourceCell));
     } catch (Throwable e) {}
     if (source==null) {
       log.warning("Invalid source content in " + getMappingName() + " mapping file: " + (sourceCell!=null?sourceCell:"null.") );
       return;
     }
     source = postProcessSourceID(source);
-    if (source==null) return;
+    if (source==null || target==null) return;
     
     // Allow multiple target elements in collections
     if (Collection.class.isAssignableFrom(targetType)) {
@@ -371,6 +765,9 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
     }
     
     getMapping().put(source, target);
+    if (keyFilter!=null) {
+      keyFilter.add(source);
+    }
   }
 
   /**
@@ -413,6 +810,19 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
     return false;
   }
 
+  /**
+   * Allows to skip certain entries of the mapping file, before they are
+   * split into columns. This is much faster than {@link #skipLine(String[])}
+   * if most lines of the mapping file are not required, e.g., all lines of
+   * other organisms. Lines accepted by this filter are still passed to
+   * {@link #skipLine(String[])}.
+   * @return a filter for raw lines of the mapping file, or null to parse all lines.
+   * @see CSVReader#setLineFilter(LineFilter)
+   */
+  protected LineFilter getLineFilter() {
+    return null;
+  }
+
   /**
    * Allows to modify source IDs directly after reading from input
    * file and before parsing them into the SourceType.
@@ -457,9 +867,15 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
    * @see de.zbit.mapper.Mapper#map(SourceType)
    */
   public TargetType map(SourceType sourceID) throws Exception {
-    if (!isInizialized) init();
+    if (!isInizialized) {
+      // Reject unknown identifiers without reading the whole mapping
+      if (keyFilter==null) keyFilter = loadKeyFilter();
+      if (keyFilter!=null && !keyFilter.mightContain(postProcessSourceID(sourceID))) return null;
+      init();
+    }
     if (!isReady()) throw new Exception(getMappingName()+" mapping data has not been read successfully.");
     SourceType trimmedInput = postProcessSourceID(sourceID);
+    if (keyFilter!=null && !keyFilter.mightContain(trimmedInput)) return null;
     TargetType ret = getMapping().get(trimmedInput);
     // Because log message is created, even if nobody listens to it, dont't
     // waste resources in this often called method by building a string!
@@ -467,6 +883,29 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
     return ret;
   }
 
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.Mapper#mapAll(java.util.Collection)
+   */
+  public List<TargetType> mapAll(Collection<SourceType> sourceIDs) throws Exception {
+    if (!isInizialized) init();
+    if (!isReady()) throw new Exception(getMappingName()+" mapping data has not been read successfully.");
+    Map<SourceType, TargetType> mapping = getMapping();
+    BloomFilter filter = keyFilter;
+    List<TargetType> ret = new ArrayList<TargetType>(sourceIDs.size());
+    for (SourceType sourceID : sourceIDs) {
+      SourceType trimmedInput = postProcessSourceID(sourceID);
+      ret.add((filter!=null && !filter.mightContain(trimmedInput)) ? null : mapping.get(trimmedInput));
+    }
+    return ret;
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.Mapper#mapAll(SourceType[])
+   */
+  public List<TargetType> mapAll(SourceType[] sourceIDs) throws Exception {
+    return mapAll(Arrays.asList(sourceIDs));
+  }
+
   protected void init() throws IOException {
     if (!readMappingData()) mapping=null;
   }
@@ -494,11 +933,34 @@ public abstract class AbstractMapper<SourceType, TargetType> implements Serializ
    */
   protected void reverse(AbstractMapper<TargetType, SourceType> map) {
     getMapping().clear();
+    keyFilter = null;
     
     for(Map.Entry<TargetType, SourceType> entry : map.getMapping().entrySet())
         getMapping().put(entry.getValue(), entry.getKey());
   }
 
+  /**
+   * @return the converter from cells of the mapping file to the
+   * {@link #getSourceType()}.
+   */
+  protected TypeConverter<SourceType> getSourceConverter() {
+    if (sourceConverter==null) {
+      sourceConverter = TypeConverter.get(sourceType);
+    }
+    return sourceConverter;
+  }
+  
+  /**
+   * @return the converter from cells of the mapping file to the
+   * {@link #getTargetType()}.
+   */
+  protected TypeConverter<TargetType> getTargetConverter() {
+    if (targetConverter==null) {
+      targetConverter = TypeConverter.get(targetType);
+    }
+    return targetConverter;
+  }
+  
   /**
    * @return the source type
    */
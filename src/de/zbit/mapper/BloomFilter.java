@@ -0,0 +1,203 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * A compact set of keys that answers {@link #mightContain(Object)}
+ * without false negatives, but with a small rate of false positives.
+ * It is used by {@link AbstractMapper#map(Object)} to reject identifiers
+ * that are not contained in a huge mapping, without looking them up in
+ * the mapping (or even loading it, see
+ * {@link AbstractMapper#useKeyFilter()}).
+ *
+ * <p>The filter is "blocked": all bits of a key are set in the same
+ * block of 512 bits (one cache line), such that each query touches only
+ * a single cache line. With the default of 10 bits per key (and 7 bits
+ * set per key), about 1% of all absent keys are not rejected.
+ *
+ * <p>Keys are hashed by their {@link Object#hashCode()}, which is
+ * specified for {@link String}s and {@link Integer}s. Thus, filters
+ * of such keys can be persisted (see {@link #write(DataOutput)}) and
+ * read by other virtual machines.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class BloomFilter implements Serializable {
+  private static final long serialVersionUID = 2305843883418393283L;
+
+  /**
+   * Default number of bits per key.
+   */
+  public static final int DEFAULT_BITS_PER_KEY = 10;
+
+  /**
+   * Number of {@code long}s per block.
+   */
+  private static final int BLOCK_SIZE = 8;
+
+  /**
+   * The bits, {@link #BLOCK_SIZE} {@code long}s per block.
+   */
+  private final long[] bits;
+
+  /**
+   * Number of blocks.
+   */
+  private final int blocks;
+
+  /**
+   * Number of bits that are set per key.
+   */
+  private final int hashes;
+
+  /**
+   * @param expectedKeys
+   * @param bitsPerKey larger values lower the rate of false positives.
+   */
+  public BloomFilter(int expectedKeys, int bitsPerKey) {
+    super();
+    long size = Math.max(1L, (long) expectedKeys) * Math.max(1, bitsPerKey);
+    blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_SIZE, (size + 511) / 512);
+    bits = new long[blocks * BLOCK_SIZE];
+    hashes = Math.max(1, Math.min(7, (int) Math.round(bitsPerKey * Math.log(2))));
+  }
+
+  /**
+   * @param keys all keys of the filter.
+   */
+  public BloomFilter(Collection<?> keys) {
+    this(keys.size(), DEFAULT_BITS_PER_KEY);
+    for (Object key : keys) {
+      add(key);
+    }
+  }
+
+  /**
+   * @param bits
+   * @param hashes
+   */
+  private BloomFilter(long[] bits, int hashes) {
+    super();
+    this.bits = bits;
+    this.blocks = bits.length / BLOCK_SIZE;
+    this.hashes = hashes;
+  }
+
+  /**
+   * @param key
+   * @return a well distributed 64 bit hash of the given key.
+   */
+  private static long hash(Object key) {
+    long h = (key==null ? 0 : key.hashCode()) * 0x9E3779B97F4A7C15L;
+    // Finalizer of MurmurHash3
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * @param h
+   * @return the index of the first {@code long} of the block of the hash.
+   */
+  private int block(long h) {
+    return (int) (((h >>> 32) * blocks) >>> 32) * BLOCK_SIZE;
+  }
+
+  /**
+   * Adds the given key.
+   * @param key
+   */
+  public void add(Object key) {
+    long h = hash(key);
+    int offset = block(h);
+    // 7 x 9 bits select the bits inside of the block
+    long g = h ^ Long.rotateLeft(h, 29);
+    for (int i=0; i<hashes; i++) {
+      int bit = (int) (g & 511);
+      bits[offset + (bit >>> 6)] |= 1L << bit;
+      g >>>= 9;
+    }
+  }
+
+  /**
+   * @param key
+   * @return false if the key has definitely not been added. True, if it
+   * has been added or (rarely) if it has not been added.
+   */
+  public boolean mightContain(Object key) {
+    long h = hash(key);
+    int offset = block(h);
+    long g = h ^ Long.rotateLeft(h, 29);
+    for (int i=0; i<hashes; i++) {
+      int bit = (int) (g & 511);
+      if ((bits[offset + (bit >>> 6)] & (1L << bit))==0) {
+        return false;
+      }
+      g >>>= 9;
+    }
+    return true;
+  }
+
+  /**
+   * @return size of the filter in bytes.
+   */
+  public long getSizeInBytes() {
+    return bits.length * 8L;
+  }
+
+  /**
+   * Writes the filter, such that it can be restored by
+   * {@link #read(ByteBuffer)}.
+   * @param out
+   * @throws IOException
+   */
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(hashes);
+    out.writeInt(bits.length);
+    for (long word : bits) {
+      out.writeLong(word);
+    }
+  }
+
+  /**
+   * @param in
+   * @return the filter, written by {@link #write(DataOutput)}.
+   * @throws IOException if the filter is corrupt.
+   */
+  public static BloomFilter read(ByteBuffer in) throws IOException {
+    int hashes = in.getInt();
+    int length = in.getInt();
+    if (hashes<1 || hashes>7 || length<BLOCK_SIZE || length%BLOCK_SIZE!=0) {
+      throw new IOException("Invalid filter.");
+    }
+    long[] bits = new long[length];
+    in.asLongBuffer().get(bits);
+    in.position(in.position() + length*8);
+    return new BloomFilter(bits, hashes);
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.io.IOException;
+import java.util.Map;
+
+import de.zbit.io.csv.CSVReader;
+import de.zbit.util.Timer;
+
+/**
+ * Composes two mappers to a single one, e.g., a
+ * {@link de.zbit.mapper.probes.ProbeID2GeneIDMapper} and a
+ * {@link GeneID2KeggIDMapper} to a mapper from probe ids to KEGG ids:
+ * <pre>
+ * ComposedMapper&lt;String, Integer, String&gt; probe2kegg =
+ *   new ComposedMapper&lt;String, Integer, String&gt;(probe2gene, gene2kegg);
+ * </pre>
+ * The mapping from all sources of the first mapper to the final targets
+ * is computed once, when creating this mapper. Thus, every translation
+ * requires only a single lookup, i.e., {@link #map(Object)} returns the
+ * same as {@code second.map(first.map(sourceID))}, but much faster.
+ * More than two mappers can be composed by composing composed mappers.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @param <SourceType> source type of the first mapper.
+ * @param <IntermediateType> target type of the first and source type of
+ * the second mapper.
+ * @param <TargetType> target type of the second mapper.
+ */
+public class ComposedMapper<SourceType, IntermediateType, TargetType> extends AbstractMapper<SourceType, TargetType> {
+  private static final long serialVersionUID = -6329006457009722711L;
+
+  /**
+   * The composed mappers.
+   */
+  private final AbstractMapper<SourceType, IntermediateType> first;
+  private final AbstractMapper<IntermediateType, TargetType> second;
+
+  /**
+   * Computes the mapping from all sources of {@code first} to the targets
+   * of {@code second}.
+   * @param first
+   * @param second
+   * @throws IOException
+   */
+  public ComposedMapper(AbstractMapper<SourceType, IntermediateType> first, AbstractMapper<IntermediateType, TargetType> second) throws IOException {
+    super(first.getSourceType(), second.getTargetType(), null);
+    this.first = first;
+    this.second = second;
+    init();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#readMappingData()
+   */
+  @Override
+  public boolean readMappingData() throws IOException {
+    isInizialized = true;
+    if (!first.isInizialized) first.init();
+    if (!first.isReady()) {
+      log.severe(first.getMappingName() + " mapping data has not been read successfully.");
+      return false;
+    }
+
+    Timer t = new Timer();
+    Map<SourceType, TargetType> mapping = getMapping();
+    try {
+      for (Map.Entry<SourceType, IntermediateType> entry : first.getMapping().entrySet()) {
+        TargetType target = second.map(entry.getValue());
+        if (target!=null) {
+          mapping.put(entry.getKey(), target);
+        }
+      }
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    log.config("Composed " + getMappingName() + " mapping in " + t.getNiceAndReset() + ". Read " + mapping.size() + " mappings.");
+    return mapping.size()>0;
+  }
+
+  /**
+   * Source IDs are post-processed by the first mapper.
+   */
+  @Override
+  protected SourceType postProcessSourceID(SourceType source) {
+    return first.postProcessSourceID(source);
+  }
+
+  /**
+   * @return the first mapper.
+   */
+  public AbstractMapper<SourceType, IntermediateType> getFirstMapper() {
+    return first;
+  }
+
+  /**
+   * @return the second mapper.
+   */
+  public AbstractMapper<IntermediateType, TargetType> getSecondMapper() {
+    return second;
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getMappingName()
+   */
+  @Override
+  public String getMappingName() {
+    return first.getMappingName() + "+" + second.getMappingName();
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getRemoteURL()
+   */
+  @Override
+  public String getRemoteURL() {
+    return null;
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getLocalFile()
+   */
+  @Override
+  public String getLocalFile() {
+    return null;
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSourceColumn(de.zbit.io.csv.CSVReader)
+   */
+  @Override
+  public int getSourceColumn(CSVReader r) {
+    return -1;
+  }
+
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getTargetColumn(de.zbit.io.csv.CSVReader)
+   */
+  @Override
+  public int getTargetColumn(CSVReader r) {
+    return -1;
+  }
+
+}
@@ -207,6 +207,14 @@ public class Ensembl2GeneIDMapper extends AbstractMapper<String, Integer> {
     return r.getColumnContaining("Gene", "Entrez");
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#useKeyFilter()
+   */
+  @Override
+  protected boolean useKeyFilter() {
+    return true;
+  }
+  
   /** {@inheritDoc}*/
   @Override
   protected String postProcessSourceID(String source) {
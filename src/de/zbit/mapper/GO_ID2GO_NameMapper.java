@@ -22,6 +22,8 @@ import java.util.logging.Logger;
 
 import de.zbit.io.FileTools;
 import de.zbit.io.csv.CSVReader;
+import de.zbit.io.csv.FirstColumnFilter;
+import de.zbit.io.csv.LineFilter;
 import de.zbit.util.Species;
 import de.zbit.util.logging.LogUtil;
 import de.zbit.util.progressbar.AbstractProgressBar;
@@ -154,6 +156,23 @@ public class GO_ID2GO_NameMapper extends AbstractMapper<String, String> {
     }
     return true;
   }
-
+  
+  /**
+   * Skip lines of other organisms without parsing them.
+   */
+  @Override
+  protected LineFilter getLineFilter() {
+    if (ncbi_tax_id<0) return null; // If no filter is set, accept all.
+    return new FirstColumnFilter(Integer.toString(ncbi_tax_id));
+  }
+  
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    // Source and target columns depend on the direction
+    return (reverseMapping?"rev_":"") + ncbi_tax_id;
+  }
   
 }
@@ -147,4 +147,13 @@ public class KeggPathwayID2PathwayName extends AbstractMapper<String, String> {
       return source;
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    // Source and target columns depend on the direction
+    return reverseMapping?"rev":"";
+  }
+  
 }
@@ -14,6 +14,9 @@
  */
 package de.zbit.mapper;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Generic interface for {@link AbstractMapper}.
  * 
@@ -39,6 +42,26 @@ public interface Mapper<SourceType, TargetType> {
    */
   public abstract TargetType map(SourceType sourceID) throws Exception;
   
+  /**
+   * Returns the TargetIDs for all given SourceIDs. This is equal to
+   * calling {@link #map(Object)} for every SourceID, but cheaper for
+   * many SourceIDs.
+   * @param sourceIDs
+   * @return a list with the same size and order as {@code sourceIDs},
+   * containing the targetID of each sourceID (or null, if it could
+   * not be mapped).
+   * @throws Exception - if mapping data could not be read (in general).
+   */
+  public abstract List<TargetType> mapAll(Collection<SourceType> sourceIDs) throws Exception;
+  
+  /**
+   * @param sourceIDs
+   * @return the targetIDs of all given sourceIDs.
+   * @throws Exception - if mapping data could not be read (in general).
+   * @see #mapAll(Collection)
+   */
+  public abstract List<TargetType> mapAll(SourceType[] sourceIDs) throws Exception;
+  
   /**
    * @return true if and only if the data has been read and
    * mapping data is available.
@@ -0,0 +1,345 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+
+import de.zbit.collection.IntIntHashMap;
+import de.zbit.collection.IntObjectHashMap;
+
+/**
+ * A process-wide registry of shared {@link AbstractMapper}s. Each mapper
+ * is loaded only once, even if it is requested by multiple threads at
+ * the same time, and shared by all users:
+ * <pre>
+ * AbstractMapper&lt;String, Integer&gt; mapper = registry.acquire(key, loader);
+ * try {
+ *   ...
+ * } finally {
+ *   registry.release(mapper);
+ * }
+ * </pre>
+ * The registry counts the users of each mapper and estimates the memory
+ * of all loaded mappers (see {@link #estimateMemory(AbstractMapper)}).
+ * If this estimate exceeds the {@link #getMemoryBudget()}, the least
+ * recently used mappers, that are currently not acquired, are evicted.
+ * Acquired mappers are never evicted, thus the budget may be exceeded
+ * temporarily.
+ *
+ * <p>Mappers are shared, thus they must not be modified by their users.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @see MappingUtils#acquire2GeneIDMapper(MappingUtils.IdentifierType, de.zbit.util.progressbar.AbstractProgressBar, de.zbit.util.Species)
+ */
+public class MapperRegistry {
+  private static final transient Logger log = Logger.getLogger(MapperRegistry.class.getName());
+
+  /**
+   * The process-wide instance.
+   */
+  private static final MapperRegistry instance = new MapperRegistry();
+
+  /**
+   * A registered mapper.
+   */
+  private static class Entry {
+    final Object key;
+    final FutureTask<AbstractMapper<?, ?>> loader;
+    /**
+     * Number of users that have acquired, but not yet released the mapper.
+     */
+    int references = 0;
+    /**
+     * The mapper and its estimated memory in bytes, only set after loading.
+     */
+    AbstractMapper<?, ?> mapper = null;
+    long memory = 0;
+    Entry(Object key, FutureTask<AbstractMapper<?, ?>> loader) {
+      super();
+      this.key = key;
+      this.loader = loader;
+    }
+  }
+
+  /**
+   * All entries, in the order of their last use.
+   */
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+
+  /**
+   * Entries of all loaded mappers.
+   */
+  private final Map<AbstractMapper<?, ?>, Entry> loaded = new IdentityHashMap<AbstractMapper<?, ?>, Entry>();
+
+  /**
+   * Sum of the estimated memory of all loaded mappers.
+   */
+  private long memory = 0;
+
+  /**
+   * @see #setMemoryBudget(long)
+   */
+  private long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+
+  /**
+   * @return the process-wide registry.
+   */
+  public static MapperRegistry getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the mapper with the given key. If it is not registered, it is
+   * created by the given loader. Concurrent calls with the same key wait
+   * until the first call has loaded the mapper. Every call must be
+   * followed by a call of {@link #release(AbstractMapper)}.
+   * @param key identifies the mapper (e.g., mapper class, taxon and source
+   * type). Must implement {@link Object#equals(Object)} and
+   * {@link Object#hashCode()}.
+   * @param loader creates and initializes the mapper.
+   * @return the shared mapper, or {@code null} if the loader returned
+   * {@code null}.
+   * @throws IOException if the mapper could not be loaded.
+   */
+  @SuppressWarnings("unchecked")
+  public <M extends AbstractMapper<?, ?>> M acquire(Object key, final Callable<M> loader) throws IOException {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+      if (entry==null) {
+        entry = new Entry(key, new FutureTask<AbstractMapper<?, ?>>(new Callable<AbstractMapper<?, ?>>() {
+          @Override
+          public AbstractMapper<?, ?> call() throws Exception {
+            return loader.call();
+          }
+        }));
+        entries.put(key, entry);
+      }
+      entry.references++;
+    }
+
+    // Only the first call actually runs the loader
+    entry.loader.run();
+    AbstractMapper<?, ?> mapper;
+    try {
+      mapper = entry.loader.get();
+    } catch (InterruptedException e) {
+      release(entry);
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading " + key, e);
+    } catch (ExecutionException e) {
+      release(entry);
+      synchronized (this) {
+        // Allow to retry
+        if (entries.get(key)==entry) {
+          entries.remove(key);
+        }
+      }
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Could not load " + key, e.getCause());
+    }
+    if (mapper==null) {
+      release(entry);
+      return null;
+    }
+
+    synchronized (this) {
+      if (entries.get(key)==entry && !loaded.containsKey(mapper)) {
+        entry.mapper = mapper;
+        entry.memory = estimateMemory(mapper);
+        memory += entry.memory;
+        loaded.put(mapper, entry);
+        log.fine("Registered " + mapper.getMappingName() + " mapper (" + (entry.memory/1024/1024) + " MB).");
+        evict();
+      }
+    }
+    return (M) mapper;
+  }
+
+  /**
+   * Releases a mapper, returned by {@link #acquire(Object, Callable)}. The
+   * mapper must not be used after releasing it.
+   * @param mapper
+   */
+  public void release(AbstractMapper<?, ?> mapper) {
+    if (mapper==null) {
+      return;
+    }
+    Entry entry;
+    synchronized (this) {
+      entry = loaded.get(mapper);
+    }
+    if (entry!=null) {
+      release(entry);
+    }
+  }
+
+  /**
+   * @param entry
+   */
+  private synchronized void release(Entry entry) {
+    if (entry.references>0) {
+      entry.references--;
+    }
+    evict();
+  }
+
+  /**
+   * Removes the least recently used mappers without references, until
+   * the estimated memory is within the budget.
+   */
+  private synchronized void evict() {
+    Iterator<Entry> it = entries.values().iterator();
+    while (memory>memoryBudget && it.hasNext()) {
+      Entry entry = it.next();
+      if (entry.references>0 || !entry.loader.isDone()) {
+        continue;
+      }
+      it.remove();
+      remove(entry);
+      log.fine("Evicted " + entry.key + " mapper from the registry.");
+    }
+  }
+
+  /**
+   * Removes the mapper of the given entry from {@link #loaded}.
+   * @param entry
+   */
+  private void remove(Entry entry) {
+    if (entry.mapper!=null && loaded.remove(entry.mapper)!=null) {
+      memory -= entry.memory;
+    }
+  }
+
+  /**
+   * Removes all mappers without references.
+   */
+  public synchronized void clear() {
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Entry entry = it.next();
+      if (entry.references==0 && entry.loader.isDone()) {
+        it.remove();
+        remove(entry);
+      }
+    }
+  }
+
+  /**
+   * @param memoryBudget maximum estimated memory (in bytes) of all
+   * mappers in this registry (default: half of the maximum heap size).
+   */
+  public synchronized void setMemoryBudget(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+    evict();
+  }
+
+  /**
+   * @return the memory budget in bytes.
+   * @see #setMemoryBudget(long)
+   */
+  public synchronized long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * @return the estimated memory (in bytes) of all registered mappers.
+   */
+  public synchronized long getEstimatedMemory() {
+    return memory;
+  }
+
+  /**
+   * @param key
+   * @return true if a mapper with the given key is registered.
+   */
+  public synchronized boolean contains(Object key) {
+    return entries.containsKey(key);
+  }
+
+  /**
+   * @return number of registered mappers.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Estimates the memory of the mapping of the given mapper. The size of
+   * keys and values is estimated on a sample of up to 1000 entries.
+   * @param mapper
+   * @return estimated memory in bytes.
+   */
+  public static long estimateMemory(AbstractMapper<?, ?> mapper) {
+    Map<?, ?> mapping = mapper.getMapping();
+    if (mapping==null || mapping.isEmpty()) {
+      return 0;
+    }
+    long perEntry;
+    if (mapping instanceof IntIntHashMap) {
+      return mapping.size() * 11L; // Two ints per slot, load factor 0.75
+    } else if (mapping instanceof IntObjectHashMap) {
+      perEntry = 11;
+    } else {
+      perEntry = 48; // HashMap entry and table slot
+    }
+    long sample = 0;
+    int n = 0;
+    for (Map.Entry<?, ?> entry : mapping.entrySet()) {
+      if (!(mapping instanceof IntObjectHashMap)) {
+        sample += estimateMemory(entry.getKey());
+      }
+      sample += estimateMemory(entry.getValue());
+      if (++n>=1000) {
+        break;
+      }
+    }
+    return mapping.size() * (perEntry + sample / n);
+  }
+
+  /**
+   * @param o
+   * @return estimated memory of the given object in bytes.
+   */
+  private static long estimateMemory(Object o) {
+    if (o instanceof String) {
+      return 40 + 2 * ((String) o).length();
+    } else if (o instanceof Collection) {
+      long size = 64;
+      for (Object element : (Collection<?>) o) {
+        size += 32 + estimateMemory(element);
+      }
+      return size;
+    } else if (o==null) {
+      return 0;
+    }
+    return 16; // Integer and other small objects
+  }
+
+}
@@ -0,0 +1,494 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes compiled binary snapshots of an {@link AbstractMapper}
+ * mapping, such that the mapping file must only be parsed once.
+ *
+ * <p>A snapshot consists of a header (mapper class, snapshot identifier
+ * and the size and modification date of all source files), the mapping
+ * and an optional block with additional state of the mapper. If both
+ * types are {@link Integer}s, the mapping is stored as two plain
+ * {@code int} arrays. Otherwise, each key and value is stored with a
+ * type tag. Supported are {@link Integer}, {@link Long}, {@link Double},
+ * {@link Boolean}, {@link String} and {@link Collection}s thereof.
+ * Snapshots are memory-mapped for reading.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+class MappingSnapshot {
+
+  /**
+   * File identifier, "SBMS".
+   */
+  final static int MAGIC = 0x53424D53;
+
+  /**
+   * Version of the file format.
+   */
+  final static int FORMAT_VERSION = 1;
+
+  /**
+   * Layout of the mapping: two {@code int} arrays.
+   */
+  private final static byte LAYOUT_INT_INT = 1;
+
+  /**
+   * Layout of the mapping: tagged keys and values.
+   */
+  private final static byte LAYOUT_TAGGED = 2;
+
+  private final static byte TAG_INTEGER = 'I';
+  private final static byte TAG_LONG = 'L';
+  private final static byte TAG_DOUBLE = 'D';
+  private final static byte TAG_BOOLEAN = 'B';
+  private final static byte TAG_STRING = 'S';
+  /**
+   * A {@link Set}, restored as {@link HashSet}.
+   */
+  private final static byte TAG_SET = 'H';
+  /**
+   * Any other {@link Collection}, restored as {@link ArrayList}.
+   */
+  private final static byte TAG_LIST = 'A';
+  /**
+   * Reference to a previously stored collection. Collections that are
+   * shared by multiple keys are also shared after reading.
+   */
+  private final static byte TAG_REFERENCE = 'R';
+
+  private final static Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * The snapshot file.
+   */
+  private final File file;
+
+  /**
+   * Mapper class and snapshot identifier.
+   */
+  private final String identifier;
+
+  /**
+   * Files, from which the mapping has been parsed.
+   */
+  private final File[] sources;
+
+  /**
+   * Reusable buffer for decoding strings.
+   */
+  private byte[] scratch = new byte[256];
+
+  /**
+   * Numbers of all written collections (while writing).
+   */
+  private Map<Object, Integer> writtenCollections;
+
+  /**
+   * All read collections, by number (while reading).
+   */
+  private List<Collection<Object>> readCollections;
+
+  /**
+   * @param file the snapshot file.
+   * @param identifier must change whenever the parsed mapping would change
+   * for the same source files (e.g., mapper class and taxon filter).
+   * @param sources all parsed mapping files.
+   */
+  MappingSnapshot(File file, String identifier, File[] sources) {
+    super();
+    this.file = file;
+    this.identifier = identifier;
+    this.sources = sources;
+  }
+
+  /**
+   * @return the snapshot file.
+   */
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Writes the header.
+   * @param out
+   * @throws IOException
+   */
+  private void writeHeader(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeUTF(identifier);
+    out.writeInt(sources.length);
+    for (File source : sources) {
+      out.writeUTF(source.getName());
+      out.writeLong(source.length());
+      out.writeLong(source.lastModified());
+    }
+  }
+
+  /**
+   * Reads and checks the header.
+   * @param in
+   * @return false if the snapshot does not belong to the current
+   * identifier or source files.
+   */
+  private boolean checkHeader(ByteBuffer in) {
+    if (in.getInt()!=MAGIC || in.getInt()!=FORMAT_VERSION) {
+      return false;
+    }
+    if (!identifier.equals(readUTF(in)) || in.getInt()!=sources.length) {
+      return false;
+    }
+    for (File source : sources) {
+      if (!source.getName().equals(readUTF(in)) || in.getLong()!=source.length() ||
+          in.getLong()!=source.lastModified()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the given mapping and state to {@link #file}. The snapshot is
+   * first written to a temporary file, such that concurrent processes
+   * never see incomplete snapshots.
+   * @param mapping
+   * @param state additional state of the mapper, may be empty.
+   * @throws IOException if the snapshot could not be written or the
+   * mapping contains unsupported types.
+   */
+  void write(Map<?, ?> mapping, byte[] state) throws IOException {
+    File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1<<16));
+      try {
+        writeHeader(out);
+        if (isIntIntMapping(mapping)) {
+          out.writeByte(LAYOUT_INT_INT);
+          out.writeInt(mapping.size());
+          for (Object key : mapping.keySet()) {
+            out.writeInt(((Integer) key).intValue());
+          }
+          for (Object value : mapping.values()) {
+            out.writeInt(((Integer) value).intValue());
+          }
+        } else {
+          out.writeByte(LAYOUT_TAGGED);
+          out.writeInt(mapping.size());
+          writtenCollections = new IdentityHashMap<Object, Integer>();
+          for (Map.Entry<?, ?> entry : mapping.entrySet()) {
+            writeValue(out, entry.getKey());
+            writeValue(out, entry.getValue());
+          }
+        }
+        out.writeInt(state.length);
+        out.write(state);
+      } finally {
+        writtenCollections = null;
+        out.close();
+      }
+      replace(temp, file);
+    } finally {
+      if (temp.exists()) {
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * Replaces the target by the (completely written) temporary file.
+   * @param temp
+   * @param target
+   * @throws IOException
+   */
+  private static void replace(File temp, File target) throws IOException {
+    if (target.exists() && !target.delete()) {
+      throw new IOException("Could not replace " + target.getPath());
+    }
+    if (!temp.renameTo(target)) {
+      throw new IOException("Could not rename " + temp.getPath() + " to " + target.getPath());
+    }
+  }
+
+  /**
+   * @return the file, in which the {@link BloomFilter} of the keys of
+   * the mapping is stored.
+   * @see #writeFilter(BloomFilter)
+   */
+  File getFilterFile() {
+    return new File(file.getPath() + ".filter");
+  }
+
+  /**
+   * Writes the given filter of the keys of the mapping to
+   * {@link #getFilterFile()}. The filter file has the same header as the
+   * snapshot and is much smaller, such that it can be read without
+   * reading the mapping.
+   * @param filter
+   * @throws IOException
+   */
+  void writeFilter(BloomFilter filter) throws IOException {
+    File filterFile = getFilterFile();
+    File temp = File.createTempFile(filterFile.getName(), ".tmp", filterFile.getAbsoluteFile().getParentFile());
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1<<16));
+      try {
+        writeHeader(out);
+        filter.write(out);
+      } finally {
+        out.close();
+      }
+      replace(temp, filterFile);
+    } finally {
+      if (temp.exists()) {
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * @return the filter, written by {@link #writeFilter(BloomFilter)}, or
+   * {@code null} if there is no filter or it is outdated.
+   * @throws IOException if the filter is corrupt.
+   */
+  BloomFilter readFilter() throws IOException {
+    File filterFile = getFilterFile();
+    if (!filterFile.exists()) {
+      return null;
+    }
+    RandomAccessFile raf = new RandomAccessFile(filterFile, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!checkHeader(in)) {
+        return null;
+      }
+      return BloomFilter.read(in);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Unexpected end of " + filterFile.getPath(), e);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * @param mapping
+   * @return true if all keys and values are {@link Integer}s.
+   */
+  private static boolean isIntIntMapping(Map<?, ?> mapping) {
+    for (Map.Entry<?, ?> entry : mapping.entrySet()) {
+      if (!(entry.getKey() instanceof Integer) || !(entry.getValue() instanceof Integer)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the snapshot into the given (empty) map.
+   * @param mapping
+   * @return the additional state of the mapper or {@code null} if the
+   * snapshot is outdated or belongs to another identifier. In this case,
+   * {@code mapping} is left unchanged.
+   * @throws IOException if the snapshot is corrupt.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  byte[] read(Map mapping) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!checkHeader(in)) {
+        return null;
+      }
+      byte layout = in.get();
+      int size = in.getInt();
+      if (layout==LAYOUT_INT_INT) {
+        IntBuffer ints = in.asIntBuffer();
+        int[] keys = new int[size];
+        int[] values = new int[size];
+        ints.get(keys);
+        ints.get(values);
+        in.position(in.position() + size*8);
+        for (int i=0; i<size; i++) {
+          mapping.put(keys[i], values[i]);
+        }
+      } else if (layout==LAYOUT_TAGGED) {
+        readCollections = new ArrayList<Collection<Object>>();
+        for (int i=0; i<size; i++) {
+          Object key = readValue(in);
+          mapping.put(key, readValue(in));
+        }
+      } else {
+        throw new IOException("Unknown layout in " + file.getPath());
+      }
+      byte[] state = new byte[in.getInt()];
+      in.get(state);
+      return state;
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Unexpected end of " + file.getPath(), e);
+    } finally {
+      readCollections = null;
+      raf.close();
+    }
+  }
+
+  /**
+   * @param out
+   * @param value
+   * @throws IOException if the type of value is not supported.
+   */
+  private void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value instanceof Integer) {
+      out.writeByte(TAG_INTEGER);
+      out.writeInt(((Integer) value).intValue());
+    } else if (value instanceof String) {
+      out.writeByte(TAG_STRING);
+      byte[] bytes = ((String) value).getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    } else if (value instanceof Collection) {
+      Integer number = writtenCollections.get(value);
+      if (number!=null) {
+        out.writeByte(TAG_REFERENCE);
+        out.writeInt(number.intValue());
+        return;
+      }
+      writtenCollections.put(value, writtenCollections.size());
+      Collection<?> c = (Collection<?>) value;
+      out.writeByte((value instanceof Set) ? TAG_SET : TAG_LIST);
+      out.writeInt(c.size());
+      for (Object element : c) {
+        writeValue(out, element);
+      }
+    } else if (value instanceof Long) {
+      out.writeByte(TAG_LONG);
+      out.writeLong(((Long) value).longValue());
+    } else if (value instanceof Double) {
+      out.writeByte(TAG_DOUBLE);
+      out.writeDouble(((Double) value).doubleValue());
+    } else if (value instanceof Boolean) {
+      out.writeByte(TAG_BOOLEAN);
+      out.writeBoolean(((Boolean) value).booleanValue());
+    } else {
+      throw new IOException("Unsupported type in snapshot: " + (value==null ? "null" : value.getClass().getName()));
+    }
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private Object readValue(ByteBuffer in) throws IOException {
+    byte tag = in.get();
+    switch (tag) {
+      case TAG_INTEGER:
+        return in.getInt();
+      case TAG_STRING:
+        return readString(in, in.getInt());
+      case TAG_SET:
+      case TAG_LIST:
+        int size = in.getInt();
+        Collection<Object> c = (tag==TAG_SET) ? new HashSet<Object>(Math.max(4, size*4/3+1)) : new ArrayList<Object>(size);
+        readCollections.add(c);
+        for (int i=0; i<size; i++) {
+          c.add(readValue(in));
+        }
+        return c;
+      case TAG_REFERENCE:
+        int number = in.getInt();
+        if (number<0 || number>=readCollections.size()) {
+          throw new IOException("Invalid reference in " + file.getPath());
+        }
+        return readCollections.get(number);
+      case TAG_LONG:
+        return in.getLong();
+      case TAG_DOUBLE:
+        return in.getDouble();
+      case TAG_BOOLEAN:
+        return in.get()!=0;
+      default:
+        throw new IOException("Unknown type tag " + tag + " in " + file.getPath());
+    }
+  }
+
+  /**
+   * @param in
+   * @param length number of bytes
+   * @return
+   */
+  private String readString(ByteBuffer in, int length) {
+    if (scratch.length<length) {
+      scratch = new byte[Math.max(length, scratch.length*2)];
+    }
+    in.get(scratch, 0, length);
+    return new String(scratch, 0, length, UTF8);
+  }
+
+  /**
+   * Reads a string, written with {@link DataOutputStream#writeUTF(String)}.
+   * Only used for the header, which contains no special characters.
+   * @param in
+   * @return
+   */
+  private String readUTF(ByteBuffer in) {
+    int length = in.getShort() & 0xFFFF;
+    return readString(in, length);
+  }
+
+  /**
+   * @param sources
+   * @return all files of the given list, if all are existing local files.
+   * Else, {@code null}.
+   */
+  static File[] getLocalFiles(List<String> sources) {
+    if (sources.isEmpty()) {
+      return null;
+    }
+    File[] files = new File[sources.size()];
+    for (int i=0; i<files.length; i++) {
+      files[i] = new File(sources.get(i));
+      if (!files[i].isFile()) {
+        return null;
+      }
+    }
+    return files;
+  }
+
+}
@@ -18,8 +18,10 @@ package de.zbit.mapper;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import de.zbit.mapper.compounds.CHEBI2InChIKeyMapper;
@@ -217,7 +219,10 @@ public class MappingUtils {
   
   
   /**
-   * Initializes an X to GeneID mapper.
+   * Initializes an X to GeneID mapper. Each call creates and reads a new
+   * mapper, consider using
+   * {@link #acquire2GeneIDMapper(IdentifierType, AbstractProgressBar, Species)}
+   * to share mappers.
    * @param sourceIDtype - see {@link IdentifierType}
    * @param progress - Optional progress bar, used for downloading or reading the mapping flatfile. May be null.
    * @param speciesCommonName - For Ensembl or GeneSymbol, the species common name (e.g., "human") is required.
@@ -253,7 +258,10 @@ public class MappingUtils {
   }
   
   /**
-   * Initializes an X to InChIKey mapper.
+   * Initializes an X to InChIKey mapper. Each call creates and reads a
+   * new mapper, consider using
+   * {@link #acquire2InChIKeyMapper(IdentifierType, AbstractProgressBar)}
+   * to share mappers.
    * @param sourceIDtype - see {@link IdentifierType}
    * @param progress - Optional progress bar, used for downloading or reading the mapping flatfile. May be null.
    * @return
@@ -290,5 +298,60 @@ public class MappingUtils {
     return mapper;
   }
   
+  /**
+   * Returns a shared X to GeneID mapper from the {@link MapperRegistry}.
+   * The mapper is initialized by
+   * {@link #initialize2GeneIDMapper(IdentifierType, AbstractProgressBar, Species)}
+   * only once per source type and species, concurrent calls wait for this
+   * initialization. The returned mapper must not be modified and must be
+   * released with {@link #releaseMapper(AbstractMapper)}.
+   * @param sourceIDtype - see {@link IdentifierType}
+   * @param progress - Optional progress bar, only used if the mapper is initialized by this call. May be null.
+   * @param species
+   * @return
+   * @throws IOException
+   */
+  public static AbstractMapper<String, Integer> acquire2GeneIDMapper(final IdentifierType sourceIDtype, final AbstractProgressBar progress, final Species species) throws IOException {
+    // All species attributes, the initialization depends on (the taxon id may be null)
+    Object key = Arrays.<Object>asList("2GeneID", sourceIDtype, species==null ? null :
+      Arrays.<Object>asList(species.getNCBITaxonID(), species.getCommonName(), species.getKeggAbbr()));
+    return MapperRegistry.getInstance().acquire(key, new Callable<AbstractMapper<String, Integer>>() {
+      @Override
+      public AbstractMapper<String, Integer> call() throws Exception {
+        return initialize2GeneIDMapper(sourceIDtype, progress, species);
+      }
+    });
+  }
+  
+  /**
+   * Returns a shared X to InChIKey mapper from the {@link MapperRegistry}.
+   * See {@link #acquire2GeneIDMapper(IdentifierType, AbstractProgressBar, Species)}.
+   * @param sourceIDtype - see {@link IdentifierType}
+   * @param progress - Optional progress bar, only used if the mapper is initialized by this call. May be null.
+   * @return
+   * @throws IOException
+   */
+  public static AbstractMapper<String, Set<String>> acquire2InChIKeyMapper(final IdentifierType sourceIDtype, final AbstractProgressBar progress) throws IOException {
+    Object key = Arrays.<Object>asList("2InChIKey", sourceIDtype);
+    return MapperRegistry.getInstance().acquire(key, new Callable<AbstractMapper<String, Set<String>>>() {
+      @Override
+      public AbstractMapper<String, Set<String>> call() throws Exception {
+        return initialize2InChIKeyMapper(sourceIDtype, progress);
+      }
+    });
+  }
+  
+  /**
+   * Releases a mapper, returned by
+   * {@link #acquire2GeneIDMapper(IdentifierType, AbstractProgressBar, Species)}
+   * or {@link #acquire2InChIKeyMapper(IdentifierType, AbstractProgressBar)}.
+   * Unused mappers are evicted from the {@link MapperRegistry} if its
+   * memory budget is exceeded.
+   * @param mapper
+   */
+  public static void releaseMapper(AbstractMapper<?, ?> mapper) {
+    MapperRegistry.getInstance().release(mapper);
+  }
+  
 
 }
@@ -165,4 +165,13 @@ public class MicroRNAsn2GeneIDMapper  extends AbstractMapper<String, Integer>{
     }
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    // Source identifiers are converted with another mapper
+    return null;
+  }
+  
 }
@@ -222,5 +222,12 @@ public class NimblegenProbeID2EnsemblIDMapper extends AbstractMapper<String, Str
     return false;
   }
   
-
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    return onlyTakeUniqueMappings ? "unique" : "all";
+  }
+  
 }
@@ -25,6 +25,8 @@ import java.util.logging.Logger;
 import de.zbit.io.FileDownload;
 import de.zbit.io.FileTools;
 import de.zbit.io.csv.CSVReader;
+import de.zbit.io.csv.FirstColumnFilter;
+import de.zbit.io.csv.LineFilter;
 import de.zbit.util.Timer;
 import de.zbit.util.logging.LogUtil;
 import de.zbit.util.progressbar.AbstractProgressBar;
@@ -289,5 +291,21 @@ public class RefSeq2GeneIDMapper extends AbstractMapper<String, Integer> {
     return true;
   }
   
-
+  /**
+   * Skip lines of other organisms without parsing them.
+   */
+  @Override
+  protected LineFilter getLineFilter() {
+    if (ncbi_tax_id<=0) return null; // If no filter is set, accept all.
+    return new FirstColumnFilter(Integer.toString(ncbi_tax_id));
+  }
+  
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    return Integer.toString(ncbi_tax_id);
+  }
+  
 }
@@ -103,7 +103,16 @@ public class SNPid2GeneIDmapper extends AbstractMapper<Integer, Integer> {
     this(progress, ncbi_tax_id, true);
   }
   
-  private SNPid2GeneIDmapper(AbstractProgressBar progress, int ncbi_tax_id, boolean initImmediately) throws IOException {
+  /**
+   * Inintializes the mapper from dbSNP to Gene ids.
+   * @param progress a custom progress bar. Can be NULL!
+   * @param ncbi_tax_id
+   * @param initImmediately if false, the mapping is read on the first
+   * call of {@link #map(Object)} that is not rejected by the stored key
+   * filter (see {@link #useKeyFilter()}).
+   * @throws IOException
+   */
+  public SNPid2GeneIDmapper(AbstractProgressBar progress, int ncbi_tax_id, boolean initImmediately) throws IOException {
     super(Integer.class, Integer.class, progress);
     this.ncbi_tax_id = ncbi_tax_id;
     /* Since the entrez file from fallBackDownloadURL is rather old
@@ -239,6 +248,15 @@ public class SNPid2GeneIDmapper extends AbstractMapper<Integer, Integer> {
     
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#useKeyFilter()
+   */
+  @Override
+  protected boolean useKeyFilter() {
+    // Most SNPs are not located in any gene
+    return true;
+  }
+  
   /* (non-Javadoc)
    * @see de.zbit.mapper.AbstractMapper#getRemoteURL()
    */
@@ -0,0 +1,211 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import de.zbit.io.csv.CSVReader;
+import de.zbit.io.csv.ParallelLineReader;
+import de.zbit.util.Timer;
+import de.zbit.util.progressbar.AbstractProgressBar;
+
+/**
+ * Reads multiple {@link AbstractMapper}s, that read different columns of
+ * the same mapping file, with a single pass over this file. Every line
+ * is parsed once and passed to
+ * {@link AbstractMapper#readLine(String[], AbstractMapper.Columns)} of
+ * all mappers.
+ *
+ * <p>All mappers must not be initialized yet (i.e., must have been
+ * created without reading their mapping), must read the same files and
+ * must use the same {@link AbstractMapper#configureReader(CSVReader)}
+ * settings. The reader is configured by the first mapper. Mappers with
+ * an up-to-date snapshot (see {@link AbstractMapper#getSnapshotIdentifier()})
+ * are read from their snapshot instead.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class SharedMappingFileLoader {
+  public static final Logger log = Logger.getLogger(SharedMappingFileLoader.class.getName());
+
+  /**
+   * All mappers to read.
+   */
+  private final List<AbstractMapper<?, ?>> mappers = new ArrayList<AbstractMapper<?, ?>>();
+
+  /**
+   * Progress of reading the mapping file. Might be null.
+   */
+  private final AbstractProgressBar progress;
+
+  /**
+   * @param progress might be null.
+   */
+  public SharedMappingFileLoader(AbstractProgressBar progress) {
+    super();
+    this.progress = progress;
+  }
+
+  /**
+   * Adds a mapper that should be read with {@link #load()}.
+   * @param mapper a mapper that has not been initialized yet.
+   * @return {@code mapper}
+   */
+  public <M extends AbstractMapper<?, ?>> M add(M mapper) {
+    if (mapper.isInizialized) {
+      throw new IllegalArgumentException(mapper.getMappingName() + " mapper has already been initialized.");
+    }
+    mappers.add(mapper);
+    return mapper;
+  }
+
+  /**
+   * @return all added mappers.
+   */
+  public List<AbstractMapper<?, ?>> getMappers() {
+    return Collections.unmodifiableList(mappers);
+  }
+
+  /**
+   * @param type
+   * @return the first added mapper of the given class or null.
+   */
+  public <M extends AbstractMapper<?, ?>> M getMapper(Class<M> type) {
+    for (AbstractMapper<?, ?> mapper : mappers) {
+      if (type.isInstance(mapper)) {
+        return type.cast(mapper);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the mappings of all added mappers with a single pass over
+   * their mapping files.
+   * @return true if all mappers are ready.
+   * @throws IOException if the mapping file is not available.
+   */
+  public boolean load() throws IOException {
+    if (mappers.isEmpty()) {
+      return true;
+    }
+    AbstractMapper<?, ?> first = mappers.get(0);
+    List<String> localFiles = null;
+    for (AbstractMapper<?, ?> mapper : mappers) {
+      mapper.isInizialized = true;
+      if (!mapper.ensureLocalFileIsAvailable()) {
+        throw new IOException("Could not download or read required resources.");
+      }
+      List<String> files = mapper.getExistingLocalFiles();
+      if (localFiles==null) {
+        localFiles = files;
+      } else if (!localFiles.equals(files)) {
+        throw new IllegalArgumentException(String.format("%s and %s mappers read different files.",
+          first.getMappingName(), mapper.getMappingName()));
+      }
+    }
+    boolean useEncryptedFile = first.getEncryptedLocalFile()!=null;
+
+    // Read available snapshots
+    Timer t = new Timer();
+    List<AbstractMapper<?, ?>> pending = new ArrayList<AbstractMapper<?, ?>>(mappers.size());
+    List<MappingSnapshot> snapshots = new ArrayList<MappingSnapshot>(mappers.size());
+    for (AbstractMapper<?, ?> mapper : mappers) {
+      MappingSnapshot snapshot = useEncryptedFile ? null : mapper.getSnapshot(localFiles);
+      if (snapshot!=null && mapper.readSnapshot(snapshot)) {
+        log.config("Read " + mapper.getMappingName() + " mapping snapshot in " + t.getNiceAndReset() + ".");
+      } else {
+        pending.add(mapper);
+        snapshots.add(snapshot);
+      }
+    }
+    if (pending.isEmpty()) {
+      return isReady();
+    }
+
+    // Parse all files only once
+    for (String localFile: localFiles) {
+      log.config("Reading mapping file " + localFile + " for " + pending.size() + " mappers.");
+      CSVReader r = pending.get(0).createReader(localFile);
+      r.setDisplayProgress(progress!=null);
+      r.setProgressBar(progress);
+      r.setIsEncrypted(useEncryptedFile);
+      if (pending.size()==1) {
+        // Line filters of multiple mappers might differ
+        r.setLineFilter(pending.get(0).getLineFilter());
+      }
+      pending.get(0).configureReader(r);
+      AbstractMapper.Columns[] columns = new AbstractMapper.Columns[pending.size()];
+      for (int i=0; i<columns.length; i++) {
+        columns[i] = pending.get(i).getColumns(r, localFile);
+      }
+
+      String[] line;
+      r.open();
+      ParallelLineReader p = null;
+      try {
+        if (AbstractMapper.getParsingThreads()>1) {
+          p = new ParallelLineReader(r, AbstractMapper.getParsingThreads());
+        }
+        while ((line = (p!=null) ? p.getNextLine() : r.getNextLine())!=null) {
+          for (int i=0; i<columns.length; i++) {
+            if (columns[i]!=null) {
+              pending.get(i).readLine(line, columns[i]);
+            }
+          }
+        }
+      } finally {
+        // Also shut down the parsing threads if a line could not be read
+        try {
+          if (p!=null) {
+            p.close();
+          }
+        } finally {
+          r.close();
+        }
+      }
+    }
+    log.config("Parsed mapping file for " + pending.size() + " mappers in " + t.getNiceAndReset() + ".");
+
+    for (int i=0; i<pending.size(); i++) {
+      AbstractMapper<?, ?> mapper = pending.get(i);
+      log.config("Read " + mapper.size() + " " + mapper.getMappingName() + " mappings.");
+      if (mapper.isReady() && snapshots.get(i)!=null) {
+        mapper.writeSnapshot(snapshots.get(i));
+      }
+    }
+    return isReady();
+  }
+
+  /**
+   * @return true if all mappers are ready.
+   */
+  public boolean isReady() {
+    for (AbstractMapper<?, ?> mapper : mappers) {
+      if (!mapper.isReady()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
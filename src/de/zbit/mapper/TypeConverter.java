@@ -0,0 +1,160 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.zbit.util.Reflect;
+import de.zbit.util.prefs.Option;
+
+/**
+ * Converts cells of mapping files to the source or target type of a
+ * mapper. In contrast to {@link Option#parseOrCast(Class, Object)},
+ * which looks up the parser of the required type by reflection on every
+ * call, the conversion is resolved only once per type (see
+ * {@link #get(Class)}). Common types (e.g., {@link String}s and
+ * {@link Integer}s) are converted directly; other types with a static
+ * {@code parseX(String)} or {@code decode(String)} method use the cached
+ * {@link Method}. All remaining types are still converted by
+ * {@link Option#parseOrCast(Class, Object)}.
+ *
+ * <p>Cells that can not be converted (e.g., "abc" to an {@link Integer})
+ * are converted to {@code null}.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public abstract class TypeConverter<T> {
+
+  /**
+   * All converters that have been resolved so far.
+   */
+  private static final Map<Class<?>, TypeConverter<?>> converters = new ConcurrentHashMap<Class<?>, TypeConverter<?>>();
+
+  /**
+   * @param s a cell of a mapping file.
+   * @return the converted cell or {@code null} if it can not be converted.
+   */
+  public abstract T convert(String s);
+
+  /**
+   * @param type
+   * @return a converter from {@link String}s to the given type.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> TypeConverter<T> get(Class<T> type) {
+    TypeConverter<T> converter = (TypeConverter<T>) converters.get(type);
+    if (converter==null) {
+      converter = create(type);
+      converters.put(type, converter);
+    }
+    return converter;
+  }
+
+  /**
+   * @param type
+   * @return a new converter for the given type.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> TypeConverter<T> create(final Class<T> type) {
+    if (type.isAssignableFrom(String.class)) {
+      return (TypeConverter<T>) new TypeConverter<String>() {
+        @Override
+        public String convert(String s) {
+          return s;
+        }
+      };
+    } else if (type.equals(Integer.class)) {
+      return (TypeConverter<T>) new TypeConverter<Integer>() {
+        @Override
+        public Integer convert(String s) {
+          try {
+            return Integer.valueOf(Integer.parseInt(s));
+          } catch (NumberFormatException e) {
+            return null;
+          }
+        }
+      };
+    } else if (type.equals(Long.class)) {
+      return (TypeConverter<T>) new TypeConverter<Long>() {
+        @Override
+        public Long convert(String s) {
+          try {
+            return Long.valueOf(Long.parseLong(s));
+          } catch (NumberFormatException e) {
+            return null;
+          }
+        }
+      };
+    } else if (type.equals(Double.class)) {
+      return (TypeConverter<T>) new TypeConverter<Double>() {
+        @Override
+        public Double convert(String s) {
+          try {
+            return Double.valueOf(Double.parseDouble(s));
+          } catch (NumberFormatException e) {
+            return null;
+          }
+        }
+      };
+    } else if (type.equals(Boolean.class)) {
+      return (TypeConverter<T>) new TypeConverter<Boolean>() {
+        @Override
+        public Boolean convert(String s) {
+          return (s==null) ? null : Boolean.valueOf(s);
+        }
+      };
+    } else if (type.equals(Character.class)) {
+      return (TypeConverter<T>) new TypeConverter<Character>() {
+        @Override
+        public Character convert(String s) {
+          return (s==null || s.length()<1) ? null : Character.valueOf(s.charAt(0));
+        }
+      };
+    }
+
+    // Cache the parse or decode method (except for types with special
+    // handling in Option.parseOrCast)
+    final Method parser = Reflect.getStringParser(type);
+    if (parser!=null && Modifier.isStatic(parser.getModifiers())
+        && !type.equals(java.awt.Color.class) && !type.equals(java.awt.Font.class)) {
+      return new TypeConverter<T>() {
+        @Override
+        public T convert(String s) {
+          try {
+            Object ret = parser.invoke(null, s);
+            return type.isInstance(ret) ? type.cast(ret) : null;
+          } catch (Exception e) {
+            return null;
+          }
+        }
+      };
+    }
+
+    return new TypeConverter<T>() {
+      @Override
+      public T convert(String s) {
+        T ret = Option.parseOrCast(type, s);
+        return type.isInstance(ret) ? ret : null;
+      }
+    };
+  }
+
+}
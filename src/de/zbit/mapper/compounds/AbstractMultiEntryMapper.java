@@ -22,12 +22,9 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.logging.Logger;
 
-import de.zbit.io.FileTools;
 import de.zbit.io.csv.CSVReader;
 import de.zbit.mapper.AbstractMapper;
-import de.zbit.util.ArrayUtils;
-import de.zbit.util.Timer;
-import de.zbit.util.prefs.Option;
+import de.zbit.mapper.TypeConverter;
 import de.zbit.util.progressbar.AbstractProgressBar;
 
 /**
@@ -59,6 +56,11 @@ public abstract class AbstractMultiEntryMapper<SourceType,TargetType> extends Ab
    */
   private final Class<TargetType> innerTargetType;
   
+  /**
+   * @see #getInnerTargetConverter()
+   */
+  private transient TypeConverter<TargetType> innerTargetConverter;
+  
   /**
    * Initializes the mapper. Downloads and reads the mapping
    * file automatically as required.
@@ -95,132 +97,82 @@ public abstract class AbstractMultiEntryMapper<SourceType,TargetType> extends Ab
   }
   
   /**
-   * Reads the mapping from {@link #localFile} into the {@link #mapping} set.
-   * Downloads data automatically from {@link #downloadURL} as required.
-   * @return true if and only if everything was without critical errors.
-   * @throws IOException
+   * @return the converter from target entries of the mapping file to
+   * the {@link #getInnerTargetType()}.
    */
-
+  protected TypeConverter<TargetType> getInnerTargetConverter() {
+    if (innerTargetConverter==null) {
+      innerTargetConverter = TypeConverter.get(innerTargetType);
+    }
+    return innerTargetConverter;
+  }
+  
+  /**
+   * Adds the mapping of one line of the mapping file. Compared to the
+   * {@link AbstractMapper}, target cells may contain multiple entries,
+   * separated by {@link #getEntrySeparator()}.
+   * @see de.zbit.mapper.AbstractMapper#readLine(java.lang.String[], de.zbit.mapper.AbstractMapper.Columns)
+   */
+  @Override
   @SuppressWarnings({ "unchecked", "rawtypes" })
-  public boolean readMappingData() throws IOException {
-    isInizialized=true;
+  protected void readLine(String[] line, Columns columns) {
+    if (line.length<=columns.maxColumn) {
+      log.severe("Incomplete entry in mapping file '" + columns.file + "'. Please try to delete this file and execute this application again.");
+      return;
+    }
+    if (skipLine(line)) return;
     
-    // Download input file, if it is not there
-    if (!ensureLocalFileIsAvailable()) {
-      throw new IOException("Could not download or read required resources.");
+    
+    // Get target ID
+    int targetColumn = columns.targetColumn;
+    if (line[targetColumn].length()==0) {
+      log.finest("Empty target in " + getMappingName() + " mapping file.");
+      return;
     }
+  	
+    //XXX: The splitting should better be handled similar to csv reader
+  	//but this will solve it for now
+    String[] entry = line[targetColumn].split(getEntrySeparator());
     
-    // Parse all files.
-    Timer t = new Timer();
-    String[] localFiles = ArrayUtils.merge(getLocalFiles(), getLocalFile(), getTempLocalFile());
-    for (String localFile: localFiles) {
-      if (!FileTools.checkInputResource(localFile, this.getClass())) {
-        log.config("Skipping " + getMappingName() + " mapping file " + (localFile==null?"null":localFile));
-        continue;
+    Set<TargetType> targetSet;
+  	targetSet = (Set<TargetType>) new HashSet<TargetType>(); 
+  	
+    for(String targetString: entry){
+    	
+    	//Catch empty target Strings
+    	if(targetString.isEmpty()){
+    		continue;
+    	}
+    	
+    	TargetType target;
+      if (Collection.class.isAssignableFrom(innerTargetType)) {
+        // Mapping from x to a collection.
+         target = (TargetType) new HashSet(); // Do not store the same target multiple times
+         // Remark: This works also for non-Strings, since the type of the collection is
+         // erased on runtime. Thus, postProcessTargetID() should re-convert to desired
+         // real target type.
+        ((Collection)target).add(preProcessTargetID(targetString));
+      } else {
+        target = getInnerTargetConverter().convert(preProcessTargetID(targetString));
       }
-      log.config("Reading " + getMappingName() + " mapping file " + localFile);
-      CSVReader r = new CSVReader(localFile);
-      r.setUseParentPackageForOpeningFiles(this.getClass());
-      r.setDisplayProgress(progress!=null);
-      r.setProgressBar(progress);
-      configureReader(r);
-      int[] multiSourceColumn = getMultiSourceColumn(r);
-      if (multiSourceColumn==null || multiSourceColumn.length<1)
-        multiSourceColumn = new int[]{getSourceColumn(r)};
-      int targetColumn = getTargetColumn(r);
-      
-      // Get maximal col number
-      int maxColumn = targetColumn;
-      for (int sourceColumn: multiSourceColumn)
-        if (sourceColumn!=Integer.MAX_VALUE)
-          maxColumn = Math.max(maxColumn, sourceColumn);
-      
-      if (targetColumn<0 || ArrayUtils.indexOf(multiSourceColumn, -1)>=0) {
-        log.severe("Could not get columns for '" + localFile + "' mapping file.");
-        return false;
+      if (target==null) {
+        log.warning("Invalid target content in " + getMappingName() + " mapping file: " + ((line.length>targetColumn)?line[targetColumn]:"line too short."));
+        continue;
       }
-      
-      // Read Source <=> Target mapping.
-      String[] line;
-      r.open();
-      while ((line = r.getNextLine())!=null) {
-        if (line.length<=maxColumn) {
-          log.severe("Incomplete entry in mapping file '" + localFile + "'. Please try to delete this file and execute this application again.");
-          continue;
-        }
-        if (skipLine(line)) continue;
-        
-        
-        // Get target ID
-        if (line[targetColumn].length()==0) {
-          log.finest("Empty target in " + getMappingName() + " mapping file.");
-          continue;
-        }
-      	
-        //XXX: The splitting should better be handled similar to csv reader
-      	//but this will solve it for now
-        String[] entry = line[targetColumn].split(getEntrySeparator());
-        
-        Set<TargetType> targetSet;
-      	targetSet = (Set<TargetType>) new HashSet<TargetType>(); 
-      	
-        for(String targetString: entry){
-        	
-        	//Catch empty target Strings
-        	if(targetString.isEmpty()){
-        		continue;
-        	}
-        	
-        	TargetType target;
-          if (Collection.class.isAssignableFrom(innerTargetType)) {
-            // Mapping from x to a collection.
-             target = (TargetType) new HashSet(); // Do not store the same target multiple times
-             // Remark: This works also for non-Strings, since the type of the collection is
-             // erased on runtime. Thus, postProcessTargetID() should re-convert to desired
-             // real target type.
-            ((Collection)target).add(preProcessTargetID(targetString));
-          } else {
-            target = Option.parseOrCast(innerTargetType, preProcessTargetID(targetString));
-          }
-          if (target==null) {
-            log.warning("Invalid target content in " + getMappingName() + " mapping file: " + ((line.length>targetColumn)?line[targetColumn]:"line too short."));
-            continue;
-          }
 
-        	targetSet.add(target);
+    	targetSet.add(target);
 	
-        }
-        
-        //no targets so there is nothing to add to the mapping
-        if(targetSet.isEmpty())
-        	continue;
-	        
-        // Optional method that allow customization.
-        targetSet = postProcessTargetID(targetSet);
-
-        // Add mapping for all source columns
-        int lastSourceColumn=0;
-        for (int sourceColumn: multiSourceColumn) {
-        	if (sourceColumn<line.length) {
-        		addToMapping(line[sourceColumn], targetSet);
-        	} else if (sourceColumn==Integer.MAX_VALUE) {
-        		// This is interpreted as "Add all cells from the last one to
-        		// the end of the file as source columns".
-        		// Don't forget to configureReader() when using this method.
-        		// CSVReader fails to autodetect properties of tables with
-        		// variable number of columns!
-        		for (int col=lastSourceColumn+1;col<line.length; col++) {
-        			addToMapping(line[col], targetSet);
-        		}
-        	}
-        	lastSourceColumn = sourceColumn;
-        }
-
-      }
     }
     
-    log.config("Parsed " + getMappingName() + " mapping file in " + t.getNiceAndReset()+". Read " + ((getMapping()!=null)?getMapping().size():"0") + " mappings.");
-    return (getMapping()!=null && getMapping().size()>0);
+    //no targets so there is nothing to add to the mapping
+    if(targetSet.isEmpty())
+    	return;
+	        
+    // Optional method that allow customization.
+    targetSet = postProcessTargetID(targetSet);
+
+    // Add mapping for all source columns
+    addToSourceColumns(line, columns, targetSet);
   }
 
   /**
@@ -241,7 +193,7 @@ public abstract class AbstractMultiEntryMapper<SourceType,TargetType> extends Ab
 	  	// Get source ID
 	    SourceType source = null;
 	    try {
-	      source = Option.parseOrCast(getSourceType(), preProcessSourceID(sourceEntry));
+	      source = getSourceConverter().convert(preProcessSourceID(sourceEntry));
 	    } catch (Throwable e) {}
 	    if (source==null) {
 	      log.warning("Invalid source content in " + getMappingName() + " mapping file: " + (sourceEntry!=null?sourceEntry:"null.") );
@@ -38,8 +38,20 @@ public class CHEBI2InChIKeyMapper extends AbstractMultiEntryMapper<String, Strin
   }
   
 	public CHEBI2InChIKeyMapper(AbstractProgressBar progress) throws IOException {
+	  this(progress, true);
+  }
+  
+  /**
+   * @param progress
+   * @param initImmediately if false, the mapping is not read. Use
+   * {@link CompoundDataLoader} to read multiple mappers at once.
+   * @throws IOException
+   */
+  public CHEBI2InChIKeyMapper(AbstractProgressBar progress, boolean initImmediately) throws IOException {
 	  super(String.class, String.class , progress);
-	  init();
+	  if (initImmediately) {
+	    init();
+	  }
   }
 	/* (non-Javadoc)
 	 * @see de.zbit.mapper.AbstractMapper#getRemoteURL()
@@ -0,0 +1,71 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.compounds;
+
+import java.io.IOException;
+
+import de.zbit.mapper.SharedMappingFileLoader;
+import de.zbit.util.progressbar.AbstractProgressBar;
+
+/**
+ * Reads all compound mappers, that are based on the compound data
+ * archive ({@link CHEBI2InChIKeyMapper}, {@link HMDB2InChIKeyMapper},
+ * {@link InChIKey2CompoundNameMapper}, {@link InChIKey2KeggCompoundMapper},
+ * {@link KeggCompound2InChIKeyMapper}, {@link LIPIDMAPS2InChIKeyMapper}
+ * and {@link PC_compound2InChIKeyMapper}), with a single pass over this
+ * archive. Example:
+ * <pre>
+ * CompoundDataLoader loader = CompoundDataLoader.loadAll(progress);
+ * HMDB2InChIKeyMapper hmdb = loader.getMapper(HMDB2InChIKeyMapper.class);
+ * </pre>
+ * Alternatively, create the required mappers without initializing them
+ * and {@link #add(de.zbit.mapper.AbstractMapper)} them before calling
+ * {@link #load()}.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class CompoundDataLoader extends SharedMappingFileLoader {
+
+  /**
+   * @param progress might be null.
+   */
+  public CompoundDataLoader(AbstractProgressBar progress) {
+    super(progress);
+  }
+
+  /**
+   * Creates and reads all compound mappers that are based on the
+   * compound data archive.
+   * @param progress might be null.
+   * @return the loader, use {@link #getMapper(Class)} to get the mappers.
+   * @throws IOException
+   */
+  public static CompoundDataLoader loadAll(AbstractProgressBar progress) throws IOException {
+    CompoundDataLoader loader = new CompoundDataLoader(progress);
+    loader.add(new CHEBI2InChIKeyMapper(progress, false));
+    loader.add(new HMDB2InChIKeyMapper(progress, false));
+    loader.add(new InChIKey2CompoundNameMapper(progress, false));
+    loader.add(new InChIKey2KeggCompoundMapper(progress, false));
+    loader.add(new KeggCompound2InChIKeyMapper(progress, false));
+    loader.add(new LIPIDMAPS2InChIKeyMapper(progress, false));
+    loader.add(new PC_compound2InChIKeyMapper(progress, false));
+    loader.load();
+    return loader;
+  }
+
+}
@@ -37,8 +37,20 @@ public class InChIKey2CompoundNameMapper extends AbstractMapper<String, String>
   }
   
 	public InChIKey2CompoundNameMapper(AbstractProgressBar progress) throws IOException {
+	  this(progress, true);
+  }
+  
+  /**
+   * @param progress
+   * @param initImmediately if false, the mapping is not read. Use
+   * {@link CompoundDataLoader} to read multiple mappers at once.
+   * @throws IOException
+   */
+  public InChIKey2CompoundNameMapper(AbstractProgressBar progress, boolean initImmediately) throws IOException {
 	  super(String.class, String.class, progress);
-	  init();
+	  if (initImmediately) {
+	    init();
+	  }
   }
 	
 	/* (non-Javadoc)
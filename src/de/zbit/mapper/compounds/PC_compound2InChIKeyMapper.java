@@ -36,8 +36,20 @@ public class PC_compound2InChIKeyMapper extends AbstractMultiEntryMapper<String,
   }
   
 	public PC_compound2InChIKeyMapper(AbstractProgressBar progress) throws IOException {
+	  this(progress, true);
+  }
+  
+  /**
+   * @param progress
+   * @param initImmediately if false, the mapping is not read. Use
+   * {@link CompoundDataLoader} to read multiple mappers at once.
+   * @throws IOException
+   */
+  public PC_compound2InChIKeyMapper(AbstractProgressBar progress, boolean initImmediately) throws IOException {
 	  super(String.class, String.class, progress);
-	  init();
+	  if (initImmediately) {
+	    init();
+	  }
   }
 
 	/* (non-Javadoc)
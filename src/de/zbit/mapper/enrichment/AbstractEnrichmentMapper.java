@@ -16,6 +16,8 @@
  */
 package de.zbit.mapper.enrichment;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -30,7 +32,7 @@ import java.util.logging.Logger;
 import de.zbit.mapper.AbstractMapper;
 import de.zbit.mapper.KeggPathwayID2PathwayName;
 import de.zbit.mapper.Mapper;
-import de.zbit.util.prefs.Option;
+import de.zbit.mapper.TypeConverter;
 import de.zbit.util.progressbar.AbstractProgressBar;
 
 
@@ -59,6 +61,12 @@ public abstract class AbstractEnrichmentMapper<SourceType, TargetType> extends A
    */
   public Map<String, Integer> entitiesInPathway = new HashMap<String, Integer>();
   
+  /**
+   * Compact representation of the current mapping.
+   * @see #compact()
+   */
+  private EnrichmentIndex<SourceType, TargetType> index = null;
+  
   /**
    * @param sourceType
    * @param targetType
@@ -71,6 +79,47 @@ public abstract class AbstractEnrichmentMapper<SourceType, TargetType> extends A
     super(sourceType, targetType, progress);
   }
   
+  /**
+   * Reads the mapping and {@link #compact()}s it.
+   */
+  @Override
+  protected void init() throws IOException {
+    super.init();
+    if (isReady()) {
+      compact();
+    }
+  }
+  
+  /**
+   * Builds an {@link EnrichmentIndex} of the current mapping and replaces
+   * all collections of the mapping by immutable views on this index.
+   * Thus, every enrichment class is stored only once and the classes of
+   * each entity require only a sorted {@code int[]}. This is done
+   * automatically after the mapping has been read.
+   * 
+   * <p>Note: the collections of the mapping can not be modified after
+   * calling this method.
+   */
+  public void compact() {
+    EnrichmentIndex<SourceType, TargetType> index = new EnrichmentIndex<SourceType, TargetType>(getMapping(), getSourceType());
+    for (Entry<SourceType, Collection<TargetType>> entry : getMapping().entrySet()) {
+      entry.setValue(index.getEnrichmentClasses(entry.getKey()));
+    }
+    this.index = index;
+  }
+  
+  /**
+   * @return the compact {@link EnrichmentIndex} of the current mapping,
+   * e.g., to compute overlaps between entity sets and enrichment classes.
+   * @see #compact()
+   */
+  public EnrichmentIndex<SourceType, TargetType> getIndex() {
+    if (index==null && getMapping()!=null) {
+      compact();
+    }
+    return index;
+  }
+  
   /**
    * We do no postProcessing here, but fill our private variables.
    * 
@@ -104,6 +153,37 @@ public abstract class AbstractEnrichmentMapper<SourceType, TargetType> extends A
   
 
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#writeSnapshotState(java.io.DataOutput)
+   */
+  @Override
+  protected void writeSnapshotState(DataOutput out) throws IOException {
+    super.writeSnapshotState(out);
+    out.writeInt(sumOfCollectionSizes);
+    out.writeInt(entitiesInPathway.size());
+    for (Entry<String, Integer> entry : entitiesInPathway.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeInt(entry.getValue());
+    }
+  }
+  
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#readSnapshotState(java.io.DataInput)
+   */
+  @Override
+  protected void readSnapshotState(DataInput in) throws IOException {
+    super.readSnapshotState(in);
+    int sum = in.readInt();
+    int size = in.readInt();
+    Map<String, Integer> entities = new HashMap<String, Integer>(Math.max(16, size*4/3+1));
+    for (int i=0; i<size; i++) {
+      String key = in.readUTF();
+      entities.put(key, in.readInt());
+    }
+    sumOfCollectionSizes = sum;
+    entitiesInPathway = entities;
+  }
+  
   /* (non-Javadoc)
    * @see de.zbit.mapper.EnrichmentMapper#getGenomeSize()
    */
@@ -148,14 +228,19 @@ public abstract class AbstractEnrichmentMapper<SourceType, TargetType> extends A
     
     // Reflect this change also in private map
     String[] oldKeys = entitiesInPathway.keySet().toArray(new String[0]);
+    TypeConverter<TargetType> converter = TypeConverter.get(ID2Name.getSourceType());
     for (String key : oldKeys) {
       try {
-        entitiesInPathway.put(ID2Name.map(Option.parseOrCast(ID2Name.getSourceType(), key)), entitiesInPathway.remove(key));
+        entitiesInPathway.put(ID2Name.map(converter.convert(key)), entitiesInPathway.remove(key));
       } catch (Exception e) {
         log.log(Level.WARNING, "Could not reconstrocut enrichment classes and counters", e);
       }
     }  
     
+    // Replace the index of IDs by an index of names
+    if (index!=null) {
+      compact();
+    }
   }
   
   
@@ -0,0 +1,338 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import de.zbit.collection.IntIntHashMap;
+
+/**
+ * A compact, dictionary-encoded representation of an enrichment mapping
+ * (e.g., from genes to GO terms or pathways). All enrichment classes and
+ * all entities (e.g., genes) are numbered densely, starting at 0. For
+ * each entity, the ids of its classes are stored in a sorted
+ * {@code int[]} and, as inverted index, the sorted ids of the members
+ * of each class are stored in another {@code int[]}. Overlaps between
+ * a set of entities, given as {@link BitSet} of entity ids (see
+ * {@link #toBitSet(Collection)}), and an enrichment class can thus be
+ * computed directly (see {@link #countOverlap(BitSet, int)}). Members
+ * are not stored as one {@link BitSet} per class, because most classes
+ * are small and such bitsets would require (number of classes) x
+ * (number of entities) bits, e.g., more than 30 MB for human GO terms.
+ *
+ * <p>{@link #getEnrichmentClasses(Object)} returns an immutable
+ * {@link Set} view on the classes of an entity, which is used by
+ * {@link AbstractEnrichmentMapper#compact()} to replace the collections
+ * of the mapping. Since each class is stored only once, such views
+ * require much less memory than one {@link java.util.HashSet} per
+ * entity.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @param <SourceType> entity identifier
+ * @param <TargetType> enrichment class identifier
+ */
+public class EnrichmentIndex<SourceType, TargetType> implements Serializable {
+  private static final long serialVersionUID = -2878419233960497581L;
+
+  /**
+   * All enrichment classes, the index is the class id.
+   */
+  private final List<TargetType> classes = new ArrayList<TargetType>();
+
+  /**
+   * Ids of {@link #classes}.
+   */
+  private final Map<TargetType, Integer> classIds = new HashMap<TargetType, Integer>();
+
+  /**
+   * All entities, the index is the entity id.
+   */
+  private final List<SourceType> entities = new ArrayList<SourceType>();
+
+  /**
+   * Ids of {@link #entities}.
+   */
+  private final Map<SourceType, Integer> entityIds;
+
+  /**
+   * Sorted class ids of each entity.
+   */
+  private final int[][] classesOfEntity;
+
+  /**
+   * Sorted entity ids of the members of each class.
+   */
+  private final int[][] members;
+
+  /**
+   * An immutable view on the classes of an entity.
+   */
+  private class ClassSet extends AbstractSet<TargetType> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int[] ids;
+    ClassSet(int[] ids) {
+      super();
+      this.ids = ids;
+    }
+    @Override
+    public boolean contains(Object o) {
+      Integer id = classIds.get(o);
+      return id!=null && Arrays.binarySearch(ids, id.intValue())>=0;
+    }
+    @Override
+    public Iterator<TargetType> iterator() {
+      return new Iterator<TargetType>() {
+        int i = 0;
+        @Override
+        public boolean hasNext() {
+          return i<ids.length;
+        }
+        @Override
+        public TargetType next() {
+          if (i>=ids.length) {
+            throw new NoSuchElementException();
+          }
+          return classes.get(ids[i++]);
+        }
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+    @Override
+    public int size() {
+      return ids.length;
+    }
+  }
+
+  /**
+   * Creates the index of the given mapping.
+   * @param mapping from entities to their enrichment classes.
+   * @param sourceType type of the entities.
+   */
+  @SuppressWarnings("unchecked")
+  public EnrichmentIndex(Map<SourceType, ? extends Collection<TargetType>> mapping, Class<SourceType> sourceType) {
+    super();
+    if (Integer.class.equals(sourceType)) {
+      entityIds = (Map<SourceType, Integer>) (Map<?, ?>) new IntIntHashMap(mapping.size());
+    } else {
+      entityIds = new HashMap<SourceType, Integer>(Math.max(16, mapping.size()*4/3+1));
+    }
+
+    // Number entities and classes
+    classesOfEntity = new int[mapping.size()][];
+    for (Map.Entry<SourceType, ? extends Collection<TargetType>> entry : mapping.entrySet()) {
+      int entity = entities.size();
+      entities.add(entry.getKey());
+      entityIds.put(entry.getKey(), entity);
+      Collection<TargetType> c = entry.getValue();
+      int[] ids = new int[c==null ? 0 : c.size()];
+      int size = 0;
+      if (c!=null) {
+        for (TargetType className : c) {
+          Integer id = classIds.get(className);
+          if (id==null) {
+            id = classes.size();
+            classes.add(className);
+            classIds.put(className, id);
+          }
+          ids[size++] = id;
+        }
+      }
+      Arrays.sort(ids, 0, size);
+      // Remove duplicates (from non-set collections)
+      int unique = 0;
+      for (int i=0; i<size; i++) {
+        if (unique==0 || ids[unique-1]!=ids[i]) {
+          ids[unique++] = ids[i];
+        }
+      }
+      classesOfEntity[entity] = (unique==ids.length) ? ids : Arrays.copyOf(ids, unique);
+    }
+
+    // Build the inverted index
+    int[] classSizes = new int[classes.size()];
+    for (int[] ids : classesOfEntity) {
+      for (int id : ids) {
+        classSizes[id]++;
+      }
+    }
+    members = new int[classes.size()][];
+    for (int i=0; i<members.length; i++) {
+      members[i] = new int[classSizes[i]];
+      classSizes[i] = 0;
+    }
+    // Entities are visited in ascending order, so members are sorted
+    for (int entity=0; entity<classesOfEntity.length; entity++) {
+      for (int id : classesOfEntity[entity]) {
+        members[id][classSizes[id]++] = entity;
+      }
+    }
+  }
+
+  /**
+   * @return number of enrichment classes.
+   */
+  public int getNumberOfEnrichmentClasses() {
+    return classes.size();
+  }
+
+  /**
+   * @return number of entities in the indexed mapping.
+   */
+  public int getNumberOfEntities() {
+    return entities.size();
+  }
+
+  /**
+   * @param id
+   * @return the enrichment class with the given id.
+   */
+  public TargetType getEnrichmentClass(int id) {
+    return classes.get(id);
+  }
+
+  /**
+   * @param className
+   * @return the id of the given enrichment class or -1 if it is unknown.
+   */
+  public int getEnrichmentClassId(TargetType className) {
+    Integer id = classIds.get(className);
+    return id==null ? -1 : id.intValue();
+  }
+
+  /**
+   * @param id
+   * @return the entity with the given id.
+   */
+  public SourceType getEntity(int id) {
+    return entities.get(id);
+  }
+
+  /**
+   * @param entity
+   * @return the id of the given entity or -1 if it is not in any
+   * enrichment class.
+   */
+  public int getEntityId(SourceType entity) {
+    Integer id = entityIds.get(entity);
+    return id==null ? -1 : id.intValue();
+  }
+
+  /**
+   * @param entity
+   * @return the sorted ids of all enrichment classes of the given entity
+   * or null if the entity is unknown. The array must not be modified.
+   */
+  public int[] getEnrichmentClassIds(SourceType entity) {
+    int id = getEntityId(entity);
+    return id<0 ? null : classesOfEntity[id];
+  }
+
+  /**
+   * @param entityId
+   * @return the sorted ids of all enrichment classes of the entity with
+   * the given id. The array must not be modified.
+   */
+  public int[] getEnrichmentClassIdsOfEntity(int entityId) {
+    return classesOfEntity[entityId];
+  }
+
+  /**
+   * @param entity
+   * @return an immutable view on all enrichment classes of the given
+   * entity or null if the entity is unknown.
+   */
+  public Set<TargetType> getEnrichmentClasses(SourceType entity) {
+    int[] ids = getEnrichmentClassIds(entity);
+    return ids==null ? null : new ClassSet(ids);
+  }
+
+  /**
+   * @param classId
+   * @return number of entities in the given enrichment class.
+   */
+  public int getEnrichmentClassSize(int classId) {
+    return members[classId].length;
+  }
+
+  /**
+   * @param classId
+   * @return the sorted ids of all entities in the given enrichment class.
+   * The array must not be modified.
+   */
+  public int[] getMemberIds(int classId) {
+    return members[classId];
+  }
+
+  /**
+   * @param classId
+   * @return the ids of all entities in the given enrichment class.
+   */
+  public BitSet getMembers(int classId) {
+    BitSet set = new BitSet(entities.size());
+    for (int entity : members[classId]) {
+      set.set(entity);
+    }
+    return set;
+  }
+
+  /**
+   * @param entities
+   * @return the ids of all given entities, unknown entities are ignored.
+   */
+  public BitSet toBitSet(Collection<SourceType> entities) {
+    BitSet set = new BitSet(this.entities.size());
+    for (SourceType entity : entities) {
+      int id = getEntityId(entity);
+      if (id>=0) {
+        set.set(id);
+      }
+    }
+    return set;
+  }
+
+  /**
+   * @param entities ids of entities (see {@link #toBitSet(Collection)}).
+   * @param classId
+   * @return number of the given entities, that are members of the given
+   * enrichment class.
+   */
+  public int countOverlap(BitSet entities, int classId) {
+    int count = 0;
+    for (int entity : members[classId]) {
+      if (entities.get(entity)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
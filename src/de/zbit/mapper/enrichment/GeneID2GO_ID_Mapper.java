@@ -25,6 +25,8 @@ import java.util.logging.Logger;
 
 import de.zbit.io.FileTools;
 import de.zbit.io.csv.CSVReader;
+import de.zbit.io.csv.FirstColumnFilter;
+import de.zbit.io.csv.LineFilter;
 import de.zbit.mapper.GO_ID2GO_NameMapper;
 import de.zbit.util.Species;
 import de.zbit.util.logging.LogUtil;
@@ -171,6 +173,14 @@ public class GeneID2GO_ID_Mapper extends AbstractEnrichmentMapper<Integer, Strin
     return true;
   }
   
+  /**
+   * Skip lines of other organisms without parsing them.
+   */
+  @Override
+  protected LineFilter getLineFilter() {
+    return new FirstColumnFilter(Integer.toString(ncbi_tax_id));
+  }
+  
   /**
    * @throws IOException 
    * 
@@ -180,4 +190,12 @@ public class GeneID2GO_ID_Mapper extends AbstractEnrichmentMapper<Integer, Strin
     super.convertIDsToNames(mapper);
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    return Integer.toString(ncbi_tax_id);
+  }
+  
 }
@@ -245,4 +245,14 @@ public class GeneID2MSigDB_Mapper extends AbstractEnrichmentMapper<Integer, Stri
   public int getSourceColumn(CSVReader r) {
     return 2; // Never called if getMultiSourceColumn() is implemented.
   }
+  
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    // Gene symbols are converted with another mapper
+    return null;
+  }
+  
 }
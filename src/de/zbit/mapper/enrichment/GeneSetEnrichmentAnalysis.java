@@ -0,0 +1,581 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import de.zbit.math.MathUtils;
+
+/**
+ * Rank-based gene set enrichment analysis (running-sum statistic, as in
+ * GSEA) of a ranked gene list in all enrichment classes of an
+ * {@link AbstractEnrichmentMapper}, e.g., a
+ * {@link GeneID2ListOfKEGGpathways} or {@link GeneID2MSigDB_Mapper}:
+ * <pre>
+ * GeneSetEnrichmentAnalysis&lt;Integer, String&gt; gsea =
+ *   new GeneSetEnrichmentAnalysis&lt;Integer, String&gt;(geneID2pathways);
+ * gsea.setSeed(42);
+ * List&lt;GeneSetEnrichmentAnalysis.Result&lt;String&gt;&gt; results =
+ *   gsea.analyze(rankedGeneIDs, scores);
+ * </pre>
+ *
+ * <p>For each class, the members in the ranked list are stored as sorted
+ * array of their positions. The enrichment score (ES) is the maximum
+ * deviation from zero of the running sum, which is computed only at
+ * the positions of the members, i.e., in O(members) instead of
+ * O(list size). Empirical p-values are computed by permuting the genes
+ * of the list (keeping the scores at their positions). Permutation i
+ * always uses a random generator, seeded by the {@link #getSeed()} and
+ * i. Thus, results are reproducible, independent of the number of
+ * threads.
+ *
+ * <p>Permutations are performed in batches. After each batch, classes
+ * that have already reached {@link #getEarlyStopExceedances()} permuted
+ * scores that are at least as extreme as the observed score are no
+ * longer permuted (sequential p-values according to Besag and Clifford).
+ * These classes are clearly not significant, thus the imprecision of
+ * their p-values does not matter, but most of the permutations are
+ * saved.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @param <SourceType> gene identifier
+ * @param <TargetType> enrichment class identifier
+ */
+public class GeneSetEnrichmentAnalysis<SourceType, TargetType> {
+
+  /**
+   * Number of permutations per batch, after which early stopping is
+   * checked.
+   */
+  private static final int BATCH_SIZE = 100;
+
+  /**
+   * Number of permutations per task.
+   */
+  private static final int PERMUTATIONS_PER_TASK = 4;
+
+  /**
+   * Result of the test of one enrichment class.
+   * @param <TargetType> enrichment class identifier
+   */
+  public static class Result<TargetType> implements Comparable<Result<TargetType>> {
+    private final TargetType enrichmentClass;
+    private final int size;
+    private final double enrichmentScore;
+    private final double normalizedEnrichmentScore;
+    private final double pValue;
+    private double qValue;
+    private final int permutations;
+
+    Result(TargetType enrichmentClass, int size, double enrichmentScore,
+      double normalizedEnrichmentScore, double pValue, int permutations) {
+      super();
+      this.enrichmentClass = enrichmentClass;
+      this.size = size;
+      this.enrichmentScore = enrichmentScore;
+      this.normalizedEnrichmentScore = normalizedEnrichmentScore;
+      this.pValue = pValue;
+      this.permutations = permutations;
+    }
+
+    /**
+     * @return the tested enrichment class.
+     */
+    public TargetType getEnrichmentClass() {
+      return enrichmentClass;
+    }
+
+    /**
+     * @return number of genes of the class in the ranked list.
+     */
+    public int getSize() {
+      return size;
+    }
+
+    /**
+     * @return the enrichment score, positive if the class is enriched at
+     * the top of the list, negative if it is enriched at the bottom.
+     */
+    public double getEnrichmentScore() {
+      return enrichmentScore;
+    }
+
+    /**
+     * @return the enrichment score, divided by the mean of all permuted
+     * enrichment scores with the same sign.
+     */
+    public double getNormalizedEnrichmentScore() {
+      return normalizedEnrichmentScore;
+    }
+
+    /**
+     * @return the empirical p-value, (e+1)/(n+1), with e being the number
+     * of permuted scores at least as extreme as the enrichment score and
+     * n being the number of permuted scores with the same sign.
+     */
+    public double getPValue() {
+      return pValue;
+    }
+
+    /**
+     * @return the p-value, adjusted with the Benjamini-Hochberg procedure
+     * (false discovery rate).
+     */
+    public double getQValue() {
+      return qValue;
+    }
+
+    /**
+     * @return number of performed permutations, less than the requested
+     * number if the permutations have been stopped early.
+     */
+    public int getPermutations() {
+      return permutations;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(Result<TargetType> o) {
+      int c = Double.compare(pValue, o.pValue);
+      return (c!=0) ? c : Double.compare(Math.abs(o.normalizedEnrichmentScore), Math.abs(normalizedEnrichmentScore));
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return enrichmentClass + ": " + size + " genes, ES=" + enrichmentScore + ", NES=" + normalizedEnrichmentScore + ", p=" + pValue + ", q=" + qValue;
+    }
+  }
+
+  /**
+   * Permutation statistics of all tested classes.
+   */
+  private static class Statistics {
+    /**
+     * Number of permuted scores with the same sign as the observed one.
+     */
+    final int[] sameSign;
+    /**
+     * Sum of permuted scores with the same sign as the observed one.
+     */
+    final double[] sameSignSum;
+    /**
+     * Number of permuted scores at least as extreme as the observed one.
+     */
+    final int[] exceedances;
+    Statistics(int size) {
+      super();
+      sameSign = new int[size];
+      sameSignSum = new double[size];
+      exceedances = new int[size];
+    }
+    void add(Statistics s) {
+      for (int i=0; i<sameSign.length; i++) {
+        sameSign[i] += s.sameSign[i];
+        sameSignSum[i] += s.sameSignSum[i];
+        exceedances[i] += s.exceedances[i];
+      }
+    }
+  }
+
+  /**
+   * The tested enrichment classes.
+   */
+  private final EnrichmentIndex<SourceType, TargetType> index;
+
+  private int permutations = 1000;
+  private long seed = 0;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private int minSize = 15;
+  private int maxSize = 500;
+  private double weight = 1;
+  private int earlyStopExceedances = 20;
+
+  /**
+   * @param mapper is initialized, if this has not yet been done.
+   * @throws IOException if the mapping could not be read.
+   */
+  public GeneSetEnrichmentAnalysis(AbstractEnrichmentMapper<SourceType, TargetType> mapper) throws IOException {
+    this(getIndex(mapper));
+  }
+
+  /**
+   * @param index
+   */
+  public GeneSetEnrichmentAnalysis(EnrichmentIndex<SourceType, TargetType> index) {
+    super();
+    this.index = index;
+  }
+
+  /**
+   * @param mapper
+   * @return the index of the initialized mapper.
+   * @throws IOException
+   */
+  private static <SourceType, TargetType> EnrichmentIndex<SourceType, TargetType> getIndex(AbstractEnrichmentMapper<SourceType, TargetType> mapper) throws IOException {
+    mapper.initialize();
+    if (!mapper.isReady()) {
+      throw new IOException(mapper.getMappingName() + " mapping data has not been read successfully.");
+    }
+    return mapper.getIndex();
+  }
+
+  /**
+   * @param permutations maximum number of permutations per class
+   * (default: 1000).
+   */
+  public void setPermutations(int permutations) {
+    this.permutations = permutations;
+  }
+
+  /**
+   * @return maximum number of permutations per class.
+   */
+  public int getPermutations() {
+    return permutations;
+  }
+
+  /**
+   * @param seed of the random permutations (default: 0).
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @return seed of the random permutations.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @param threads number of threads for the permutations (default:
+   * number of processors). Does not change the results.
+   */
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * @return number of threads for the permutations.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Only classes with the given number of genes in the ranked list are
+   * tested (default: 15 to 500).
+   * @param minSize
+   * @param maxSize
+   */
+  public void setSizeLimits(int minSize, int maxSize) {
+    this.minSize = Math.max(1, minSize);
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return minimum number of genes of tested classes.
+   */
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * @return maximum number of genes of tested classes.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @param weight exponent of the scores in the running sum. 0 gives the
+   * classical Kolmogorov-Smirnov statistic (default: 1).
+   */
+  public void setWeight(double weight) {
+    this.weight = weight;
+  }
+
+  /**
+   * @return exponent of the scores in the running sum.
+   */
+  public double getWeight() {
+    return weight;
+  }
+
+  /**
+   * @param earlyStopExceedances number of permuted scores at least as
+   * extreme as the observed one, after which permutations of a class
+   * are stopped (default: 20). Values &lt;1 disable early stopping.
+   */
+  public void setEarlyStopExceedances(int earlyStopExceedances) {
+    this.earlyStopExceedances = earlyStopExceedances;
+  }
+
+  /**
+   * @return number of exceedances for early stopping.
+   * @see #setEarlyStopExceedances(int)
+   */
+  public int getEarlyStopExceedances() {
+    return earlyStopExceedances;
+  }
+
+  /**
+   * @param rankedGenes all genes, ordered by their scores (descending).
+   * Unknown genes are kept as non-members of all classes, only the first
+   * occurrence of each gene is considered.
+   * @param scores of the ranked genes (e.g., fold changes or t-statistics).
+   * @return the results of all enrichment classes within the size limits,
+   * sorted by p-value.
+   */
+  public List<Result<TargetType>> analyze(List<SourceType> rankedGenes, double[] scores) {
+    if (rankedGenes.size()!=scores.length) {
+      throw new IllegalArgumentException("Number of genes and scores differ.");
+    }
+    final int n = rankedGenes.size();
+    final double[] weights = new double[n];
+    for (int i=0; i<n; i++) {
+      weights[i] = Math.pow(Math.abs(scores[i]), weight);
+    }
+
+    // Sorted positions of the members of each class
+    int[] entityIds = new int[n];
+    int[] sizes = new int[index.getNumberOfEnrichmentClasses()];
+    BitSet seen = new BitSet(index.getNumberOfEntities());
+    for (int i=0; i<n; i++) {
+      int entity = index.getEntityId(rankedGenes.get(i));
+      if (entity>=0 && !seen.get(entity)) {
+        seen.set(entity);
+        for (int classId : index.getEnrichmentClassIdsOfEntity(entity)) {
+          sizes[classId]++;
+        }
+      } else {
+        entity = -1;
+      }
+      entityIds[i] = entity;
+    }
+    List<Integer> tested = new ArrayList<Integer>();
+    int[][] members = new int[sizes.length][];
+    for (int classId=0; classId<sizes.length; classId++) {
+      if (sizes[classId]>=minSize && sizes[classId]<=maxSize && sizes[classId]<n) {
+        tested.add(classId);
+        members[classId] = new int[sizes[classId]];
+        sizes[classId] = 0;
+      }
+    }
+    for (int i=0; i<n; i++) {
+      if (entityIds[i]>=0) {
+        for (int classId : index.getEnrichmentClassIdsOfEntity(entityIds[i])) {
+          if (members[classId]!=null) {
+            members[classId][sizes[classId]++] = i;
+          }
+        }
+      }
+    }
+    int[][] positions = new int[tested.size()][];
+    double[] observed = new double[tested.size()];
+    int longest = 0;
+    for (int i=0; i<positions.length; i++) {
+      positions[i] = members[tested.get(i)];
+      observed[i] = enrichmentScore(positions[i], positions[i].length, weights, n);
+      longest = Math.max(longest, positions[i].length);
+    }
+
+    // Permutations in batches, until all classes are stopped
+    Statistics total = new Statistics(positions.length);
+    int[] performed = new int[positions.length];
+    int[] active = new int[positions.length];
+    for (int i=0; i<active.length; i++) {
+      active[i] = i;
+    }
+    int numberOfActive = active.length;
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      for (int from=0; from<permutations && numberOfActive>0; from+=BATCH_SIZE) {
+        int to = Math.min(permutations, from + BATCH_SIZE);
+        int[] batchActive = Arrays.copyOf(active, numberOfActive);
+        Statistics batch = pool.invoke(new PermutationTask(from, to, batchActive, positions, observed, weights, longest));
+        numberOfActive = 0;
+        for (int i=0; i<batchActive.length; i++) {
+          int set = batchActive[i];
+          total.sameSign[set] += batch.sameSign[i];
+          total.sameSignSum[set] += batch.sameSignSum[i];
+          total.exceedances[set] += batch.exceedances[i];
+          performed[set] += to - from;
+          if (earlyStopExceedances<1 || total.exceedances[set]<earlyStopExceedances) {
+            active[numberOfActive++] = set;
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    // Results
+    List<Result<TargetType>> results = new ArrayList<Result<TargetType>>(positions.length);
+    double[] pValues = new double[positions.length];
+    for (int i=0; i<positions.length; i++) {
+      double nes = 0;
+      if (total.sameSign[i]>0 && total.sameSignSum[i]!=0) {
+        nes = observed[i] / Math.abs(total.sameSignSum[i] / total.sameSign[i]);
+      }
+      pValues[i] = (observed[i]==0) ? 1 : (total.exceedances[i] + 1) / (double) (total.sameSign[i] + 1);
+      results.add(new Result<TargetType>(index.getEnrichmentClass(tested.get(i)), positions[i].length,
+        observed[i], nes, pValues[i], performed[i]));
+    }
+    double[] qValues = MathUtils.benjamini_hochberg(pValues);
+    for (int i=0; i<positions.length; i++) {
+      results.get(i).qValue = qValues[i];
+    }
+    Collections.sort(results);
+    return results;
+  }
+
+  /**
+   * Computes the enrichment score, i.e., the maximum deviation from zero
+   * of the running sum, that increases at members by their weight
+   * (normalized to a total of 1) and decreases at all other positions
+   * by 1/(n-members). The running sum is only evaluated directly before
+   * and after each member.
+   * @param positions sorted positions of the members in the ranked list.
+   * @param size number of members.
+   * @param weights of all positions.
+   * @param n size of the ranked list.
+   * @return the enrichment score.
+   */
+  static double enrichmentScore(int[] positions, int size, double[] weights, int n) {
+    double sumOfWeights = 0;
+    for (int i=0; i<size; i++) {
+      sumOfWeights += weights[positions[i]];
+    }
+    double missStep = 1d / (n - size);
+    double hits = 0, max = 0, min = 0;
+    for (int i=0; i<size; i++) {
+      double misses = (positions[i] - i) * missStep;
+      min = Math.min(min, hits - misses);
+      hits += (sumOfWeights>0) ? weights[positions[i]] / sumOfWeights : 1d / size;
+      max = Math.max(max, hits - misses);
+    }
+    return (max>=-min) ? max : min;
+  }
+
+  /**
+   * @param seed
+   * @param permutation
+   * @return the random generator of the given permutation.
+   */
+  private static Random getRandom(long seed, int permutation) {
+    // Finalizer of MurmurHash3, such that consecutive permutations get
+    // unrelated seeds
+    long h = seed + (permutation + 1) * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return new Random(h);
+  }
+
+  /**
+   * Performs a range of permutations for the given classes, split into
+   * halves until {@link #PERMUTATIONS_PER_TASK} permutations remain.
+   * Since the splitting does not depend on the number of threads, the
+   * sums of the statistics are also reproducible.
+   */
+  private class PermutationTask extends RecursiveTask<Statistics> {
+    private static final long serialVersionUID = 1L;
+    private final int from, to;
+    private final int[] active;
+    private final int[][] positions;
+    private final double[] observed;
+    private final double[] weights;
+    /**
+     * Maximum number of members of all classes.
+     */
+    private final int longest;
+    PermutationTask(int from, int to, int[] active, int[][] positions, double[] observed, double[] weights, int longest) {
+      super();
+      this.from = from;
+      this.to = to;
+      this.active = active;
+      this.positions = positions;
+      this.observed = observed;
+      this.weights = weights;
+      this.longest = longest;
+    }
+    @Override
+    protected Statistics compute() {
+      if (to-from>PERMUTATIONS_PER_TASK) {
+        int middle = (from+to) >>> 1;
+        PermutationTask left = new PermutationTask(from, middle, active, positions, observed, weights, longest);
+        PermutationTask right = new PermutationTask(middle, to, active, positions, observed, weights, longest);
+        right.fork();
+        Statistics s = left.compute();
+        s.add(right.join());
+        return s;
+      }
+      int n = weights.length;
+      Statistics s = new Statistics(active.length);
+      int[] permutation = new int[n];
+      int[] permuted = new int[longest];
+      for (int p=from; p<to; p++) {
+        Random random = getRandom(seed, p);
+        for (int i=0; i<n; i++) {
+          permutation[i] = i;
+        }
+        for (int i=n-1; i>0; i--) {
+          int j = random.nextInt(i+1);
+          int swap = permutation[i];
+          permutation[i] = permutation[j];
+          permutation[j] = swap;
+        }
+        for (int i=0; i<active.length; i++) {
+          int[] members = positions[active[i]];
+          for (int k=0; k<members.length; k++) {
+            permuted[k] = permutation[members[k]];
+          }
+          Arrays.sort(permuted, 0, members.length);
+          double es = enrichmentScore(permuted, members.length, weights, n);
+          double o = observed[active[i]];
+          if ((o>=0 && es>=0) || (o<0 && es<0)) {
+            s.sameSign[i]++;
+            s.sameSignSum[i] += es;
+            if (Math.abs(es)>=Math.abs(o)) {
+              s.exceedances[i]++;
+            }
+          }
+        }
+      }
+      return s;
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
@@ -100,7 +101,8 @@ public class InChIKey2ListOfKEGGpathways extends AbstractEnrichmentMapper<String
 	      	if(pws != null){
 	      		pws.addAll(c);
 	      	}else{
-	      		getMapping().put(entry.getKey(), c); 
+	      		// Copy, since the collections of map2 are immutable (and must not be modified)
+	      		getMapping().put(entry.getKey(), new HashSet<String>(c));
 	      	}
 	      }
     	}
@@ -273,5 +273,12 @@ public class KeggID2PathwayMapper extends AbstractEnrichmentMapper<String, Strin
     super.convertIDsToNames(mapper);
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    return organism_kegg_abbr + "_" + dataType;
+  }
   
 }
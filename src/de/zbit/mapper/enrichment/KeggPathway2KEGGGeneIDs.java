@@ -236,5 +236,12 @@ public class KeggPathway2KEGGGeneIDs extends AbstractEnrichmentMapper<String, St
     super.convertIDsToNames(mapper);
   }
   
+  /* (non-Javadoc)
+   * @see de.zbit.mapper.AbstractMapper#getSnapshotIdentifier()
+   */
+  @Override
+  protected String getSnapshotIdentifier() {
+    return organism_kegg_abbr;
+  }
   
 }
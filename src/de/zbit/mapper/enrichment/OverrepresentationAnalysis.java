@@ -0,0 +1,352 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import de.zbit.math.MathUtils;
+
+/**
+ * Over-representation analysis (hypergeometric test) of gene lists in
+ * all enrichment classes (e.g., GO terms or pathways) of an
+ * {@link AbstractEnrichmentMapper}:
+ * <pre>
+ * OverrepresentationAnalysis&lt;Integer, String&gt; ora =
+ *   new OverrepresentationAnalysis&lt;Integer, String&gt;(geneID2GO);
+ * for (OverrepresentationAnalysis.Result&lt;String&gt; r : ora.analyze(geneIDs)) {
+ *   ...
+ * }
+ * </pre>
+ * The population consists of all entities of the {@link EnrichmentIndex}
+ * of the mapper, i.e., all annotated genes. Genes of the list, that are
+ * not annotated, are ignored. The list is converted to a {@link BitSet}
+ * of entity ids and the overlaps with all classes are counted in a
+ * single pass over the classes of the genes in this set. Only classes
+ * with at least one gene of the list are tested (see
+ * {@link MathUtils#enrichment_significance(int, int, int, int)}) and
+ * returned, since all other classes have a p-value of 1. Nevertheless,
+ * the correction for multiple testing considers all classes of the
+ * index, independent of the list.
+ *
+ * <p>Analyses of single lists are fast (usually well below one
+ * millisecond). Thus, {@link #analyzeAll(List)} analyzes multiple lists
+ * in parallel, rather than the tests of a single list.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @param <SourceType> gene identifier
+ * @param <TargetType> enrichment class identifier
+ */
+public class OverrepresentationAnalysis<SourceType, TargetType> {
+
+  /**
+   * Result of the test of one enrichment class.
+   * @param <TargetType> enrichment class identifier
+   */
+  public static class Result<TargetType> implements Comparable<Result<TargetType>> {
+    private final TargetType enrichmentClass;
+    private final int overlap;
+    private final int classSize;
+    private final int listSize;
+    private final int populationSize;
+    private final double pValue;
+    private final double qValue;
+    private final double bonferroni;
+
+    Result(TargetType enrichmentClass, int overlap, int classSize, int listSize,
+      int populationSize, double pValue, double qValue, double bonferroni) {
+      super();
+      this.enrichmentClass = enrichmentClass;
+      this.overlap = overlap;
+      this.classSize = classSize;
+      this.listSize = listSize;
+      this.populationSize = populationSize;
+      this.pValue = pValue;
+      this.qValue = qValue;
+      this.bonferroni = bonferroni;
+    }
+
+    /**
+     * @return the tested enrichment class.
+     */
+    public TargetType getEnrichmentClass() {
+      return enrichmentClass;
+    }
+
+    /**
+     * @return number of genes of the list in the enrichment class.
+     */
+    public int getOverlap() {
+      return overlap;
+    }
+
+    /**
+     * @return number of genes in the enrichment class.
+     */
+    public int getClassSize() {
+      return classSize;
+    }
+
+    /**
+     * @return number of annotated genes in the list.
+     */
+    public int getListSize() {
+      return listSize;
+    }
+
+    /**
+     * @return number of annotated genes.
+     */
+    public int getPopulationSize() {
+      return populationSize;
+    }
+
+    /**
+     * @return the p-value of the hypergeometric test.
+     */
+    public double getPValue() {
+      return pValue;
+    }
+
+    /**
+     * @return the p-value, adjusted with the Benjamini-Hochberg procedure
+     * (false discovery rate) over all enrichment classes.
+     */
+    public double getQValue() {
+      return qValue;
+    }
+
+    /**
+     * @return the p-value, adjusted with the Bonferroni correction over
+     * all enrichment classes.
+     */
+    public double getBonferroniPValue() {
+      return bonferroni;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(Result<TargetType> o) {
+      int c = Double.compare(pValue, o.pValue);
+      return (c!=0) ? c : o.overlap - overlap;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return enrichmentClass + ": " + overlap + "/" + classSize + " (" + listSize + "/" + populationSize + "), p=" + pValue + ", q=" + qValue;
+    }
+  }
+
+  /**
+   * The tested enrichment classes.
+   */
+  private final EnrichmentIndex<SourceType, TargetType> index;
+
+  /**
+   * Number of threads for {@link #analyzeAll(List)}.
+   */
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Overlap counts of all classes, reused for all lists of a thread.
+   */
+  private final ThreadLocal<int[]> overlaps = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[index.getNumberOfEnrichmentClasses()];
+    }
+  };
+
+  /**
+   * @param mapper is initialized, if this has not yet been done.
+   * @throws IOException if the mapping could not be read.
+   */
+  public OverrepresentationAnalysis(AbstractEnrichmentMapper<SourceType, TargetType> mapper) throws IOException {
+    this(getIndex(mapper));
+  }
+
+  /**
+   * @param index
+   */
+  public OverrepresentationAnalysis(EnrichmentIndex<SourceType, TargetType> index) {
+    super();
+    this.index = index;
+    // Compute the log-factorials for the population once
+    MathUtils.logFactorial(index.getNumberOfEntities());
+  }
+
+  /**
+   * @param mapper
+   * @return the index of the initialized mapper.
+   * @throws IOException
+   */
+  private static <SourceType, TargetType> EnrichmentIndex<SourceType, TargetType> getIndex(AbstractEnrichmentMapper<SourceType, TargetType> mapper) throws IOException {
+    mapper.initialize();
+    if (!mapper.isReady()) {
+      throw new IOException(mapper.getMappingName() + " mapping data has not been read successfully.");
+    }
+    return mapper.getIndex();
+  }
+
+  /**
+   * @return the tested enrichment classes.
+   */
+  public EnrichmentIndex<SourceType, TargetType> getIndex() {
+    return index;
+  }
+
+  /**
+   * @param threads number of threads for {@link #analyzeAll(List)}
+   * (default: number of processors).
+   */
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * @return number of threads for {@link #analyzeAll(List)}.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * @param genes
+   * @return the results of all enrichment classes, that contain at least
+   * one of the given genes, sorted by p-value.
+   */
+  public List<Result<TargetType>> analyze(Collection<SourceType> genes) {
+    return analyze(index.toBitSet(genes));
+  }
+
+  /**
+   * @param genes entity ids of the genes (see
+   * {@link EnrichmentIndex#toBitSet(Collection)}).
+   * @return the results of all enrichment classes, that contain at least
+   * one of the given genes, sorted by p-value.
+   */
+  public List<Result<TargetType>> analyze(BitSet genes) {
+    int populationSize = index.getNumberOfEntities();
+    int listSize = genes.cardinality();
+
+    // Count overlaps of all classes with genes of the list
+    int[] overlap = overlaps.get();
+    int[] tested = new int[Math.min(overlap.length, 64)];
+    int numberOfTests = 0;
+    for (int entity=genes.nextSetBit(0); entity>=0; entity=genes.nextSetBit(entity+1)) {
+      for (int classId : index.getEnrichmentClassIdsOfEntity(entity)) {
+        if (overlap[classId]++==0) {
+          if (numberOfTests==tested.length) {
+            int[] grown = new int[Math.min(overlap.length, tested.length*2)];
+            System.arraycopy(tested, 0, grown, 0, numberOfTests);
+            tested = grown;
+          }
+          tested[numberOfTests++] = classId;
+        }
+      }
+    }
+
+    // Test all classes with a non-empty overlap
+    double[] pValues = new double[numberOfTests];
+    for (int i=0; i<numberOfTests; i++) {
+      int classId = tested[i];
+      pValues[i] = MathUtils.enrichment_significance(populationSize, listSize,
+        index.getEnrichmentClassSize(classId), overlap[classId]);
+    }
+    // Untested classes count as tests with a p-value of 1
+    double[] qValues = MathUtils.benjamini_hochberg(pValues, index.getNumberOfEnrichmentClasses());
+    double[] bonferroni = MathUtils.bonferroni(pValues, index.getNumberOfEnrichmentClasses());
+
+    List<Result<TargetType>> results = new ArrayList<Result<TargetType>>(numberOfTests);
+    for (int i=0; i<numberOfTests; i++) {
+      int classId = tested[i];
+      results.add(new Result<TargetType>(index.getEnrichmentClass(classId), overlap[classId],
+        index.getEnrichmentClassSize(classId), listSize, populationSize, pValues[i], qValues[i], bonferroni[i]));
+      overlap[classId] = 0;
+    }
+    Collections.sort(results);
+    return results;
+  }
+
+  /**
+   * Analyzes all given lists on {@link #getThreads()} threads.
+   * @param geneLists
+   * @return the results of {@link #analyze(Collection)} for all lists,
+   * in the same order.
+   */
+  public List<List<Result<TargetType>>> analyzeAll(final List<? extends Collection<SourceType>> geneLists) {
+    final List<List<Result<TargetType>>> results = new ArrayList<List<Result<TargetType>>>(Collections.<List<Result<TargetType>>>nCopies(geneLists.size(), null));
+    if (threads<=1 || geneLists.size()<=1) {
+      for (int i=0; i<geneLists.size(); i++) {
+        results.set(i, analyze(geneLists.get(i)));
+      }
+      return results;
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.invoke(new AnalyzeTask(geneLists, results, 0, geneLists.size()));
+    } finally {
+      pool.shutdown();
+    }
+    return results;
+  }
+
+  /**
+   * Analyzes a range of lists, split into halves until only a few lists
+   * remain.
+   */
+  private class AnalyzeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final List<? extends Collection<SourceType>> geneLists;
+    private final List<List<Result<TargetType>>> results;
+    private final int from, to;
+    AnalyzeTask(List<? extends Collection<SourceType>> geneLists, List<List<Result<TargetType>>> results, int from, int to) {
+      super();
+      this.geneLists = geneLists;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+    @Override
+    protected void compute() {
+      if (to-from<=4) {
+        for (int i=from; i<to; i++) {
+          List<Result<TargetType>> result = analyze(geneLists.get(i));
+          synchronized (results) {
+            results.set(i, result);
+          }
+        }
+      } else {
+        int middle = (from+to) >>> 1;
+        invokeAll(new AnalyzeTask(geneLists, results, from, middle), new AnalyzeTask(geneLists, results, middle, to));
+      }
+    }
+  }
+
+}
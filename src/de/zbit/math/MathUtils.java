@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
@@ -41,6 +42,22 @@ public class MathUtils {
    */
   final static double ln2 = Math.log(2);
   
+  /**
+   * Maximum size of the {@link #logFactorials} table (8 MB).
+   */
+  private final static int MAX_LOG_FACTORIALS = 1<<20;
+  
+  /**
+   * Table of ln(n!), grown on demand by {@link #logFactorial(int)}.
+   */
+  private static volatile double[] logFactorials = new double[] {0, 0};
+  
+  /**
+   * Shorter arrays (or parts of arrays) are sorted instead of partitioned
+   * by {@link #select(double[], int)}.
+   */
+  private final static int MIN_SELECTION_LENGTH = 16;
+  
   /**
    * Returns the average of all non-NaN and non-infinite values in the given
    * array. Internally, it first tries to use the faster implementation and if
@@ -432,7 +449,7 @@ public class MathUtils {
   
   /**
    * Calculates the median of the given values.
-   * The input array is MODIFIED (sorted).
+   * The input array is MODIFIED (reordered, see {@link #select(double[], int)}).
    * The median of an empty array is defined to be Double.NaN
    * 
    * From Wikipedia:
@@ -444,27 +461,203 @@ public class MathUtils {
    * 
    * @param values
    * @return median
+   * @see QuantileSketch for values that do not fit into memory
    */
   public static double median(double[] values) {
     if (values.length<1) {
       return Double.NaN;
     }
-    Arrays.sort(values);
-    
+    int upper = values.length/2;
     if (values.length %2 !=0) {
-      return values[values.length/2];
+      select(values, new int[] {upper});
+      return values[upper];
     } else {
-      int upper = (int) Math.ceil(values.length/2);
+      select(values, new int[] {upper - 1, upper});
       return (values[upper - 1] + (values[upper] - values[upper - 1])/2);
     }
   }
   
+  /**
+   * Returns the value at relative (percentage) index {@code quantile} of
+   * the given values, as {@link #quantile(List, int, boolean)}: if
+   * {@code n*quantile/100} is an integer, the mean of the values at this
+   * index and the index before is returned (e.g., the median of an even
+   * number of values).
+   * The input array is MODIFIED (reordered, see {@link #select(double[], int)}).
+   * 
+   * @param values
+   * @param quantile between 0 and 100.
+   * @return the quantile or Double.NaN for an empty array.
+   */
+  public static double quantile(double[] values, int quantile) {
+    return quantiles(values, quantile)[0];
+  }
+  
+  /**
+   * Returns multiple quantiles of the given values, that are all selected
+   * in a single partitioning of the array. This is faster than sorting
+   * the array for a few quantiles.
+   * The input array is MODIFIED (reordered, see {@link #select(double[], int)}).
+   * 
+   * @param values
+   * @param quantiles between 0 and 100.
+   * @return the {@link #quantile(double[], int)} for each given quantile.
+   */
+  public static double[] quantiles(double[] values, int... quantiles) {
+    double[] result = new double[quantiles.length];
+    if (values.length<1) {
+      Arrays.fill(result, Double.NaN);
+      return result;
+    }
+    // Lower and upper index of each quantile
+    int[] indices = new int[quantiles.length*2];
+    for (int i=0; i<quantiles.length; i++) {
+      if (quantiles[i]<0 || quantiles[i]>100) {
+        throw new IllegalArgumentException("Quantile must be between 0 and 100: " + quantiles[i]);
+      }
+      long index = (long) values.length * quantiles[i];
+      if (index%100!=0) {
+        indices[2*i] = (int) (index/100);
+        indices[2*i+1] = indices[2*i];
+      } else {
+        indices[2*i] = Math.max((int) (index/100) - 1, 0);
+        indices[2*i+1] = Math.min((int) (index/100), values.length - 1);
+      }
+    }
+    int[] ranks = indices.clone();
+    Arrays.sort(ranks);
+    select(values, ranks);
+    
+    for (int i=0; i<quantiles.length; i++) {
+      double lower = values[indices[2*i]];
+      double upper = values[indices[2*i+1]];
+      result[i] = (indices[2*i]==indices[2*i+1]) ? lower : (lower+(upper-lower)/2);
+    }
+    return result;
+  }
+  
+  /**
+   * Returns the {@code k}-th smallest value (starting at 0) in linear
+   * expected time (quickselect with a median-of-three pivot, that falls
+   * back to sorting if the partitioning degenerates).
+   * The input array is MODIFIED: afterwards, the {@code k}-th value is at
+   * index {@code k}, all values before are less than or equal and all
+   * values after are greater than or equal to it.
+   * NaN values are considered to be greater than all other values, as by
+   * {@link Arrays#sort(double[])}.
+   * 
+   * @param values
+   * @param k
+   * @return the value at index {@code k} of the sorted array.
+   */
+  public static double select(double[] values, int k) {
+    if (k<0 || k>=values.length) {
+      throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + values.length);
+    }
+    select(values, new int[] {k});
+    return values[k];
+  }
+  
+  /**
+   * Moves the values of all given ranks to their positions in the sorted
+   * array.
+   * @param values
+   * @param ranks in ascending order.
+   */
+  private static void select(double[] values, int[] ranks) {
+    if (values.length<MIN_SELECTION_LENGTH) {
+      Arrays.sort(values);
+      return;
+    }
+    // Move NaN values to the end, as Arrays.sort does
+    int n = values.length;
+    for (int i=n-1; i>=0; i--) {
+      if (Double.isNaN(values[i])) {
+        n--;
+        values[i] = values[n];
+        values[n] = Double.NaN;
+      }
+    }
+    int numberOfRanks = 0;
+    while (numberOfRanks<ranks.length && ranks[numberOfRanks]<n) {
+      numberOfRanks++;
+    }
+    select(values, 0, n-1, ranks, 0, numberOfRanks, 2 * (32 - Integer.numberOfLeadingZeros(n)));
+  }
+  
+  /**
+   * Partitions {@code values[from..to]} until all ranks
+   * {@code ranks[rankFrom..rankTo-1]} are at their sorted positions.
+   * @param values must not contain NaN values.
+   * @param from first index (inclusive).
+   * @param to last index (inclusive).
+   * @param ranks in ascending order.
+   * @param rankFrom
+   * @param rankTo
+   * @param depth number of partitions, before the range is sorted instead.
+   */
+  private static void select(double[] values, int from, int to, int[] ranks, int rankFrom, int rankTo, int depth) {
+    while (rankFrom<rankTo) {
+      if (to-from<MIN_SELECTION_LENGTH || depth--<=0) {
+        Arrays.sort(values, from, to+1);
+        return;
+      }
+      // Median of three, which also serve as sentinels
+      int middle = (from+to) >>> 1;
+      if (values[middle]<values[from]) {
+        swap(values, from, middle);
+      }
+      if (values[to]<values[from]) {
+        swap(values, from, to);
+      }
+      if (values[to]<values[middle]) {
+        swap(values, middle, to);
+      }
+      double pivot = values[middle];
+      int i = from, j = to;
+      while (i<=j) {
+        while (values[i]<pivot) {
+          i++;
+        }
+        while (values[j]>pivot) {
+          j--;
+        }
+        if (i<=j) {
+          swap(values, i++, j--);
+        }
+      }
+      // values[from..j] <= pivot, values[j+1..i-1] == pivot, values[i..to] >= pivot
+      int left = rankFrom;
+      while (left<rankTo && ranks[left]<=j) {
+        left++;
+      }
+      select(values, from, j, ranks, rankFrom, left, depth);
+      rankFrom = left;
+      while (rankFrom<rankTo && ranks[rankFrom]<i) {
+        rankFrom++;
+      }
+      from = i;
+    }
+  }
+  
+  /**
+   * @param values
+   * @param i
+   * @param j
+   */
+  private static void swap(double[] values, int i, int j) {
+    double swap = values[i];
+    values[i] = values[j];
+    values[j] = swap;
+  }
+  
   /**
    * Calculates the median of the given values.
    * The input list is <b>MODIFIED (sorted)</b>.
    * The median of an empty array is defined to be Double.NaN
    * 
    * @see median
+   * @see #median(double[]) which only partially sorts the values
    * @param values
    * @return median
    */
@@ -526,19 +719,24 @@ public class MathUtils {
   }
   
   /**
-   * Converts the collection to a list and returns the median.
+   * Returns the median of the given values. Lists are sorted (see
+   * {@link #median(List)}), all other collections are converted to a
+   * double array (see {@link #median(double[])}).
    * @param values
    * @return
    */
   
-  @SuppressWarnings({ "rawtypes", "unchecked" })
+  @SuppressWarnings("rawtypes")
   public static double median(Collection values) {
     if (values instanceof List) {
       return median ((List)values);
     } else {
-      ArrayList list = new ArrayList(values.size());
-      list.addAll(values);
-      return median (list);
+      double[] array = new double[values.size()];
+      int i = 0;
+      for (Object value : values) {
+        array[i++] = Utils.getDoubleValue(value);
+      }
+      return median (array);
     }
   }
   
@@ -568,6 +766,7 @@ public class MathUtils {
    * 
    * @param d the list of double values
    * @return
+   * @see RunningStatistics for values that do not fit into memory
    */
   public static double variance(double[] d) {
     double mean = mean(d);
@@ -666,10 +865,178 @@ public class MathUtils {
     return (zaehler.divide(nenner, 20, RoundingMode.HALF_UP)).doubleValue();
   }
   
+  /**
+   * The natural logarithm of n!. Values are looked up in a table, which is
+   * computed once for all n up to the largest requested value (at most
+   * 2^20). Larger values are approximated by Stirling's series.
+   * @param n
+   * @return ln(n!)
+   */
+  public static double logFactorial(int n) {
+    if (n<0) {
+      throw new IllegalArgumentException("n must not be negative.");
+    }
+    double[] table = logFactorials;
+    if (n<table.length) {
+      return table[n];
+    } else if (n>=MAX_LOG_FACTORIALS) {
+      // ln(n!) = n ln(n) - n + ln(2 pi n)/2 + 1/(12n) - 1/(360n^3) + ...
+      double x = n;
+      return x*Math.log(x) - x + 0.5*Math.log(2*Math.PI*x) + 1/(12*x) - 1/(360*x*x*x);
+    }
+    return growLogFactorials(n)[n];
+  }
+  
+  /**
+   * Grows the {@link #logFactorials} table to contain at least n.
+   * @param n
+   * @return the new table.
+   */
+  private static synchronized double[] growLogFactorials(int n) {
+    double[] table = logFactorials;
+    if (n<table.length) {
+      return table;
+    }
+    double[] grown = Arrays.copyOf(table, Math.min(MAX_LOG_FACTORIALS, Math.max(n+1, table.length*2)));
+    // Kahan summation, such that large values are exact up to rounding
+    double sum = table[table.length-1], compensation = 0;
+    for (int i=table.length; i<grown.length; i++) {
+      double y = Math.log(i) - compensation;
+      double t = sum + y;
+      compensation = (t - sum) - y;
+      sum = t;
+      grown[i] = sum;
+    }
+    logFactorials = grown;
+    return grown;
+  }
+  
+  /**
+   * @param n
+   * @param k
+   * @return ln of the binomial coefficient "n over k".
+   */
+  public static double logBinomialCoefficient(int n, int k) {
+    return logFactorial(n) - logFactorial(k) - logFactorial(n-k);
+  }
+  
+  /**
+   * The natural logarithm of the {@link #hypergeometric_distribution(int, int, int, int)},
+   * computed with {@link #logFactorial(int)} instead of {@link BigInteger}s.
+   * @param N total number of objects in urn
+   * @param m number of white objects in urn
+   * @param n number objects to draw without replacement
+   * @param k number of objects to calculate the probability that they are white
+   * @return ln(P(X=k)) or {@link Double#NEGATIVE_INFINITY} if k is
+   * impossible.
+   */
+  public static double hypergeometric_log_probability(int N, int m, int n, int k) {
+    if (k<Math.max(0, n+m-N) || k>Math.min(n, m)) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    return logBinomialCoefficient(m, k) + logBinomialCoefficient(N-m, n-k) - logBinomialCoefficient(N, n);
+  }
+  
+  /**
+   * The cumulative distribution function of the hypergeometric distribution.
+   * Only the tail on the side of k that does not contain the mode of the
+   * distribution is summed, such that all terms decrease and no precision
+   * is lost for small probabilities.
+   * @param N total number of objects in urn
+   * @param m number of white objects in urn
+   * @param n number objects to draw without replacement
+   * @param k
+   * @return P(X&le;k)
+   * @see #hypergeometric_distribution(int, int, int, int)
+   */
+  public static double hypergeometric_cdf(int N, int m, int n, int k) {
+    if (k<Math.max(0, n+m-N)) {
+      return 0;
+    } else if (k>=Math.min(n, m)) {
+      return 1;
+    }
+    long mode = ((long) (n+1))*(m+1)/(N+2);
+    if (k<mode) {
+      return lowerTail(N, m, n, k);
+    }
+    return Math.max(0, 1 - upperTail(N, m, n, k+1));
+  }
+  
+  /**
+   * The survival function of the hypergeometric distribution (see
+   * {@link #hypergeometric_cdf(int, int, int, int)}).
+   * @param N total number of objects in urn
+   * @param m number of white objects in urn
+   * @param n number objects to draw without replacement
+   * @param k
+   * @return P(X&gt;k)
+   */
+  public static double hypergeometric_survival(int N, int m, int n, int k) {
+    if (k<Math.max(0, n+m-N)) {
+      return 1;
+    } else if (k>=Math.min(n, m)) {
+      return 0;
+    }
+    long mode = ((long) (n+1))*(m+1)/(N+2);
+    if (k>=mode) {
+      return upperTail(N, m, n, k+1);
+    }
+    return Math.max(0, 1 - lowerTail(N, m, n, k));
+  }
+  
+  /**
+   * Sums P(X=x) for all x&le;k, from k downwards.
+   * @param N
+   * @param m
+   * @param n
+   * @param k
+   * @return P(X&le;k)
+   */
+  private static double lowerTail(int N, int m, int n, int k) {
+    int min = Math.max(0, n+m-N);
+    // Terms relative to P(X=k), P(X=x-1)/P(X=x) = x(N-m-n+x) / ((m-x+1)(n-x+1))
+    double term = 1, sum = 1;
+    for (int x=k; x>min; x--) {
+      term *= ((double) x)*(N-m-n+x) / (((double) (m-x+1))*(n-x+1));
+      sum += term;
+      if (term<sum*1E-17) {
+        break;
+      }
+    }
+    return Math.min(1, Math.exp(hypergeometric_log_probability(N, m, n, k) + Math.log(sum)));
+  }
+  
+  /**
+   * Sums P(X=x) for all x&ge;k, from k upwards.
+   * @param N
+   * @param m
+   * @param n
+   * @param k
+   * @return P(X&ge;k)
+   */
+  private static double upperTail(int N, int m, int n, int k) {
+    int max = Math.min(n, m);
+    // Terms relative to P(X=k), P(X=x+1)/P(X=x) = (m-x)(n-x) / ((x+1)(N-m-n+x+1))
+    double term = 1, sum = 1;
+    for (int x=k; x<max; x++) {
+      term *= ((double) (m-x))*(n-x) / (((double) (x+1))*(N-m-n+x+1));
+      sum += term;
+      if (term<sum*1E-17) {
+        break;
+      }
+    }
+    return Math.min(1, Math.exp(hypergeometric_log_probability(N, m, n, k) + Math.log(sum)));
+  }
+  
   /**
    * Calculates a pValue for an enrichment significance (e.g., gene set enrichments
    * in pathways).
    * This is a "Hypergeometric Test".
+   * <p>The p-value is the upper tail P(X&ge;r) of the hypergeometric
+   * distribution, computed by {@link #hypergeometric_survival(int, int, int, int)}.
+   * It deviates from the sum of {@link #hypergeometric_distribution(int, int, int, int)}
+   * by less than 1E-9 (relative) and, in contrast to {@code 1-P(X<r)},
+   * is also accurate for very small p-values.
    * @see <a href="http://nar.oxfordjournals.org/content/37/19/e131.full#disp-formula-1">Publication: "SubpathwayMiner: a software package for flexible identification of pathways"</a>
    * @param m Total number of genes in the genome.
    * @param n Total number of genes in the input set (e.g., in the input gene list)
@@ -678,13 +1045,85 @@ public class MathUtils {
    * @return
    */
   public static double enrichment_significance(int m, int n, int t, int r) {
-    double p = 0;
-    
-    for (int x=0; x<r; x++) {
-      p+=hypergeometric_distribution(m,t,n,x);
+    return hypergeometric_survival(m, t, n, r-1);
+  }
+  
+  /**
+   * Adjusts p-values of multiple tests with the Bonferroni correction.
+   * @param pValues
+   * @return min(1, p*m) for each p-value, with m being the number of tests.
+   */
+  public static double[] bonferroni(double[] pValues) {
+    return bonferroni(pValues, pValues.length);
+  }
+  
+  /**
+   * Adjusts p-values of multiple tests with the Bonferroni correction.
+   * @param pValues
+   * @param numberOfTests m, at least the number of given p-values. All
+   * other tests are considered to have a p-value of 1.
+   * @return min(1, p*m) for each p-value.
+   */
+  public static double[] bonferroni(double[] pValues, int numberOfTests) {
+    if (numberOfTests<pValues.length) {
+      throw new IllegalArgumentException("Less tests than p-values: " + numberOfTests);
     }
-    
-    return 1-p;
+    double[] adjusted = new double[pValues.length];
+    for (int i=0; i<pValues.length; i++) {
+      adjusted[i] = Math.min(1, pValues[i] * numberOfTests);
+    }
+    return adjusted;
+  }
+  
+  /**
+   * Adjusts p-values of multiple tests with the Benjamini-Hochberg
+   * procedure, which controls the false discovery rate.
+   * @param pValues
+   * @return the adjusted p-values (q-values), in the same order as
+   * {@code pValues}, i.e., for the i-th smallest p-value the minimum of
+   * p*m/j over all j&ge;i (with m being the number of tests), but at most 1.
+   */
+  public static double[] benjamini_hochberg(double[] pValues) {
+    return benjamini_hochberg(pValues, pValues.length);
+  }
+  
+  /**
+   * Adjusts p-values of multiple tests with the Benjamini-Hochberg
+   * procedure, if only some of the tests have been performed (e.g., only
+   * tests with a p-value below 1).
+   * @param pValues
+   * @param numberOfTests m, at least the number of given p-values. All
+   * other tests are considered to have a p-value of 1, i.e., they have the
+   * highest ranks and an adjusted p-value of 1.
+   * @return the adjusted p-values (q-values), in the same order as
+   * {@code pValues}.
+   * @see #benjamini_hochberg(double[])
+   */
+  public static double[] benjamini_hochberg(double[] pValues, int numberOfTests) {
+    if (numberOfTests<pValues.length) {
+      throw new IllegalArgumentException("Less tests than p-values: " + numberOfTests);
+    }
+    int m = pValues.length;
+    // Sort indices by p-value
+    Integer[] order = new Integer[m];
+    for (int i=0; i<m; i++) {
+      order[i] = i;
+    }
+    final double[] p = pValues;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return Double.compare(p[a], p[b]);
+      }
+    });
+    double[] adjusted = new double[m];
+    double min = 1;
+    for (int j=m; j>0; j--) {
+      int i = order[j-1];
+      min = Math.min(min, pValues[i] * numberOfTests / j);
+      adjusted[i] = min;
+    }
+    return adjusted;
   }
   
   /**
@@ -0,0 +1,421 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Approximates quantiles of a stream of values in a single pass and
+ * bounded memory, using the KLL sketch (Karnin, Lang and Liberty, 2016).
+ * <pre>
+ * QuantileSketch sketch = new QuantileSketch();
+ * while (...) {
+ *   sketch.add(value);
+ * }
+ * sketch.getMedian();
+ * </pre>
+ * The sketch keeps a hierarchy of compactors. Level {@code h} holds
+ * values with a weight of 2<sup>h</sup>. If a level is full, it is
+ * sorted and every second value (starting with a random one of the first
+ * two) is promoted to the next level, while the others are dropped. The
+ * size of the sketch only grows logarithmically with the number of
+ * values: a few thousand values are retained for billions of values with
+ * the default {@code k}.
+ *
+ * <p>The rank of a returned quantile differs from the requested one by
+ * a small fraction of all values, that only depends on {@code k} (about
+ * 1-2% for {@code k=200}, and inversely proportional to {@code k}).
+ * Minimum and maximum are exact. Sketches of multiple threads (or files)
+ * can be combined with {@link #merge(QuantileSketch)} without a loss of
+ * accuracy.
+ *
+ * <p>NaN values are ignored. Instances are not thread-safe; use one
+ * instance per thread and merge them afterwards. Coin flips are taken
+ * from a fixed-seed generator, thus the same input always results in the
+ * same sketch.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @see RunningStatistics
+ */
+public class QuantileSketch implements Serializable {
+  private static final long serialVersionUID = -2869212484417416384L;
+
+  /**
+   * Default accuracy parameter.
+   */
+  public static final int DEFAULT_K = 200;
+
+  /**
+   * Minimum capacity of a compactor.
+   */
+  private static final int MIN_CAPACITY = 8;
+
+  /**
+   * Capacities of lower levels decrease with this factor.
+   */
+  private static final double CAPACITY_DECAY = 2d/3d;
+
+  /**
+   * Capacity of the top level.
+   */
+  private final int k;
+
+  /**
+   * Values of all levels, {@code sizes[h]} of {@code levels[h]} are used.
+   */
+  private double[][] levels = new double[0][];
+  private int[] sizes = new int[0];
+
+  /**
+   * Number of values in all levels and the number of values, that
+   * triggers a compaction.
+   */
+  private int retained = 0;
+  private int maxRetained = 0;
+
+  /**
+   * Number of added values, i.e., total weight of all levels.
+   */
+  private long count = 0;
+
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+
+  /**
+   * State of the xorshift generator for compactions.
+   */
+  private long random = 0x9E3779B97F4A7C15L;
+
+  /**
+   * All retained values in ascending order and their cumulative weights,
+   * created on demand by {@link #getSortedView()}.
+   */
+  private transient double[] sortedValues = null;
+  private transient long[] cumulativeWeights = null;
+
+  /**
+   * Creates a sketch with {@link #DEFAULT_K}.
+   */
+  public QuantileSketch() {
+    this(DEFAULT_K);
+  }
+
+  /**
+   * @param k capacity of the top level (at least 8). Larger values
+   * improve the accuracy, but need more memory.
+   */
+  public QuantileSketch(int k) {
+    super();
+    if (k<MIN_CAPACITY) {
+      throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ".");
+    }
+    this.k = k;
+    addLevel();
+  }
+
+  /**
+   * Adds a value. NaN values are ignored.
+   * @param value
+   */
+  public void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (count==0) {
+      min = value;
+      max = value;
+    } else if (value<min) {
+      min = value;
+    } else if (value>max) {
+      max = value;
+    }
+    count++;
+    append(0, value);
+    sortedValues = null;
+    if (retained>=maxRetained) {
+      compress();
+    }
+  }
+
+  /**
+   * Adds all given values.
+   * @param values
+   */
+  public void add(double... values) {
+    for (double value : values) {
+      add(value);
+    }
+  }
+
+  /**
+   * Adds all values of another sketch to this one. The other sketch is
+   * not modified.
+   * @param other a sketch with the same {@code k}.
+   */
+  public void merge(QuantileSketch other) {
+    if (other.k!=k) {
+      throw new IllegalArgumentException("Sketches with different k cannot be merged.");
+    } else if (other.count==0) {
+      return;
+    }
+    while (levels.length<other.levels.length) {
+      addLevel();
+    }
+    for (int h=0; h<other.levels.length; h++) {
+      for (int i=0; i<other.sizes[h]; i++) {
+        append(h, other.levels[h][i]);
+      }
+    }
+    min = (count==0) ? other.min : Math.min(min, other.min);
+    max = (count==0) ? other.max : Math.max(max, other.max);
+    count += other.count;
+    sortedValues = null;
+    while (retained>=maxRetained) {
+      compress();
+    }
+  }
+
+  /**
+   * @param h
+   * @param value is appended to the given level.
+   */
+  private void append(int h, double value) {
+    if (sizes[h]==levels[h].length) {
+      levels[h] = Arrays.copyOf(levels[h], Math.max(MIN_CAPACITY, levels[h].length*2));
+    }
+    levels[h][sizes[h]++] = value;
+    retained++;
+  }
+
+  /**
+   * Adds a new top level and updates {@link #maxRetained}.
+   */
+  private void addLevel() {
+    int h = levels.length;
+    levels = Arrays.copyOf(levels, h+1);
+    sizes = Arrays.copyOf(sizes, h+1);
+    levels[h] = new double[MIN_CAPACITY];
+    maxRetained = 0;
+    for (int i=0; i<levels.length; i++) {
+      maxRetained += getCapacity(i);
+    }
+  }
+
+  /**
+   * @param h
+   * @return number of values, that level {@code h} may keep.
+   */
+  private int getCapacity(int h) {
+    int depth = levels.length - h - 1;
+    return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+  }
+
+  /**
+   * Compacts the lowest level, that exceeds its capacity.
+   */
+  private void compress() {
+    for (int h=0; h<levels.length; h++) {
+      if (sizes[h]>=getCapacity(h)) {
+        if (h+1==levels.length) {
+          addLevel();
+        }
+        compact(h);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Promotes every second value of level {@code h} to the next level.
+   * If the number of values is odd, the smallest value remains.
+   * @param h
+   */
+  private void compact(int h) {
+    double[] level = levels[h];
+    int size = sizes[h];
+    Arrays.sort(level, 0, size);
+    int first = size % 2;
+    random ^= random << 13;
+    random ^= random >>> 7;
+    random ^= random << 17;
+    for (int i=first + (int) (random >>> 63); i<size; i+=2) {
+      append(h+1, level[i]);
+    }
+    sizes[h] = first;
+    retained -= size - first;
+  }
+
+  /**
+   * Sorts all retained values and computes their cumulative weights.
+   */
+  private void getSortedView() {
+    if (sortedValues!=null) {
+      return;
+    }
+    double[] values = new double[0];
+    long[] weights = new long[0];
+    for (int h=0; h<levels.length; h++) {
+      double[] level = Arrays.copyOf(levels[h], sizes[h]);
+      Arrays.sort(level);
+      // Merge the sorted level into the sorted values of previous levels
+      double[] mergedValues = new double[values.length + level.length];
+      long[] mergedWeights = new long[mergedValues.length];
+      int i=0, j=0;
+      for (int m=0; m<mergedValues.length; m++) {
+        if (j>=level.length || (i<values.length && values[i]<=level[j])) {
+          mergedValues[m] = values[i];
+          mergedWeights[m] = weights[i++];
+        } else {
+          mergedValues[m] = level[j++];
+          mergedWeights[m] = 1L << h;
+        }
+      }
+      values = mergedValues;
+      weights = mergedWeights;
+    }
+    for (int i=1; i<weights.length; i++) {
+      weights[i] += weights[i-1];
+    }
+    cumulativeWeights = weights;
+    sortedValues = values;
+  }
+
+  /**
+   * @param q a probability between 0 and 1 (e.g., 0.5 for the median).
+   * @return the (approximate) {@code q}-quantile, i.e., a value with
+   * about {@code q*n} values that are less than or equal to it.
+   * {@link Double#NaN} if no values have been added.
+   */
+  public double getQuantile(double q) {
+    if (q<0 || q>1 || Double.isNaN(q)) {
+      throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+    } else if (count==0) {
+      return Double.NaN;
+    } else if (q==0) {
+      return min;
+    } else if (q==1) {
+      return max;
+    }
+    getSortedView();
+    long rank = (long) Math.ceil(q * count);
+    int i = Arrays.binarySearch(cumulativeWeights, rank);
+    if (i<0) {
+      i = -i - 1;
+    } else {
+      // The first value with this cumulative weight
+      while (i>0 && cumulativeWeights[i-1]==rank) {
+        i--;
+      }
+    }
+    return sortedValues[Math.min(i, sortedValues.length-1)];
+  }
+
+  /**
+   * @param q probabilities between 0 and 1.
+   * @return the (approximate) quantiles for all given probabilities.
+   * @see #getQuantile(double)
+   */
+  public double[] getQuantiles(double... q) {
+    double[] quantiles = new double[q.length];
+    for (int i=0; i<q.length; i++) {
+      quantiles[i] = getQuantile(q[i]);
+    }
+    return quantiles;
+  }
+
+  /**
+   * @return the (approximate) median.
+   */
+  public double getMedian() {
+    return getQuantile(0.5);
+  }
+
+  /**
+   * @param value
+   * @return the (approximate) fraction of values, that are less than or
+   * equal to {@code value}. {@link Double#NaN} if no values have been
+   * added.
+   */
+  public double getRank(double value) {
+    if (count==0) {
+      return Double.NaN;
+    }
+    getSortedView();
+    int lower = 0, upper = sortedValues.length;
+    while (lower<upper) {
+      int middle = (lower+upper) >>> 1;
+      if (sortedValues[middle]<=value) {
+        lower = middle + 1;
+      } else {
+        upper = middle;
+      }
+    }
+    return (lower==0) ? 0 : cumulativeWeights[lower-1] / (double) count;
+  }
+
+  /**
+   * @return number of added (non-NaN) values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the minimum, or {@link Double#NaN} if no values have been
+   * added.
+   */
+  public double getMin() {
+    return min;
+  }
+
+  /**
+   * @return the maximum, or {@link Double#NaN} if no values have been
+   * added.
+   */
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   * @return the accuracy parameter.
+   */
+  public int getK() {
+    return k;
+  }
+
+  /**
+   * @return number of values, that are currently kept in memory.
+   */
+  public int getNumberOfRetainedValues() {
+    return retained;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    if (count==0) {
+      return "N:0";
+    }
+    return String.format("N:%s, Min:%s, Q1:%s, Median:%s, Q3:%s, Max:%s",
+      count, min, getQuantile(0.25), getMedian(), getQuantile(0.75), max);
+  }
+
+}
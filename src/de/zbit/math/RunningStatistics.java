@@ -0,0 +1,187 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import java.io.Serializable;
+
+/**
+ * Computes count, mean, variance, minimum and maximum of a stream of
+ * values in a single pass and constant memory, e.g., of expression or
+ * coverage values that are read from files larger than the heap:
+ * <pre>
+ * RunningStatistics stats = new RunningStatistics();
+ * while (...) {
+ *   stats.add(value);
+ * }
+ * stats.getMean();
+ * </pre>
+ * Mean and variance are updated with Welford's algorithm, which is
+ * numerically stable even for large offsets (unlike the sum of squares).
+ * Statistics of multiple threads (or files) can be combined with
+ * {@link #merge(RunningStatistics)}.
+ *
+ * <p>As {@link MathUtils#mean(double...)}, all NaN and infinite values
+ * are ignored. Instances are not thread-safe; use one instance per thread
+ * and merge them afterwards.
+ *
+ * @version $Rev$
+ * @since 1.0
+ * @see QuantileSketch
+ */
+public class RunningStatistics implements Serializable {
+  private static final long serialVersionUID = 5167419862553627311L;
+
+  /**
+   * Number of added (finite) values.
+   */
+  private long count = 0;
+
+  /**
+   * Mean of all added values.
+   */
+  private double mean = 0;
+
+  /**
+   * Sum of squared differences from the {@link #mean}.
+   */
+  private double m2 = 0;
+
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+
+  /**
+   * Adds a value. NaN and infinite values are ignored.
+   * @param value
+   */
+  public void add(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return;
+    }
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    m2 += delta * (value - mean);
+    if (count==1) {
+      min = value;
+      max = value;
+    } else if (value<min) {
+      min = value;
+    } else if (value>max) {
+      max = value;
+    }
+  }
+
+  /**
+   * Adds all given values.
+   * @param values
+   */
+  public void add(double... values) {
+    for (double value : values) {
+      add(value);
+    }
+  }
+
+  /**
+   * Adds all values of another instance to this one (Chan et al.'s
+   * parallel algorithm). The other instance is not modified.
+   * @param other
+   */
+  public void merge(RunningStatistics other) {
+    if (other.count==0) {
+      return;
+    } else if (count==0) {
+      count = other.count;
+      mean = other.mean;
+      m2 = other.m2;
+      min = other.min;
+      max = other.max;
+      return;
+    }
+    long n = count + other.count;
+    double delta = other.mean - mean;
+    mean += delta * ((double) other.count / n);
+    m2 += other.m2 + delta * delta * ((double) count / n) * other.count;
+    count = n;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * @return number of added (finite) values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the mean, or {@link Double#NaN} if no values have been
+   * added.
+   */
+  public double getMean() {
+    return (count>0) ? mean : Double.NaN;
+  }
+
+  /**
+   * @return the sample variance (divided by n-1), as
+   * {@link MathUtils#variance(double[])}. 0 if less than two values have
+   * been added.
+   */
+  public double getVariance() {
+    return (count>1) ? m2 / (count - 1) : 0;
+  }
+
+  /**
+   * @return the population variance (divided by n). 0 if no values have
+   * been added.
+   */
+  public double getPopulationVariance() {
+    return (count>0) ? m2 / count : 0;
+  }
+
+  /**
+   * @return the square root of the sample variance.
+   */
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * @return the minimum, or {@link Double#NaN} if no values have been
+   * added.
+   */
+  public double getMin() {
+    return min;
+  }
+
+  /**
+   * @return the maximum, or {@link Double#NaN} if no values have been
+   * added.
+   */
+  public double getMax() {
+    return max;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return String.format("N:%s, Min:%s, Mean:%s, SD:%s, Max:%s",
+      count, min, getMean(), getStandardDeviation(), max);
+  }
+
+}
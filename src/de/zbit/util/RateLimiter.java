@@ -0,0 +1,77 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of certain operations (e.g., requests to a web service)
+ * by spacing them evenly. Every call to {@link #acquire()} reserves the
+ * next free time slot and blocks until this slot is reached. Thus, no
+ * bursts are permitted. This class is thread-safe.
+ *
+ * @version $Rev$
+ * @since 1.0
+ */
+public class RateLimiter {
+
+  /**
+   * Minimum time between two operations.
+   */
+  private final long intervalNanos;
+
+  /**
+   * The next free time slot (as given by {@link System#nanoTime()}).
+   */
+  private long nextSlot;
+
+  /**
+   * @param permitsPerSecond maximum number of operations per second.
+   */
+  public RateLimiter(double permitsPerSecond) {
+    if (permitsPerSecond<=0 || Double.isNaN(permitsPerSecond)) {
+      throw new IllegalArgumentException("Rate must be positive.");
+    }
+    intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    nextSlot = System.nanoTime();
+  }
+
+  /**
+   * @return maximum number of operations per second.
+   */
+  public double getRate() {
+    return TimeUnit.SECONDS.toNanos(1) / (double) intervalNanos;
+  }
+
+  /**
+   * Blocks until the next operation is permitted.
+   * @throws InterruptedException
+   */
+  public void acquire() throws InterruptedException {
+    long wait;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long slot = Math.max(now, nextSlot);
+      nextSlot = slot + intervalNanos;
+      wait = slot - now;
+    }
+    if (wait>0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+}
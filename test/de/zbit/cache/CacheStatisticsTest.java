@@ -0,0 +1,104 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+
+package de.zbit.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import de.zbit.cache.InfoManagementTest.CountingManagement;
+
+/**
+ * @version $Rev$
+ */
+public class CacheStatisticsTest {
+
+  /**
+   * Test method for {@link de.zbit.cache.CacheStatistics#snapshot()}.
+   */
+  @Test
+  public void testCounters() {
+    CountingManagement manager = new CountingManagement();
+    manager.getInformation("a");
+    manager.getInformation("a");
+    manager.getInformation("unknown");
+    manager.getInformation("unknown");
+    manager.getInformations(new String[] {"a", "b", "c", "unknown"});
+
+    CacheStatistics.Snapshot s = manager.getStatistics().snapshot();
+    assertEquals(2, s.getHits());
+    assertEquals(4, s.getMisses());
+    assertEquals(2, s.getNegativeHits());
+    assertEquals(2, s.getFetches());
+    assertEquals(1, s.getBatchFetches());
+    assertEquals(2, s.getBatchedIDs());
+    assertEquals(0, s.getFetchErrors());
+    assertEquals(0.25, s.getHitRatio(), 1E-9);
+    // CountingManagement sleeps 50 ms per fetch
+    assertTrue(s.getMeanFetchLatency()>=45);
+    assertTrue(s.getFetchLatencyPercentile(0.95)>=s.getMeanFetchLatency());
+    assertTrue(s.getFetchLatencyPercentile(0.95)<2*s.getMeanFetchLatency()+1);
+
+    manager.getStatistics().reset();
+    assertEquals(0, manager.getStatistics().getHits());
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.CacheStatistics#getEvictions()}.
+   */
+  @Test
+  public void testEvictions() {
+    CountingManagement manager = new CountingManagement();
+    for (int i=0; i<1100; i++) {
+      manager.addInformation("id" + i, "info");
+    }
+    CacheStatistics stats = manager.getStatistics();
+    assertTrue(stats.getSize()<=1000);
+    assertEquals(1100, stats.getSize() + stats.getEvictions());
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#registerMBean()}.
+   * @throws JMException
+   */
+  @Test
+  public void testMBean() throws JMException {
+    CountingManagement manager = new CountingManagement();
+    ObjectName name = manager.registerMBean();
+    assertNotNull(name);
+    manager.getInformation("a");
+    manager.getInformation("a");
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertEquals(Long.valueOf(1), server.getAttribute(name, "Hits"));
+    assertEquals(Integer.valueOf(1), server.getAttribute(name, "Size"));
+
+    manager.unregisterMBean();
+    assertFalse(server.isRegistered(name));
+  }
+
+}
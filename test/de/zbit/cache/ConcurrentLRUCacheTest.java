@@ -0,0 +1,128 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+
+package de.zbit.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class ConcurrentLRUCacheTest {
+
+  /**
+   * Test method for {@link de.zbit.cache.ConcurrentLRUCache#put(Object, Object)}.
+   */
+  @Test
+  public void testCapacity() {
+    ConcurrentLRUCache<Integer, String> cache = new ConcurrentLRUCache<Integer, String>(1000);
+    for (int i=0; i<5000; i++) {
+      cache.put(i, Integer.toString(i));
+      assertTrue("Cache exceeded its capacity", cache.size()<=1000);
+    }
+    assertEquals(1000, cache.size());
+  }
+
+  /**
+   * Frequently used entries must survive a scan of entries that are used only once.
+   */
+  @Test
+  public void testEvictionOrder() {
+    ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10);
+    cache.put("hot", "A");
+    cache.get("hot");
+    for (int i=0; i<100; i++) {
+      cache.put("cold" + i, "B");
+    }
+    assertEquals("A", cache.peek("hot"));
+    assertFalse(cache.containsKey("cold0"));
+    assertTrue(cache.containsKey("cold99"));
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.ConcurrentLRUCache#remove(Object)}
+   * and {@link de.zbit.cache.ConcurrentLRUCache#evict(int)}.
+   */
+  @Test
+  public void testRemoveAndEvict() {
+    final AtomicInteger evicted = new AtomicInteger();
+    ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<Integer, Integer>(100) {
+      @Override
+      protected void onEviction(Integer key, Integer value) {
+        evicted.incrementAndGet();
+      }
+    };
+    for (int i=0; i<100; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(Integer.valueOf(5), cache.remove(5));
+    assertNull(cache.remove(5));
+    assertEquals(0, evicted.get());
+
+    assertEquals(10, cache.evict(10));
+    assertEquals(89, cache.size());
+    assertEquals(10, evicted.get());
+
+    cache.setCapacity(50);
+    assertEquals(50, cache.size());
+    assertEquals(49, evicted.get());
+
+    cache.put(null, -1);
+    assertEquals(Integer.valueOf(-1), cache.get(null));
+  }
+
+  /**
+   * Hammers the cache from multiple threads.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testConcurrentAccess() throws InterruptedException {
+    final ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<Integer, Integer>(2000);
+    Thread[] threads = new Thread[8];
+    for (int t=0; t<threads.length; t++) {
+      final int offset = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i=0; i<50000; i++) {
+            int key = (i*31 + offset) % 5000;
+            Integer v = cache.get(key);
+            if (v==null) {
+              cache.put(key, key);
+            } else {
+              assertEquals(key, v.intValue());
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue(cache.size()<=2000);
+    assertEquals(cache.size(), cache.toMap().size());
+  }
+
+}
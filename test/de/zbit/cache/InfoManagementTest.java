@@ -0,0 +1,231 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+
+package de.zbit.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.exception.UnsuccessfulRetrieveException;
+
+/**
+ * @version $Rev$
+ */
+public class InfoManagementTest {
+
+  /**
+   * A cache that answers every id with its upper case representation,
+   * slowly, and counts how often each id has been fetched.
+   */
+  static class CountingManagement extends InfoManagement<String, String> {
+    private static final long serialVersionUID = 1L;
+
+    transient ConcurrentHashMap<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+    CountingManagement() {
+      super(1000);
+    }
+
+    private String fetch(String id) {
+      AtomicInteger count = new AtomicInteger();
+      AtomicInteger prev = fetchCounts.putIfAbsent(id, count);
+      (prev!=null ? prev : count).incrementAndGet();
+      return id.startsWith("unknown") ? null : id.toUpperCase();
+    }
+
+    int getFetchCount(String id) {
+      AtomicInteger count = fetchCounts.get(id);
+      return count==null ? 0 : count.get();
+    }
+
+    @Override
+    protected String fetchInformation(String id) throws TimeoutException, UnsuccessfulRetrieveException {
+      sleep();
+      return fetch(id);
+    }
+
+    @Override
+    protected String[] fetchMultipleInformations(String[] ids) throws TimeoutException, UnsuccessfulRetrieveException {
+      sleep();
+      String[] ret = new String[ids.length];
+      for (int i=0; i<ids.length; i++) {
+        ret[i] = fetch(ids[i]);
+      }
+      return ret;
+    }
+
+    private void sleep() {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    protected void restoreUnserializableObject() {
+      fetchCounts = new ConcurrentHashMap<String, AtomicInteger>();
+    }
+
+    @Override
+    protected void cleanupUnserializableObject() {
+    }
+  }
+
+  CountingManagement manager;
+
+  @Before
+  public void setUp() {
+    manager = new CountingManagement();
+  }
+
+  /**
+   * Runs the given job in multiple threads and waits for all of them.
+   */
+  private void runConcurrently(int threads, Runnable job) throws InterruptedException {
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] t = new Thread[threads];
+    for (int i=0; i<t.length; i++) {
+      t[i] = new Thread(job);
+      t[i].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+        @Override
+        public void uncaughtException(Thread thread, Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      });
+      t[i].start();
+    }
+    for (Thread thread : t) {
+      thread.join();
+    }
+    if (failure.get()!=null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#getInformation(Comparable)}.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testConcurrentGetInformation() throws InterruptedException {
+    runConcurrently(10, new Runnable() {
+      @Override
+      public void run() {
+        assertEquals("CPD:C00001", manager.getInformation("cpd:C00001"));
+        assertNull(manager.getInformation("unknown"));
+      }
+    });
+    assertEquals(1, manager.getFetchCount("cpd:C00001"));
+    assertEquals(1, manager.getFetchCount("unknown"));
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#precacheIDs(Comparable[])}
+   * and {@link de.zbit.cache.InfoManagement#getInformations(Comparable[])}.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testOverlappingBatches() throws InterruptedException {
+    final AtomicInteger offset = new AtomicInteger();
+    runConcurrently(8, new Runnable() {
+      @Override
+      public void run() {
+        int start = offset.getAndAdd(5);
+        String[] ids = new String[20];
+        for (int i=0; i<ids.length; i++) {
+          ids[i] = "EC:1.1.1." + (start+i);
+        }
+        if (start%10==0) {
+          manager.precacheIDs(ids);
+        } else {
+          String[] infos = manager.getInformations(ids);
+          for (int i=0; i<ids.length; i++) {
+            assertEquals(ids[i].toUpperCase(), infos[i]);
+          }
+        }
+      }
+    });
+    for (int i=0; i<55; i++) {
+      assertEquals(1, manager.getFetchCount("EC:1.1.1." + i));
+    }
+
+    String[] infos = manager.getInformations(new String[] {"EC:1.1.1.0", null, "unknown1", "new"});
+    assertEquals("EC:1.1.1.0", infos[0]);
+    assertNull(infos[1]);
+    assertNull(infos[2]);
+    assertEquals("NEW", infos[3]);
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#setTimeToLive(long, TimeUnit)}
+   * and {@link de.zbit.cache.InfoManagement#setNegativeTimeToLive(long, TimeUnit)}.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testExpiry() throws InterruptedException {
+    manager.setTimeToLive(200, TimeUnit.MILLISECONDS);
+    manager.setNegativeTimeToLive(200, TimeUnit.MILLISECONDS);
+    manager.setRefreshAheadFactor(0);
+    assertEquals("A", manager.getInformation("a"));
+    assertNull(manager.getInformation("unknown"));
+    assertEquals("B", manager.getInformations(new String[] {"b"})[0]);
+    assertEquals("A", manager.getInformation("a"));
+    assertNull(manager.getInformation("unknown"));
+    assertEquals(1, manager.getFetchCount("a"));
+    assertEquals(1, manager.getFetchCount("unknown"));
+
+    Thread.sleep(300);
+    assertEquals("A", manager.getInformation("a"));
+    assertNull(manager.getInformation("unknown"));
+    assertEquals("B", manager.getInformations(new String[] {"b"})[0]);
+    assertEquals(2, manager.getFetchCount("a"));
+    assertEquals(2, manager.getFetchCount("unknown"));
+    assertEquals(2, manager.getFetchCount("b"));
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#setRefreshAheadFactor(double)}.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testRefreshAhead() throws InterruptedException {
+    manager.setTimeToLive(1, TimeUnit.SECONDS);
+    manager.setRefreshAheadFactor(0.2);
+    assertEquals("A", manager.getInformation("a"));
+    Thread.sleep(300);
+    // Served from the cache, while refreshing in the background
+    long start = System.currentTimeMillis();
+    assertEquals("A", manager.getInformation("a"));
+    assertTrue(System.currentTimeMillis()-start<50);
+    Thread.sleep(200);
+    assertEquals(2, manager.getFetchCount("a"));
+    assertEquals("A", manager.getInformation("a"));
+    assertEquals(2, manager.getFetchCount("a"));
+  }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+
+package de.zbit.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.cache.InfoManagementTest.CountingManagement;
+
+/**
+ * @version $Rev$
+ */
+public class PersistentCacheStoreTest {
+
+  File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("cachestore", ".log");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+    new File(file.getPath() + ".tmp").delete();
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.PersistentCacheStore#put(java.io.Serializable, java.io.Serializable)}
+   * and {@link de.zbit.cache.PersistentCacheStore#get(java.io.Serializable)}.
+   * @throws IOException
+   */
+  @Test
+  public void testReopen() throws IOException {
+    PersistentCacheStore<String, String> store = new PersistentCacheStore<String, String>(file);
+    for (int i=0; i<100; i++) {
+      store.put("cpd:C" + i, "Compound " + i);
+    }
+    store.put("cpd:C1", "Water");
+    store.remove("cpd:C2");
+    store.markUnretrievable("cpd:unknown");
+    store.close();
+
+    store = new PersistentCacheStore<String, String>(file);
+    assertEquals(99, store.size());
+    assertEquals("Water", store.get("cpd:C1"));
+    assertEquals("Compound 50", store.get("cpd:C50"));
+    assertNull(store.get("cpd:C2"));
+    assertTrue(store.isUnretrievable("cpd:unknown"));
+
+    store.clearUnretrievable();
+    store.close();
+    store = new PersistentCacheStore<String, String>(file);
+    assertFalse(store.isUnretrievable("cpd:unknown"));
+    store.close();
+  }
+
+  /**
+   * An incomplete last record (e.g., after a crash) must be discarded.
+   * @throws IOException
+   */
+  @Test
+  public void testTruncatedRecord() throws IOException {
+    PersistentCacheStore<String, String> store = new PersistentCacheStore<String, String>(file);
+    store.put("a", "A");
+    store.put("b", "B");
+    store.close();
+
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength(raf.length()-3);
+    raf.close();
+
+    store = new PersistentCacheStore<String, String>(file);
+    assertEquals(1, store.size());
+    assertEquals("A", store.get("a"));
+    store.put("c", "C");
+    store.close();
+
+    store = new PersistentCacheStore<String, String>(file);
+    assertEquals("C", store.get("c"));
+    store.close();
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.PersistentCacheStore#compact()}.
+   * @throws IOException
+   */
+  @Test
+  public void testCompact() throws IOException {
+    PersistentCacheStore<String, String> store = new PersistentCacheStore<String, String>(file);
+    for (int i=0; i<10; i++) {
+      for (int j=0; j<20; j++) {
+        store.put("id" + j, "value " + i);
+      }
+    }
+    assertTrue(store.getGarbageRatio()>0.8);
+    long length = file.length();
+    store.compact();
+    assertTrue(file.length()<length);
+    assertEquals(0d, store.getGarbageRatio(), 1E-9);
+    assertEquals(20, store.size());
+    assertEquals("value 9", store.get("id7"));
+    store.close();
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.PersistentCacheStore#compact()}
+   * while other threads read values.
+   * @throws Exception
+   */
+  @Test
+  public void testCompactWhileReading() throws Exception {
+    final PersistentCacheStore<String, String> store = new PersistentCacheStore<String, String>(file);
+    for (int j=0; j<50; j++) {
+      store.put("id" + j, "value " + j);
+    }
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    final long stop = System.currentTimeMillis() + 500;
+    Thread[] readers = new Thread[4];
+    for (int t=0; t<readers.length; t++) {
+      readers[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i=0; System.currentTimeMillis()<stop; i++) {
+              String value = store.get("id" + (i%50));
+              if (!("value " + (i%50)).equals(value)) {
+                throw new AssertionError("Read " + value + " for id" + (i%50));
+              }
+            }
+          } catch (Throwable e) {
+            error.compareAndSet(null, e);
+          }
+        }
+      };
+      readers[t].start();
+    }
+    while (System.currentTimeMillis()<stop) {
+      // Overwrite some values to create garbage
+      for (int j=0; j<10; j++) {
+        store.put("id" + j, "value " + j);
+      }
+      store.compact();
+    }
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    store.close();
+    if (error.get()!=null) {
+      throw new AssertionError(error.get());
+    }
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#setPersistentStore(PersistentCacheStore)}.
+   * @throws IOException
+   */
+  @Test
+  public void testInfoManagementTier() throws IOException {
+    // Migrate the content of an existing cache
+    CountingManagement manager = new CountingManagement();
+    manager.getInformations(new String[] {"a", "b", "unknown"});
+    manager.usePersistentStore(file);
+    manager.getInformation("c");
+    assertFalse(manager.isCacheChangedSinceLastLoading());
+    manager.getPersistentStore().close();
+
+    // A new instance must serve everything from disk
+    CountingManagement other = new CountingManagement();
+    other.usePersistentStore(file);
+    assertEquals(0, other.getNumberOfCachedInfos());
+    assertEquals("A", other.getInformation("a"));
+    assertEquals("C", other.getInformations(new String[] {"b", "c"})[1]);
+    assertNull(other.getInformation("unknown"));
+    assertEquals(0, other.getFetchCount("a"));
+    assertEquals(0, other.getFetchCount("c"));
+    assertEquals(0, other.getFetchCount("unknown"));
+    other.getPersistentStore().close();
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#setPersistentStore(PersistentCacheStore)}
+   * with unretrievable ids, that expire.
+   * @throws IOException
+   */
+  @Test
+  public void testUnretrievableTimes() throws IOException {
+    long hourAgo = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+    PersistentCacheStore<String, String> store = new PersistentCacheStore<String, String>(file);
+    store.markUnretrievable("unknown1", hourAgo);
+    store.markUnretrievable("unknown2");
+    store.compact();
+    store.close();
+
+    // The failure times survive reopening and compaction
+    store = new PersistentCacheStore<String, String>(file);
+    assertEquals(hourAgo, store.getUnretrievableTimes().get("unknown1").longValue());
+    CountingManagement manager = new CountingManagement();
+    manager.setNegativeTimeToLive(10, TimeUnit.MINUTES);
+    manager.setPersistentStore(store);
+    assertNull(manager.getInformation("unknown1"));
+    assertNull(manager.getInformation("unknown2"));
+    // Only the old failure has expired and is fetched again
+    assertEquals(1, manager.getFetchCount("unknown1"));
+    assertEquals(0, manager.getFetchCount("unknown2"));
+    store.close();
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class IntIntHashMapTest {
+
+  /**
+   * Random puts and removes (with many collisions and the key 0),
+   * compared to a {@link HashMap}.
+   */
+  @Test
+  public void testRandomOperations() {
+    IntIntHashMap map = new IntIntHashMap(4);
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+    Random r = new Random(42);
+    for (int i=0; i<200000; i++) {
+      int key = r.nextInt(5000) - 100;
+      if (r.nextInt(3)==0) {
+        assertEquals(expected.remove(key)!=null, map.removeInt(key));
+      } else {
+        int value = r.nextInt();
+        assertEquals(!expected.containsKey(key), map.putInt(key, value));
+        expected.put(key, value);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (int key=-100; key<5000; key++) {
+      assertEquals(expected.get(key), map.get(key));
+      assertEquals(expected.containsKey(key), map.containsInt(key));
+    }
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals(expected.hashCode(), map.hashCode());
+  }
+
+  /**
+   * Test method for the {@link Map} view.
+   */
+  @Test
+  public void testMapInterface() {
+    Map<Integer, Integer> map = new IntIntHashMap();
+    assertNull(map.put(0, 1));
+    assertNull(map.put(7, 2));
+    assertEquals(Integer.valueOf(2), map.put(7, 3));
+    assertNull(map.get("7"));
+    assertNull(map.get(8));
+    assertEquals(Integer.valueOf(1), map.get(0));
+    assertTrue(map.containsValue(3));
+    assertEquals(-1, ((IntIntHashMap) map).getInt(8, -1));
+
+    int sum = 0;
+    for (Map.Entry<Integer, Integer> e : map.entrySet()) {
+      e.setValue(e.getValue() * 10);
+      sum += e.getKey();
+    }
+    assertEquals(7, sum);
+    assertEquals(Integer.valueOf(10), map.get(0));
+    assertEquals(Integer.valueOf(30), map.get(7));
+
+    assertEquals(Integer.valueOf(10), map.remove(0));
+    assertFalse(map.containsKey(0));
+    assertEquals(1, map.size());
+    map.clear();
+    assertTrue(map.isEmpty());
+  }
+
+  /**
+   * Test method for serialization.
+   * @throws Exception
+   */
+  @Test
+  public void testSerialization() throws Exception {
+    IntIntHashMap map = new IntIntHashMap();
+    for (int i=0; i<1000; i++) {
+      map.putInt(i*31, i);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(out);
+    oos.writeObject(map);
+    oos.close();
+    Object copy = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject();
+    assertEquals(map, copy);
+  }
+
+}
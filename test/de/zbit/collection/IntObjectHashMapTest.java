@@ -0,0 +1,84 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class IntObjectHashMapTest {
+
+  /**
+   * Random puts and removes, compared to a {@link HashMap}.
+   */
+  @Test
+  public void testRandomOperations() {
+    IntObjectHashMap<String> map = new IntObjectHashMap<String>(4);
+    Map<Integer, String> expected = new HashMap<Integer, String>();
+    Random r = new Random(7);
+    for (int i=0; i<200000; i++) {
+      int key = r.nextInt(5000) - 100;
+      if (r.nextInt(3)==0) {
+        assertEquals(expected.remove(key), map.removeInt(key));
+      } else {
+        String value = Integer.toString(r.nextInt(100));
+        assertEquals(expected.put(key, value), map.putInt(key, value));
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (int key=-100; key<5000; key++) {
+      assertEquals(expected.get(key), map.getInt(key));
+    }
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+  }
+
+  /**
+   * Test method for the {@link Map} view.
+   */
+  @Test
+  public void testMapInterface() {
+    Map<Integer, String> map = new IntObjectHashMap<String>();
+    assertNull(map.put(0, "a"));
+    assertNull(map.put(-5, "b"));
+    assertEquals("b", map.put(-5, "c"));
+    assertNull(map.get(1));
+    assertNull(map.get(null));
+    for (Map.Entry<Integer, String> e : map.entrySet()) {
+      e.setValue(e.getValue() + e.getKey());
+    }
+    assertEquals("a0", map.get(0));
+    assertEquals("c-5", map.get(-5));
+    try {
+      map.put(1, null);
+      fail("Null values are not supported.");
+    } catch (NullPointerException e) {
+      // Expected
+    }
+    assertEquals(2, map.size());
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.io.csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class FirstColumnFilterTest {
+
+  /**
+   * Test method for {@link FirstColumnFilter#accept(String, char)}.
+   */
+  @Test
+  public void testAccept() {
+    FirstColumnFilter filter = new FirstColumnFilter("9606", "10090");
+    assertTrue(filter.accept("9606\t1\tNM_000014.4", '\t'));
+    assertTrue(filter.accept("10090\t11287", '\t'));
+    assertTrue(filter.accept(" \"9606\" \t1", '\t'));
+    assertTrue(filter.accept("9606", '\t'));
+    assertTrue(filter.accept("9606 1 NM_000014.4", '\u0001'));
+    assertFalse(filter.accept("96060\t1", '\t'));
+    assertFalse(filter.accept("960\t1", '\t'));
+    assertFalse(filter.accept("10116\t9606", '\t'));
+    assertFalse(filter.accept("9606,1", '\t'));
+    // Unknown separator
+    assertTrue(filter.accept("10116\t1", '\u0000'));
+  }
+
+  /**
+   * Test method for {@link CSVReader#setLineFilter(LineFilter)}.
+   * @throws Exception
+   */
+  @Test
+  public void testCSVReader() throws Exception {
+    File file = File.createTempFile("gene2refseq", ".txt");
+    file.deleteOnExit();
+    FileWriter w = new FileWriter(file);
+    w.write("#tax_id\tGeneID\tRNA_nucleotide_accession.version\n");
+    for (int i=0; i<100; i++) {
+      w.write((i%10==0 ? "9606" : "10116") + "\t" + i + "\tNM_" + i + "\n");
+    }
+    w.close();
+
+    List<String[]> expected = new ArrayList<String[]>();
+    CSVReader r = new CSVReader(file.getPath());
+    String[] line;
+    while ((line = r.getNextLine())!=null) {
+      if (line[0].equals("9606")) {
+        expected.add(line);
+      }
+    }
+
+    r = new CSVReader(file.getPath());
+    r.setLineFilter(new FirstColumnFilter("9606"));
+    List<String[]> filtered = new ArrayList<String[]>();
+    while ((line = r.getNextLine())!=null) {
+      filtered.add(line);
+    }
+    assertEquals(10, expected.size());
+    assertEquals(expected.size(), filtered.size());
+    for (int i=0; i<expected.size(); i++) {
+      assertArrayEquals(expected.get(i), filtered.get(i));
+    }
+    assertEquals("GeneID", r.getHeader()[1]);
+  }
+
+}
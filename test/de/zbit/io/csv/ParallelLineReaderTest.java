@@ -0,0 +1,77 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.io.csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class ParallelLineReaderTest {
+
+  /**
+   * Test method for {@link ParallelLineReader#getNextLine()}.
+   * @throws Exception
+   */
+  @Test
+  public void testGetNextLine() throws Exception {
+    File file = File.createTempFile("parallel", ".txt");
+    file.deleteOnExit();
+    BufferedWriter w = new BufferedWriter(new FileWriter(file));
+    w.write("#tax_id\tGeneID\tGO_ID\tCategory\n");
+    // Multiple chunks, with empty lines and quoted cells
+    int n = ParallelLineReader.CHUNK_SIZE * 5 + 17;
+    for (int i=0; i<n; i++) {
+      if (i%1000==0) {
+        w.write("\n");
+      }
+      w.write((9606 + i%3) + "\t" + i + "\t\"GO:" + i + "\" \t" + (i%2==0 ? "Process" : "Function") + "\n");
+    }
+    w.close();
+
+    List<String[]> expected = new ArrayList<String[]>();
+    CSVReader r = new CSVReader(file.getPath());
+    String[] line;
+    while ((line = r.getNextLine())!=null) {
+      expected.add(line);
+    }
+    assertEquals(n, expected.size());
+
+    for (int threads : new int[] {1, 4}) {
+      r = new CSVReader(file.getPath());
+      r.open();
+      ParallelLineReader p = new ParallelLineReader(r, threads);
+      for (String[] e : expected) {
+        assertArrayEquals(e, p.getNextLine());
+      }
+      assertNull(p.getNextLine());
+      assertNull(p.getNextLine());
+      p.close();
+    }
+  }
+
+}
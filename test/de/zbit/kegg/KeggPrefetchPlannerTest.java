@@ -0,0 +1,145 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.kegg.api.KeggAdaptor;
+import de.zbit.kegg.api.KeggInfos;
+import de.zbit.kegg.api.KeggStubServer;
+import de.zbit.kegg.api.cache.KeggInfoManagement;
+import de.zbit.util.progressbar.AbstractProgressBar;
+
+/**
+ * @version $Rev$
+ */
+public class KeggPrefetchPlannerTest {
+
+  KeggStubServer server;
+  KeggInfoManagement manager;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new KeggStubServer(50);
+    manager = new KeggInfoManagement(1000, new KeggAdaptor(server.getURL()));
+    manager.setMaxConcurrentFetches(4);
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  /**
+   * Test method for {@link KeggPrefetchPlanner#run()}.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testDependencies() throws InterruptedException {
+    final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+    KeggPrefetchPlanner planner = new KeggPrefetchPlanner(manager, null) {
+      @Override
+      protected void onInformation(String id, KeggInfos info) {
+        received.add(id);
+        if (id.startsWith("rn:")) {
+          // Reactants of the equation and the enzyme
+          for (String reactant : info.getEquation().replace("<=>", "+").split("\\+")) {
+            add(KeggInfos.appendPrefix(KeggTools.removeReactantPrefixAndSuffix(reactant.trim())));
+          }
+          add("EC:" + info.getEnzymes());
+        }
+      }
+    };
+    for (int i=1; i<=20; i++) {
+      planner.add(String.format("rn:R%05d", i));
+      planner.add(String.format("cpd:C%05d", i));
+    }
+    // Duplicates are ignored
+    planner.add("rn:R00001");
+    planner.run();
+
+    // 40 ids, the new reactants (C00021 to C00062) and 20 enzymes
+    assertEquals(40 + 42 + 20, received.size());
+    assertTrue(received.contains("cpd:C00060"));
+    assertTrue(received.contains("cpd:C00062"));
+    assertTrue(received.contains("EC:1.1.1.20"));
+    assertTrue(planner.getNumberOfBatches()>=11);
+
+    // Everything is cached
+    int requests = server.getRequestCount();
+    assertNotNull(manager.getInformation("cpd:C00031"));
+    assertNotNull(manager.getInformation("EC:1.1.1.7"));
+    assertEquals(requests, server.getRequestCount());
+    assertTrue(server.getMaxConcurrentRequests()>1);
+    assertTrue(server.getMaxConcurrentRequests()<=4);
+  }
+
+  /**
+   * Test method for {@link KeggPrefetchPlanner#run()} with a failing batch.
+   * @throws InterruptedException
+   */
+  @Test
+  public void testFailedBatch() throws InterruptedException {
+    manager = new KeggInfoManagement(1000, new KeggAdaptor(server.getURL())) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      public Future<KeggInfos[]> getInformationsAsync(String[] ids) {
+        if (ids[0].equals("cpd:C00001")) {
+          throw new IllegalStateException("Failing batch");
+        }
+        return super.getInformationsAsync(ids);
+      }
+    };
+    manager.setMaxConcurrentFetches(4);
+    AbstractProgressBar progress = new AbstractProgressBar() {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected void finished_impl() {}
+      @Override
+      protected void drawProgressBar(int percent, double miliSecondsRemaining, String additionalText) {}
+    };
+    final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+    KeggPrefetchPlanner planner = new KeggPrefetchPlanner(manager, progress) {
+      @Override
+      protected void onInformation(String id, KeggInfos info) {
+        received.add(id);
+      }
+    };
+    planner.setBatchSize(5);
+    for (int i=1; i<=20; i++) {
+      planner.add(String.format("cpd:C%05d", i));
+    }
+    planner.run();
+
+    // The first batch failed, but its ids still advance the progress bar
+    assertEquals(15, received.size());
+    assertEquals(20, progress.getCallNumber());
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Compares the {@link KeggAdaptor} transport with the former implementation
+ * (status request and content request on separate connections, 1 KB buffer)
+ * against a local {@link KeggStubServer}.
+ *
+ * @version $Rev$
+ */
+public class KeggAdaptorBenchmark {
+
+  /**
+   * The former transport of {@link KeggAdaptor#get(String, String...)}.
+   */
+  private static String getTwoRequests(String address) throws IOException {
+    URL url = new URL(address);
+    int status = ((HttpURLConnection) url.openConnection()).getResponseCode();
+    if (status>=400) {
+      return "";
+    }
+    InputStream in = url.openConnection().getInputStream();
+    ByteArrayOutputStream bs = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read=in.read(buffer))!=-1) {
+      bs.write(buffer, 0, read);
+    }
+    in.close();
+    return bs.toString();
+  }
+
+  /**
+   * @param args optional number of requests (default: 2000).
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    int n = args.length>0 ? Integer.parseInt(args[0]) : 2000;
+    StringBuilder ids = new StringBuilder();
+    for (int i=0; i<10; i++) {
+      ids.append(ids.length()>0 ? "+" : "").append("cpd:C0000").append(i);
+    }
+
+    for (int run=0; run<2; run++) {
+      KeggStubServer server = new KeggStubServer(0);
+      long start = System.nanoTime();
+      for (int i=0; i<n; i++) {
+        getTwoRequests(server.getURL() + "get/" + ids);
+      }
+      report("two requests", n, start, server);
+      server.stop();
+
+      server = new KeggStubServer(0);
+      KeggAdaptor adap = new KeggAdaptor(server.getURL());
+      start = System.nanoTime();
+      for (int i=0; i<n; i++) {
+        adap.get("get", ids.toString());
+      }
+      report("KeggAdaptor", n, start, server);
+      server.stop();
+    }
+  }
+
+  private static void report(String name, int n, long start, KeggStubServer server) {
+    double ms = (System.nanoTime()-start)/1E6;
+    System.out.println(String.format("%-12s %6d calls in %8.1f ms (%6.3f ms/call), %5d requests, %5d connections",
+      name, n, ms, ms/n, server.getRequestCount(), server.getConnectionCount()));
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class KeggAdaptorTest {
+
+  KeggStubServer server;
+  KeggAdaptor adap;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new KeggStubServer(0);
+    adap = new KeggAdaptor(server.getURL());
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  /**
+   * Test method for {@link de.zbit.kegg.api.KeggAdaptor#get(java.lang.String)}.
+   */
+  @Test
+  public void testConnectionReuse() {
+    for (int i=0; i<20; i++) {
+      assertEquals(KeggStubServer.createEntry("cpd:C0000" + i%10), adap.get("cpd:C0000" + i%10));
+      // Errors must not break the connection
+      assertEquals("", adap.get("unknown:C1"));
+    }
+    // One request per call
+    assertEquals(40, server.getRequestCount());
+    assertEquals(20, server.getCompressedResponseCount());
+    assertTrue("Used " + server.getConnectionCount() + " connections", server.getConnectionCount()<=2);
+  }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class KeggFlatFileRecordTest {
+
+  /**
+   * All fields, that are parsed by {@link KeggInfos} (startsWith and
+   * endsWith).
+   */
+  static final String[][] FIELDS = {
+    {"NAME", null}, {"DEFINITION", null}, {"DESCRIPTION", null},
+    {"ORTHOLOGY", null}, {" GO:", "\n"}, {"TAXONOMY", "\n"},
+    {"ENSEMBL:", "\n"}, {"UNIPROT:", "\n"}, {"HGNC:", "\n"},
+    {"OMIM:", "\n"}, {"NCBI-GENEID:", "\n"}, {"\nGENES ", null},
+    {"\nGENE ", null}, {" RN:", "\n"}, {"ALL_REAC", null},
+    {"FORMULA", null}, {"MASS", null}, {"EXACT_MASS", null},
+    {"MOL_WEIGHT", null}, {"PUBCHEM:", "\n"}, {"PDB-CCD:", "\n"},
+    {"CHEBI:", "\n"}, {"3DMET:", "\n"}, {" CAS:", "\n"},
+    {"GLYCOMEDB:", "\n"}, {"LIPIDBANK:", "\n"}, {"DRUGBANK:", "\n"},
+    {"REMARK", null}, {"EQUATION", "\n"}, {"PATHWAY", null},
+    {"ENZYME", "\n"}
+  };
+
+  /**
+   * Records of various KEGG databases, as returned by
+   * {@link de.zbit.kegg.api.cache.KeggInfoManagement} (i.e., trimmed).
+   */
+  static final String[] RECORDS = {
+    "ENTRY       C00031                      Compound\n" +
+    "NAME        D-Glucose;\n" +
+    "            Grape sugar;\n" +
+    "            Dextrose;\n" +
+    "            Glucose\n" +
+    "FORMULA     C6H12O6\n" +
+    "EXACT_MASS  180.0634\n" +
+    "MOL_WEIGHT  180.1559\n" +
+    "REMARK      Same as: D00009\n" +
+    "REACTION    R00010 R00026 R00028 R00221 R00299 R00300 R00303 R00304\n" +
+    "            R00305 R00306 R00801 R00802\n" +
+    "PATHWAY     map00010  Glycolysis / Gluconeogenesis\n" +
+    "            map00500  Starch and sucrose metabolism\n" +
+    "            map01100  Metabolic pathways\n" +
+    "ENZYME      1.1.1.118       1.1.1.119       1.1.1.121       1.1.3.4\n" +
+    "            2.4.1.8         2.7.1.1         2.7.1.2\n" +
+    "DBLINKS     CAS: 50-99-7\n" +
+    "            PubChem: 3333\n" +
+    "            ChEBI: 4167 17634\n" +
+    "            PDB-CCD: GLC\n" +
+    "            3DMET: B00015\n" +
+    "            NIKKAJI: J1.137A\n" +
+    "ATOM        12\n" +
+    "            1   C1y C    23.2650  -16.2135\n" +
+    "            2   C1y C    23.2650  -17.6130\n" +
+    "BOND        12\n" +
+    "            1     1   2 1",
+
+    "ENTRY       3098              CDS       T01001\n" +
+    "NAME        HK1, HK1-ta, HK1-tb, HK1-tc, HKD, HKI, HMSNR, HXK1, hexokinase\n" +
+    "DEFINITION  hexokinase 1 (EC:2.7.1.1)\n" +
+    "ORTHOLOGY   K00844  hexokinase [EC:2.7.1.1]\n" +
+    "ORGANISM    hsa  Homo sapiens (human)\n" +
+    "PATHWAY     hsa00010  Glycolysis / Gluconeogenesis\n" +
+    "            hsa00051  Fructose and mannose metabolism\n" +
+    "            hsa04910  Insulin signaling pathway\n" +
+    "            hsa04930  Type II diabetes mellitus\n" +
+    "DISEASE     H00664  Hereditary motor and sensory neuropathy,\n" +
+    "                    Russe type\n" +
+    "POSITION    10q22.1\n" +
+    "MOTIF       Pfam: Hexokinase_2 Hexokinase_1\n" +
+    "DBLINKS     NCBI-GI: 15991827\n" +
+    "            NCBI-GeneID: 3098\n" +
+    "            OMIM: 142600\n" +
+    "            HGNC: 4922\n" +
+    "            Ensembl: ENSG00000156515\n" +
+    "            Vega: OTTHUMG00000018376\n" +
+    "            Pharos: P19367(Tchem)\n" +
+    "            UniProt: P19367 Q5VTB2\n" +
+    "STRUCTURE   PDB: 1CZA 1DGK 1HKB 1HKC 1QHA 4F9O 4FOE 4FOI 4FPA\n" +
+    "AASEQ       917\n" +
+    "            MIAAQLLAYYFTELKDDQVKKIDKYLYAMRLSDETLIDIMTRFRKEMKNGLSRDFNPTAT\n" +
+    "            VKMLPTFVRSIPDGSEKGDFIALDLGGSSFRILRVQVNHEKNQNVHMESEVYDTPENIVH\n" +
+    "NTSEQ       2754\n" +
+    "            atgatcgccgcgcagctcctggcctattacttcacggagctgaaggatgaccaggtcaaa",
+
+    "ENTRY       hsa00010                    Pathway\n" +
+    "NAME        Glycolysis / Gluconeogenesis - Homo sapiens (human)\n" +
+    "DESCRIPTION Glycolysis is the process of converting glucose into pyruvate\n" +
+    "            and generating small amounts of ATP (energy) and NADH\n" +
+    "            (reducing power).\n" +
+    "CLASS       Metabolism; Carbohydrate metabolism\n" +
+    "PATHWAY_MAP hsa00010  Glycolysis / Gluconeogenesis\n" +
+    "MODULE      hsa_M00001  Glycolysis (Embden-Meyerhof pathway), glucose =>\n" +
+    "            pyruvate [PATH:hsa00010]\n" +
+    "DBLINKS     GO: 0006096 0006094\n" +
+    "ORGANISM    Homo sapiens (human) [GN:hsa]\n" +
+    "GENE        3101  HK3; hexokinase 3 [KO:K00844] [EC:2.7.1.1]\n" +
+    "            3098  HK1; hexokinase 1 [KO:K00844] [EC:2.7.1.1]\n" +
+    "            3099  HK2; hexokinase 2 [KO:K00844] [EC:2.7.1.1]\n" +
+    "COMPOUND    C00022  Pyruvate\n" +
+    "            C00024  Acetyl-CoA\n" +
+    "REFERENCE   PMID:9158137\n" +
+    "  AUTHORS   Nishizuka Y (ed).\n" +
+    "  TITLE     [Cell Functions and Metabolic Maps] (In Japanese)\n" +
+    "  JOURNAL   Tokyo Kagaku Dojin (1997)\n" +
+    "KO_PATHWAY  ko00010",
+
+    "ENTRY       K00844                      KO\n" +
+    "NAME        HK\n" +
+    "DEFINITION  hexokinase [EC:2.7.1.1]\n" +
+    "PATHWAY     ko00010  Glycolysis / Gluconeogenesis\n" +
+    "            ko00051  Fructose and mannose metabolism\n" +
+    "DBLINKS     RN: R00299 R01600 R01786 R01961\n" +
+    "            COG: COG5026\n" +
+    "            GO: 0004396\n" +
+    "GENES       HSA: 3098(HK1) 3099(HK2) 3101(HK3) 80201(HKDC1)\n" +
+    "            PTR: 450505(HK1) 459493(HK3)\n" +
+    "            MMU: 15275(Hk1) 15276(Hk2) 212032(Hk3)\n" +
+    "REFERENCE   PMID:8003966\n" +
+    "  AUTHORS   Printz RL, Koch S, Potter LR, O'Doherty RM\n" +
+    "  TITLE     Hexokinase II mRNA and gene structure.\n" +
+    "  JOURNAL   J Biol Chem 269:4034-42 (1994)",
+
+    "ENTRY       R00299                      Reaction\n" +
+    "NAME        ATP:D-glucose 6-phosphotransferase\n" +
+    "DEFINITION  ATP + D-Glucose <=> ADP + D-Glucose 6-phosphate\n" +
+    "EQUATION    C00002 + C00031 <=> C00008 + C00092\n" +
+    "RCLASS      RC00002  C00002_C00008\n" +
+    "            RC00017  C00031_C00092\n" +
+    "ENZYME      2.7.1.1         2.7.1.2\n" +
+    "PATHWAY     rn00010  Glycolysis / Gluconeogenesis\n" +
+    "            rn00052  Galactose metabolism\n" +
+    "ORTHOLOGY   K00844  hexokinase [EC:2.7.1.1]\n" +
+    "            K00845  glucokinase [EC:2.7.1.2]",
+
+    "ENTRY       2.7.1.1                     Enzyme\n" +
+    "NAME        hexokinase;\n" +
+    "            hexokinase type IV glucokinase;\n" +
+    "            hexokinase D\n" +
+    "CLASS       Transferases;\n" +
+    "            Transferring phosphorus-containing groups;\n" +
+    "SYSNAME     ATP:D-hexose 6-phosphotransferase\n" +
+    "ALL_REAC    R00299 R00760 R00867 R01326 R01600 R01786 R01961 R02848 R03920;\n" +
+    "            (other) R01434\n" +
+    "COMMENT     D-Glucose, D-mannose, D-fructose, sorbitol and D-glucosamine can\n" +
+    "            act as acceptors\n" +
+    "DBLINKS     ExplorEnz - The Enzyme Database: 2.7.1.1\n" +
+    "            IUBMB Enzyme Nomenclature: 2.7.1.1\n" +
+    "            ExPASy - ENZYME nomenclature database: 2.7.1.1",
+
+    "ENTRY       T01001            Complete  Genome\n" +
+    "NAME        hsa, HUMAN, 9606\n" +
+    "DEFINITION  Homo sapiens (human)\n" +
+    "ANNOTATION  manual\n" +
+    "TAXONOMY    TAX:9606\n" +
+    "  LINEAGE   Eukaryota; Metazoa; Chordata; Craniata; Vertebrata;\n" +
+    "            Euteleostomi; Mammalia; Eutheria; Euarchontoglires\n" +
+    "DATA_SOURCE RefSeq (Assembly:GCF_000001405.31)\n" +
+    "ORIGINAL_DB NCBI\n" +
+    "            OMIM\n" +
+    "STATISTICS  Number of protein genes:       20302",
+
+    "ENTRY       D00694                      Drug\n" +
+    "NAME        Acetaminophen (JP17/USP);\n" +
+    "            Paracetamol (INN)\n" +
+    "FORMULA     C8H9NO2\n" +
+    "EXACT_MASS  151.0633\n" +
+    "MOL_WEIGHT  151.1626\n" +
+    "REMARK      Same as: C06804\n" +
+    "            Therapeutic category: 1141\n" +
+    "DBLINKS     CAS: 103-90-2\n" +
+    "            PubChem: 7847313\n" +
+    "            ChEBI: 46195\n" +
+    "            DrugBank: DB00316\n" +
+    "            LigandBox: D00694\n" +
+    "ATOM        11"
+  };
+
+  /**
+   * Test method for {@link KeggFlatFileRecord#extractInfo(String, String)}.
+   * Compares all fields with {@link KeggAdaptor#extractInfo(String, String, String)}.
+   */
+  @Test
+  public void testExtractInfo() {
+    for (String text : RECORDS) {
+      KeggFlatFileRecord record = new KeggFlatFileRecord(text);
+      String uText = text.toUpperCase();
+      for (String[] field : FIELDS) {
+        assertEquals(field[0] + " in\n" + text,
+          KeggAdaptor.extractInfoCaseSensitive(text, uText, field[0], field[1]),
+          record.extractInfo(field[0], field[1]));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link KeggFlatFileRecord#extractInfo(String, String)}.
+   */
+  @Test
+  public void testBlocks() {
+    KeggFlatFileRecord record = new KeggFlatFileRecord(RECORDS[0]);
+    assertEquals(27, record.getLineCount());
+    assertEquals("D-Glucose;\nGrape sugar;\nDextrose;\nGlucose", record.extractInfo("NAME", null));
+    assertEquals("4167 17634", record.extractInfo("chebi:", "\n"));
+    // Last line of a trimmed record
+    assertEquals("", new KeggFlatFileRecord(RECORDS[7]).extractInfo("ATOM", "\n"));
+    assertNull(record.extractInfo("DRUGBANK:", "\n"));
+
+    // A prefix of the keyword "PATHWAY_MAP" (as KeggAdaptor does)
+    record = new KeggFlatFileRecord(RECORDS[2]);
+    assertEquals("hsa00010  Glycolysis / Gluconeogenesis", record.extractInfo("PATHWAY", null));
+    assertNull(record.extractInfo("\nGENES ", null));
+    // Words within a line are no sub-entries
+    assertNull(record.extractInfo("Gluconeogenesis", null));
+    assertEquals("Nishizuka Y (ed).\nTITLE     [Cell Functions and Metabolic Maps] (In Japanese)\n" +
+        "JOURNAL   Tokyo Kagaku Dojin (1997)", record.extractInfo("AUTHORS", null));
+  }
+
+  /**
+   * Test method for {@link KeggInfos#KeggInfos(String, String)}.
+   */
+  @Test
+  public void testKeggInfos() {
+    KeggInfos infos = new KeggInfos("cpd:C00031", RECORDS[0]);
+    assertEquals("Glucose", infos.getName());
+    assertEquals("C6H12O6", infos.getFormula());
+    assertEquals("180.0634", infos.getMass());
+    assertEquals("50-99-7", infos.getCas());
+    assertEquals("D00009", infos.getSameAs());
+    assertEquals("map00010,map00500,map01100", infos.getPathways());
+    assertEquals("Glycolysis / Gluconeogenesis,Starch and sucrose metabolism,Metabolic pathways",
+      infos.getPathwayDescriptions());
+
+    infos = new KeggInfos("hsa:3098", RECORDS[1]);
+    assertEquals("3098", infos.getEntrez_id());
+    assertEquals("P19367 Q5VTB2", infos.getUniprot_id());
+    assertEquals("ENSG00000156515", infos.getEnsembl_id());
+
+    infos = new KeggInfos("path:hsa00010", RECORDS[2]);
+    assertEquals("0006096 0006094", infos.getGo_id());
+    assertArrayEquals(new String[] {
+      "3101  HK3; hexokinase 3 [KO:K00844] [EC:2.7.1.1]",
+      "3098  HK1; hexokinase 1 [KO:K00844] [EC:2.7.1.1]",
+      "3099  HK2; hexokinase 2 [KO:K00844] [EC:2.7.1.1]"}, infos.getGeneEntry());
+
+    infos = new KeggInfos("ec:2.7.1.1", RECORDS[5]);
+    assertEquals("R00299 R00760 R00867 R01326 R01600 R01786 R01961 R02848 R03920 R01434",
+      infos.getReaction_id());
+  }
+
+}
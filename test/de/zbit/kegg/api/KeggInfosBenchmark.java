@@ -0,0 +1,122 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api;
+
+/**
+ * Compares the field extraction of {@link KeggInfos} with the former
+ * implementation (one {@link KeggAdaptor#extractInfo(String, String, String)}
+ * scan of the upper-cased record per field) on the records of
+ * {@link KeggFlatFileRecordTest} and on a large KO record.
+ *
+ * @version $Rev$
+ */
+public class KeggInfosBenchmark {
+
+  /**
+   * @param genes number of GENES lines.
+   * @return a KO record with the given number of organisms.
+   */
+  private static String createLargeRecord(int genes) {
+    StringBuilder sb = new StringBuilder(KeggFlatFileRecordTest.RECORDS[3]);
+    int pos = sb.indexOf("REFERENCE");
+    StringBuilder lines = new StringBuilder();
+    for (int i=0; i<genes; i++) {
+      lines.append(String.format("            O%02d: %d(HK1) %d(HK2) %d(HK3)\n", i % 100, i, i+1, i+2));
+    }
+    sb.insert(pos, lines);
+    return sb.toString();
+  }
+
+  /**
+   * The former implementation.
+   * @return the number of non-null fields.
+   */
+  private static int extractOld(String record) {
+    String uRecord = record.toUpperCase();
+    int found = 0;
+    for (String[] field : KeggFlatFileRecordTest.FIELDS) {
+      if (KeggAdaptor.extractInfoCaseSensitive(record, uRecord, field[0], field[1])!=null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * The current implementation.
+   * @return the number of non-null fields.
+   */
+  private static int extractNew(String record) {
+    KeggFlatFileRecord tokenized = new KeggFlatFileRecord(record);
+    int found = 0;
+    for (String[] field : KeggFlatFileRecordTest.FIELDS) {
+      if (tokenized.extractInfo(field[0], field[1])!=null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @param records
+   * @param rounds
+   * @param useNew
+   * @return elapsed nanoseconds.
+   */
+  private static long run(String[] records, int rounds, boolean useNew) {
+    long start = System.nanoTime();
+    int found = 0;
+    for (int r=0; r<rounds; r++) {
+      for (String record : records) {
+        found += useNew ? extractNew(record) : extractOld(record);
+      }
+    }
+    long time = System.nanoTime() - start;
+    if (found<0) {
+      System.out.println(found);
+    }
+    return time;
+  }
+
+  /**
+   * @param args optional number of rounds (default: 20000).
+   */
+  public static void main(String[] args) {
+    int rounds = args.length>0 ? Integer.parseInt(args[0]) : 20000;
+    String[][] sets = {
+      KeggFlatFileRecordTest.RECORDS,
+      new String[] {createLargeRecord(5000)}
+    };
+    String[] names = {"Typical records", "KO record with 5000 GENES lines"};
+
+    for (int s=0; s<sets.length; s++) {
+      int n = s==0 ? rounds : Math.max(1, rounds/500);
+      // Warm up
+      run(sets[s], n, false);
+      run(sets[s], n, true);
+
+      long oldTime = run(sets[s], n, false);
+      long newTime = run(sets[s], n, true);
+      int count = n * sets[s].length;
+      System.out.println(names[s] + ":");
+      System.out.println(String.format("  extractInfo per field:  %8.2f us/record", oldTime / 1E3 / count));
+      System.out.println(String.format("  KeggFlatFileRecord:     %8.2f us/record", newTime / 1E3 / count));
+      System.out.println(String.format("  Speedup:                %8.2f", oldTime / (double) newTime));
+    }
+  }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the KEGG REST API. Answers {@code get} operations
+ * with a small flat-file entry for every requested id (except for ids that
+ * start with "unknown"), after a configurable delay. Responses are gzip
+ * compressed, if the client accepts it.
+ *
+ * @version $Rev$
+ */
+public class KeggStubServer {
+
+  static {
+    // Otherwise, Nagle's algorithm delays every response on a reused connection.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final HttpServer server;
+  private final long delay;
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private final AtomicInteger compressed = new AtomicInteger();
+  private volatile boolean failing = false;
+  private final Set<String> connections = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * Starts the server on a free local port.
+   * @param delay time in milliseconds to wait before answering a request.
+   * @throws IOException
+   */
+  public KeggStubServer(long delay) throws IOException {
+    this.delay = delay;
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        answer(exchange);
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  /**
+   * @param id a KEGG id, e.g. "cpd:C00001".
+   * @return the flat-file entry, returned by this server for the given id.
+   * Reactions ("rn:R00001") have an equation and an enzyme.
+   */
+  public static String createEntry(String id) {
+    String entry = id.substring(id.indexOf(':')+1).toUpperCase();
+    if (id.startsWith("rn:")) {
+      // Reactants and enzyme are derived from the reaction number
+      int number = Integer.parseInt(entry.substring(1));
+      return "ENTRY       " + entry + "                      Reaction\n" +
+          "NAME        Reaction " + entry + "\n" +
+          String.format("EQUATION    C%05d + 2 C%05d <=> C%05d\n", number*3, number*3+1, number*3+2) +
+          "ENZYME      1.1.1." + number + "\n" +
+          "PATHWAY     rn00010  Glycolysis / Gluconeogenesis\n" +
+          "///\n";
+    }
+    return "ENTRY       " + entry + "                      Compound\n" +
+        "NAME        Compound " + entry + ";\n" +
+        "            Alternative name of " + entry + "\n" +
+        "FORMULA     H2O\n" +
+        "PATHWAY     map00010  Glycolysis / Gluconeogenesis\n" +
+        "DBLINKS     CAS: 7732-18-5\n" +
+        "            PubChem: 3303\n" +
+        "///\n";
+  }
+
+  private void answer(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    connections.add(exchange.getRemoteAddress().toString());
+    int now = running.incrementAndGet();
+    int max;
+    while ((max = maxRunning.get())<now && !maxRunning.compareAndSet(max, now));
+    try {
+      Thread.sleep(delay);
+      if (failing) {
+        // Close the connection without an answer
+        return;
+      }
+      StringBuilder body = new StringBuilder();
+      String path = exchange.getRequestURI().getPath();
+      if (path.startsWith("/get/")) {
+        for (String id : path.substring(5).split("\\+")) {
+          if (!id.startsWith("unknown")) {
+            body.append(createEntry(id));
+          }
+        }
+      }
+      byte[] bytes = body.toString().getBytes("UTF-8");
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+      if (bytes.length==0) {
+        // Not -1, the JDK server does not reuse connections after empty responses.
+        byte[] notFound = "Not found\n".getBytes("UTF-8");
+        exchange.sendResponseHeaders(404, notFound.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(notFound);
+        out.close();
+      } else {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (accept!=null && accept.contains("gzip")) {
+          compressed.incrementAndGet();
+          exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+          exchange.sendResponseHeaders(200, 0);
+          OutputStream out = new GZIPOutputStream(exchange.getResponseBody());
+          out.write(bytes);
+          out.close();
+        } else {
+          exchange.sendResponseHeaders(200, bytes.length);
+          OutputStream out = exchange.getResponseBody();
+          out.write(bytes);
+          out.close();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      running.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  /**
+   * @return the URL prefix to use for a {@link KeggAdaptor}.
+   */
+  public String getURL() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * @param failing if true, all requests are answered by closing the
+   * connection, as by a broken network.
+   */
+  public void setFailing(boolean failing) {
+    this.failing = failing;
+  }
+
+  /**
+   * @return number of answered requests.
+   */
+  public int getRequestCount() {
+    return requests.get();
+  }
+
+  /**
+   * @return number of gzip compressed responses.
+   */
+  public int getCompressedResponseCount() {
+    return compressed.get();
+  }
+
+  /**
+   * @return number of distinct TCP connections, that have been used
+   * by the clients.
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * @return maximum number of simultaneously processed requests.
+   */
+  public int getMaxConcurrentRequests() {
+    return maxRunning.get();
+  }
+
+  /**
+   * Stops the server.
+   */
+  public void stop() {
+    server.stop(0);
+  }
+
+}
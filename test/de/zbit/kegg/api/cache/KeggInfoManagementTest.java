@@ -0,0 +1,168 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.kegg.api.KeggAdaptor;
+import de.zbit.kegg.api.KeggInfos;
+import de.zbit.kegg.api.KeggStubServer;
+
+/**
+ * @version $Rev$
+ */
+public class KeggInfoManagementTest {
+
+  KeggStubServer server;
+  KeggInfoManagement manager;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new KeggStubServer(100);
+    manager = new KeggInfoManagement(1000, new KeggAdaptor(server.getURL()));
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  private static String[] createIDs(int n) {
+    String[] ids = new String[n];
+    for (int i=0; i<n; i++) {
+      ids[i] = String.format("cpd:C%05d", i+1);
+    }
+    return ids;
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#getInformationsAsync(Comparable[])}.
+   * @throws ExecutionException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testGetInformationsAsync() throws InterruptedException, ExecutionException {
+    manager.setMaxConcurrentFetches(3);
+    String[] ids = createIDs(60);
+    ids[17] = "unknown:C1";
+
+    long start = System.currentTimeMillis();
+    KeggInfos[] infos = manager.getInformationsAsync(ids).get();
+    long time = System.currentTimeMillis()-start;
+
+    assertEquals(ids.length, infos.length);
+    for (int i=0; i<ids.length; i++) {
+      if (i==17) {
+        assertNull(infos[i]);
+      } else {
+        assertEquals(ids[i], infos[i].getKegg_ID());
+        assertEquals("Compound C" + String.format("%05d", i+1), infos[i].getNames().split(";")[0]);
+      }
+    }
+    // 6 batches with 3 in parallel take 2 round trips (instead of 6)
+    assertEquals(6, server.getRequestCount());
+    assertEquals(3, server.getMaxConcurrentRequests());
+    assertTrue("Took " + time + " ms", time<900);
+
+    // Everything is cached now
+    int requests = server.getRequestCount();
+    assertEquals(ids[5], manager.getInformation(ids[5]).getKegg_ID());
+    assertEquals(requests, server.getRequestCount());
+  }
+
+  /**
+   * Test method for {@link de.zbit.cache.InfoManagement#setMaxFetchRate(double)}.
+   * @throws ExecutionException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testRateLimit() throws InterruptedException, ExecutionException {
+    manager.setMaxConcurrentFetches(10);
+    manager.setMaxFetchRate(5);
+    long start = System.currentTimeMillis();
+    manager.getInformationsAsync(createIDs(40)).get();
+    long time = System.currentTimeMillis()-start;
+    // 4 batches at 5 per second
+    assertEquals(4, server.getRequestCount());
+    assertTrue("Took " + time + " ms", time>=600);
+  }
+
+  /**
+   * Test method for {@link KeggInfoManagement#setSnapshotStore(KeggSnapshotStore)}.
+   * @throws IOException
+   */
+  @Test
+  public void testSnapshotStore() throws IOException {
+    File file = File.createTempFile("kegg", ".snapshot");
+    KeggSnapshotImporter importer = new KeggSnapshotImporter(file);
+    String[] ids = createIDs(30);
+    for (int i=0; i<20; i++) {
+      importer.addRecord(KeggStubServer.createEntry(ids[i]).replace("///", "").trim(), null);
+    }
+    importer.close();
+    KeggSnapshotStore snapshot = new KeggSnapshotStore(file);
+    manager.setSnapshotStore(snapshot);
+    try {
+      // Offline: only the snapshot is used
+      KeggInfoManagement.offlineMode = true;
+      assertEquals("Compound C00003", manager.getInformation(ids[2]).getNames().split(";")[0]);
+      assertNull(manager.getInformation(ids[25]));
+      KeggInfos[] infos = manager.getInformations(new String[] {ids[4], ids[26], ids[5]});
+      assertEquals(ids[4], infos[0].getKegg_ID());
+      assertNull(infos[1]);
+      assertEquals(ids[5], infos[2].getKegg_ID());
+      assertEquals(0, server.getRequestCount());
+
+      // Online: only missing ids are queried
+      KeggInfoManagement.offlineMode = false;
+      infos = manager.getInformations(new String[] {ids[10], ids[27], ids[11], ids[28]});
+      assertEquals(ids[10], infos[0].getKegg_ID());
+      assertEquals(ids[27], infos[1].getKegg_ID());
+      assertEquals(ids[11], infos[2].getKegg_ID());
+      assertEquals(ids[28], infos[3].getKegg_ID());
+      assertEquals(1, server.getRequestCount());
+
+      // Failed queries of missing ids do not affect ids in the snapshot
+      server.setFailing(true);
+      infos = manager.getInformations(new String[] {ids[12], ids[29], ids[13]});
+      assertEquals(ids[12], infos[0].getKegg_ID());
+      assertNull(infos[1]);
+      assertEquals(ids[13], infos[2].getKegg_ID());
+      assertTrue(server.getRequestCount()>1);
+      assertEquals(ids[12], manager.getInformation(ids[12]).getKegg_ID());
+
+      // The missing id has not been marked as unretrievable
+      server.setFailing(false);
+      assertEquals(ids[29], manager.getInformation(ids[29]).getKegg_ID());
+    } finally {
+      KeggInfoManagement.offlineMode = false;
+      snapshot.close();
+      file.delete();
+    }
+  }
+
+}
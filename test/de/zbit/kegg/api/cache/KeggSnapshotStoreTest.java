@@ -0,0 +1,143 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.kegg.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class KeggSnapshotStoreTest {
+
+  private static final String COMPOUND =
+      "ENTRY       C00031                      Compound\n" +
+      "NAME        D-Glucose;\n" +
+      "            Glucose\n" +
+      "FORMULA     C6H12O6\n" +
+      "///\n";
+
+  private static final String ENZYME =
+      "ENTRY       EC 2.7.1.1                  Enzyme\n" +
+      "NAME        hexokinase\n" +
+      "///\n";
+
+  private static final String PATHWAY =
+      "ENTRY       hsa00010                    Pathway\n" +
+      "NAME        Glycolysis / Gluconeogenesis - Homo sapiens (human)\n" +
+      "///\n";
+
+  private static final String GENOME =
+      "ENTRY       T01001            Complete  Genome\n" +
+      "NAME        hsa, HUMAN, 9606\n" +
+      "///\n";
+
+  private static final String GENE =
+      "ENTRY       3098              CDS       T01001\n" +
+      "NAME        HK1, HK1-ta, HXK1\n" +
+      "ORGANISM    hsa  Homo sapiens (human)\n" +
+      "///\n";
+
+  private File dump, gzDump, file;
+
+  @Before
+  public void setUp() throws IOException {
+    dump = File.createTempFile("kegg", ".txt");
+    gzDump = File.createTempFile("kegg", ".txt.gz");
+    file = File.createTempFile("kegg", ".snapshot");
+    write(new OutputStreamWriter(new FileOutputStream(dump), "UTF-8"),
+      COMPOUND + ENZYME + PATHWAY + GENOME);
+    // The last record is not terminated
+    write(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(gzDump)), "UTF-8"),
+      GENE + COMPOUND.replace("C6H12O6\n///\n", "C6H12O6\nREMARK      Dextrose\n"));
+  }
+
+  private static void write(Writer out, String content) throws IOException {
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    dump.delete();
+    gzDump.delete();
+    file.delete();
+  }
+
+  /**
+   * Test method for {@link KeggSnapshotImporter#importFile(File)} and
+   * {@link KeggSnapshotStore#get(String)}.
+   * @throws IOException
+   */
+  @Test
+  public void testImportAndGet() throws IOException {
+    KeggSnapshotImporter importer = new KeggSnapshotImporter(file);
+    assertEquals(4, importer.importFile(dump));
+    assertEquals(2, importer.importFile(gzDump));
+    importer.close();
+
+    KeggSnapshotStore store = new KeggSnapshotStore(file);
+    try {
+      // cpd:, ec:, path:, gn: (2x), hsa: and aliases of cpd and ec
+      assertEquals(8, store.size());
+      assertEquals(GENE.replace("///\n", "").trim(), store.get("hsa:3098"));
+      assertTrue(store.get("path:hsa00010").startsWith("ENTRY       hsa00010"));
+      assertNull(store.get("hsa00010"));
+      assertTrue(store.get("ec:2.7.1.1").contains("hexokinase"));
+      assertTrue(store.contains("gn:T01001"));
+      assertTrue(store.contains("GN:HSA"));
+
+      // The compound of the second dump replaces the first one
+      String compound = store.get("cpd:C00031");
+      assertTrue(compound.endsWith("Dextrose"));
+      assertEquals(compound, store.get("compound:c00031"));
+      assertEquals(compound, store.get("C00031"));
+
+      assertNull(store.get("cpd:C00032"));
+      assertFalse(store.contains("hsa:3099"));
+      assertFalse(store.contains(""));
+    } finally {
+      store.close();
+    }
+  }
+
+  /**
+   * Test method for {@link KeggSnapshotStore#KeggSnapshotStore(File)}.
+   * @throws IOException
+   */
+  @Test(expected=IOException.class)
+  public void testInvalidFile() throws IOException {
+    new KeggSnapshotStore(dump);
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.zbit.io.csv.CSVReader;
+
+/**
+ * @version $Rev$
+ */
+public class BloomFilterTest {
+
+  /**
+   * Number of parsed lines.
+   */
+  static int parsedLines = 0;
+
+  /**
+   * Maps the first column of the given file to the second one and uses a
+   * key filter.
+   */
+  static class FilteredMapper extends AbstractMapper<Integer, Integer> {
+    private static final long serialVersionUID = 1L;
+    private final File file;
+    public FilteredMapper(File file) throws IOException {
+      super(Integer.class, Integer.class);
+      this.file = file;
+    }
+    @Override
+    protected boolean useKeyFilter() {
+      return true;
+    }
+    @Override
+    public String getRemoteURL() {
+      return null;
+    }
+    @Override
+    public String getLocalFile() {
+      return file.getPath();
+    }
+    @Override
+    public String getMappingName() {
+      return "Test";
+    }
+    @Override
+    public int getSourceColumn(CSVReader r) {
+      return 0;
+    }
+    @Override
+    public int getTargetColumn(CSVReader r) {
+      return 1;
+    }
+    @Override
+    protected boolean skipLine(String[] line) {
+      parsedLines++;
+      return false;
+    }
+  }
+
+  /**
+   * Test method for {@link BloomFilter#mightContain(Object)}.
+   * @throws IOException
+   */
+  @Test
+  public void testMightContain() throws IOException {
+    int n = 100000;
+    List<Object> keys = new ArrayList<Object>(n);
+    for (int i=0; i<n; i++) {
+      keys.add(i%2==0 ? Integer.valueOf(i*7) : (Object) ("ENSG" + i));
+    }
+    BloomFilter filter = new BloomFilter(keys);
+    for (Object key : keys) {
+      assertTrue(filter.mightContain(key));
+    }
+    int falsePositives = 0;
+    for (int i=0; i<n; i++) {
+      if (filter.mightContain(i%2==0 ? Integer.valueOf(i*7+1) : (Object) ("ENST" + i))) {
+        falsePositives++;
+      }
+    }
+    assertTrue("False positive rate " + falsePositives/(double) n, falsePositives<0.02*n);
+
+    // Persisted filter
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    filter.write(new DataOutputStream(bytes));
+    BloomFilter copy = BloomFilter.read(ByteBuffer.wrap(bytes.toByteArray()));
+    assertEquals(filter.getSizeInBytes(), copy.getSizeInBytes());
+    for (int i=0; i<n; i++) {
+      assertEquals(filter.mightContain(i), copy.mightContain(i));
+      assertTrue(copy.mightContain(keys.get(i)));
+    }
+  }
+
+  /**
+   * Test method for the key filter of {@link AbstractMapper#map(Object)}.
+   * @throws Exception
+   */
+  @Test
+  public void testKeyFilter() throws Exception {
+    File dir = File.createTempFile("filter", "");
+    dir.delete();
+    dir.mkdir();
+    File file = new File(dir, "mapping.txt");
+    try {
+      FileWriter w = new FileWriter(file);
+      w.write("#snp\tgene\n");
+      for (int i=0; i<1000; i++) {
+        w.write((i*10) + "\t" + i + "\n");
+      }
+      w.close();
+      parsedLines = 0;
+
+      FilteredMapper mapper = new FilteredMapper(file);
+      assertEquals(Integer.valueOf(5), mapper.map(50));
+      assertNull(mapper.map(51));
+      assertEquals(1000, parsedLines);
+      assertTrue(new File(dir, "mapping.txt.FilteredMapper.snapshot.filter").exists());
+
+      // Misses are rejected without reading the mapping
+      FilteredMapper copy = new FilteredMapper(file);
+      assertNull(copy.map(3));
+      assertFalse(copy.isInizialized);
+      assertEquals(Integer.valueOf(7), copy.map(70));
+      assertTrue(copy.isInizialized);
+      assertNull(copy.map(71));
+      assertEquals(mapper.getMapping(), copy.getMapping());
+      int rejected = 0;
+      for (int i=0; i<100; i++) {
+        FilteredMapper lazy = new FilteredMapper(file);
+        assertNull(lazy.map(i*10+3));
+        if (!lazy.isInizialized) {
+          rejected++;
+        }
+      }
+      assertTrue(rejected>90);
+      // The snapshot has been read instead
+      assertEquals(1000, parsedLines);
+    } finally {
+      for (File f : dir.listFiles()) {
+        f.delete();
+      }
+      dir.delete();
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.io.csv.CSVReader;
+
+/**
+ * @version $Rev$
+ */
+public class ComposedMapperTest {
+
+  File dir;
+
+  /**
+   * Maps the first column of a file in {@link #dir} to the second one.
+   */
+  class FileMapper<S, T> extends AbstractMapper<S, T> {
+    private static final long serialVersionUID = 1L;
+    private final String name;
+    public FileMapper(String name, Class<S> sourceType, Class<T> targetType) throws IOException {
+      super(sourceType, targetType);
+      this.name = name;
+      init();
+    }
+    @Override
+    public String getRemoteURL() {
+      return null;
+    }
+    @Override
+    public String getLocalFile() {
+      return new File(dir, name + ".txt").getPath();
+    }
+    @Override
+    public String getMappingName() {
+      return name;
+    }
+    @Override
+    public int getSourceColumn(CSVReader r) {
+      return 0;
+    }
+    @Override
+    public int getTargetColumn(CSVReader r) {
+      return 1;
+    }
+    @Override
+    protected S postProcessSourceID(S source) {
+      // Probe ids are case-insensitive
+      return (source instanceof String) ? getSourceType().cast(source.toString().toUpperCase()) : source;
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("composed", "");
+    dir.delete();
+    dir.mkdir();
+    FileWriter w = new FileWriter(new File(dir, "probe2gene.txt"));
+    w.write("#probe\tgene\n");
+    for (int i=0; i<100; i++) {
+      w.write("PROBE" + i + "\t" + (i%40) + "\n");
+    }
+    w.close();
+    w = new FileWriter(new File(dir, "gene2kegg.txt"));
+    w.write("#gene\tkegg\n");
+    for (int i=0; i<30; i++) {
+      w.write(i + "\thsa:" + i + "\n");
+    }
+    w.close();
+  }
+
+  @After
+  public void tearDown() {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+  }
+
+  /**
+   * Test method for {@link ComposedMapper#map(Object)}.
+   * @throws Exception
+   */
+  @Test
+  public void testMap() throws Exception {
+    FileMapper<String, Integer> probe2gene = new FileMapper<String, Integer>("probe2gene", String.class, Integer.class);
+    FileMapper<Integer, String> gene2kegg = new FileMapper<Integer, String>("gene2kegg", Integer.class, String.class);
+    ComposedMapper<String, Integer, String> probe2kegg = new ComposedMapper<String, Integer, String>(probe2gene, gene2kegg);
+
+    // Genes 30-39 are not in gene2kegg
+    assertEquals(80, probe2kegg.size());
+    List<String> probes = new ArrayList<String>();
+    for (int i=0; i<110; i++) {
+      probes.add((i%2==0 ? "probe" : "PROBE") + i);
+    }
+    List<String> expected = new ArrayList<String>();
+    for (String probe : probes) {
+      Integer gene = probe2gene.map(probe);
+      expected.add(gene==null ? null : gene2kegg.map(gene));
+      assertEquals(expected.get(expected.size()-1), probe2kegg.map(probe));
+    }
+    assertEquals(expected, probe2kegg.mapAll(probes));
+    assertEquals(expected, probe2kegg.mapAll(probes.toArray(new String[0])));
+    assertEquals("hsa:12", probe2kegg.map("probe52"));
+    assertNull(probe2kegg.map("probe35"));
+
+    // Aligned batch mapping
+    assertEquals(Arrays.asList(3, null, 3), probe2gene.mapAll(Arrays.asList("probe3", "probe200", "PROBE43")));
+  }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.zbit.io.csv.CSVReader;
+
+/**
+ * @version $Rev$
+ */
+public class MapperRegistryTest {
+
+  /**
+   * A mapper with {@code size} entries, that is not read from a file.
+   */
+  static class GeneratedMapper extends AbstractMapper<Integer, Integer> {
+    private static final long serialVersionUID = 1L;
+    public GeneratedMapper(int size) throws IOException {
+      super(Integer.class, Integer.class);
+      isInizialized = true;
+      for (int i=0; i<size; i++) {
+        getMapping().put(i, i+1);
+      }
+    }
+    @Override
+    public String getRemoteURL() {
+      return null;
+    }
+    @Override
+    public String getLocalFile() {
+      return null;
+    }
+    @Override
+    public String getMappingName() {
+      return "Generated";
+    }
+    @Override
+    public int getSourceColumn(CSVReader r) {
+      return 0;
+    }
+    @Override
+    public int getTargetColumn(CSVReader r) {
+      return 1;
+    }
+  }
+
+  /**
+   * Creates a {@link GeneratedMapper} and counts the calls.
+   */
+  static class Loader implements Callable<GeneratedMapper> {
+    final AtomicInteger calls = new AtomicInteger();
+    final int size;
+    Loader(int size) {
+      super();
+      this.size = size;
+    }
+    @Override
+    public GeneratedMapper call() throws Exception {
+      calls.incrementAndGet();
+      Thread.sleep(50);
+      return new GeneratedMapper(size);
+    }
+  }
+
+  /**
+   * Test method for {@link MapperRegistry#acquire(Object, Callable)}.
+   * @throws Exception
+   */
+  @Test
+  public void testAcquire() throws Exception {
+    final MapperRegistry registry = new MapperRegistry();
+    final Loader loader = new Loader(1000);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<GeneratedMapper>> results = new ArrayList<Future<GeneratedMapper>>();
+    for (int i=0; i<16; i++) {
+      results.add(pool.submit(new Callable<GeneratedMapper>() {
+        @Override
+        public GeneratedMapper call() throws Exception {
+          return registry.acquire("key", loader);
+        }
+      }));
+    }
+    GeneratedMapper mapper = results.get(0).get();
+    for (Future<GeneratedMapper> result : results) {
+      assertSame(mapper, result.get());
+    }
+    pool.shutdown();
+    assertEquals(1, loader.calls.get());
+    assertEquals(1, registry.size());
+    assertEquals(Integer.valueOf(6), mapper.map(5));
+    assertTrue(registry.getEstimatedMemory()>=8000);
+
+    // Released mappers are kept within the budget
+    for (int i=0; i<16; i++) {
+      registry.release(mapper);
+    }
+    assertTrue(registry.contains("key"));
+    assertSame(mapper, registry.acquire("key", loader));
+    assertEquals(1, loader.calls.get());
+    registry.release(mapper);
+  }
+
+  /**
+   * Test method for the memory budget of {@link MapperRegistry}.
+   * @throws Exception
+   */
+  @Test
+  public void testEviction() throws Exception {
+    MapperRegistry registry = new MapperRegistry();
+    long size = MapperRegistry.estimateMemory(new GeneratedMapper(10000));
+    registry.setMemoryBudget(size * 2);
+
+    GeneratedMapper a = registry.acquire("a", new Loader(10000));
+    GeneratedMapper b = registry.acquire("b", new Loader(10000));
+    GeneratedMapper c = registry.acquire("c", new Loader(10000));
+    // All mappers are in use
+    assertEquals(3, registry.size());
+    assertEquals(3 * size, registry.getEstimatedMemory());
+
+    registry.release(b);
+    assertFalse(registry.contains("b"));
+    registry.release(a);
+    assertTrue(registry.contains("a"));
+    assertEquals(2 * size, registry.getEstimatedMemory());
+
+    // The least recently used mapper is evicted
+    registry.release(c);
+    registry.acquire("a", new Loader(10000));
+    registry.acquire("d", new Loader(10000));
+    assertTrue(registry.contains("a"));
+    assertFalse(registry.contains("c"));
+    assertTrue(registry.contains("d"));
+
+    registry.setMemoryBudget(0);
+    assertEquals(2, registry.size());
+  }
+
+  /**
+   * Test method for failing loaders.
+   * @throws Exception
+   */
+  @Test
+  public void testFailure() throws Exception {
+    MapperRegistry registry = new MapperRegistry();
+    try {
+      registry.acquire("key", new Callable<GeneratedMapper>() {
+        @Override
+        public GeneratedMapper call() throws Exception {
+          throw new IOException("Not available");
+        }
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("Not available", e.getMessage());
+    }
+    assertFalse(registry.contains("key"));
+    Loader loader = new Loader(10);
+    assertEquals(10, registry.acquire("key", loader).size());
+    assertEquals(1, loader.calls.get());
+  }
+
+}
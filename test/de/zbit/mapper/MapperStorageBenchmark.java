@@ -0,0 +1,184 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import de.zbit.io.csv.CSVReader;
+
+/**
+ * Compares memory and lookup throughput of an {@link AbstractMapper}
+ * with integer sources and targets (e.g., {@link SNPid2GeneIDmapper}),
+ * once with the default primitive map and once with a {@link HashMap}.
+ * Further, the time to parse the mapping file on one and on all available
+ * threads is compared to the time to read its compiled snapshot. The
+ * mapping file is generated randomly.
+ *
+ * <p>Run with, e.g., {@code -Xmx2g}; the number of mappings can be given
+ * as first argument.
+ *
+ * @version $Rev$
+ */
+public class MapperStorageBenchmark {
+
+  /**
+   * The generated mapping file.
+   */
+  static File mappingFile;
+
+  /**
+   * A mapper from the first to the second column of {@link #mappingFile}.
+   */
+  static class IntegerMapper extends AbstractMapper<Integer, Integer> {
+    private static final long serialVersionUID = 1L;
+    public IntegerMapper() throws IOException {
+      super(Integer.class, Integer.class);
+      init();
+    }
+    @Override
+    public String getRemoteURL() {
+      return null;
+    }
+    @Override
+    public String getLocalFile() {
+      return mappingFile.getPath();
+    }
+    @Override
+    public String getMappingName() {
+      return "Benchmark";
+    }
+    @Override
+    public int getSourceColumn(CSVReader r) {
+      return 0;
+    }
+    @Override
+    public int getTargetColumn(CSVReader r) {
+      return 1;
+    }
+  }
+
+  /**
+   * The same mapper, backed by a {@link HashMap}.
+   */
+  static class BoxedIntegerMapper extends IntegerMapper {
+    private static final long serialVersionUID = 1L;
+    public BoxedIntegerMapper() throws IOException {
+      super();
+    }
+    @Override
+    protected Map<Integer, Integer> createMapping() {
+      return new HashMap<Integer, Integer>();
+    }
+  }
+
+  /**
+   * @param args
+   * @throws Exception
+   */
+  public static void main(String[] args) throws Exception {
+    int n = args.length>0 ? Integer.parseInt(args[0]) : 2000000;
+    Random r = new Random(1);
+    int[] queries = new int[n];
+    mappingFile = File.createTempFile("mapping", ".txt");
+    mappingFile.deleteOnExit();
+    BufferedWriter w = new BufferedWriter(new FileWriter(mappingFile));
+    w.write("#snp_id\tgene_id\n");
+    for (int i=0; i<n; i++) {
+      int snp = r.nextInt(Integer.MAX_VALUE - 1) + 1;
+      queries[i] = (i%2==0) ? snp : r.nextInt(); // Half of the queries are misses
+      w.write(snp + "\t" + r.nextInt(100000) + "\n");
+    }
+    w.close();
+
+    AbstractMapper.setUseSnapshots(false);
+    for (int round=0; round<2; round++) {
+      System.out.println("Round " + (round+1) + ":");
+      measure("IntIntHashMap", true, queries);
+      measure("HashMap", false, queries);
+    }
+
+    // Parsing on multiple threads
+    int threads = Runtime.getRuntime().availableProcessors();
+    for (int round=0; round<2; round++) {
+      for (int t : new int[] {1, threads}) {
+        AbstractMapper.setParsingThreads(t);
+        long start = System.nanoTime();
+        new IntegerMapper();
+        System.out.println(String.format("Parse with %2d threads %,6d ms", t, (System.nanoTime() - start)/1000000));
+      }
+    }
+    AbstractMapper.setParsingThreads(1);
+
+    // Parsing vs. reading the compiled snapshot
+    AbstractMapper.setUseSnapshots(true);
+    for (int round=0; round<3; round++) {
+      long start = System.nanoTime();
+      new IntegerMapper();
+      System.out.println(String.format("%-8s %,6d ms", round==0 ? "Parse" : "Snapshot", (System.nanoTime() - start)/1000000));
+    }
+    for (File f : mappingFile.getParentFile().listFiles()) {
+      if (f.getName().startsWith(mappingFile.getName() + '.') && f.getName().endsWith(".snapshot")) {
+        f.delete();
+      }
+    }
+  }
+
+  /**
+   * @param name
+   * @param primitive
+   * @param queries
+   * @throws Exception
+   */
+  private static void measure(String name, boolean primitive, int[] queries) throws Exception {
+    long before = usedMemory();
+    long start = System.nanoTime();
+    AbstractMapper<Integer, Integer> mapper = primitive ? new IntegerMapper() : new BoxedIntegerMapper();
+    long read = System.nanoTime() - start;
+    long memory = usedMemory() - before;
+
+    start = System.nanoTime();
+    int hits = 0;
+    for (int i=0; i<5; i++) {
+      for (int q : queries) {
+        if (mapper.map(q)!=null) {
+          hits++;
+        }
+      }
+    }
+    long lookups = System.nanoTime() - start;
+    System.out.println(String.format("  %-14s %,10d mappings, %,7d kB, read in %,6d ms, %6.1f M lookups/s (%d hits)",
+      name, mapper.size(), memory/1024, read/1000000, queries.length * 5 / (lookups/1000.0), hits));
+  }
+
+  /**
+   * @return used heap after garbage collection.
+   */
+  private static long usedMemory() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i=0; i<3; i++) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.io.csv.CSVReader;
+import de.zbit.mapper.enrichment.AbstractEnrichmentMapper;
+
+/**
+ * @version $Rev$
+ */
+public class MappingSnapshotTest {
+
+  /**
+   * Number of parsed lines.
+   */
+  static int parsedLines = 0;
+
+  File dir;
+  File mappingFile;
+
+  /**
+   * Maps the first column of {@link #mappingFile} to the second one.
+   */
+  class IntegerMapper extends AbstractMapper<Integer, Integer> {
+    private static final long serialVersionUID = 1L;
+    public IntegerMapper() throws IOException {
+      super(Integer.class, Integer.class);
+      init();
+    }
+    @Override
+    public String getRemoteURL() {
+      return null;
+    }
+    @Override
+    public String getLocalFile() {
+      return mappingFile.getPath();
+    }
+    @Override
+    public String getMappingName() {
+      return "Test";
+    }
+    @Override
+    public int getSourceColumn(CSVReader r) {
+      return 0;
+    }
+    @Override
+    public int getTargetColumn(CSVReader r) {
+      return 1;
+    }
+    @Override
+    protected boolean skipLine(String[] line) {
+      parsedLines++;
+      return false;
+    }
+  }
+
+  /**
+   * Maps the second column of {@link #mappingFile} to classes, given in
+   * the third column.
+   */
+  class ClassMapper extends AbstractEnrichmentMapper<String, String> {
+    private static final long serialVersionUID = 1L;
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ClassMapper() throws IOException {
+      super(String.class, (Class) HashSet.class, null);
+      init();
+    }
+    @Override
+    public String getRemoteURL() {
+      return null;
+    }
+    @Override
+    public String getLocalFile() {
+      return mappingFile.getPath();
+    }
+    @Override
+    public String getMappingName() {
+      return "TestClasses";
+    }
+    @Override
+    public int getSourceColumn(CSVReader r) {
+      return 1;
+    }
+    @Override
+    public int getTargetColumn(CSVReader r) {
+      return 2;
+    }
+    @Override
+    protected boolean skipLine(String[] line) {
+      parsedLines++;
+      return false;
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("snapshot", "");
+    dir.delete();
+    dir.mkdir();
+    mappingFile = new File(dir, "mapping.txt");
+    write("1\t10\tA\n2\t20\tA\n3\t20\tB\n4\t40\tA\n");
+    parsedLines = 0;
+  }
+
+  @After
+  public void tearDown() {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+  }
+
+  /**
+   * @param content
+   * @throws IOException
+   */
+  private void write(String content) throws IOException {
+    FileWriter w = new FileWriter(mappingFile);
+    w.write("#id\tgene\tclass\n");
+    w.write(content);
+    w.close();
+  }
+
+  /**
+   * Test method for snapshots of {@link AbstractMapper#readMappingData()}.
+   * @throws Exception
+   */
+  @Test
+  public void testIntegerMapping() throws Exception {
+    IntegerMapper mapper = new IntegerMapper();
+    assertEquals(4, parsedLines);
+    File snapshot = new File(dir, "mapping.txt.IntegerMapper.snapshot");
+    assertTrue(snapshot.exists());
+
+    // Read snapshot
+    IntegerMapper copy = new IntegerMapper();
+    assertEquals(4, parsedLines);
+    assertEquals(mapper.getMapping(), copy.getMapping());
+    assertEquals(Integer.valueOf(40), copy.map(4));
+
+    // Changed mapping file
+    write("1\t11\tA\n5\t50\tC\n");
+    mappingFile.setLastModified(mappingFile.lastModified() - 10000);
+    copy = new IntegerMapper();
+    assertEquals(6, parsedLines);
+    assertEquals(2, copy.size());
+    assertEquals(Integer.valueOf(11), copy.map(1));
+    assertNull(copy.map(4));
+
+    // Disabled snapshots
+    AbstractMapper.setUseSnapshots(false);
+    try {
+      new IntegerMapper();
+      assertEquals(8, parsedLines);
+    } finally {
+      AbstractMapper.setUseSnapshots(true);
+    }
+  }
+
+  /**
+   * Test method for the state of enrichment mappers in snapshots.
+   * @throws Exception
+   */
+  @Test
+  public void testEnrichmentMapping() throws Exception {
+    ClassMapper mapper = new ClassMapper();
+    ClassMapper copy = new ClassMapper();
+    assertEquals(4, parsedLines);
+    assertEquals(mapper.getMapping(), copy.getMapping());
+    assertEquals(new HashSet<String>(Arrays.asList("A", "B")), copy.map("20"));
+    assertTrue(copy.map("20") instanceof Collection);
+    assertEquals(3, copy.getEnrichmentClassSize("A"));
+    assertEquals(4, copy.getTotalSumOfEntitiesInAllClasses());
+  }
+
+}
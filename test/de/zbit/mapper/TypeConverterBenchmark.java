@@ -0,0 +1,78 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import java.util.Random;
+
+import de.zbit.util.prefs.Option;
+
+/**
+ * Compares the throughput of {@link Option#parseOrCast(Class, Object)}
+ * and {@link TypeConverter#convert(String)} for cells of mapping files
+ * that contain {@link Integer}s (e.g., NCBI gene ids) or {@link String}s.
+ *
+ * <p>The number of cells can be given as first argument.
+ *
+ * @version $Rev$
+ */
+public class TypeConverterBenchmark {
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    int n = args.length>0 ? Integer.parseInt(args[0]) : 2000000;
+    Random r = new Random(1);
+    String[] cells = new String[n];
+    for (int i=0; i<n; i++) {
+      cells[i] = Integer.toString(r.nextInt(Integer.MAX_VALUE));
+    }
+
+    for (int round=0; round<3; round++) {
+      System.out.println("Round " + (round+1) + ":");
+      for (Class<?> type : new Class<?>[] {Integer.class, String.class}) {
+        measure("parseOrCast", type, cells, false);
+        measure("TypeConverter", type, cells, true);
+      }
+    }
+  }
+
+  /**
+   * @param name
+   * @param type
+   * @param cells
+   * @param converter
+   */
+  private static void measure(String name, Class<?> type, String[] cells, boolean converter) {
+    long start = System.nanoTime();
+    int hash = 0;
+    if (converter) {
+      TypeConverter<?> c = TypeConverter.get(type);
+      for (String cell : cells) {
+        hash += c.convert(cell).hashCode();
+      }
+    } else {
+      for (String cell : cells) {
+        hash += Option.parseOrCast(type, cell).hashCode();
+      }
+    }
+    long time = System.nanoTime() - start;
+    System.out.println(String.format("  %-13s %-7s %,8.1f M cells/s (%d)",
+      name, type.getSimpleName(), cells.length / (time/1000.0), hash));
+  }
+
+}
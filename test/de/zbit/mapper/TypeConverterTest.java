@@ -0,0 +1,61 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.annotation.ElementType;
+
+import org.junit.Test;
+
+import de.zbit.util.prefs.Option;
+
+/**
+ * @version $Rev$
+ */
+public class TypeConverterTest {
+
+  /**
+   * Test method for {@link TypeConverter#convert(String)}.
+   */
+  @Test
+  public void testConvert() {
+    // Same results as Option.parseOrCast
+    Class<?>[] types = {String.class, Object.class, Integer.class, Long.class, Double.class, Short.class, Boolean.class, Character.class};
+    for (Class<?> type : types) {
+      for (String s : new String[] {"12", "-7", "true"}) {
+        Object expected = Option.parseOrCast(type, s);
+        if (type.isInstance(expected)) {
+          assertEquals(expected, TypeConverter.get(type).convert(s));
+        }
+      }
+    }
+    assertEquals(ElementType.FIELD, TypeConverter.get(ElementType.class).convert("FIELD"));
+    assertEquals(Short.valueOf((short) 12), TypeConverter.get(Short.class).convert("12"));
+    assertSame(TypeConverter.get(Integer.class), TypeConverter.get(Integer.class));
+
+    // Invalid cells
+    assertNull(TypeConverter.get(Integer.class).convert("NM_000014"));
+    assertNull(TypeConverter.get(Integer.class).convert(null));
+    assertNull(TypeConverter.get(Double.class).convert("abc"));
+    assertNull(TypeConverter.get(Short.class).convert("100000"));
+    assertNull(TypeConverter.get(Character.class).convert(""));
+  }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.compounds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.zbit.mapper.AbstractMapper;
+
+/**
+ * @version $Rev$
+ */
+public class CompoundDataLoaderTest {
+
+  /**
+   * Generated compound data file.
+   */
+  static File dataFile;
+
+  /**
+   * Number of lines, processed by {@link HMDB}.
+   */
+  static int parsedLines;
+
+  /**
+   * {@link HMDB2InChIKeyMapper} for {@link #dataFile}.
+   */
+  static class HMDB extends HMDB2InChIKeyMapper {
+    private static final long serialVersionUID = 1L;
+    HMDB(boolean init) throws IOException {
+      super(null, init);
+    }
+    @Override
+    public String getLocalFile() {
+      return dataFile.getPath();
+    }
+    @Override
+    protected boolean skipLine(String[] line) {
+      parsedLines++;
+      return super.skipLine(line);
+    }
+  }
+
+  /**
+   * {@link KeggCompound2InChIKeyMapper} for {@link #dataFile}.
+   */
+  static class Kegg extends KeggCompound2InChIKeyMapper {
+    private static final long serialVersionUID = 1L;
+    Kegg(boolean init) throws IOException {
+      super(null, init);
+    }
+    @Override
+    public String getLocalFile() {
+      return dataFile.getPath();
+    }
+  }
+
+  /**
+   * {@link InChIKey2CompoundNameMapper} for {@link #dataFile}.
+   */
+  static class Names extends InChIKey2CompoundNameMapper {
+    private static final long serialVersionUID = 1L;
+    Names(boolean init) throws IOException {
+      super(null, init);
+    }
+    @Override
+    public String getLocalFile() {
+      return dataFile.getPath();
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    dataFile = File.createTempFile("CompoundData", ".txt");
+    FileWriter w = new FileWriter(dataFile);
+    w.write("InChIKey\tName\tHMDB\tLIPIDMAPS\tKEGG\tCHEBI\tPubChem\n");
+    for (int i=1; i<=200; i++) {
+      String key = String.format("KEY%05dXXXXXXX-XXXXXXXXXX-N", i);
+      // Some compounds share HMDB ids, some have multiple KEGG ids
+      String hmdb = String.format("HMDB%05d", i%150);
+      String kegg = (i%7==0) ? String.format("C%05d||D%05d", i, i) : String.format("C%05d", i);
+      w.write(key + "\tCompound " + i + "\t" + hmdb + "\t\t" + kegg + "\t" + i + "\t" + (1000+i) + "\n");
+    }
+    w.close();
+    parsedLines = 0;
+  }
+
+  @After
+  public void tearDown() {
+    for (File f : dataFile.getParentFile().listFiles()) {
+      if (f.getName().startsWith(dataFile.getName())) {
+        f.delete();
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link CompoundDataLoader#load()}.
+   * @throws Exception
+   */
+  @Test
+  public void testLoad() throws Exception {
+    AbstractMapper.setUseSnapshots(false);
+    try {
+      List<AbstractMapper<?, ?>> expected = new ArrayList<AbstractMapper<?, ?>>();
+      expected.add(new HMDB(true));
+      expected.add(new Kegg(true));
+      expected.add(new Names(true));
+      assertEquals(200, parsedLines);
+
+      CompoundDataLoader loader = new CompoundDataLoader(null);
+      HMDB hmdb = loader.add(new HMDB(false));
+      loader.add(new Kegg(false));
+      loader.add(new Names(false));
+      assertTrue(loader.load());
+      assertEquals(400, parsedLines);
+      assertSame(hmdb, loader.getMapper(HMDB.class));
+
+      for (int i=0; i<expected.size(); i++) {
+        assertEquals(expected.get(i).getMapping(), loader.getMappers().get(i).getMapping());
+      }
+      assertEquals(new HashSet<String>(Arrays.asList("KEY00007XXXXXXX-XXXXXXXXXX-N")),
+        loader.getMapper(Kegg.class).map("D00007"));
+      assertEquals(2, hmdb.map("HMDB00001").size());
+    } finally {
+      AbstractMapper.setUseSnapshots(true);
+    }
+  }
+
+  /**
+   * Test method for {@link CompoundDataLoader#load()} with snapshots.
+   * @throws Exception
+   */
+  @Test
+  public void testSnapshots() throws Exception {
+    CompoundDataLoader loader = new CompoundDataLoader(null);
+    loader.add(new HMDB(false));
+    loader.add(new Kegg(false));
+    assertTrue(loader.load());
+    assertEquals(200, parsedLines);
+
+    // Read from snapshots, only the names are parsed
+    CompoundDataLoader copy = new CompoundDataLoader(null);
+    copy.add(new HMDB(false));
+    copy.add(new Kegg(false));
+    copy.add(new Names(false));
+    assertTrue(copy.load());
+    assertEquals(200, parsedLines);
+    assertEquals(loader.getMapper(Kegg.class).getMapping(), copy.getMapper(Kegg.class).getMapping());
+    assertEquals("Compound 12", copy.getMapper(Names.class).map("KEY00012XXXXXXX-XXXXXXXXXX-N"));
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class EnrichmentIndexTest {
+
+  /**
+   * Test method for {@link EnrichmentIndex#EnrichmentIndex(Map, Class)}.
+   */
+  @Test
+  public void testIndex() {
+    Map<Integer, Collection<String>> mapping = new HashMap<Integer, Collection<String>>();
+    mapping.put(1, new HashSet<String>(Arrays.asList("GO:1", "GO:2")));
+    mapping.put(2, new ArrayList<String>(Arrays.asList("GO:2", "GO:3", "GO:2")));
+    mapping.put(3, new HashSet<String>(Arrays.asList("GO:3")));
+
+    EnrichmentIndex<Integer, String> index = new EnrichmentIndex<Integer, String>(mapping, Integer.class);
+    assertEquals(3, index.getNumberOfEntities());
+    assertEquals(3, index.getNumberOfEnrichmentClasses());
+    assertEquals(-1, index.getEnrichmentClassId("GO:4"));
+    assertEquals(-1, index.getEntityId(4));
+    assertNull(index.getEnrichmentClasses(4));
+
+    // Views are equal to the original sets, duplicates are removed
+    Set<String> classes = index.getEnrichmentClasses(2);
+    assertEquals(new HashSet<String>(Arrays.asList("GO:2", "GO:3")), classes);
+    assertEquals(2, classes.size());
+    assertTrue(classes.contains("GO:3"));
+    assertFalse(classes.contains("GO:1"));
+    assertEquals(mapping.get(1), index.getEnrichmentClasses(1));
+
+    // Inverted index
+    int go2 = index.getEnrichmentClassId("GO:2");
+    assertEquals("GO:2", index.getEnrichmentClass(go2));
+    assertEquals(2, index.getEnrichmentClassSize(go2));
+    BitSet members = index.getMembers(go2);
+    assertEquals(2, members.cardinality());
+    assertTrue(members.get(index.getEntityId(1)));
+    assertTrue(members.get(index.getEntityId(2)));
+
+    BitSet query = index.toBitSet(Arrays.asList(2, 3, 5));
+    assertEquals(2, query.cardinality());
+    assertEquals(1, index.countOverlap(query, go2));
+    assertEquals(2, index.countOverlap(query, index.getEnrichmentClassId("GO:3")));
+    assertEquals(0, index.countOverlap(query, index.getEnrichmentClassId("GO:1")));
+  }
+
+  /**
+   * Compares {@link EnrichmentIndex} against a random mapping.
+   */
+  @Test
+  public void testRandomMapping() {
+    Random r = new Random(1);
+    Map<String, Collection<String>> mapping = new HashMap<String, Collection<String>>();
+    for (int gene=0; gene<500; gene++) {
+      Set<String> c = new HashSet<String>();
+      for (int i=r.nextInt(20); i>=0; i--) {
+        c.add("class" + r.nextInt(100));
+      }
+      mapping.put("gene" + gene, c);
+    }
+    EnrichmentIndex<String, String> index = new EnrichmentIndex<String, String>(mapping, String.class);
+
+    List<String> query = new ArrayList<String>();
+    for (int gene=0; gene<500; gene+=3) {
+      query.add("gene" + gene);
+    }
+    BitSet querySet = index.toBitSet(query);
+    for (int id=0; id<index.getNumberOfEnrichmentClasses(); id++) {
+      String className = index.getEnrichmentClass(id);
+      int size = 0, overlap = 0;
+      for (Map.Entry<String, Collection<String>> entry : mapping.entrySet()) {
+        if (entry.getValue().contains(className)) {
+          size++;
+          if (query.contains(entry.getKey())) {
+            overlap++;
+          }
+        }
+      }
+      assertEquals(size, index.getEnrichmentClassSize(id));
+      assertEquals(overlap, index.countOverlap(querySet, id));
+    }
+    for (String gene : mapping.keySet()) {
+      assertEquals(mapping.get(gene), index.getEnrichmentClasses(gene));
+      int[] ids = index.getEnrichmentClassIds(gene);
+      int[] sorted = ids.clone();
+      Arrays.sort(sorted);
+      assertArrayEquals(sorted, ids);
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2011-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import de.zbit.collection.IntObjectHashMap;
+
+/**
+ * Compares the memory of a GO-like enrichment mapping (20,000 genes in
+ * 15,000 classes, about 12 classes per gene) with one {@link HashSet}
+ * per gene, as created by parsing the mapping file, to the same mapping
+ * after {@link AbstractEnrichmentMapper#compact()}.
+ *
+ * @version $Rev$
+ */
+public class EnrichmentStorageBenchmark {
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    Random r = new Random(1);
+    long before = usedMemory();
+    Map<Integer, Collection<String>> mapping = new IntObjectHashMap<Collection<String>>();
+    for (int gene=0; gene<20000; gene++) {
+      Set<String> c = new HashSet<String>();
+      for (int i=r.nextInt(24); i>=0; i--) {
+        // Every line of the mapping file creates new strings
+        c.add(new String("GO:" + (1000000 + (int) Math.abs(r.nextGaussian() * 5000) % 15000)));
+      }
+      mapping.put(gene, c);
+    }
+    long sets = usedMemory() - before;
+
+    EnrichmentIndex<Integer, String> index = new EnrichmentIndex<Integer, String>(mapping, Integer.class);
+    for (Map.Entry<Integer, Collection<String>> entry : mapping.entrySet()) {
+      entry.setValue(index.getEnrichmentClasses(entry.getKey()));
+    }
+    long compact = usedMemory() - before;
+
+    System.out.println(String.format("HashSets:          %,7d kB", sets/1024));
+    System.out.println(String.format("Compact (+index):  %,7d kB", compact/1024));
+    System.out.println(index.getNumberOfEnrichmentClasses() + " classes, " + mapping.size() + " genes");
+  }
+
+  /**
+   * @return used heap after garbage collection.
+   */
+  private static long usedMemory() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i=0; i<3; i++) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class GeneSetEnrichmentAnalysisTest {
+
+  /**
+   * Test method for {@link GeneSetEnrichmentAnalysis#enrichmentScore(int[], int, double[], int)}.
+   */
+  @Test
+  public void testEnrichmentScore() {
+    Random r = new Random(1);
+    for (int test=0; test<100; test++) {
+      int n = 10 + r.nextInt(50);
+      double[] weights = new double[n];
+      for (int i=0; i<n; i++) {
+        weights[i] = r.nextDouble();
+      }
+      boolean[] member = new boolean[n];
+      List<Integer> positions = new ArrayList<Integer>();
+      for (int i=0; i<n; i++) {
+        if (r.nextInt(4)==0) {
+          member[i] = true;
+          positions.add(i);
+        }
+      }
+      if (positions.isEmpty() || positions.size()==n) {
+        continue;
+      }
+      // Naive running sum over all positions
+      double sumOfWeights = 0;
+      for (int i : positions) {
+        sumOfWeights += weights[i];
+      }
+      double running = 0, es = 0;
+      for (int i=0; i<n; i++) {
+        running += member[i] ? weights[i]/sumOfWeights : -1d/(n-positions.size());
+        if (Math.abs(running)>Math.abs(es)) {
+          es = running;
+        }
+      }
+      int[] p = new int[positions.size()];
+      for (int i=0; i<p.length; i++) {
+        p[i] = positions.get(i);
+      }
+      assertEquals(es, GeneSetEnrichmentAnalysis.enrichmentScore(p, p.length, weights, n), 1E-12);
+    }
+  }
+
+  /**
+   * Test method for {@link GeneSetEnrichmentAnalysis#analyze(List, double[])}.
+   */
+  @Test
+  public void testAnalyze() {
+    // 1000 genes: set "Top" contains genes at the top of the ranking,
+    // "Bottom" at the bottom, all other sets are random
+    Random r = new Random(2);
+    Map<Integer, Collection<String>> mapping = new HashMap<Integer, Collection<String>>();
+    for (int gene=0; gene<1000; gene++) {
+      Set<String> c = new HashSet<String>();
+      c.add("Random" + r.nextInt(20));
+      if (gene<150 && gene%5==0) {
+        c.add("Top");
+      } else if (gene>=850 && gene%5==0) {
+        c.add("Bottom");
+      }
+      mapping.put(gene, c);
+    }
+    List<Integer> ranked = new ArrayList<Integer>();
+    double[] scores = new double[1000];
+    for (int gene=0; gene<1000; gene++) {
+      ranked.add(gene);
+      scores[gene] = 2 - gene/250d;
+    }
+
+    GeneSetEnrichmentAnalysis<Integer, String> gsea = new GeneSetEnrichmentAnalysis<Integer, String>(
+        new EnrichmentIndex<Integer, String>(mapping, Integer.class));
+    gsea.setSeed(7);
+    gsea.setPermutations(1000);
+    gsea.setSizeLimits(15, 500);
+    gsea.setThreads(1);
+    List<GeneSetEnrichmentAnalysis.Result<String>> results = gsea.analyze(ranked, scores);
+    assertEquals(22, results.size());
+    Map<String, GeneSetEnrichmentAnalysis.Result<String>> byClass = new HashMap<String, GeneSetEnrichmentAnalysis.Result<String>>();
+    for (GeneSetEnrichmentAnalysis.Result<String> result : results) {
+      byClass.put(result.getEnrichmentClass(), result);
+    }
+    GeneSetEnrichmentAnalysis.Result<String> top = byClass.get("Top");
+    assertEquals(30, top.getSize());
+    assertTrue(top.getEnrichmentScore()>0.8);
+    assertTrue(top.getNormalizedEnrichmentScore()>2);
+    assertEquals(1/1001d, top.getPValue(), 1E-3);
+    assertEquals(1000, top.getPermutations());
+    GeneSetEnrichmentAnalysis.Result<String> bottom = byClass.get("Bottom");
+    assertTrue(bottom.getEnrichmentScore()<-0.8);
+    assertTrue(bottom.getNormalizedEnrichmentScore()<-2);
+    assertTrue(bottom.getQValue()<0.05);
+
+    // Random sets are stopped early
+    int stopped = 0;
+    for (GeneSetEnrichmentAnalysis.Result<String> result : results) {
+      if (result.getEnrichmentClass().startsWith("Random") && result.getPermutations()<1000) {
+        stopped++;
+        assertTrue(result.getPValue()>0.01);
+      }
+    }
+    assertTrue(stopped>10);
+
+    // Reproducible, independent of the number of threads
+    gsea.setThreads(3);
+    assertEquals(results.toString(), gsea.analyze(ranked, scores).toString());
+    gsea.setSeed(8);
+    assertTrue(!results.toString().equals(gsea.analyze(ranked, scores).toString()));
+  }
+
+}
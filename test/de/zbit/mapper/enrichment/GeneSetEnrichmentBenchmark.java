@@ -0,0 +1,92 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import de.zbit.collection.IntObjectHashMap;
+
+/**
+ * Measures {@link GeneSetEnrichmentAnalysis#analyze(List, double[])} with
+ * 1,000 permutations for a pathway-like mapping (20,000 genes in 300
+ * sets of 15 to 500 genes), with and without early stopping.
+ *
+ * <p>The number of threads can be given as first argument.
+ *
+ * @version $Rev$
+ */
+public class GeneSetEnrichmentBenchmark {
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    Random r = new Random(1);
+    Map<Integer, Collection<String>> mapping = new IntObjectHashMap<Collection<String>>();
+    for (int set=0; set<300; set++) {
+      for (int i=15+r.nextInt(486); i>0; i--) {
+        int gene = r.nextInt(20000);
+        Collection<String> c = mapping.get(gene);
+        if (c==null) {
+          c = new HashSet<String>();
+          mapping.put(gene, c);
+        }
+        c.add("path:" + set);
+      }
+    }
+    GeneSetEnrichmentAnalysis<Integer, String> gsea = new GeneSetEnrichmentAnalysis<Integer, String>(
+        new EnrichmentIndex<Integer, String>(mapping, Integer.class));
+    if (args.length>0) {
+      gsea.setThreads(Integer.parseInt(args[0]));
+    }
+
+    List<Integer> ranked = new ArrayList<Integer>();
+    double[] scores = new double[20000];
+    for (int gene=0; gene<20000; gene++) {
+      ranked.add(gene);
+      scores[gene] = r.nextGaussian();
+    }
+    Arrays.sort(scores);
+    for (int i=0; i<scores.length/2; i++) {
+      double swap = scores[i];
+      scores[i] = scores[scores.length-1-i];
+      scores[scores.length-1-i] = swap;
+    }
+
+    for (int round=0; round<3; round++) {
+      for (int exceedances : new int[] {0, 20}) {
+        gsea.setEarlyStopExceedances(exceedances);
+        long start = System.nanoTime();
+        long permutations = 0;
+        for (GeneSetEnrichmentAnalysis.Result<String> result : gsea.analyze(ranked, scores)) {
+          permutations += result.getPermutations();
+        }
+        long time = System.nanoTime() - start;
+        System.out.println(String.format("Round %d, early stopping %-3s: %,7.0f ms, %,9d permuted sets on %d threads",
+          round+1, exceedances>0 ? "on" : "off", time/1E6, permutations, gsea.getThreads()));
+      }
+    }
+  }
+
+}
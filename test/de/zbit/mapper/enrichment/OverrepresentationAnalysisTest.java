@@ -0,0 +1,178 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.zbit.math.MathUtils;
+
+/**
+ * @version $Rev$
+ */
+public class OverrepresentationAnalysisTest {
+
+  /**
+   * @param genes
+   * @param classes
+   * @param seed
+   * @return a random mapping from genes to classes.
+   */
+  static Map<Integer, Collection<String>> createMapping(int genes, int classes, long seed) {
+    Random r = new Random(seed);
+    Map<Integer, Collection<String>> mapping = new HashMap<Integer, Collection<String>>();
+    for (int gene=0; gene<genes; gene++) {
+      Set<String> c = new HashSet<String>();
+      for (int i=r.nextInt(6); i>=0; i--) {
+        c.add("C" + r.nextInt(classes));
+      }
+      mapping.put(gene, c);
+    }
+    return mapping;
+  }
+
+  /**
+   * Test method for {@link OverrepresentationAnalysis#analyze(Collection)}.
+   */
+  @Test
+  public void testAnalyze() {
+    Map<Integer, Collection<String>> mapping = createMapping(2000, 100, 1);
+    OverrepresentationAnalysis<Integer, String> ora = new OverrepresentationAnalysis<Integer, String>(
+        new EnrichmentIndex<Integer, String>(mapping, Integer.class));
+
+    // List enriched in class "C1" and an unknown gene
+    List<Integer> genes = new ArrayList<Integer>();
+    for (Map.Entry<Integer, Collection<String>> entry : mapping.entrySet()) {
+      if (entry.getValue().contains("C1") || entry.getKey()%20==0) {
+        genes.add(entry.getKey());
+      }
+    }
+    genes.add(5000);
+    List<OverrepresentationAnalysis.Result<String>> results = ora.analyze(genes);
+    assertEquals("C1", results.get(0).getEnrichmentClass());
+    assertTrue(results.get(0).getQValue()<1E-10);
+
+    // Compare with a naive analysis
+    int listSize = genes.size()-1;
+    Map<String, Integer> overlap = new HashMap<String, Integer>();
+    Map<String, Integer> size = new HashMap<String, Integer>();
+    for (Map.Entry<Integer, Collection<String>> entry : mapping.entrySet()) {
+      for (String c : entry.getValue()) {
+        size.put(c, size.containsKey(c) ? size.get(c)+1 : 1);
+        if (genes.contains(entry.getKey())) {
+          overlap.put(c, overlap.containsKey(c) ? overlap.get(c)+1 : 1);
+        }
+      }
+    }
+    assertEquals(overlap.size(), results.size());
+    double previous = 0;
+    for (OverrepresentationAnalysis.Result<String> result : results) {
+      String c = result.getEnrichmentClass();
+      assertEquals(overlap.get(c).intValue(), result.getOverlap());
+      assertEquals(size.get(c).intValue(), result.getClassSize());
+      assertEquals(listSize, result.getListSize());
+      assertEquals(mapping.size(), result.getPopulationSize());
+      assertEquals(MathUtils.enrichment_significance(mapping.size(), listSize, result.getClassSize(), result.getOverlap()), result.getPValue(), 0);
+      assertEquals(Math.min(1, result.getPValue()*size.size()), result.getBonferroniPValue(), 1E-15);
+      assertTrue(result.getQValue()>=result.getPValue() && result.getQValue()<=result.getBonferroniPValue());
+      assertTrue(result.getPValue()>=previous);
+      previous = result.getPValue();
+    }
+
+    // Overlap counts are reset between lists
+    assertEquals(results.toString(), ora.analyze(genes).toString());
+    assertEquals(0, ora.analyze(Arrays.asList(5000)).size());
+  }
+
+  /**
+   * The correction for multiple testing considers all classes, not only
+   * the classes that overlap with the list.
+   */
+  @Test
+  public void testMultipleTestingCorrection() {
+    // 100 genes in 10 classes of 10 genes each
+    Map<Integer, Collection<String>> mapping = new HashMap<Integer, Collection<String>>();
+    for (int gene=0; gene<100; gene++) {
+      mapping.put(gene, new HashSet<String>(Arrays.asList("C" + (gene/10))));
+    }
+    OverrepresentationAnalysis<Integer, String> ora = new OverrepresentationAnalysis<Integer, String>(
+        new EnrichmentIndex<Integer, String>(mapping, Integer.class));
+
+    // 5 genes of C0, 2 of C1 and one of C2
+    List<OverrepresentationAnalysis.Result<String>> results = ora.analyze(Arrays.asList(0, 1, 2, 3, 4, 10, 11, 20));
+    assertEquals(3, results.size());
+    double p0 = MathUtils.enrichment_significance(100, 8, 10, 5);
+    double p1 = MathUtils.enrichment_significance(100, 8, 10, 2);
+    double p2 = MathUtils.enrichment_significance(100, 8, 10, 1);
+    assertTrue(p0<p1 && p1<p2 && p2<1);
+    // BH over 10 classes: ranks 1 to 3, all other classes have p=1
+    double q2 = Math.min(1, p2*10/3);
+    double q1 = Math.min(q2, p1*10/2);
+    double q0 = Math.min(q1, p0*10/1);
+    assertEquals("C0", results.get(0).getEnrichmentClass());
+    assertEquals(p0, results.get(0).getPValue(), 0);
+    assertEquals(q0, results.get(0).getQValue(), 1E-15);
+    assertEquals(q1, results.get(1).getQValue(), 1E-15);
+    assertEquals(q2, results.get(2).getQValue(), 1E-15);
+    assertEquals(Math.min(1, p0*10), results.get(0).getBonferroniPValue(), 1E-15);
+
+    // A single gene is corrected for all classes, too
+    results = ora.analyze(Arrays.asList(50));
+    assertEquals(1, results.size());
+    double p = MathUtils.enrichment_significance(100, 1, 10, 1);
+    assertEquals(Math.min(1, p*10), results.get(0).getQValue(), 1E-15);
+    assertEquals(Math.min(1, p*10), results.get(0).getBonferroniPValue(), 1E-15);
+  }
+
+  /**
+   * Test method for {@link OverrepresentationAnalysis#analyzeAll(List)}.
+   */
+  @Test
+  public void testAnalyzeAll() {
+    Map<Integer, Collection<String>> mapping = createMapping(2000, 100, 2);
+    OverrepresentationAnalysis<Integer, String> ora = new OverrepresentationAnalysis<Integer, String>(
+        new EnrichmentIndex<Integer, String>(mapping, Integer.class));
+    Random r = new Random(3);
+    List<List<Integer>> lists = new ArrayList<List<Integer>>();
+    for (int i=0; i<50; i++) {
+      List<Integer> genes = new ArrayList<Integer>();
+      for (int j=r.nextInt(200); j>=0; j--) {
+        genes.add(r.nextInt(2000));
+      }
+      lists.add(genes);
+    }
+    ora.setThreads(4);
+    List<List<OverrepresentationAnalysis.Result<String>>> results = ora.analyzeAll(lists);
+    assertEquals(lists.size(), results.size());
+    for (int i=0; i<lists.size(); i++) {
+      assertEquals(ora.analyze(lists.get(i)).toString(), results.get(i).toString());
+    }
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.mapper.enrichment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import de.zbit.collection.IntObjectHashMap;
+
+/**
+ * Measures the throughput of {@link OverrepresentationAnalysis#analyzeAll(List)}
+ * for a GO-like enrichment mapping (20,000 genes in 15,000 classes,
+ * about 12 classes per gene) and gene lists of 50 to 1,000 genes.
+ *
+ * <p>The number of threads can be given as first argument.
+ *
+ * @version $Rev$
+ */
+public class OverrepresentationBenchmark {
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    Random r = new Random(1);
+    Map<Integer, Collection<String>> mapping = new IntObjectHashMap<Collection<String>>();
+    for (int gene=0; gene<20000; gene++) {
+      Set<String> c = new HashSet<String>();
+      for (int i=r.nextInt(24); i>=0; i--) {
+        c.add("GO:" + (1000000 + (int) Math.abs(r.nextGaussian() * 5000) % 15000));
+      }
+      mapping.put(gene, c);
+    }
+    OverrepresentationAnalysis<Integer, String> ora = new OverrepresentationAnalysis<Integer, String>(
+        new EnrichmentIndex<Integer, String>(mapping, Integer.class));
+    if (args.length>0) {
+      ora.setThreads(Integer.parseInt(args[0]));
+    }
+
+    List<List<Integer>> lists = new ArrayList<List<Integer>>();
+    for (int i=0; i<2000; i++) {
+      List<Integer> genes = new ArrayList<Integer>();
+      for (int j=50+r.nextInt(951); j>0; j--) {
+        genes.add(r.nextInt(20000));
+      }
+      lists.add(genes);
+    }
+
+    for (int round=0; round<3; round++) {
+      long start = System.nanoTime();
+      int results = 0;
+      for (List<OverrepresentationAnalysis.Result<String>> result : ora.analyzeAll(lists)) {
+        results += result.size();
+      }
+      long time = System.nanoTime() - start;
+      System.out.println(String.format("Round %d: %,9.0f lists/min on %d threads (%d results)",
+        round+1, lists.size() / (time/6E10), ora.getThreads(), results));
+    }
+  }
+
+}
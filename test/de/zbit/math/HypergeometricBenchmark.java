@@ -0,0 +1,81 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput of hypergeometric tests, computed by summing
+ * {@link MathUtils#hypergeometric_distribution(int, int, int, int)} and
+ * by {@link MathUtils#enrichment_significance(int, int, int, int)}, for
+ * a GO enrichment like setting (genome of 20,000 genes, 300 input genes
+ * and terms with 5 to 500 genes).
+ *
+ * @version $Rev$
+ */
+public class HypergeometricBenchmark {
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    int genome = 20000, input = 300;
+    Random r = new Random(1);
+    int n = 100000;
+    int[] t = new int[n];
+    int[] x = new int[n];
+    for (int i=0; i<n; i++) {
+      t[i] = 5 + r.nextInt(496);
+      x[i] = r.nextInt(Math.min(t[i], 20) + 1);
+    }
+
+    for (int round=0; round<3; round++) {
+      System.out.println("Round " + (round+1) + ":");
+      // Summation of BigInteger based terms
+      int tests = 200;
+      long start = System.nanoTime();
+      double sum = 0;
+      for (int i=0; i<tests; i++) {
+        double p = 1;
+        for (int k=0; k<x[i]; k++) {
+          p -= MathUtils.hypergeometric_distribution(genome, t[i], input, k);
+        }
+        sum += p;
+      }
+      report("BigInteger", tests, System.nanoTime() - start, sum);
+
+      // Log space
+      start = System.nanoTime();
+      sum = 0;
+      for (int i=0; i<n; i++) {
+        sum += MathUtils.enrichment_significance(genome, input, t[i], x[i]);
+      }
+      report("log space", n, System.nanoTime() - start, sum);
+    }
+  }
+
+  /**
+   * @param name
+   * @param tests
+   * @param time
+   * @param sum
+   */
+  private static void report(String name, int tests, long time, double sum) {
+    System.out.println(String.format("  %-10s %,12.1f tests/s (%f)", name, tests / (time/1E9), sum));
+  }
+
+}
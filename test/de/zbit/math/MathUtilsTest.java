@@ -0,0 +1,206 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class MathUtilsTest {
+
+  /**
+   * Maximum relative deviation from exact results.
+   */
+  private static final double TOLERANCE = 1E-9;
+
+  /**
+   * @param N
+   * @param m
+   * @param n
+   * @param from
+   * @param to
+   * @return the exact sum of P(X=x) for all from&le;x&le;to.
+   */
+  private static double exactSum(int N, int m, int n, int from, int to) {
+    BigInteger sum = BigInteger.ZERO;
+    for (int x=Math.max(from, 0); x<=Math.min(to, Math.min(n, m)); x++) {
+      if (n-x<=N-m) {
+        sum = sum.add(MathUtils.binomialCoefficient(m, x).multiply(MathUtils.binomialCoefficient(N-m, n-x)));
+      }
+    }
+    return new BigDecimal(sum).divide(new BigDecimal(MathUtils.binomialCoefficient(N, n)), new MathContext(30)).doubleValue();
+  }
+
+  /**
+   * @param expected
+   * @param actual
+   */
+  private static void assertRelativeEquals(double expected, double actual) {
+    assertEquals(expected, actual, Math.max(expected * TOLERANCE, Double.MIN_NORMAL));
+  }
+
+  /**
+   * Test method for {@link MathUtils#logFactorial(int)}.
+   */
+  @Test
+  public void testLogFactorial() {
+    assertEquals(0, MathUtils.logFactorial(0), 0);
+    assertEquals(0, MathUtils.logFactorial(1), 0);
+    assertEquals(Math.log(3628800), MathUtils.logFactorial(10), 1E-12);
+    // Table and Stirling's series agree
+    double sum = MathUtils.logFactorial(1<<19);
+    for (int i=(1<<19)+1; i<=(1<<20); i++) {
+      sum += Math.log(i);
+    }
+    assertEquals(sum, MathUtils.logFactorial(1<<20), sum * 1E-13);
+    assertEquals(MathUtils.logFactorial(1<<20) + Math.log((1<<20)+1), MathUtils.logFactorial((1<<20)+1), sum * 1E-14);
+  }
+
+  /**
+   * Test method for {@link MathUtils#hypergeometric_cdf(int, int, int, int)}
+   * and {@link MathUtils#hypergeometric_survival(int, int, int, int)}.
+   */
+  @Test
+  public void testHypergeometric() {
+    int[][] parameters = {{20, 7, 12}, {100, 30, 20}, {2000, 150, 300}, {20000, 40, 500}, {20000, 150, 300}};
+    for (int[] p : parameters) {
+      int N = p[0], m = p[1], n = p[2];
+      for (int k=-1; k<=Math.min(n, m)+1; k+=Math.max(1, Math.min(n, m)/25)) {
+        assertRelativeEquals(exactSum(N, m, n, 0, k), MathUtils.hypergeometric_cdf(N, m, n, k));
+        assertRelativeEquals(exactSum(N, m, n, k+1, Integer.MAX_VALUE), MathUtils.hypergeometric_survival(N, m, n, k));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link MathUtils#enrichment_significance(int, int, int, int)}.
+   */
+  @Test
+  public void testEnrichmentSignificance() {
+    // Genome of 20,000 genes, 200 input genes, pathway with 100 genes
+    for (int r : new int[] {0, 1, 2, 5, 10}) {
+      double old = 1;
+      for (int x=0; x<r; x++) {
+        old -= MathUtils.hypergeometric_distribution(20000, 100, 200, x);
+      }
+      assertRelativeEquals(old, MathUtils.enrichment_significance(20000, 200, 100, r));
+    }
+    // Tiny p-values are not lost by 1-P(X<r)
+    double p = MathUtils.enrichment_significance(20000, 200, 100, 40);
+    assertRelativeEquals(exactSum(20000, 100, 200, 40, 100), p);
+    assertTrue(p>0 && p<1E-40);
+  }
+
+  /**
+   * Test method for {@link MathUtils#benjamini_hochberg(double[])} and
+   * {@link MathUtils#bonferroni(double[])}.
+   */
+  @Test
+  public void testMultipleTestingCorrection() {
+    double[] p = {0.01, 0.04, 0.03, 0.005, 0.5};
+    // p*m/rank: 0.005*5/1, 0.01*5/2, 0.03*5/3, 0.04*5/4, 0.5*5/5
+    assertArrayEquals(new double[] {0.025, 0.05, 0.05, 0.025, 0.5}, MathUtils.benjamini_hochberg(p), 1E-15);
+    assertArrayEquals(new double[] {0.05, 0.2, 0.15, 0.025, 1}, MathUtils.bonferroni(p), 1E-15);
+    // Monotonicity: q-values never decrease with increasing p-values
+    assertArrayEquals(new double[] {0.04, 0.04, 0.04}, MathUtils.benjamini_hochberg(new double[] {0.02, 0.04, 0.03}), 1E-15);
+    assertEquals(0, MathUtils.benjamini_hochberg(new double[0]).length);
+    // Two more tests with p=1
+    assertArrayEquals(new double[] {0.04*7/2, 0.02*7/1}, MathUtils.benjamini_hochberg(new double[] {0.04, 0.02}, 7), 1E-15);
+    assertArrayEquals(new double[] {0.28, 0.14}, MathUtils.bonferroni(new double[] {0.04, 0.02}, 7), 1E-15);
+    assertArrayEquals(Arrays.copyOf(MathUtils.benjamini_hochberg(new double[] {0.01, 0.04, 0.03, 0.005, 0.5, 1, 1}), 5),
+      MathUtils.benjamini_hochberg(p, 7), 1E-15);
+  }
+
+  /**
+   * @param values
+   * @param quantile
+   * @return the quantile of the sorted values.
+   */
+  private static double sortedQuantile(double[] values, int quantile) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    double index = sorted.length * quantile / 100d;
+    int floor = (int) Math.floor(index);
+    if (floor!=index) {
+      return sorted[floor];
+    }
+    double upper = sorted[Math.min(floor, sorted.length-1)];
+    double lower = sorted[Math.max(floor-1, 0)];
+    return lower+(upper-lower)/2;
+  }
+
+  /**
+   * Test method for {@link MathUtils#select(double[], int)} and
+   * {@link MathUtils#quantiles(double[], int...)}.
+   */
+  @Test
+  public void testSelect() {
+    Random r = new Random(1);
+    int[] quantiles = {0, 1, 5, 25, 50, 75, 95, 99, 100};
+    for (int n : new int[] {1, 2, 3, 10, 15, 16, 17, 100, 1001, 10000}) {
+      double[][] inputs = new double[6][n];
+      for (int i=0; i<n; i++) {
+        inputs[0][i] = r.nextGaussian();
+        inputs[1][i] = i; // Sorted
+        inputs[2][i] = n-i; // Reversed
+        inputs[3][i] = r.nextInt(3); // Many ties
+        inputs[4][i] = Math.min(i, n-i); // Organ pipe
+        inputs[5][i] = (i%7==0) ? Double.NaN : r.nextGaussian();
+      }
+      for (double[] values : inputs) {
+        double[] expected = new double[quantiles.length];
+        for (int i=0; i<quantiles.length; i++) {
+          expected[i] = sortedQuantile(values, quantiles[i]);
+        }
+        assertArrayEquals(expected, MathUtils.quantiles(values.clone(), quantiles), 0);
+        assertEquals(sortedQuantile(values, 50), MathUtils.median(values.clone()), 0);
+
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int k = r.nextInt(n);
+        double[] copy = values.clone();
+        assertEquals(sorted[k], MathUtils.select(copy, k), 0);
+        for (int i=0; i<n; i++) {
+          assertTrue(i<k ? Double.compare(copy[i], copy[k])<=0 : Double.compare(copy[i], copy[k])>=0);
+        }
+      }
+    }
+    assertTrue(Double.isNaN(MathUtils.median(new double[0])));
+    assertTrue(Double.isNaN(MathUtils.median(new double[] {1, Double.NaN})));
+    assertEquals(2, MathUtils.median(new double[] {Double.NaN, 3, 1, 2, 0}), 0);
+
+    // Non-list collections are not boxed into a list
+    List<Double> list = new ArrayList<Double>(Arrays.asList(5d, 1d, 4d, 2d));
+    assertEquals(3, MathUtils.median(new HashSet<Double>(list)), 0);
+    assertEquals(3, MathUtils.median(list), 0);
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the median of rows of a normalization loop (10 to 100,000
+ * values per row), computed by sorting a boxed list
+ * ({@link MathUtils#median(List)}), by sorting the array and by
+ * selection ({@link MathUtils#median(double[])}).
+ *
+ * @version $Rev$
+ */
+public class MedianBenchmark {
+
+  /**
+   * @param args
+   */
+  public static void main(String[] args) {
+    Random r = new Random(1);
+    for (int round=0; round<3; round++) {
+      System.out.println("Round " + (round+1) + ":");
+      for (int n : new int[] {10, 100, 1000, 100000}) {
+        double[] row = new double[n];
+        for (int i=0; i<n; i++) {
+          row[i] = r.nextGaussian();
+        }
+        int rows = 10000000 / n;
+
+        long start = System.nanoTime();
+        double sum = 0;
+        for (int i=0; i<rows; i++) {
+          List<Double> list = new ArrayList<Double>(n);
+          for (double value : row) {
+            list.add(value);
+          }
+          sum += MathUtils.median(list);
+        }
+        report("Boxed list", n, rows, System.nanoTime() - start, sum);
+
+        start = System.nanoTime();
+        sum = 0;
+        double[] copy = new double[n];
+        for (int i=0; i<rows; i++) {
+          System.arraycopy(row, 0, copy, 0, n);
+          Arrays.sort(copy);
+          sum += copy[(n-1)/2] + (copy[n/2] - copy[(n-1)/2])/2;
+        }
+        report("Sorted array", n, rows, System.nanoTime() - start, sum);
+
+        start = System.nanoTime();
+        sum = 0;
+        for (int i=0; i<rows; i++) {
+          System.arraycopy(row, 0, copy, 0, n);
+          sum += MathUtils.median(copy);
+        }
+        report("Selection", n, rows, System.nanoTime() - start, sum);
+      }
+    }
+  }
+
+  /**
+   * @param method
+   * @param n
+   * @param rows
+   * @param time
+   * @param sum
+   */
+  private static void report(String method, int n, int rows, long time, double sum) {
+    System.out.println(String.format("  %-12s n=%,7d: %,10.0f medians/s (checksum %.6f)",
+      method, n, rows / (time/1E9), sum));
+  }
+
+}
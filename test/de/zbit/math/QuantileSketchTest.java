@@ -0,0 +1,145 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class QuantileSketchTest {
+
+  /**
+   * Maximum deviation of the rank of a quantile for the default k.
+   */
+  private static final double RANK_ERROR = 0.02;
+
+  /**
+   * @param sorted all values in ascending order.
+   * @param sketch
+   * @return maximum deviation of the exact rank of the percentiles of the
+   * sketch from the requested rank.
+   */
+  private static double maxRankError(double[] sorted, QuantileSketch sketch) {
+    double maxError = 0;
+    for (int percent=1; percent<100; percent++) {
+      double q = percent / 100d;
+      double quantile = sketch.getQuantile(q);
+      // Ranks of ties range from the first to the last occurrence
+      int lower = lowerBound(sorted, quantile);
+      int upper = lowerBound(sorted, Math.nextUp(quantile));
+      double error = 0;
+      if (q<lower/(double) sorted.length) {
+        error = lower/(double) sorted.length - q;
+      } else if (q>upper/(double) sorted.length) {
+        error = q - upper/(double) sorted.length;
+      }
+      maxError = Math.max(maxError, error);
+
+      assertEquals(sketch.getRank(quantile), upper/(double) sorted.length, RANK_ERROR);
+    }
+    return maxError;
+  }
+
+  /**
+   * @param sorted
+   * @param value
+   * @return number of values, that are less than {@code value}.
+   */
+  private static int lowerBound(double[] sorted, double value) {
+    int lower = 0, upper = sorted.length;
+    while (lower<upper) {
+      int middle = (lower+upper) >>> 1;
+      if (sorted[middle]<value) {
+        lower = middle + 1;
+      } else {
+        upper = middle;
+      }
+    }
+    return lower;
+  }
+
+  /**
+   * Test method for {@link QuantileSketch#getQuantile(double)}.
+   */
+  @Test
+  public void testGetQuantile() {
+    QuantileSketch sketch = new QuantileSketch();
+    assertTrue(Double.isNaN(sketch.getMedian()));
+    sketch.add(3, Double.NaN, 1, 2);
+    assertEquals(3, sketch.getCount());
+    assertEquals(2, sketch.getMedian(), 0);
+    assertEquals(1, sketch.getQuantile(0), 0);
+    assertEquals(3, sketch.getQuantile(1), 0);
+    assertEquals(2/3d, sketch.getRank(2.5), 1E-12);
+
+    int n = 1000000;
+    Random r = new Random(1);
+    double[][] inputs = new double[3][n];
+    for (int i=0; i<n; i++) {
+      inputs[0][i] = r.nextGaussian();
+      inputs[1][i] = i; // Sorted input
+      inputs[2][i] = r.nextInt(50); // Many ties
+    }
+    for (double[] values : inputs) {
+      sketch = new QuantileSketch();
+      sketch.add(values);
+      double[] sorted = values.clone();
+      Arrays.sort(sorted);
+      double error = maxRankError(sorted, sketch);
+      assertTrue("Rank error " + error, error<RANK_ERROR);
+      assertEquals(sorted[0], sketch.getMin(), 0);
+      assertEquals(sorted[n-1], sketch.getMax(), 0);
+      assertTrue(sketch.getNumberOfRetainedValues()<1000);
+    }
+  }
+
+  /**
+   * Test method for {@link QuantileSketch#merge(QuantileSketch)}.
+   */
+  @Test
+  public void testMerge() {
+    Random r = new Random(2);
+    double[] values = new double[1000000];
+    QuantileSketch merged = new QuantileSketch();
+    merged.merge(new QuantileSketch());
+    int from = 0;
+    for (int part=1; from<values.length; part++) {
+      // Parts of different sizes and distributions
+      QuantileSketch sketch = new QuantileSketch();
+      int to = Math.min(values.length, from + part*20000);
+      for (int i=from; i<to; i++) {
+        values[i] = r.nextGaussian() * part + part;
+        sketch.add(values[i]);
+      }
+      merged.merge(sketch);
+      from = to;
+    }
+    Arrays.sort(values);
+    assertEquals(values.length, merged.getCount());
+    double error = maxRankError(values, merged);
+    assertTrue("Rank error " + error, error<RANK_ERROR);
+    assertTrue(merged.getNumberOfRetainedValues()<1000);
+  }
+
+}
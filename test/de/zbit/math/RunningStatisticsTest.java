@@ -0,0 +1,124 @@
+/*
+ * $Id$
+ * $URL$
+ * ---------------------------------------------------------------------
+ * This file is part of the SysBio API library.
+ *
+ * Copyright (C) 2009-2016 by the University of Tuebingen, Germany.
+ *
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation. A copy of the license
+ * agreement is provided in the file named "LICENSE.txt" included with
+ * this software distribution and also available online as
+ * <http://www.gnu.org/licenses/lgpl-3.0-standalone.html>.
+ * ---------------------------------------------------------------------
+ */
+package de.zbit.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @version $Rev$
+ */
+public class RunningStatisticsTest {
+
+  /**
+   * Test method for {@link RunningStatistics#add(double)}.
+   */
+  @Test
+  public void testAdd() {
+    RunningStatistics stats = new RunningStatistics();
+    assertEquals(0, stats.getCount());
+    assertTrue(Double.isNaN(stats.getMean()));
+    assertTrue(Double.isNaN(stats.getMin()));
+    assertEquals(0, stats.getVariance(), 0);
+
+    Random r = new Random(1);
+    double[] values = new double[10000];
+    for (int i=0; i<values.length; i++) {
+      values[i] = r.nextGaussian() * 3 + 5;
+      stats.add(values[i]);
+    }
+    stats.add(Double.NaN, Double.POSITIVE_INFINITY);
+    assertEquals(values.length, stats.getCount());
+    assertEquals(MathUtils.mean(values), stats.getMean(), 1E-12);
+    assertEquals(MathUtils.variance(values), stats.getVariance(), 1E-10);
+    assertEquals(MathUtils.standardDeviation(values), stats.getStandardDeviation(), 1E-10);
+    assertEquals(MathUtils.min(toList(values)), stats.getMin(), 0);
+    assertEquals(MathUtils.max(toList(values)), stats.getMax(), 0);
+  }
+
+  /**
+   * Values with a large offset, where the sum of squares loses all
+   * significant digits.
+   */
+  @Test
+  public void testStability() {
+    RunningStatistics stats = new RunningStatistics();
+    BigDecimal sum = BigDecimal.ZERO;
+    double[] values = new double[100000];
+    Random r = new Random(2);
+    for (int i=0; i<values.length; i++) {
+      values[i] = 1E9 + r.nextDouble();
+      stats.add(values[i]);
+      sum = sum.add(new BigDecimal(values[i]));
+    }
+    BigDecimal mean = sum.divide(BigDecimal.valueOf(values.length), MathContext.DECIMAL128);
+    BigDecimal squares = BigDecimal.ZERO;
+    for (double value : values) {
+      BigDecimal delta = new BigDecimal(value).subtract(mean);
+      squares = squares.add(delta.multiply(delta));
+    }
+    double variance = squares.divide(BigDecimal.valueOf(values.length-1), MathContext.DECIMAL128).doubleValue();
+    assertEquals(mean.doubleValue(), stats.getMean(), 1E-5);
+    assertEquals(variance, stats.getVariance(), variance*1E-6);
+  }
+
+  /**
+   * Test method for {@link RunningStatistics#merge(RunningStatistics)}.
+   */
+  @Test
+  public void testMerge() {
+    Random r = new Random(3);
+    RunningStatistics all = new RunningStatistics();
+    RunningStatistics merged = new RunningStatistics();
+    for (int part=0; part<8; part++) {
+      RunningStatistics stats = new RunningStatistics();
+      // Parts of different sizes and distributions
+      for (int i=part*part*100; i>0; i--) {
+        double value = r.nextGaussian() * (part+1) + part*10;
+        stats.add(value);
+        all.add(value);
+      }
+      merged.merge(stats);
+    }
+    assertEquals(all.getCount(), merged.getCount());
+    assertEquals(all.getMean(), merged.getMean(), 1E-10);
+    assertEquals(all.getVariance(), merged.getVariance(), 1E-8);
+    assertEquals(all.getMin(), merged.getMin(), 0);
+    assertEquals(all.getMax(), merged.getMax(), 0);
+  }
+
+  /**
+   * @param values
+   * @return the values as list.
+   */
+  private static List<Double> toList(double[] values) {
+    List<Double> list = new ArrayList<Double>(values.length);
+    for (double value : values) {
+      list.add(value);
+    }
+    return list;
+  }
+
+}